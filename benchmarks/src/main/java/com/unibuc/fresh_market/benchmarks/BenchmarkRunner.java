@@ -0,0 +1,23 @@
+package com.unibuc.fresh_market.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// org.openjdk.jmh.Main, but results go to target/jmh-result.json unless -rf/-rff say otherwise,
+// so two commits can be compared by diffing their result files
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(List.of("-rf", "json"));
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.addAll(List.of("-rff", "target/jmh-result.json"));
+        }
+
+        Main.main(arguments.toArray(String[]::new));
+    }
+}
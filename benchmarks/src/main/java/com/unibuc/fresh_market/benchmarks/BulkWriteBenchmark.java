@@ -0,0 +1,174 @@
+package com.unibuc.fresh_market.benchmarks;
+
+import com.unibuc.fresh_market.FreshMarketApplication;
+import com.unibuc.fresh_market.config.GeneratorProperties;
+import com.unibuc.fresh_market.config.SnapshotProperties;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.ExportJobDTO;
+import com.unibuc.fresh_market.dto.GeneratedDataDTO;
+import com.unibuc.fresh_market.dto.SnapshotDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.DataGeneratorService.DataGeneratorServiceImplementation;
+import com.unibuc.fresh_market.service.ExportService.ExportDataset;
+import com.unibuc.fresh_market.service.ExportService.ExportFormat;
+import com.unibuc.fresh_market.service.ExportService.ExportService;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotService;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotServiceImplementation;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// throughput of the bulk paths: order lines written one by one vs in batches, the export, the snapshot and the generator,
+// one operation is one whole write, so rows per second is rows / score
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkWriteBenchmark {
+
+    // order lines per write
+    @Param({"2000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductOrderService productOrderService;
+    private ExportService exportService;
+    private SnapshotService snapshotService;
+    private JdbcTemplate jdbcTemplate;
+    private Path directory;
+    private int maxProductOrderId;
+    private List<ProductOrder> orderLines;
+    private GeneratorProperties generatorProperties;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        directory = Files.createTempDirectory("fresh-market-bulk-write");
+
+        // command line arguments, so they win over application.properties
+        context = new SpringApplicationBuilder(FreshMarketApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:bulk-write;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--generator.enabled=true",
+                "--generator.orders=10000",
+                "--export.directory=" + directory.resolve("export"),
+                "--snapshot.directory=" + directory.resolve("snapshot"));
+        productOrderService = context.getBean(ProductOrderService.class);
+        exportService = context.getBean(ExportService.class);
+        snapshotService = context.getBean(SnapshotService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        maxProductOrderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM product_order", Integer.class);
+
+        Order order = context.getBean(OrderRepository.class).findAll().getFirst();
+        Product product = context.getBean(ProductRepository.class).findAll().getFirst();
+        orderLines = IntStream.range(0, rows)
+                .mapToObj(i -> ProductOrder.builder().order(order).product(product).quantity(1 + i % 5).build())
+                .toList();
+
+        // the generator's defaults scaled down, so one run fits in an invocation
+        generatorProperties = new GeneratorProperties();
+        generatorProperties.setUsers(500);
+        generatorProperties.setFarms(20);
+        generatorProperties.setProducts(200);
+        generatorProperties.setProductsPerFarm(10);
+        generatorProperties.setOrders(5000);
+        generatorProperties.setReviews(1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    // keeps the order lines table at its generated size and the disk free from one iteration to the next
+    @TearDown(Level.Iteration)
+    public void deleteWrittenRows() throws IOException {
+        jdbcTemplate.update("DELETE FROM product_order WHERE id > ?", maxProductOrderId);
+        FileSystemUtils.deleteRecursively(directory.resolve("snapshot"));
+    }
+
+    // the generator only fills an empty database, so every run gets a freshly migrated one
+    @State(Scope.Thread)
+    public static class EmptyDatabase {
+        private DriverManagerDataSource dataSource;
+
+        @Setup(Level.Invocation)
+        public void migrate() {
+            dataSource = new DriverManagerDataSource("jdbc:h2:mem:bulk-write-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        }
+
+        @TearDown(Level.Invocation)
+        public void drop() {
+            new JdbcTemplate(dataSource).execute("SHUTDOWN");
+        }
+    }
+
+    @Benchmark
+    public int writeOrderLinesRowByRow() {
+        orderLines.forEach(orderLine -> productOrderService.createProductOrder(copyOf(orderLine)));
+        return orderLines.size();
+    }
+
+    @Benchmark
+    public int writeOrderLinesInBulk() {
+        return productOrderService.createProductOrders(orderLines.stream().map(this::copyOf).toList()).size();
+    }
+
+    @Benchmark
+    public ExportJobDTO exportOrderLines() {
+        return exportService.runExport(ExportDataset.PRODUCT_ORDER, ExportFormat.NDJSON);
+    }
+
+    @Benchmark
+    public SnapshotDTO writeSnapshot() throws IOException {
+        return snapshotService.writeSnapshot();
+    }
+
+    @Benchmark
+    public GeneratedDataDTO generate(EmptyDatabase emptyDatabase) {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(emptyDatabase.dataSource);
+        SnapshotServiceImplementation emptySnapshotService = new SnapshotServiceImplementation(new SnapshotProperties(), emptyDatabase.dataSource, transactionManager);
+        return new DataGeneratorServiceImplementation(generatorProperties, emptyDatabase.dataSource, transactionManager,
+                NoOpPasswordEncoder.getInstance(), emptySnapshotService).generate();
+    }
+
+    // a saved entity gets its id, so every write needs fresh instances
+    private ProductOrder copyOf(ProductOrder orderLine) {
+        return ProductOrder.builder().order(orderLine.getOrder()).product(orderLine.getProduct()).quantity(orderLine.getQuantity()).build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.unibuc.fresh_market.benchmarks;
+
+import com.unibuc.fresh_market.domain.Category;
+import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.domain.security.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// in-memory entity graphs shaped like the ones the controllers load, no database involved
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static Farm farm(int id) {
+        User owner = User.builder().id(id).username("farmer" + id).email("farmer" + id + "@fresh-market.test")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z4iD1nlxOBgnf8Ewns1u7V3a").build();
+        Farm farm = Farm.builder().id(id).name("Farm " + id).address(id + " Market Street").user(owner)
+                .reviews(new ArrayList<>()).productFarms(new ArrayList<>()).orders(new ArrayList<>()).build();
+        owner.setFarm(farm);
+        return farm;
+    }
+
+    // orders of one farm, each with its customer, delivery and lines pointing at a shared product catalog
+    static List<Order> orders(int count, int linesPerOrder) {
+        Farm farm = farm(1);
+        Category category = Category.builder().id(1).name("Fruits").description("Fresh fruits").build();
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            products.add(Product.builder().id(i).name("Product " + i).description("Generated product " + i)
+                    .price(0.5 + i).category(category).build());
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            User customer = User.builder().id(1000 + id).username("user" + id).email("user" + id + "@fresh-market.test").build();
+            Order order = Order.builder().id(id).status("Delivered").totalAmount(12.5 * id).createdAt(new Date())
+                    .user(customer).farm(farm).productOrders(new ArrayList<>()).build();
+            order.setDelivery(Delivery.builder().id(id).deliveryStatus("Delivered").deliveryDate(new Date()).order(order).build());
+
+            for (int line = 0; line < linesPerOrder; line++) {
+                Product product = products.get((id + line) % products.size());
+                order.getProductOrders().add(ProductOrder.builder().id(id * linesPerOrder + line).order(order)
+                        .product(product).quantity(1 + line).notes("line " + line).build());
+            }
+            orders.add(order);
+        }
+
+        return orders;
+    }
+}
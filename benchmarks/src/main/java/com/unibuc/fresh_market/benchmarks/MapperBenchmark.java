@@ -0,0 +1,75 @@
+package com.unibuc.fresh_market.benchmarks;
+
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.FarmDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.FarmMapper;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the entity to DTO step every controller response goes through
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    // one page of GET /orders
+    @Param({"100"})
+    private int pageSize;
+
+    private final FarmMapper farmMapper = Mappers.getMapper(FarmMapper.class);
+    private final OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+    private final ProductOrderMapper productOrderMapper = Mappers.getMapper(ProductOrderMapper.class);
+
+    private Farm farm;
+    private List<Order> orders;
+    private ProductOrder productOrder;
+
+    @Setup
+    public void createGraphs() {
+        farm = Fixtures.farm(1);
+        orders = Fixtures.orders(pageSize, 5);
+        productOrder = orders.getFirst().getProductOrders().getFirst();
+    }
+
+    @Benchmark
+    public FarmDTO mapFarm() {
+        return farmMapper.mapToDTO(farm);
+    }
+
+    @Benchmark
+    public OrderDTO mapOrder() {
+        return orderMapper.mapToDTO(orders.getFirst());
+    }
+
+    @Benchmark
+    public List<OrderDTO> mapOrderPage() {
+        return orderMapper.mapToDTOs(orders);
+    }
+
+    @Benchmark
+    public ProductOrderDTO mapProductOrder() {
+        return productOrderMapper.mapToDTO(productOrder);
+    }
+}
@@ -0,0 +1,88 @@
+package com.unibuc.fresh_market.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.dto.FarmDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.mapper.FarmMapper;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// entity graphs (with their nested user, farm, delivery and lines) against the flat DTOs the API returns
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100"})
+    private int pageSize;
+
+    @Param({"5"})
+    private int linesPerOrder;
+
+    // configured like the ObjectMapper Spring Boot gives the controllers
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Farm farm;
+    private FarmDTO farmDTO;
+    private List<Order> orders;
+    private List<OrderDTO> orderDTOs;
+
+    @Setup
+    public void createGraphs() {
+        farm = Fixtures.farm(1);
+        farmDTO = Mappers.getMapper(FarmMapper.class).mapToDTO(farm);
+        orders = Fixtures.orders(pageSize, linesPerOrder);
+        orderDTOs = Mappers.getMapper(OrderMapper.class).mapToDTOs(orders);
+    }
+
+    @Benchmark
+    public byte[] farmEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(farm);
+    }
+
+    @Benchmark
+    public byte[] farmDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(farmDTO);
+    }
+
+    @Benchmark
+    public byte[] orderEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orders.getFirst());
+    }
+
+    @Benchmark
+    public byte[] orderDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderDTOs.getFirst());
+    }
+
+    @Benchmark
+    public byte[] orderPageEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] orderPageDtos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderDTOs);
+    }
+}
@@ -0,0 +1,77 @@
+package com.unibuc.fresh_market.benchmarks;
+
+import com.unibuc.fresh_market.FreshMarketApplication;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import com.unibuc.fresh_market.service.ReviewService.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// the real service beans on an embedded H2 database filled by the data generator (GeneratorProperties)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"20000"})
+    private int orders;
+
+    @Param({"100"})
+    private int farms;
+
+    private ConfigurableApplicationContext context;
+    private ProductOrderService productOrderService;
+    private ReviewService reviewService;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // command line arguments, so they win over application.properties
+        context = new SpringApplicationBuilder(FreshMarketApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--generator.enabled=true",
+                "--generator.users=" + orders / 10,
+                "--generator.farms=" + farms,
+                "--generator.products=" + orders / 20,
+                "--generator.orders=" + orders,
+                "--generator.reviews=" + orders / 5);
+        productOrderService = context.getBean(ProductOrderService.class);
+        reviewService = context.getBean(ReviewService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public double calculateTotalOrderValue() {
+        return productOrderService.calculateTotalOrderValue(ThreadLocalRandom.current().nextInt(1, orders + 1));
+    }
+
+    @Benchmark
+    public double calculateAverageRatingByFarmId() {
+        return reviewService.calculateAverageRatingByFarmId(ThreadLocalRandom.current().nextInt(1, farms + 1));
+    }
+}
@@ -0,0 +1,225 @@
+package com.unibuc.fresh_market.benchmarks;
+
+import com.unibuc.fresh_market.FreshMarketApplication;
+import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.dto.CheckoutItemDTO;
+import com.unibuc.fresh_market.dto.CheckoutRequestDTO;
+import com.unibuc.fresh_market.service.CheckoutService.CheckoutService;
+import com.unibuc.fresh_market.service.ProductFarmService.InsufficientStockException;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// every thread is a buyer of the same few stock rows of one farm, like a harvest drop: each call buys one unit of each,
+// the strategy decides how the stock is taken and after every iteration the sold units are checked against the database
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class StockContentionBenchmark {
+    private static final int FARM_ID = 1;
+    private static final int MAX_ATTEMPTS = 10;
+
+    // checkout: the whole production purchase, conditional-update: only its stock reservation,
+    // optimistic-version: read, check and write back under the row's @Version, retried on conflicts,
+    // pessimistic-lock: read with SELECT ... FOR UPDATE, then check and write back
+    @Param({"checkout", "conditional-update", "optimistic-version", "pessimistic-lock"})
+    private String strategy;
+
+    // units per row at the start of every iteration, the small one sells out and exercises the last units
+    @Param({"1000000", "100"})
+    private int stock;
+
+    // stock rows per basket
+    @Param({"2"})
+    private int lines;
+
+    private ConfigurableApplicationContext context;
+    private CheckoutService checkoutService;
+    private ProductFarmService productFarmService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private int users;
+    private List<Integer> productFarmIds;
+    private Map<Integer, Integer> basket;
+    private final LongAdder basketsSold = new LongAdder();
+
+    // reported next to the score, as events per millisecond in the throughput mode
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long commits;
+        public long retries;
+        public long soldOut;
+        public long aborts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            commits = 0;
+            retries = 0;
+            soldOut = 0;
+            aborts = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // command line arguments, so they win over application.properties
+        context = new SpringApplicationBuilder(FreshMarketApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:stock-contention;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=32",
+                "--generator.enabled=true",
+                "--generator.orders=1000",
+                "--generator.reviews=100");
+        checkoutService = context.getBean(CheckoutService.class);
+        productFarmService = context.getBean(ProductFarmService.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        users = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+
+        productFarmIds = jdbcTemplate.queryForList(
+                "SELECT id FROM product_farm WHERE farm_id = ? ORDER BY product_id LIMIT ?", Integer.class, FARM_ID, lines);
+        basket = new LinkedHashMap<>();
+        jdbcTemplate.queryForList("SELECT product_id FROM product_farm WHERE farm_id = ? ORDER BY product_id LIMIT ?",
+                Integer.class, FARM_ID, lines).forEach(productId -> basket.put(productId, 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        // through the service, so product_availability follows, and with the row's notes, which the update replaces too
+        for (Integer productFarmId : productFarmIds) {
+            ProductFarm productFarm = productFarmService.getProductFarmById(productFarmId).orElseThrow();
+            productFarmService.updateProductFarm(productFarmId, ProductFarm.builder()
+                    .quantity(stock)
+                    .notes(productFarm.getNotes())
+                    .build(), null);
+        }
+        basketsSold.reset();
+    }
+
+    // the oversell detector: every row lost exactly what was sold and none went below zero
+    @TearDown(Level.Iteration)
+    public void checkNothingOversold() {
+        for (Integer productFarmId : productFarmIds) {
+            int quantity = jdbcTemplate.queryForObject("SELECT quantity FROM product_farm WHERE id = ?", Integer.class, productFarmId);
+            long sold = basketsSold.sum();
+            if (quantity < 0 || sold > stock || stock - quantity != sold) {
+                throw new IllegalStateException("Stock row " + productFarmId + " started with " + stock + " units, "
+                        + sold + " were sold and " + quantity + " are left, using " + strategy);
+            }
+        }
+    }
+
+    @Benchmark
+    public void purchase(Outcomes outcomes) {
+        try {
+            switch (strategy) {
+                case "checkout" -> checkout();
+                case "conditional-update" -> productFarmService.reserveStock(FARM_ID, basket);
+                case "optimistic-version" -> reserveOptimistically(outcomes);
+                case "pessimistic-lock" -> reservePessimistically();
+                default -> throw new IllegalArgumentException("Unknown strategy: " + strategy);
+            }
+            outcomes.commits++;
+            basketsSold.increment();
+        } catch (InsufficientStockException e) {
+            // every other failure, an IllegalStateException from a bug included, is an abort
+            outcomes.soldOut++;
+        } catch (RuntimeException e) {
+            outcomes.aborts++;
+        }
+    }
+
+    private void checkout() {
+        checkoutService.checkout(CheckoutRequestDTO.builder()
+                .userId(ThreadLocalRandom.current().nextInt(1, users + 1))
+                .farmId(FARM_ID)
+                .items(basket.keySet().stream()
+                        .map(productId -> CheckoutItemDTO.builder().productId(productId).quantity(1).build())
+                        .toList())
+                .build());
+    }
+
+    private void reserveOptimistically(Outcomes outcomes) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Integer productFarmId : productFarmIds) {
+                        ProductFarm productFarm = productFarmService.getProductFarmById(productFarmId).orElseThrow();
+                        takeOne(productFarmId, productFarm, productFarm.getVersion());
+                    }
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                outcomes.retries++;
+            }
+        }
+    }
+
+    private void reservePessimistically() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Integer productFarmId : productFarmIds) {
+                ProductFarm productFarm = entityManager.find(ProductFarm.class, productFarmId, LockModeType.PESSIMISTIC_WRITE);
+                takeOne(productFarmId, productFarm, null);
+            }
+        });
+    }
+
+    private void takeOne(Integer productFarmId, ProductFarm productFarm, Long expectedVersion) {
+        if (productFarm.getQuantity() < 1) {
+            throw new InsufficientStockException(productFarm.getProduct().getId(), FARM_ID);
+        }
+
+        productFarmService.updateProductFarm(productFarmId, ProductFarm.builder()
+                .quantity(productFarm.getQuantity() - 1)
+                .notes(productFarm.getNotes())
+                .build(), expectedVersion);
+    }
+}
@@ -0,0 +1,16 @@
+package com.unibuc.fresh_market.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "backpressure")
+public class BackpressureProperties {
+    // requests served at once on virtual threads, a few times the connection pool so most of them hold a connection
+    private int maxConcurrentRequests = 50;
+
+    // how long a request past the limit waits for a slot before it is turned away with a 503
+    private Duration acquireTimeout = Duration.ofMillis(500);
+}
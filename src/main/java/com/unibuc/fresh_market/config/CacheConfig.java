@@ -0,0 +1,40 @@
+package com.unibuc.fresh_market.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String FARMS = "farms";
+    public static final String ROLES = "roles";
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.from(cacheProperties.getDefaultSpec()).recordStats());
+
+        Set<String> cacheNames = new LinkedHashSet<>(List.of(PRODUCTS, CATEGORIES, FARMS, ROLES));
+        cacheNames.addAll(cacheProperties.getSpecs().keySet());
+        for (String cacheName : cacheNames) {
+            String spec = cacheProperties.getSpecs().getOrDefault(cacheName, cacheProperties.getDefaultSpec());
+            cacheManager.registerCustomCache(cacheName, Caffeine.from(spec).recordStats().build());
+        }
+
+        // puts and evictions issued inside a transaction only reach the cache once it commits
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,16 @@
+package com.unibuc.fresh_market.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    // Caffeine spec strings, e.g. "maximumSize=1000,expireAfterWrite=10m"
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m";
+
+    private Map<String, String> specs = new LinkedHashMap<>();
+}
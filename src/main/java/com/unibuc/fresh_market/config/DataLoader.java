@@ -6,10 +6,17 @@ import com.unibuc.fresh_market.domain.security.User;
 import com.unibuc.fresh_market.repository.*;
 import com.unibuc.fresh_market.repository.security.RoleRepository;
 import com.unibuc.fresh_market.repository.security.UserRepository;
+import com.unibuc.fresh_market.service.DataGeneratorService.DataGeneratorService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import com.unibuc.fresh_market.service.FarmService.FarmService;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import com.unibuc.fresh_market.service.ReviewService.ReviewService;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Paths;
 import java.util.Date;
 import java.util.List;
 
@@ -26,13 +33,25 @@ public class DataLoader implements CommandLineRunner {
     private final DeliveryRepository deliveryRepository;
     private final ProductOrderRepository productOrderRepository;
     private final ReviewRepository reviewRepository;
+    private final FarmService farmService;
+    private final ReviewService reviewService;
+    private final ProductFarmService productFarmService;
+    private final SnapshotService snapshotService;
+    private final SnapshotProperties snapshotProperties;
+    private final DataGeneratorService dataGeneratorService;
+    private final GeneratorProperties generatorProperties;
+    private final FarmReportService farmReportService;
 
     public DataLoader(RoleRepository roleRepository, UserRepository userRepository,
                       PasswordEncoder passwordEncoder, FarmRepository farmRepository,
                       ProductRepository productRepository, ProductFarmRepository productFarmRepository,
                       CategoryRepository categoryRepository, OrderRepository orderRepository,
                       DeliveryRepository deliveryRepository, ProductOrderRepository productOrderRepository,
-                      ReviewRepository reviewRepository
+                      ReviewRepository reviewRepository, FarmService farmService,
+                      ReviewService reviewService, ProductFarmService productFarmService,
+                      SnapshotService snapshotService, SnapshotProperties snapshotProperties,
+                      DataGeneratorService dataGeneratorService, GeneratorProperties generatorProperties,
+                      FarmReportService farmReportService
                       ) {
         this.roleRepository = roleRepository;
         this.userRepository = userRepository;
@@ -45,6 +64,14 @@ public class DataLoader implements CommandLineRunner {
         this.deliveryRepository = deliveryRepository;
         this.productOrderRepository = productOrderRepository;
         this.reviewRepository = reviewRepository;
+        this.farmService = farmService;
+        this.reviewService = reviewService;
+        this.productFarmService = productFarmService;
+        this.snapshotService = snapshotService;
+        this.snapshotProperties = snapshotProperties;
+        this.dataGeneratorService = dataGeneratorService;
+        this.generatorProperties = generatorProperties;
+        this.farmReportService = farmReportService;
     }
 
 
@@ -93,6 +120,9 @@ public class DataLoader implements CommandLineRunner {
 
         productFarmRepository.saveAll(List.of(farm1Apples, farm2Carrots, farm3Milk));
 
+        // Seed the maintained stock counters
+        List.of(apples, carrots, milk).forEach(product -> productFarmService.rebuildAvailabilityByProductId(product.getId()));
+
         // Create Orders
         Order order1 = Order.builder()
                 .status("Pending")
@@ -117,6 +147,9 @@ public class DataLoader implements CommandLineRunner {
                 .build();
         orderRepository.saveAll(List.of(order1, order2, order3));
 
+        // Seed the maintained farm sales totals
+        List.of(user1Farm, user2Farm, user3Farm).forEach(farm -> farmService.rebuildSalesByFarmId(farm.getId()));
+
         // Create Deliveries
         Delivery delivery1 = Delivery.builder().deliveryStatus("In Progress").deliveryDate(new Date()).order(order1).build();
         Delivery delivery2 = Delivery.builder().deliveryStatus("Delivered").deliveryDate(new Date()).order(order2).build();
@@ -125,9 +158,9 @@ public class DataLoader implements CommandLineRunner {
         deliveryRepository.saveAll(List.of(delivery1, delivery2, delivery3));
 
         // Create ProductOrders
-        ProductOrder productOrder1 = ProductOrder.builder().order(order1).product(apples).quantity(10).notes("For family").build();
-        ProductOrder productOrder2 = ProductOrder.builder().order(order2).product(carrots).quantity(20).notes("Bulk order").build();
-        ProductOrder productOrder3 = ProductOrder.builder().order(order3).product(milk).quantity(30).notes("Daily delivery").build();
+        ProductOrder productOrder1 = ProductOrder.builder().order(order1).product(apples).quantity(10).unitPrice(apples.getPrice()).notes("For family").build();
+        ProductOrder productOrder2 = ProductOrder.builder().order(order2).product(carrots).quantity(20).unitPrice(carrots.getPrice()).notes("Bulk order").build();
+        ProductOrder productOrder3 = ProductOrder.builder().order(order3).product(milk).quantity(30).unitPrice(milk.getPrice()).notes("Daily delivery").build();
 
         productOrderRepository.saveAll(List.of(productOrder1, productOrder2, productOrder3));
 
@@ -137,10 +170,32 @@ public class DataLoader implements CommandLineRunner {
         Review review3 = Review.builder().rating(3).content("Milk was okay.").user(user3).farm(user3Farm).build();
 
         reviewRepository.saveAll(List.of(review1, review2, review3));
+
+        // Seed the maintained rating aggregates
+        List.of(user1Farm, user2Farm, user3Farm).forEach(farm -> reviewService.rebuildRatingByFarmId(farm.getId()));
     }
 
     @Override
     public void run(String... args) throws Exception {
+        // the schema outlives restarts now that it comes from migrations, so only seed an empty database
+        if (roleRepository.count() > 0) {
+            return;
+        }
+
+        // staging environments boot from a snapshot of a real dataset instead of the demo data
+        if (snapshotProperties.getRestoreFrom() != null) {
+            snapshotService.restoreSnapshot(Paths.get(snapshotProperties.getRestoreFrom()));
+            farmReportService.invalidateAllMonthlyReports();
+            return;
+        }
+
+        // load tests run against a generated dataset of the configured size (the loadtest profile)
+        if (generatorProperties.isEnabled()) {
+            dataGeneratorService.generate();
+            farmReportService.invalidateAllMonthlyReports();
+            return;
+        }
+
         loadInitialUserData();
     }
 }
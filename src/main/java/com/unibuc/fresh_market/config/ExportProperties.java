@@ -0,0 +1,14 @@
+package com.unibuc.fresh_market.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "export")
+public class ExportProperties {
+    // where the compressed export files and their checkpoints are written
+    private String directory = "exports";
+
+    // rows per read-only transaction, progress is checkpointed after each segment
+    private int segmentSize = 50000;
+}
@@ -0,0 +1,9 @@
+package com.unibuc.fresh_market.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ExportProperties.class, ReportProperties.class, SnapshotProperties.class, GeneratorProperties.class})
+public class FeaturePropertiesConfig {
+}
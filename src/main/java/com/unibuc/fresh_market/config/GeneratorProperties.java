@@ -0,0 +1,51 @@
+package com.unibuc.fresh_market.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDate;
+
+@Data
+@ConfigurationProperties(prefix = "generator")
+public class GeneratorProperties {
+    // DataLoader generates this dataset instead of the demo data, switched on by the loadtest profile
+    private boolean enabled = false;
+
+    // the same seed and sizes always produce the same rows
+    private long seed = 42;
+
+    private int users = 1000;
+
+    private int farms = 50;
+
+    private int categories = 10;
+
+    private int products = 500;
+
+    private int productsPerFarm = 20;
+
+    private int orders = 10000;
+
+    private int maxLinesPerOrder = 5;
+
+    private int reviews = 2000;
+
+    // the first hotFarmRatio of the farms receive hotFarmShare of the orders and reviews
+    private double hotFarmRatio = 0.05;
+
+    private double hotFarmShare = 0.5;
+
+    // Zipf exponent of product popularity, 0 picks products uniformly
+    private double productSkew = 1.1;
+
+    // orders are spread over the days before this date
+    private LocalDate until = LocalDate.of(2025, 1, 1);
+
+    private int days = 365;
+
+    // rows per insert batch and transaction, batches of a table are inserted in parallel
+    private int batchSize = 5000;
+
+    // every generated user gets this password, hashed once
+    private String password = "1234";
+}
@@ -0,0 +1,16 @@
+package com.unibuc.fresh_market.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.ZoneId;
+
+@Data
+@ConfigurationProperties(prefix = "report")
+public class ReportProperties {
+    // finished monthly farm reports, one CSV per farm and closed month
+    private String directory = "reports";
+
+    // where a month starts and ends, the farms' local time rather than whichever zone the JVM happens to run in
+    private ZoneId zone = ZoneId.of("UTC");
+}
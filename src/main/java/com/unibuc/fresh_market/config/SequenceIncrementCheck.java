@@ -0,0 +1,43 @@
+package com.unibuc.fresh_market.config;
+
+import com.unibuc.fresh_market.domain.PooledSequenceGenerator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Objects;
+
+// the pooled-lo optimizer takes every sequence value as the start of a block of allocation_size ids, a sequence that steps
+// by anything else hands out overlapping or skipped blocks, so the application refuses to start instead
+@Component
+public class SequenceIncrementCheck implements SmartInitializingSingleton {
+    private static final String SEQUENCE_INCREMENTS = "SELECT sequence_name, increment FROM information_schema.sequences " +
+            "WHERE sequence_schema = CURRENT_SCHEMA ORDER BY sequence_name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int allocationSize;
+
+    public SequenceIncrementCheck(DataSource dataSource, JpaProperties jpaProperties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        String setting = jpaProperties.getProperties().get(PooledSequenceGenerator.ALLOCATION_SIZE_SETTING);
+        this.allocationSize = setting != null ? Integer.parseInt(setting.trim()) : PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE;
+    }
+
+    // after every singleton, so the migrations have run, and before DataLoader inserts the first row
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> mismatches = jdbcTemplate.query(SEQUENCE_INCREMENTS, (resultSet, row) -> {
+            long increment = Long.parseLong(resultSet.getString(2).trim());
+            return increment != allocationSize ? resultSet.getString(1) + " increments by " + increment : null;
+        }).stream().filter(Objects::nonNull).toList();
+
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("spring.jpa.properties." + PooledSequenceGenerator.ALLOCATION_SIZE_SETTING + " is "
+                    + allocationSize + " but " + String.join(", ", mismatches)
+                    + ", the allocation size has to equal the increment the migrations give the sequences");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.unibuc.fresh_market.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// times every public method of the *ServiceImplementation beans, the timer of a method is registered on its first call
+// and reused, so a call only adds two nanoTime reads and a record
+public class ServiceTimingInterceptor implements MethodInterceptor {
+    public static final String METRIC = "service.method";
+    private static final String NO_EXCEPTION = "none";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    public ServiceTimingInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        String exception = NO_EXCEPTION;
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timerOf(invocation, exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timerOf(MethodInvocation invocation, String exception) {
+        if (!NO_EXCEPTION.equals(exception)) {
+            return register(invocation, exception);
+        }
+
+        Timer timer = timers.get(invocation.getMethod());
+        return timer != null ? timer : timers.computeIfAbsent(invocation.getMethod(), method -> register(invocation, NO_EXCEPTION));
+    }
+
+    private Timer register(MethodInvocation invocation, String exception) {
+        // the registry is looked up lazily, advisors are created before the meter registry is ready
+        if (meterRegistry == null) {
+            meterRegistry = meterRegistryProvider.getObject();
+        }
+
+        return Timer.builder(METRIC)
+                .description("Time spent in a service method, including its transaction")
+                .tag("class", AopUtils.getTargetClass(invocation.getThis()).getSimpleName())
+                .tag("method", invocation.getMethod().getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
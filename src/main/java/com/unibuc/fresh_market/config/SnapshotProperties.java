@@ -0,0 +1,17 @@
+package com.unibuc.fresh_market.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "snapshot")
+public class SnapshotProperties {
+    // where POST /snapshots writes the binary snapshot files
+    private String directory = "snapshots";
+
+    // snapshot file restored by DataLoader instead of the demo data when the database is empty
+    private String restoreFrom;
+
+    // rows per insert batch while restoring, the whole restore is one transaction
+    private int batchSize = 5000;
+}
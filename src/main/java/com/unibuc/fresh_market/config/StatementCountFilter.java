@@ -0,0 +1,51 @@
+package com.unibuc.fresh_market.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hibernate statements per request by route template, so an N+1 shows up as a jump in one route's distribution;
+// statements of a streamed response run after the request thread is released and are not counted
+public class StatementCountFilter extends OncePerRequestFilter {
+    public static final String METRIC = "hibernate.request.statements";
+    private static final String UNKNOWN_ROUTE = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public StatementCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            summaryOf(request).record(StatementCounter.count());
+        }
+    }
+
+    private DistributionSummary summaryOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : UNKNOWN_ROUTE;
+
+        DistributionSummary summary = summaries.get(route);
+        return summary != null ? summary : summaries.computeIfAbsent(route, uri -> DistributionSummary.builder(METRIC)
+                .description("SQL statements Hibernate prepared while serving a request")
+                .baseUnit("statements")
+                .tag("uri", uri)
+                .register(meterRegistry));
+    }
+}
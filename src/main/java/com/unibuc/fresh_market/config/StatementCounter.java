@@ -0,0 +1,22 @@
+package com.unibuc.fresh_market.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// counts the SQL statements Hibernate prepares on the current thread, StatementCountFilter reads it once per request
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    static void reset() {
+        STATEMENTS.get()[0] = 0;
+    }
+
+    static int count() {
+        return STATEMENTS.get()[0];
+    }
+}
@@ -0,0 +1,29 @@
+package com.unibuc.fresh_market.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// spring.threads.virtual.enabled (the virtual-threads profile) moves Tomcat requests, MVC async streaming and the
+// export jobs onto virtual threads, this adds the backpressure that the platform thread pools used to give
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(BackpressureProperties.class)
+public class VirtualThreadsConfig {
+
+    @Bean
+    public BackpressureFilter backpressureFilter(BackpressureProperties backpressureProperties) {
+        return new BackpressureFilter(backpressureProperties);
+    }
+
+    @Bean
+    public FilterRegistrationBean<BackpressureFilter> backpressureFilterRegistration(BackpressureFilter backpressureFilter) {
+        FilterRegistrationBean<BackpressureFilter> registration = new FilterRegistrationBean<>(backpressureFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,42 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.CacheStatsDTO;
+import com.unibuc.fresh_market.service.CacheStatsService.CacheStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@Tag(name = "Cache controller")
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+    private final CacheStatsService cacheStatsService;
+
+    @Autowired
+    public CacheController(CacheStatsService cacheStatsService) {
+        this.cacheStatsService = cacheStatsService;
+    }
+
+    @Operation(summary = "Get hit, miss and eviction statistics for every cache")
+    @GetMapping("/stats")
+    public ResponseEntity<?> getAllCacheStats() {
+        List<CacheStatsDTO> cacheStats = cacheStatsService.getAllCacheStats();
+        return ResponseEntity.ok(cacheStats);
+    }
+
+    @Operation(summary = "Get hit, miss and eviction statistics for a cache")
+    @GetMapping("/stats/{cacheName}")
+    public ResponseEntity<?> getCacheStats(@PathVariable String cacheName) {
+        Optional<CacheStatsDTO> cacheStats = cacheStatsService.getCacheStats(cacheName);
+        if (cacheStats.isPresent()) {
+            return ResponseEntity.ok(cacheStats.get());
+        }
+
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -2,14 +2,21 @@ package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.Category;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.mapper.CategoryMapper;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
 import com.unibuc.fresh_market.service.CategoryService.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,10 +26,17 @@ import java.util.Optional;
 @RequestMapping("/categories")
 public class CategoryController {
     private final CategoryService categoryService;
+    private final CatalogVersionService catalogVersionService;
+    private final CategoryMapper categoryMapper;
+    private final ProductMapper productMapper;
 
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersionService catalogVersionService,
+                              CategoryMapper categoryMapper, ProductMapper productMapper) {
         this.categoryService = categoryService;
+        this.catalogVersionService = catalogVersionService;
+        this.categoryMapper = categoryMapper;
+        this.productMapper = productMapper;
     }
 
     @Operation(summary = "Create a new category")
@@ -33,14 +47,18 @@ public class CategoryController {
         }
 
         Category createdCategory = categoryService.createCategory(category);
-        return ResponseEntity.ok(createdCategory);
+        return ResponseEntity.ok(categoryMapper.mapToDTO(createdCategory));
     }
 
     @Operation(summary = "Get all categories")
     @GetMapping
-    public ResponseEntity<?> getAllCategories() {
+    public ResponseEntity<?> getAllCategories(WebRequest request) {
+        if (VersionETags.isCatalogNotModified(request, catalogVersionService)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok(categoryMapper.mapToDTOs(categories));
     }
 
     @Operation(summary = "Get a category by id")
@@ -49,7 +67,7 @@ public class CategoryController {
         Integer id = Integer.parseInt(categoryId);
         Optional<Category> category = categoryService.getCategoryById(id);
         if (category.isPresent()) {
-            return ResponseEntity.ok(category.get());
+            return VersionETags.okWithETag(categoryMapper.mapToDTO(category.get()), category.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -57,15 +75,30 @@ public class CategoryController {
 
     @Operation(summary = "Update a category")
     @PutMapping("/{categoryId}")
-    public ResponseEntity<?> updateCategory(@RequestBody @Valid Category category, BindingResult bindingResult, @PathVariable String categoryId) {
+    public ResponseEntity<?> updateCategory(@RequestBody @Valid Category category, BindingResult bindingResult, @PathVariable String categoryId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(categoryId);
-        Optional<Category> updatedCategory = categoryService.updateCategory(id, category);
-        if (updatedCategory.isPresent()) {
-            return ResponseEntity.ok(updatedCategory.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<Category> updatedCategory = categoryService.updateCategory(id, category, expectedVersion);
+            if (updatedCategory.isPresent()) {
+                return VersionETags.okWithETag(categoryMapper.mapToDTO(updatedCategory.get()), updatedCategory.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -77,7 +110,7 @@ public class CategoryController {
         Integer id = Integer.parseInt(categoryId);
         Optional<Category> deletedCategory = categoryService.deleteCategory(id);
         if (deletedCategory.isPresent()) {
-            return ResponseEntity.ok(deletedCategory.get());
+            return ResponseEntity.ok(categoryMapper.mapToDTO(deletedCategory.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -85,9 +118,13 @@ public class CategoryController {
 
     @Operation(summary = "Get all products within a category")
     @GetMapping("/{categoryId}/products")
-    public ResponseEntity<?> getProductsByCategory(@PathVariable String categoryId) {
+    public ResponseEntity<?> getProductsByCategory(@PathVariable String categoryId, WebRequest request) {
+        if (VersionETags.isCatalogNotModified(request, catalogVersionService)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         Integer id = Integer.parseInt(categoryId);
         List<Product> products = categoryService.getProductsByCategoryId(id);
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(productMapper.mapToDTOs(products));
     }
 }
@@ -0,0 +1,42 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.CheckoutRequestDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.service.CheckoutService.CheckoutService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Checkout controller")
+@RestController
+@RequestMapping("/checkout")
+public class CheckoutController {
+    private final CheckoutService checkoutService;
+
+    @Autowired
+    public CheckoutController(CheckoutService checkoutService) {
+        this.checkoutService = checkoutService;
+    }
+
+    @Operation(summary = "Place an order for a basket, reserving the farm's stock in the same transaction")
+    @PostMapping
+    public ResponseEntity<?> checkout(@RequestBody @Valid CheckoutRequestDTO checkoutRequest, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body("Validation errors found!");
+        }
+
+        try {
+            OrderReceiptDTO receipt = checkoutService.checkout(checkoutRequest);
+            return ResponseEntity.ok(receipt);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
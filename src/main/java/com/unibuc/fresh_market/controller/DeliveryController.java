@@ -1,11 +1,16 @@
 package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.DeliveryDTO;
+import com.unibuc.fresh_market.mapper.DeliveryMapper;
 import com.unibuc.fresh_market.service.DeliveryService.DeliveryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +23,12 @@ import java.util.Optional;
 @RequestMapping("/deliveries")
 public class DeliveryController {
     private final DeliveryService deliveryService;
+    private final DeliveryMapper deliveryMapper;
 
     @Autowired
-    public DeliveryController(DeliveryService deliveryService) {
+    public DeliveryController(DeliveryService deliveryService, DeliveryMapper deliveryMapper) {
         this.deliveryService = deliveryService;
+        this.deliveryMapper = deliveryMapper;
     }
 
     @Operation(summary = "Create a new delivery")
@@ -32,14 +39,18 @@ public class DeliveryController {
         }
 
         Delivery createdDelivery = deliveryService.createDelivery(delivery);
-        return ResponseEntity.ok(createdDelivery);
+        return ResponseEntity.ok(deliveryMapper.mapToDTO(createdDelivery));
     }
 
-    @Operation(summary = "Get all deliveries")
+    @Operation(summary = "Get a page of deliveries, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllDeliveries() {
-        List<Delivery> deliveries = deliveryService.getAllDeliveries();
-        return ResponseEntity.ok(deliveries);
+    public ResponseEntity<?> getAllDeliveries(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<Delivery> deliveries = deliveryService.getDeliveriesPage(after, limit);
+            return ResponseEntity.ok(deliveries.map(deliveryMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
     }
 
     @Operation(summary = "Get a delivery by id")
@@ -48,7 +59,7 @@ public class DeliveryController {
         Integer id = Integer.parseInt(deliveryId);
         Optional<Delivery> delivery = deliveryService.getDeliveryById(id);
         if (delivery.isPresent()) {
-            return ResponseEntity.ok(delivery);
+            return VersionETags.okWithETag(deliveryMapper.mapToDTO(delivery.get()), delivery.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -56,15 +67,30 @@ public class DeliveryController {
 
     @Operation(summary = "Update a delivery")
     @PutMapping("/{deliveryId}")
-    public ResponseEntity<?> updateDelivery(@RequestBody @Valid Delivery delivery, BindingResult bindingResult, @PathVariable String deliveryId) {
+    public ResponseEntity<?> updateDelivery(@RequestBody @Valid Delivery delivery, BindingResult bindingResult, @PathVariable String deliveryId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(deliveryId);
-        Optional<Delivery> updatedDelivery = deliveryService.updateDelivery(id, delivery);
-        if (updatedDelivery.isPresent()) {
-            return ResponseEntity.ok(updatedDelivery);
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<Delivery> updatedDelivery = deliveryService.updateDelivery(id, delivery, expectedVersion);
+            if (updatedDelivery.isPresent()) {
+                return VersionETags.okWithETag(deliveryMapper.mapToDTO(updatedDelivery.get()), updatedDelivery.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -80,7 +106,7 @@ public class DeliveryController {
         Integer id = Integer.parseInt(deliveryId);
         Optional<Delivery> deletedDelivery = deliveryService.deleteDelivery(id);
         if (deletedDelivery.isPresent()) {
-            return ResponseEntity.ok(deletedDelivery);
+            return ResponseEntity.ok(deliveryMapper.mapToDTO(deletedDelivery.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -92,7 +118,7 @@ public class DeliveryController {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
-        List<Delivery> deliveries = deliveryService.getDeliveriesByStatus(status);
+        List<DeliveryDTO> deliveries = deliveryService.getDeliveriesByStatus(status);
         return ResponseEntity.ok(deliveries);
     }
 }
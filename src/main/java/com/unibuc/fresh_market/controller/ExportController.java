@@ -0,0 +1,74 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.ExportJobDTO;
+import com.unibuc.fresh_market.service.ExportService.ExportDataset;
+import com.unibuc.fresh_market.service.ExportService.ExportFormat;
+import com.unibuc.fresh_market.service.ExportService.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+
+@Tag(name = "Exports controller")
+@RestController
+@RequestMapping("/exports")
+public class ExportController {
+    private final ExportService exportService;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Operation(summary = "Start a gzip-compressed export of a table in the background, resuming an interrupted one")
+    @PostMapping("/{dataset}")
+    public ResponseEntity<?> startExport(@PathVariable String dataset, @RequestParam(defaultValue = "ndjson") String format) {
+        ExportDataset exportDataset;
+        ExportFormat exportFormat;
+        try {
+            exportDataset = ExportDataset.fromTableName(dataset);
+            exportFormat = ExportFormat.fromExtension(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown export!");
+        }
+
+        try {
+            ExportJobDTO job = exportService.startExport(exportDataset, exportFormat);
+            return ResponseEntity.accepted().body(job);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Get the progress of every export since startup")
+    @GetMapping
+    public ResponseEntity<?> getExports() {
+        List<ExportJobDTO> exports = exportService.getExports();
+        return ResponseEntity.ok(exports);
+    }
+
+    @Operation(summary = "Get the progress of an export: rows and bytes written, rows per second")
+    @GetMapping("/{dataset}")
+    public ResponseEntity<?> getExport(@PathVariable String dataset, @RequestParam(defaultValue = "ndjson") String format) {
+        ExportDataset exportDataset;
+        ExportFormat exportFormat;
+        try {
+            exportDataset = ExportDataset.fromTableName(dataset);
+            exportFormat = ExportFormat.fromExtension(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown export!");
+        }
+
+        Optional<ExportJobDTO> export = exportService.getExport(exportDataset, exportFormat);
+        if (export.isPresent()) {
+            return ResponseEntity.ok(export.get());
+        }
+
+        return ResponseEntity.notFound().build();
+    }
+}
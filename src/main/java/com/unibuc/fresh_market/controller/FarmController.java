@@ -1,17 +1,32 @@
 package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.Farm;
-import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.FarmSales;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.FarmDashboardDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.mapper.FarmMapper;
+import com.unibuc.fresh_market.mapper.FarmSalesMapper;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
 import com.unibuc.fresh_market.service.FarmService.FarmService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,10 +35,19 @@ import java.util.Optional;
 @RequestMapping("/farms")
 public class FarmController {
     private final FarmService farmService;
+    private final CatalogVersionService catalogVersionService;
+    private final FarmMapper farmMapper;
+    private final FarmReportService farmReportService;
+    private final FarmSalesMapper farmSalesMapper;
 
     @Autowired
-    public FarmController(FarmService farmService) {
+    public FarmController(FarmService farmService, CatalogVersionService catalogVersionService, FarmMapper farmMapper,
+                          FarmReportService farmReportService, FarmSalesMapper farmSalesMapper) {
         this.farmService = farmService;
+        this.catalogVersionService = catalogVersionService;
+        this.farmMapper = farmMapper;
+        this.farmReportService = farmReportService;
+        this.farmSalesMapper = farmSalesMapper;
     }
 
     @Operation(summary = "Create a new farm")
@@ -33,14 +57,18 @@ public class FarmController {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
         Farm createdFarm = farmService.createFarm(farm);
-        return ResponseEntity.ok(createdFarm);
+        return ResponseEntity.ok(farmMapper.mapToDTO(createdFarm));
     }
 
-    @Operation(summary = "Get all farms")
+    @Operation(summary = "Get a page of farms, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllFarms() {
-        List<Farm> farms = farmService.getAllFarms();
-        return ResponseEntity.ok(farms);
+    public ResponseEntity<?> getAllFarms(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<Farm> farms = farmService.getFarmsPage(after, limit);
+            return ResponseEntity.ok(farms.map(farmMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
     }
 
     @Operation(summary = "Get a farm by id")
@@ -49,7 +77,7 @@ public class FarmController {
         Integer id = Integer.parseInt(farmId);
         Optional<Farm> farm = farmService.getFarmById(id);
         if (farm.isPresent()) {
-            return ResponseEntity.ok(farm.get());
+            return VersionETags.okWithETag(farmMapper.mapToDTO(farm.get()), farm.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -57,15 +85,30 @@ public class FarmController {
 
     @Operation(summary = "Update a farm")
     @PutMapping("/{farmId}")
-    public ResponseEntity<?> updateFarm(@RequestBody @Valid Farm farm, @PathVariable String farmId, BindingResult bindingResult) {
+    public ResponseEntity<?> updateFarm(@RequestBody @Valid Farm farm, @PathVariable String farmId, BindingResult bindingResult, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(farmId);
-        Optional<Farm> updatedFarm = farmService.updateFarm(id, farm);
-        if (updatedFarm.isPresent()) {
-            return ResponseEntity.ok(updatedFarm.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<Farm> updatedFarm = farmService.updateFarm(id, farm, expectedVersion);
+            if (updatedFarm.isPresent()) {
+                return VersionETags.okWithETag(farmMapper.mapToDTO(updatedFarm.get()), updatedFarm.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -77,7 +120,7 @@ public class FarmController {
         Integer id = Integer.parseInt(farmId);
         Optional<Farm> deletedFarm = farmService.deleteFarm(id);
         if (deletedFarm.isPresent()) {
-            return ResponseEntity.ok(deletedFarm.get());
+            return ResponseEntity.ok(farmMapper.mapToDTO(deletedFarm.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -85,9 +128,13 @@ public class FarmController {
 
     @Operation(summary = "Get products within a farm")
     @GetMapping("/{farmId}/products")
-    public ResponseEntity<?> getFarmProducts(@PathVariable String farmId) {
+    public ResponseEntity<?> getFarmProducts(@PathVariable String farmId, WebRequest request) {
+        if (VersionETags.isCatalogNotModified(request, catalogVersionService)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         Integer id = Integer.parseInt(farmId);
-        List<Product> products = farmService.getProductsByFarmId(id);
+        List<ProductDTO> products = farmService.getProductsByFarmId(id);
         return ResponseEntity.ok(products);
     }
 
@@ -95,7 +142,7 @@ public class FarmController {
     @GetMapping("/{farmId}/orders")
     public ResponseEntity<?> getFarmOrders(@PathVariable String farmId) {
         Integer id = Integer.parseInt(farmId);
-        List<Order> orders = farmService.getOrdersByFarmId(id);
+        List<OrderDTO> orders = farmService.getOrdersByFarmId(id);
         return ResponseEntity.ok(orders);
     }
 
@@ -106,4 +153,50 @@ public class FarmController {
         double totalSales = farmService.calculateTotalSalesByFarmId(id);
         return ResponseEntity.ok(totalSales);
     }
+
+    @Operation(summary = "Recompute the total sales of a farm from its orders")
+    @PostMapping("/{farmId}/sales/rebuild")
+    public ResponseEntity<?> rebuildFarmSales(@PathVariable String farmId) {
+        Integer id = Integer.parseInt(farmId);
+        if (farmService.getFarmById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        FarmSales farmSales = farmService.rebuildSalesByFarmId(id);
+        return ResponseEntity.ok(farmSalesMapper.mapToDTO(farmSales));
+    }
+
+    @Operation(summary = "Get the sales, rating and stock dashboard of a farm")
+    @GetMapping("/{farmId}/dashboard")
+    public ResponseEntity<?> getFarmDashboard(@PathVariable String farmId) {
+        Integer id = Integer.parseInt(farmId);
+        Optional<FarmDashboardDTO> dashboard = farmService.getFarmDashboard(id);
+        if (dashboard.isPresent()) {
+            return ResponseEntity.ok(dashboard.get());
+        }
+
+        return ResponseEntity.notFound().build();
+    }
+
+    @Operation(summary = "Download a farm's monthly sales statement (yyyy-MM) as CSV, grouped by product")
+    @GetMapping(value = "/{farmId}/reports/{month}", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> getMonthlyReport(@PathVariable String farmId, @PathVariable String month) {
+        Integer id = Integer.parseInt(farmId);
+        YearMonth reportMonth;
+        try {
+            reportMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (farmService.getFarmById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody report = out -> farmReportService.writeMonthlyReport(id, reportMonth, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"farm-" + id + "-" + reportMonth + ".csv\"")
+                .body(report);
+    }
 }
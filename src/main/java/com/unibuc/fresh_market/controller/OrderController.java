@@ -1,15 +1,24 @@
 package com.unibuc.fresh_market.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.OrderMapper;
 import com.unibuc.fresh_market.service.OrderService.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,10 +28,14 @@ import java.util.Optional;
 @RequestMapping("/orders")
 public class OrderController {
     private final OrderService orderService;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderMapper orderMapper, ObjectMapper objectMapper) {
         this.orderService = orderService;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Create a new order")
@@ -32,14 +45,24 @@ public class OrderController {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
         Order createdOrder = orderService.createOrder(order);
-        return ResponseEntity.ok(createdOrder);
+        return ResponseEntity.ok(orderMapper.mapToDTO(createdOrder));
     }
 
-    @Operation(summary = "Get all orders")
+    @Operation(summary = "Get a page of orders, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<Order> orders = orderService.getOrdersPage(after, limit);
+            return ResponseEntity.ok(orders.map(orderMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
+    }
+
+    @Operation(summary = "Stream every order as newline-delimited JSON")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        return NdjsonStreams.ndjson(objectMapper, orderService::streamAllOrders);
     }
 
     @Operation(summary = "Get an order by id")
@@ -48,7 +71,7 @@ public class OrderController {
         Integer id = Integer.parseInt(orderId);
         Optional<Order> order = orderService.getOrderById(id);
         if (order.isPresent()) {
-            return ResponseEntity.ok(order.get());
+            return VersionETags.okWithETag(orderMapper.mapToDTO(order.get()), order.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -56,15 +79,30 @@ public class OrderController {
 
     @Operation(summary = "Update an order")
     @PutMapping("/{orderId}")
-    public ResponseEntity<?> updateOrder(@RequestBody @Valid Order order, BindingResult bindingResult, @PathVariable String orderId) {
+    public ResponseEntity<?> updateOrder(@RequestBody @Valid Order order, BindingResult bindingResult, @PathVariable String orderId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(orderId);
-        Optional<Order> updatedOrder = orderService.updateOrder(id, order);
-        if (updatedOrder.isPresent()) {
-            return ResponseEntity.ok(updatedOrder.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<Order> updatedOrder = orderService.updateOrder(id, order, expectedVersion);
+            if (updatedOrder.isPresent()) {
+                return VersionETags.okWithETag(orderMapper.mapToDTO(updatedOrder.get()), updatedOrder.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -76,7 +114,7 @@ public class OrderController {
         Integer id = Integer.parseInt(orderId);
         Optional<Order> deletedOrder = orderService.deleteOrder(id);
         if (deletedOrder.isPresent()) {
-            return ResponseEntity.ok(deletedOrder.get());
+            return ResponseEntity.ok(orderMapper.mapToDTO(deletedOrder.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -89,7 +127,7 @@ public class OrderController {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
-        List<Order> orders = orderService.getOrdersByStatus(status);
+        List<OrderDTO> orders = orderService.getOrdersByStatus(status);
         return ResponseEntity.ok(orders);
     }
 
@@ -97,7 +135,19 @@ public class OrderController {
     @GetMapping("/{orderId}/details")
     public ResponseEntity<?> getOrderDetails(@PathVariable String orderId) {
         Integer id = Integer.parseInt(orderId);
-        List<ProductOrder> productOrders = orderService.getOrderDetails(id);
+        List<ProductOrderDTO> productOrders = orderService.getOrderDetails(id);
         return ResponseEntity.ok(productOrders);
     }
+
+    @Operation(summary = "Get the receipt of an order with its lines and total")
+    @GetMapping("/{orderId}/receipt")
+    public ResponseEntity<?> getOrderReceipt(@PathVariable String orderId) {
+        Integer id = Integer.parseInt(orderId);
+        Optional<OrderReceiptDTO> receipt = orderService.getOrderReceipt(id);
+        if (receipt.isPresent()) {
+            return ResponseEntity.ok(receipt.get());
+        }
+
+        return ResponseEntity.notFound().build();
+    }
 }
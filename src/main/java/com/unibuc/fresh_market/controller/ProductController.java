@@ -1,15 +1,29 @@
 package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.service.BulkImportService.BulkFormat;
+import com.unibuc.fresh_market.service.BulkImportService.BulkImportService;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
 import com.unibuc.fresh_market.service.ProductService.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,10 +32,17 @@ import java.util.Optional;
 @RequestMapping("/products")
 public class ProductController {
     private final ProductService productService;
+    private final CatalogVersionService catalogVersionService;
+    private final ProductMapper productMapper;
+    private final BulkImportService bulkImportService;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CatalogVersionService catalogVersionService,
+                             ProductMapper productMapper, BulkImportService bulkImportService) {
         this.productService = productService;
+        this.catalogVersionService = catalogVersionService;
+        this.productMapper = productMapper;
+        this.bulkImportService = bulkImportService;
     }
 
     @Operation(summary = "Create a new product")
@@ -32,14 +53,33 @@ public class ProductController {
         }
 
         Product createdProduct = productService.createProduct(product);
-        return ResponseEntity.ok(createdProduct);
+        return ResponseEntity.ok(productMapper.mapToDTO(createdProduct));
     }
 
-    @Operation(summary = "Get all products")
+    @Operation(summary = "Import products from newline-delimited JSON or CSV, one row per line")
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BulkFormat.TEXT_CSV_VALUE})
+    public ResponseEntity<?> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        try {
+            BulkImportReportDTO report = bulkImportService.importProducts(body, BulkFormat.fromContentType(contentType));
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Could not read request body!");
+        }
+    }
+
+    @Operation(summary = "Get a page of products, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit, WebRequest request) {
+        if (VersionETags.isCatalogNotModified(request, catalogVersionService)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        try {
+            CursorPage<Product> products = productService.getProductsPage(after, limit);
+            return ResponseEntity.ok(products.map(productMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
     }
 
     @Operation(summary = "Get a product by id")
@@ -48,7 +88,7 @@ public class ProductController {
         Integer id = Integer.parseInt(productId);
         Optional<Product> product = productService.getProductById(id);
         if (product.isPresent()) {
-            return ResponseEntity.ok(product.get());
+            return VersionETags.okWithETag(productMapper.mapToDTO(product.get()), product.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -56,15 +96,30 @@ public class ProductController {
 
     @Operation(summary = "Update a product")
     @PutMapping("/{productId}")
-    public ResponseEntity<?> updateProduct(@RequestBody @Valid Product product, BindingResult bindingResult, @PathVariable String productId) {
+    public ResponseEntity<?> updateProduct(@RequestBody @Valid Product product, BindingResult bindingResult, @PathVariable String productId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(productId);
-        Optional<Product> updatedProduct = productService.updateProduct(id, product);
-        if (updatedProduct.isPresent()) {
-            return ResponseEntity.ok(updatedProduct.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<Product> updatedProduct = productService.updateProduct(id, product, expectedVersion);
+            if (updatedProduct.isPresent()) {
+                return VersionETags.okWithETag(productMapper.mapToDTO(updatedProduct.get()), updatedProduct.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -76,7 +131,7 @@ public class ProductController {
         Integer id = Integer.parseInt(productId);
         Optional<Product> deletedProduct = productService.deleteProduct(id);
         if (deletedProduct.isPresent()) {
-            return ResponseEntity.ok(deletedProduct.get());
+            return ResponseEntity.ok(productMapper.mapToDTO(deletedProduct.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -84,9 +139,13 @@ public class ProductController {
 
     @Operation(summary = "Get products within a farm")
     @GetMapping("/farm/{farmId}")
-    public ResponseEntity<?> getProductByFarmId(@PathVariable String farmId) {
+    public ResponseEntity<?> getProductByFarmId(@PathVariable String farmId, WebRequest request) {
+        if (VersionETags.isCatalogNotModified(request, catalogVersionService)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         Integer id = Integer.parseInt(farmId);
-        List<Product> products = productService.getProductsByFarmId(id);
+        List<ProductDTO> products = productService.getProductsByFarmId(id);
         return ResponseEntity.ok(products);
     }
 }
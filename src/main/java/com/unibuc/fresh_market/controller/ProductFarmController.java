@@ -1,15 +1,29 @@
 package com.unibuc.fresh_market.controller;
 
+import com.unibuc.fresh_market.domain.ProductAvailability;
 import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import com.unibuc.fresh_market.mapper.ProductAvailabilityMapper;
+import com.unibuc.fresh_market.mapper.ProductFarmMapper;
+import com.unibuc.fresh_market.service.BulkImportService.BulkFormat;
+import com.unibuc.fresh_market.service.BulkImportService.BulkImportService;
 import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,10 +32,17 @@ import java.util.Optional;
 @RequestMapping("/productFarms")
 public class ProductFarmController {
     private final ProductFarmService productFarmService;
+    private final ProductFarmMapper productFarmMapper;
+    private final BulkImportService bulkImportService;
+    private final ProductAvailabilityMapper productAvailabilityMapper;
 
     @Autowired
-    public ProductFarmController(ProductFarmService productFarmService) {
+    public ProductFarmController(ProductFarmService productFarmService, ProductFarmMapper productFarmMapper,
+                                 BulkImportService bulkImportService, ProductAvailabilityMapper productAvailabilityMapper) {
         this.productFarmService = productFarmService;
+        this.productFarmMapper = productFarmMapper;
+        this.bulkImportService = bulkImportService;
+        this.productAvailabilityMapper = productAvailabilityMapper;
     }
 
     @Operation(summary = "Create a new product farm relation")
@@ -31,15 +52,45 @@ public class ProductFarmController {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
-        ProductFarm createdProductFarm = productFarmService.createProductFarm(productFarm);
-        return ResponseEntity.ok(createdProductFarm);
+        try {
+            ProductFarm createdProductFarm = productFarmService.createProductFarm(productFarm);
+            return ResponseEntity.ok(productFarmMapper.mapToDTO(createdProductFarm));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 
-    @Operation(summary = "Get all product farm relations")
+    @Operation(summary = "Import product farm relations from newline-delimited JSON or CSV, one row per line, a row for an already stocked product replaces its quantity and notes")
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BulkFormat.TEXT_CSV_VALUE})
+    public ResponseEntity<?> importProductFarms(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        try {
+            BulkImportReportDTO report = bulkImportService.importProductFarms(body, BulkFormat.fromContentType(contentType));
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Could not read request body!");
+        }
+    }
+
+    @Operation(summary = "Get a page of product farm relations, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllProductFarm() {
-        List<ProductFarm> productFarms = productFarmService.getAllProductFarms();
-        return ResponseEntity.ok(productFarms);
+    public ResponseEntity<?> getAllProductFarm(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<ProductFarm> productFarms = productFarmService.getProductFarmsPage(after, limit);
+            return ResponseEntity.ok(productFarms.map(productFarmMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
+    }
+
+    @Operation(summary = "Get stock across all farms for many products at once")
+    @GetMapping("/stock")
+    public ResponseEntity<?> getStockForProducts(@RequestParam List<Integer> productIds) {
+        if (productIds.size() > CursorPage.MAX_LIMIT) {
+            return ResponseEntity.badRequest().body("Too many product ids!");
+        }
+
+        List<ProductAvailability> stock = productFarmService.getStockForProducts(productIds);
+        return ResponseEntity.ok(productAvailabilityMapper.mapToDTOs(stock));
     }
 
     @Operation(summary = "Get a product farm relation by id")
@@ -48,7 +99,7 @@ public class ProductFarmController {
         Integer id = Integer.parseInt(productFarmId);
         Optional<ProductFarm> productFarm = productFarmService.getProductFarmById(id);
         if (productFarm.isPresent()) {
-            return ResponseEntity.ok(productFarm.get());
+            return VersionETags.okWithETag(productFarmMapper.mapToDTO(productFarm.get()), productFarm.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -56,15 +107,30 @@ public class ProductFarmController {
 
     @Operation(summary = "Update a product farm relation")
     @PutMapping("/{productFarmId}")
-    public ResponseEntity<?> updateProductFarm(@RequestBody @Valid ProductFarm productFarm, @PathVariable String productFarmId, BindingResult bindingResult) {
+    public ResponseEntity<?> updateProductFarm(@RequestBody @Valid ProductFarm productFarm, @PathVariable String productFarmId, BindingResult bindingResult, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(productFarmId);
-        Optional<ProductFarm> updatedProductFarm = productFarmService.updateProductFarm(id, productFarm);
-        if (updatedProductFarm.isPresent()) {
-            return ResponseEntity.ok(updatedProductFarm.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<ProductFarm> updatedProductFarm = productFarmService.updateProductFarm(id, productFarm, expectedVersion);
+            if (updatedProductFarm.isPresent()) {
+                return VersionETags.okWithETag(productFarmMapper.mapToDTO(updatedProductFarm.get()), updatedProductFarm.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -76,7 +142,7 @@ public class ProductFarmController {
         Integer id = Integer.parseInt(productFarmId);
         Optional<ProductFarm> deletedProductFarm = productFarmService.deleteProductFarm(id);
         if (deletedProductFarm.isPresent()) {
-            return ResponseEntity.ok(deletedProductFarm.get());
+            return ResponseEntity.ok(productFarmMapper.mapToDTO(deletedProductFarm.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -86,7 +152,7 @@ public class ProductFarmController {
     @GetMapping("/farmId/{farmId}")
     public ResponseEntity<?> getProductFarmByFarmId(@PathVariable String farmId) {
         Integer id = Integer.parseInt(farmId);
-        List<ProductFarm> productFarms = productFarmService.getProductFarmsByFarmId(id);
+        List<ProductFarmDTO> productFarms = productFarmService.getProductFarmsByFarmId(id);
         return ResponseEntity.ok(productFarms);
     }
 
@@ -94,7 +160,7 @@ public class ProductFarmController {
     @GetMapping("/productId/{productId}")
     public ResponseEntity<?> getProductFarmByProductId(@PathVariable String productId) {
         Integer id = Integer.parseInt(productId);
-        List<ProductFarm> productFarms = productFarmService.getProductFarmsByProductId(id);
+        List<ProductFarmDTO> productFarms = productFarmService.getProductFarmsByProductId(id);
         return ResponseEntity.ok(productFarms);
     }
 
@@ -105,4 +171,12 @@ public class ProductFarmController {
         Integer stock = productFarmService.calculateProductStockAcrossFarms(id);
         return ResponseEntity.ok(stock);
     }
+
+    @Operation(summary = "Recompute the stock counters of a product from its farm relations")
+    @PostMapping("/productId/{productId}/stock/rebuild")
+    public ResponseEntity<?> rebuildProductStock(@PathVariable String productId) {
+        Integer id = Integer.parseInt(productId);
+        ProductAvailability productAvailability = productFarmService.rebuildAvailabilityByProductId(id);
+        return ResponseEntity.ok(productAvailabilityMapper.mapToDTO(productAvailability));
+    }
 }
@@ -1,15 +1,28 @@
 package com.unibuc.fresh_market.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
+import com.unibuc.fresh_market.service.BulkImportService.BulkFormat;
+import com.unibuc.fresh_market.service.BulkImportService.BulkImportService;
 import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,10 +31,17 @@ import java.util.Optional;
 @RequestMapping("/productOrders")
 public class ProductOrderController {
     private final ProductOrderService productOrderService;
+    private final ProductOrderMapper productOrderMapper;
+    private final ObjectMapper objectMapper;
+    private final BulkImportService bulkImportService;
 
     @Autowired
-    public ProductOrderController(ProductOrderService productOrderService) {
+    public ProductOrderController(ProductOrderService productOrderService, ProductOrderMapper productOrderMapper,
+                                  ObjectMapper objectMapper, BulkImportService bulkImportService) {
         this.productOrderService = productOrderService;
+        this.productOrderMapper = productOrderMapper;
+        this.objectMapper = objectMapper;
+        this.bulkImportService = bulkImportService;
     }
 
     @Operation(summary = "Create a new product order relation")
@@ -32,14 +52,35 @@ public class ProductOrderController {
         }
 
         ProductOrder createdProductOrder = productOrderService.createProductOrder(productOrder);
-        return ResponseEntity.ok(createdProductOrder);
+        return ResponseEntity.ok(productOrderMapper.mapToDTO(createdProductOrder));
     }
 
-    @Operation(summary = "Get all product order relations")
+    @Operation(summary = "Import product order relations from newline-delimited JSON or CSV, one row per line")
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, BulkFormat.TEXT_CSV_VALUE})
+    public ResponseEntity<?> importProductOrders(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        try {
+            BulkImportReportDTO report = bulkImportService.importProductOrders(body, BulkFormat.fromContentType(contentType));
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Could not read request body!");
+        }
+    }
+
+    @Operation(summary = "Get a page of product order relations, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllProductOrders() {
-        List<ProductOrder> productOrders = productOrderService.getAllProductOrders();
-        return ResponseEntity.ok(productOrders);
+    public ResponseEntity<?> getAllProductOrders(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<ProductOrder> productOrders = productOrderService.getProductOrdersPage(after, limit);
+            return ResponseEntity.ok(productOrders.map(productOrderMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
+    }
+
+    @Operation(summary = "Stream every product order relation as newline-delimited JSON")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProductOrders() {
+        return NdjsonStreams.ndjson(objectMapper, productOrderService::streamAllProductOrders);
     }
 
     @Operation(summary = "Get a product order relation by id")
@@ -48,7 +89,7 @@ public class ProductOrderController {
         Integer id = Integer.parseInt(productOrderId);
         Optional<ProductOrder> productOrder = productOrderService.getProductOrderById(id);
         if (productOrder.isPresent()) {
-            return ResponseEntity.ok(productOrder.get());
+            return VersionETags.okWithETag(productOrderMapper.mapToDTO(productOrder.get()), productOrder.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -56,15 +97,30 @@ public class ProductOrderController {
 
     @Operation(summary = "Update a product order relation")
     @PutMapping("/{productOrderId}")
-    public ResponseEntity<?> updateProductOrder(@RequestBody @Valid ProductOrder productOrder, BindingResult bindingResult, @PathVariable String productOrderId) {
+    public ResponseEntity<?> updateProductOrder(@RequestBody @Valid ProductOrder productOrder, BindingResult bindingResult, @PathVariable String productOrderId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(productOrderId);
-        Optional<ProductOrder> updatedProductOrder = productOrderService.updateProductOrder(id, productOrder);
-        if (updatedProductOrder.isPresent()) {
-            return ResponseEntity.ok(updatedProductOrder.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<ProductOrder> updatedProductOrder = productOrderService.updateProductOrder(id, productOrder, expectedVersion);
+            if (updatedProductOrder.isPresent()) {
+                return VersionETags.okWithETag(productOrderMapper.mapToDTO(updatedProductOrder.get()), updatedProductOrder.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -76,7 +132,7 @@ public class ProductOrderController {
         Integer id = Integer.parseInt(productOrderId);
         Optional<ProductOrder> deletedProductOrder = productOrderService.deleteProductOrder(id);
         if (deletedProductOrder.isPresent()) {
-            return ResponseEntity.ok(deletedProductOrder.get());
+            return ResponseEntity.ok(productOrderMapper.mapToDTO(deletedProductOrder.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -86,7 +142,7 @@ public class ProductOrderController {
     @GetMapping("/orderId/{orderId}")
     public ResponseEntity<?> getProductOrderByOrderId(@PathVariable String orderId) {
         Integer id = Integer.parseInt(orderId);
-        List<ProductOrder> productOrders = productOrderService.getProductOrdersByOrderId(id);
+        List<ProductOrderDTO> productOrders = productOrderService.getProductOrdersByOrderId(id);
         return ResponseEntity.ok(productOrders);
     }
 
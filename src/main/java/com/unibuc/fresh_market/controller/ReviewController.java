@@ -1,11 +1,20 @@
 package com.unibuc.fresh_market.controller;
 
+import com.unibuc.fresh_market.domain.FarmRating;
 import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.RatingHistogramDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.mapper.FarmRatingMapper;
+import com.unibuc.fresh_market.mapper.ReviewMapper;
+import com.unibuc.fresh_market.service.FarmService.FarmService;
 import com.unibuc.fresh_market.service.ReviewService.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +27,17 @@ import java.util.Optional;
 @RequestMapping("/reviews")
 public class ReviewController {
     private final ReviewService reviewService;
+    private final FarmService farmService;
+    private final ReviewMapper reviewMapper;
+    private final FarmRatingMapper farmRatingMapper;
 
     @Autowired
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, FarmService farmService, ReviewMapper reviewMapper,
+                            FarmRatingMapper farmRatingMapper) {
         this.reviewService = reviewService;
+        this.farmService = farmService;
+        this.reviewMapper = reviewMapper;
+        this.farmRatingMapper = farmRatingMapper;
     }
 
     @Operation(summary = "Create a new review")
@@ -32,14 +48,18 @@ public class ReviewController {
         }
 
         Review createdReview = reviewService.createReview(review);
-        return ResponseEntity.ok(createdReview);
+        return ResponseEntity.ok(reviewMapper.mapToDTO(createdReview));
     }
 
-    @Operation(summary = "Get all reviews")
+    @Operation(summary = "Get a page of reviews, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllReviews() {
-        List<Review> reviews = reviewService.getAllReviews();
-        return ResponseEntity.ok(reviews);
+    public ResponseEntity<?> getAllReviews(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<Review> reviews = reviewService.getReviewsPage(after, limit);
+            return ResponseEntity.ok(reviews.map(reviewMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
     }
 
     @Operation(summary = "Get a review by id")
@@ -48,7 +68,7 @@ public class ReviewController {
         Integer id = Integer.parseInt(reviewId);
         Optional<Review> review = reviewService.getReviewById(id);
         if (review.isPresent()) {
-            return ResponseEntity.ok(review.get());
+            return VersionETags.okWithETag(reviewMapper.mapToDTO(review.get()), review.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -56,15 +76,30 @@ public class ReviewController {
 
     @Operation(summary = "Update a review")
     @PutMapping("/{reviewId}")
-    public ResponseEntity<?> updateReview(@RequestBody @Valid Review review, BindingResult bindingResult, @PathVariable String reviewId) {
+    public ResponseEntity<?> updateReview(@RequestBody @Valid Review review, BindingResult bindingResult, @PathVariable String reviewId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(reviewId);
-        Optional<Review> updatedReview = reviewService.updateReview(id, review);
-        if (updatedReview.isPresent()) {
-            return ResponseEntity.ok(updatedReview.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<Review> updatedReview = reviewService.updateReview(id, review, expectedVersion);
+            if (updatedReview.isPresent()) {
+                return VersionETags.okWithETag(reviewMapper.mapToDTO(updatedReview.get()), updatedReview.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -76,8 +111,7 @@ public class ReviewController {
         Integer id = Integer.parseInt(reviewId);
         Optional<Review> deletedReview = reviewService.deleteReview(id);
         if (deletedReview.isPresent()) {
-            reviewService.deleteReview(id);
-            return ResponseEntity.ok(deletedReview.get());
+            return ResponseEntity.ok(reviewMapper.mapToDTO(deletedReview.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -87,7 +121,7 @@ public class ReviewController {
     @GetMapping("/farm/{farmId}")
     public ResponseEntity<?> getReviewsByFarmId(@PathVariable String farmId) {
         Integer id = Integer.parseInt(farmId);
-        List<Review> reviews = reviewService.getReviewsByFarmId(id);
+        List<ReviewDTO> reviews = reviewService.getReviewsByFarmId(id);
         return ResponseEntity.ok(reviews);
     }
 
@@ -98,4 +132,24 @@ public class ReviewController {
         double average = reviewService.calculateAverageRatingByFarmId(id);
         return ResponseEntity.ok(average);
     }
+
+    @Operation(summary = "Get the star rating histogram for a farm")
+    @GetMapping("/farm/{farmId}/histogram")
+    public ResponseEntity<?> getRatingHistogramByFarmId(@PathVariable String farmId) {
+        Integer id = Integer.parseInt(farmId);
+        RatingHistogramDTO histogram = reviewService.getRatingHistogramByFarmId(id);
+        return ResponseEntity.ok(histogram);
+    }
+
+    @Operation(summary = "Recompute the rating aggregates of a farm from its reviews")
+    @PostMapping("/farm/{farmId}/rebuild")
+    public ResponseEntity<?> rebuildRatingByFarmId(@PathVariable String farmId) {
+        Integer id = Integer.parseInt(farmId);
+        if (farmService.getFarmById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        FarmRating farmRating = reviewService.rebuildRatingByFarmId(id);
+        return ResponseEntity.ok(farmRatingMapper.mapToDTO(farmRating));
+    }
 }
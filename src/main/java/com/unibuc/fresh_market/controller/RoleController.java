@@ -1,11 +1,14 @@
 package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.security.Role;
+import com.unibuc.fresh_market.mapper.RoleMapper;
 import com.unibuc.fresh_market.service.RoleService.RoleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +21,12 @@ import java.util.Optional;
 @RequestMapping("/roles")
 public class RoleController {
     private final RoleService roleService;
+    private final RoleMapper roleMapper;
 
     @Autowired
-    public RoleController(RoleService roleService) {
+    public RoleController(RoleService roleService, RoleMapper roleMapper) {
         this.roleService = roleService;
+        this.roleMapper = roleMapper;
     }
 
     @Operation(summary = "Create a new role")
@@ -32,14 +37,14 @@ public class RoleController {
         }
 
         Role createdRole = roleService.createRole(role);
-        return ResponseEntity.ok(createdRole);
+        return ResponseEntity.ok(roleMapper.mapToDTO(createdRole));
     }
 
     @Operation(summary = "Get all roles")
     @GetMapping
     public ResponseEntity<?> getAllRoles() {
         List<Role> roles = roleService.getAllRoles();
-        return ResponseEntity.ok(roles);
+        return ResponseEntity.ok(roleMapper.mapToDTOs(roles));
     }
 
     @Operation(summary = "Get a role by id")
@@ -48,7 +53,7 @@ public class RoleController {
         Integer id = Integer.parseInt(roleId);
         Optional<Role> role = roleService.getRoleById(id);
         if (role.isPresent()) {
-            return ResponseEntity.ok(role.get());
+            return VersionETags.okWithETag(roleMapper.mapToDTO(role.get()), role.get().getVersion());
         }
 
         return ResponseEntity.notFound().build();
@@ -56,15 +61,30 @@ public class RoleController {
 
     @Operation(summary = "Update a role")
     @PutMapping("/{roleId}")
-    public ResponseEntity<?> updateRole(@RequestBody @Valid Role role, BindingResult bindingResult, @PathVariable String roleId) {
+    public ResponseEntity<?> updateRole(@RequestBody @Valid Role role, BindingResult bindingResult, @PathVariable String roleId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(roleId);
-        Optional<Role> updatedRole = roleService.updateRole(id, role);
-        if (updatedRole.isPresent()) {
-            return ResponseEntity.ok(updatedRole.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<Role> updatedRole = roleService.updateRole(id, role, expectedVersion);
+            if (updatedRole.isPresent()) {
+                return VersionETags.okWithETag(roleMapper.mapToDTO(updatedRole.get()), updatedRole.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -76,7 +96,7 @@ public class RoleController {
         Integer id = Integer.parseInt(roleId);
         Optional<Role> deletedRole = roleService.deleteRole(id);
         if (deletedRole.isPresent()) {
-            return ResponseEntity.ok(deletedRole.get());
+            return ResponseEntity.ok(roleMapper.mapToDTO(deletedRole.get()));
         }
 
         return ResponseEntity.notFound().build();
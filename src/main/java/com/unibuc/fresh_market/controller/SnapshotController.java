@@ -0,0 +1,35 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.SnapshotDTO;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@Tag(name = "Snapshots controller")
+@RestController
+@RequestMapping("/snapshots")
+public class SnapshotController {
+    private final SnapshotService snapshotService;
+
+    @Autowired
+    public SnapshotController(SnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @Operation(summary = "Dump every table into a binary snapshot that snapshot.restore-from can boot another environment from")
+    @PostMapping
+    public ResponseEntity<?> createSnapshot() {
+        try {
+            SnapshotDTO snapshot = snapshotService.writeSnapshot();
+            return ResponseEntity.status(HttpStatus.CREATED).body(snapshot);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not write snapshot!");
+        }
+    }
+}
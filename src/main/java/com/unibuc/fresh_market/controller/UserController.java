@@ -1,13 +1,17 @@
 package com.unibuc.fresh_market.controller;
 
-import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.Review;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.mapper.UserMapper;
 import com.unibuc.fresh_market.service.UserService.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
@@ -20,10 +24,12 @@ import java.util.Optional;
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final UserMapper userMapper;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserMapper userMapper) {
         this.userService = userService;
+        this.userMapper = userMapper;
     }
 
     @Operation(summary = "Create a new user")
@@ -34,14 +40,18 @@ public class UserController {
         }
 
         User createdUser = userService.createUser(user);
-        return ResponseEntity.ok(createdUser);
+        return ResponseEntity.ok(userMapper.mapToDTO(createdUser));
     }
 
-    @Operation(summary = "Get all users")
+    @Operation(summary = "Get a page of users, starting after the given cursor")
     @GetMapping
-    public ResponseEntity<?> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        try {
+            CursorPage<User> users = userService.getUsersPage(after, limit);
+            return ResponseEntity.ok(users.map(userMapper::mapToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor!");
+        }
     }
 
     @Operation(summary = "Get a user by id")
@@ -50,7 +60,7 @@ public class UserController {
         Integer id = Integer.parseInt(userId);
         Optional<User> user = userService.getUserById(id);
         if (user.isPresent()) {
-            return ResponseEntity.ok(user.get());
+            return VersionETags.okWithETag(userMapper.mapToDTO(user.get()), user.get().getVersion());
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -58,15 +68,30 @@ public class UserController {
 
     @Operation(summary = "Update a user")
     @PutMapping("/{userId}")
-    public ResponseEntity<?> updateUser(@RequestBody @Valid User user, BindingResult bindingResult, @PathVariable String userId) {
+    public ResponseEntity<?> updateUser(@RequestBody @Valid User user, BindingResult bindingResult, @PathVariable String userId, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body("Validation errors found!");
         }
 
         Integer id = Integer.parseInt(userId);
-        Optional<User> updatedUser = userService.updateUser(id, user);
-        if (updatedUser.isPresent()) {
-            return ResponseEntity.ok(updatedUser.get());
+        if (VersionETags.isWeak(ifMatch)) {
+            return VersionETags.preconditionFailed();
+        }
+
+        Long expectedVersion;
+        try {
+            expectedVersion = VersionETags.expectedVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Invalid If-Match header!");
+        }
+
+        try {
+            Optional<User> updatedUser = userService.updateUser(id, user, expectedVersion);
+            if (updatedUser.isPresent()) {
+                return VersionETags.okWithETag(userMapper.mapToDTO(updatedUser.get()), updatedUser.get().getVersion());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return VersionETags.preconditionFailed();
         }
 
         return ResponseEntity.notFound().build();
@@ -78,7 +103,7 @@ public class UserController {
         Integer id = Integer.parseInt(userId);
         Optional<User> deletedUser = userService.deleteUser(id);
         if (deletedUser.isPresent()) {
-            return ResponseEntity.ok(deletedUser.get());
+            return ResponseEntity.ok(userMapper.mapToDTO(deletedUser.get()));
         }
 
         return ResponseEntity.notFound().build();
@@ -88,7 +113,7 @@ public class UserController {
     @GetMapping("/{userId}/orders")
     public ResponseEntity<?> getOrdersByUserId(@PathVariable String userId) {
         Integer id = Integer.parseInt(userId);
-        List<Order> orders = userService.getOrdersByUserId(id);
+        List<OrderDTO> orders = userService.getOrdersByUserId(id);
         return ResponseEntity.ok(orders);
     }
 
@@ -96,7 +121,7 @@ public class UserController {
     @GetMapping("/{userId}/reviews")
     public ResponseEntity<?> getReviewsByUserId(@PathVariable String userId) {
         Integer id = Integer.parseInt(userId);
-        List<Review> reviews = userService.getReviewsByUserId(id);
+        List<ReviewDTO> reviews = userService.getReviewsByUserId(id);
         return ResponseEntity.ok(reviews);
     }
 
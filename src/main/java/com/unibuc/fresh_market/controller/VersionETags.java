@@ -0,0 +1,45 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.domain.CatalogVersion;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+final class VersionETags {
+    private VersionETags() {
+    }
+
+    static ResponseEntity<?> okWithETag(Object body, long version) {
+        return ResponseEntity.ok().eTag("\"" + version + "\"").body(body);
+    }
+
+    // checked before touching the repositories, so an unchanged catalog costs one primary key read and no serialization
+    static boolean isCatalogNotModified(WebRequest request, CatalogVersionService catalogVersionService) {
+        CatalogVersion catalogVersion = catalogVersionService.getCatalogVersion();
+        String eTag = "\"catalog-" + catalogVersion.getVersion() + "\"";
+        return request.checkNotModified(eTag, catalogVersion.getLastModified().getTime());
+    }
+
+    static ResponseEntity<?> preconditionFailed() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body("Version mismatch!");
+    }
+
+    // If-Match only compares strongly, a weak validator never matches a version
+    static boolean isWeak(String ifMatch) {
+        return ifMatch != null && ifMatch.trim().startsWith("W/");
+    }
+
+    // no header or "*" means the client did not ask for a version check
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String eTag = ifMatch.trim();
+        if (eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            eTag = eTag.substring(1, eTag.length() - 1);
+        }
+        return Long.parseLong(eTag);
+    }
+}
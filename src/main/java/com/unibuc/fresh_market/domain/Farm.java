@@ -2,6 +2,7 @@ package com.unibuc.fresh_market.domain;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import com.unibuc.fresh_market.domain.security.User;
 import jakarta.persistence.*;
@@ -21,9 +22,13 @@ import java.util.List;
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Farm {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence("farm_seq")
     private Integer id;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @NotBlank
     @Size(min = 1, max = 20)
     private String name;
@@ -34,6 +39,7 @@ public class Farm {
     private User user;
 
     @OneToMany(mappedBy = "farm", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
     private List<Review> reviews = new ArrayList<>();
 
     @OneToMany(mappedBy = "farm", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -41,5 +47,6 @@ public class Farm {
     private List<ProductFarm> productFarms = new ArrayList<>();
 
     @OneToMany(mappedBy = "farm", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
     private List<Order> orders = new ArrayList<>();
 }
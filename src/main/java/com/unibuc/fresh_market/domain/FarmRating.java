@@ -0,0 +1,42 @@
+package com.unibuc.fresh_market.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+@Builder
+@Table(name = "farm_ratings")
+public class FarmRating {
+    @Id
+    private Integer farmId;
+
+    @Column(nullable = false)
+    private Long reviewCount;
+
+    @Column(nullable = false)
+    private Long ratingSum;
+
+    @Column(nullable = false)
+    private Long oneStarCount;
+
+    @Column(nullable = false)
+    private Long twoStarCount;
+
+    @Column(nullable = false)
+    private Long threeStarCount;
+
+    @Column(nullable = false)
+    private Long fourStarCount;
+
+    @Column(nullable = false)
+    private Long fiveStarCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastUpdated;
+}
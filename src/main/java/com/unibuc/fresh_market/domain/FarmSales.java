@@ -0,0 +1,27 @@
+package com.unibuc.fresh_market.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+@Builder
+@Table(name = "farm_sales")
+public class FarmSales {
+    @Id
+    private Integer farmId;
+
+    @Column(nullable = false)
+    private Double totalSales;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastUpdated;
+}
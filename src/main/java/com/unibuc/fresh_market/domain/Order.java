@@ -1,6 +1,7 @@
 package com.unibuc.fresh_market.domain;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import com.unibuc.fresh_market.domain.security.User;
 import jakarta.persistence.*;
@@ -21,9 +22,13 @@ import java.util.List;
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence("orders_seq")
     private Integer id;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @NotBlank
     @Size(min = 1, max = 20)
     private String status;
@@ -0,0 +1,27 @@
+package com.unibuc.fresh_market.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Setter
+@Getter
+@Builder
+@Table(name = "product_availability")
+public class ProductAvailability {
+    @Id
+    private Integer productId;
+
+    @Column(nullable = false)
+    private Long totalQuantity;
+
+    @Column(nullable = false)
+    private Long farmsInStock;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastUpdated;
+}
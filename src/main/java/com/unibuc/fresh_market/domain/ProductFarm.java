@@ -1,6 +1,7 @@
 package com.unibuc.fresh_market.domain;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -12,13 +13,17 @@ import lombok.*;
 @Setter
 @Getter
 @Builder
-@Table(name = "product_farm")
+@Table(name = "product_farm", uniqueConstraints = @UniqueConstraint(name = "uk_product_farm_farm_product", columnNames = {"farm_id", "product_id"}))
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class ProductFarm {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence("product_farm_seq")
     private Integer id;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @ManyToOne
     @JoinColumn(name = "product_id")
     private Product product;
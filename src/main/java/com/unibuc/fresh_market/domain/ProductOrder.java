@@ -1,6 +1,7 @@
 package com.unibuc.fresh_market.domain;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -16,9 +17,13 @@ import lombok.*;
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class ProductOrder {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence("product_order_seq")
     private Integer id;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @ManyToOne
     @JoinColumn(name = "product_id")
     private Product product;
@@ -30,6 +35,10 @@ public class ProductOrder {
     @PositiveOrZero
     private Integer quantity;
 
+    // the product's price when the line was sold, reports and receipts use it instead of the current price
+    @Column(name = "unit_price")
+    private Double unitPrice;
+
     private String notes;
 
 }
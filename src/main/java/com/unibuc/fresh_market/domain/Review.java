@@ -2,6 +2,7 @@ package com.unibuc.fresh_market.domain;
 
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import com.unibuc.fresh_market.domain.security.User;
 import jakarta.persistence.*;
@@ -18,9 +19,13 @@ import org.hibernate.validator.constraints.Range;
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Review {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledSequence("reviews_seq")
     private Integer id;
 
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @Range(min = 1, max = 5)
     private Integer rating;
 
@@ -0,0 +1,24 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportReportDTO {
+
+    private Long receivedRows;
+
+    private Long importedRows;
+
+    private Long rejectedRows;
+
+    // capped, rejectedRows still counts every rejected row
+    private List<BulkRowErrorDTO> errors;
+}
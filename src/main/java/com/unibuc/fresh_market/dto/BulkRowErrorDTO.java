@@ -0,0 +1,18 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRowErrorDTO {
+
+    // 1-based line of the request body, the CSV header counts as line 1
+    private Long line;
+
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDTO {
+
+    private Integer id;
+
+    private Long version;
+
+    private String name;
+
+    private String description;
+}
@@ -0,0 +1,24 @@
+package com.unibuc.fresh_market.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutItemDTO {
+
+    @NotNull
+    private Integer productId;
+
+    @NotNull
+    @Positive
+    private Integer quantity;
+
+    private String notes;
+}
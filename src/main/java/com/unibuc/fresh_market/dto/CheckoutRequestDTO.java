@@ -0,0 +1,27 @@
+package com.unibuc.fresh_market.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequestDTO {
+
+    @NotNull
+    private Integer userId;
+
+    @NotNull
+    private Integer farmId;
+
+    @NotEmpty
+    private List<@Valid CheckoutItemDTO> items;
+}
@@ -0,0 +1,25 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryDTO {
+
+    private Integer id;
+
+    private Long version;
+
+    private String deliveryStatus;
+
+    private Date deliveryDate;
+
+    private Integer orderId;
+}
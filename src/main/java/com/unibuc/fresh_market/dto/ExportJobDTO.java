@@ -0,0 +1,42 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+
+    private String dataset;
+
+    private String format;
+
+    // RUNNING, COMPLETED or FAILED
+    private String status;
+
+    private String file;
+
+    // rows and compressed bytes in the file so far, including what a resumed run picked up
+    private Long rowsWritten;
+
+    private Long bytesWritten;
+
+    // rows written by this run only, divided by its elapsed time
+    private Double rowsPerSecond;
+
+    private Integer lastId;
+
+    private Boolean resumed;
+
+    private Date startedAt;
+
+    private Date finishedAt;
+
+    private String error;
+}
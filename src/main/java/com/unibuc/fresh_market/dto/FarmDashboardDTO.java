@@ -0,0 +1,29 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FarmDashboardDTO {
+
+    private Integer farmId;
+
+    private String farmName;
+
+    private Double totalSales;
+
+    private Long orderCount;
+
+    private Double averageRating;
+
+    private Long reviewCount;
+
+    private Long productCount;
+
+    private Long totalStock;
+}
@@ -0,0 +1,19 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FarmOrderTotalDTO {
+
+    private Integer farmId;
+
+    private Double totalAmount;
+
+    private Long orderCount;
+}
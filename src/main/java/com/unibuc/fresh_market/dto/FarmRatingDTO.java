@@ -0,0 +1,33 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FarmRatingDTO {
+
+    private Integer farmId;
+
+    private Long reviewCount;
+
+    private Long ratingSum;
+
+    private Long oneStarCount;
+
+    private Long twoStarCount;
+
+    private Long threeStarCount;
+
+    private Long fourStarCount;
+
+    private Long fiveStarCount;
+
+    private Date lastUpdated;
+}
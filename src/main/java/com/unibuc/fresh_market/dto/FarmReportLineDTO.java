@@ -0,0 +1,34 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FarmReportLineDTO {
+
+    // ORDER for one product within one order, PRODUCT_TOTAL after each product, MONTH_TOTAL at the end
+    private String lineType;
+
+    private Integer productId;
+
+    private String productName;
+
+    private Integer orderId;
+
+    private Date orderDate;
+
+    private String orderStatus;
+
+    private Long quantity;
+
+    private Double unitPrice;
+
+    private Double amount;
+}
@@ -0,0 +1,26 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeneratedDataDTO {
+
+    private Long seed;
+
+    // rows per table, in insert order
+    private Map<String, Long> rowCounts;
+
+    private Long totalRows;
+
+    private Long elapsedMillis;
+
+    private Double rowsPerSecond;
+}
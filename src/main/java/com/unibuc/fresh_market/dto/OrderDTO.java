@@ -0,0 +1,31 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDTO {
+
+    private Integer id;
+
+    private Long version;
+
+    private String status;
+
+    private Double totalAmount;
+
+    private Date createdAt;
+
+    private Integer userId;
+
+    private Integer farmId;
+
+    private Integer deliveryId;
+}
@@ -0,0 +1,28 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReceiptDTO {
+
+    private Integer orderId;
+
+    private String status;
+
+    private Date createdAt;
+
+    private Integer farmId;
+
+    private List<ReceiptLineDTO> lines;
+
+    private Double total;
+}
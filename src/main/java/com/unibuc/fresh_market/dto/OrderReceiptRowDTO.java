@@ -0,0 +1,33 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderReceiptRowDTO {
+
+    private Integer orderId;
+
+    private String status;
+
+    private Date createdAt;
+
+    private Integer farmId;
+
+    private Integer productOrderId;
+
+    private Integer productId;
+
+    private String productName;
+
+    private Double unitPrice;
+
+    private Integer quantity;
+}
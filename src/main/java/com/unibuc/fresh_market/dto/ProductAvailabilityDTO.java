@@ -0,0 +1,23 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductAvailabilityDTO {
+
+    private Integer productId;
+
+    private Long totalQuantity;
+
+    private Long farmsInStock;
+
+    private Date lastUpdated;
+}
@@ -0,0 +1,29 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFarmDTO {
+
+    private Integer id;
+
+    private Long version;
+
+    private Integer farmId;
+
+    private String farmName;
+
+    private Integer productId;
+
+    private String productName;
+
+    private Integer quantity;
+
+    private String notes;
+}
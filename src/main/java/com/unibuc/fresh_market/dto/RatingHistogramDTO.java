@@ -0,0 +1,24 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingHistogramDTO {
+
+    private Integer farmId;
+
+    private Long reviewCount;
+
+    private Double averageRating;
+
+    // star rating (1..5) -> number of reviews
+    private Map<Integer, Long> histogram;
+}
@@ -0,0 +1,25 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptLineDTO {
+
+    private Integer productOrderId;
+
+    private Integer productId;
+
+    private String productName;
+
+    private Double unitPrice;
+
+    private Integer quantity;
+
+    private Double lineTotal;
+}
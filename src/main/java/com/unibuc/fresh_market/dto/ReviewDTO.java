@@ -0,0 +1,27 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewDTO {
+
+    private Integer id;
+
+    private Long version;
+
+    private Integer rating;
+
+    private String content;
+
+    private Integer farmId;
+
+    private Integer userId;
+
+    private String username;
+}
@@ -15,6 +15,8 @@ public class RoleDTO {
 
     private Integer id;
 
+    private Long version;
+
     @NotBlank
     @Size(min = 1, max = 30)
     private String name;
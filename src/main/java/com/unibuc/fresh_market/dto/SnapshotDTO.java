@@ -0,0 +1,28 @@
+package com.unibuc.fresh_market.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotDTO {
+
+    private String file;
+
+    // rows per table, in restore order
+    private Map<String, Long> rowCounts;
+
+    private Long totalRows;
+
+    private Long bytes;
+
+    private Long elapsedMillis;
+
+    private Double rowsPerSecond;
+}
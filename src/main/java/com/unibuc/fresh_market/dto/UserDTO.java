@@ -16,9 +16,13 @@ public class UserDTO {
 
     private Integer id;
 
+    private Long version;
+
     @NotBlank
     private String username;
 
     private String email;
 
+    private Integer farmId;
+
 }
@@ -0,0 +1,13 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.Category;
+import com.unibuc.fresh_market.dto.CategoryDTO;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface CategoryMapper {
+    CategoryDTO mapToDTO(Category category);
+    List<CategoryDTO> mapToDTOs(List<Category> categorys);
+}
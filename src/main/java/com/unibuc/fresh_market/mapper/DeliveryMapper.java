@@ -0,0 +1,15 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.dto.DeliveryDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface DeliveryMapper {
+    @Mapping(source = "order.id", target = "orderId")
+    DeliveryDTO mapToDTO(Delivery delivery);
+    List<DeliveryDTO> mapToDTOs(List<Delivery> deliverys);
+}
@@ -0,0 +1,16 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.dto.FarmDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface FarmMapper {
+    @Mapping(source = "user.id", target = "ownerId")
+    @Mapping(source = "user.username", target = "ownerUsername")
+    FarmDTO mapToDTO(Farm farm);
+    List<FarmDTO> mapToDTOs(List<Farm> farms);
+}
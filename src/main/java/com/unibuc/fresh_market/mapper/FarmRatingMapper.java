@@ -0,0 +1,10 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.FarmRating;
+import com.unibuc.fresh_market.dto.FarmRatingDTO;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface FarmRatingMapper {
+    FarmRatingDTO mapToDTO(FarmRating farmRating);
+}
@@ -0,0 +1,10 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.FarmSales;
+import com.unibuc.fresh_market.dto.FarmSalesDTO;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface FarmSalesMapper {
+    FarmSalesDTO mapToDTO(FarmSales farmSales);
+}
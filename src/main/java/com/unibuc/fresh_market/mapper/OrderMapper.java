@@ -0,0 +1,17 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface OrderMapper {
+    @Mapping(source = "user.id", target = "userId")
+    @Mapping(source = "farm.id", target = "farmId")
+    @Mapping(source = "delivery.id", target = "deliveryId")
+    OrderDTO mapToDTO(Order order);
+    List<OrderDTO> mapToDTOs(List<Order> orders);
+}
@@ -0,0 +1,13 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.ProductAvailability;
+import com.unibuc.fresh_market.dto.ProductAvailabilityDTO;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ProductAvailabilityMapper {
+    ProductAvailabilityDTO mapToDTO(ProductAvailability productAvailability);
+    List<ProductAvailabilityDTO> mapToDTOs(List<ProductAvailability> productAvailabilities);
+}
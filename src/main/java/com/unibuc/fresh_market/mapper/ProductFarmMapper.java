@@ -0,0 +1,34 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ProductFarmMapper {
+    @Mapping(source = "farm.id", target = "farmId")
+    @Mapping(source = "farm.name", target = "farmName")
+    @Mapping(source = "product.id", target = "productId")
+    @Mapping(source = "product.name", target = "productName")
+    ProductFarmDTO mapToDTO(ProductFarm productFarm);
+    List<ProductFarmDTO> mapToDTOs(List<ProductFarm> productFarms);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(source = "farmId", target = "farm")
+    @Mapping(source = "productId", target = "product")
+    ProductFarm mapToEntity(ProductFarmDTO productFarmDTO);
+
+    default Farm farmFromId(Integer farmId) {
+        return farmId != null ? Farm.builder().id(farmId).build() : null;
+    }
+
+    default Product productFromId(Integer productId) {
+        return productId != null ? Product.builder().id(productId).build() : null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.Category;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ProductMapper {
+    @Mapping(source = "category.id", target = "categoryId")
+    @Mapping(source = "category.name", target = "categoryName")
+    ProductDTO mapToDTO(Product product);
+    List<ProductDTO> mapToDTOs(List<Product> products);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(source = "categoryId", target = "category")
+    @Mapping(target = "productOrders", ignore = true)
+    @Mapping(target = "productFarms", ignore = true)
+    Product mapToEntity(ProductDTO productDTO);
+
+    default Category categoryFromId(Integer categoryId) {
+        return categoryId != null ? Category.builder().id(categoryId).build() : null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ProductOrderMapper {
+    @Mapping(source = "order.id", target = "orderId")
+    @Mapping(source = "product.id", target = "productId")
+    @Mapping(source = "product.name", target = "productName")
+    ProductOrderDTO mapToDTO(ProductOrder productOrder);
+    List<ProductOrderDTO> mapToDTOs(List<ProductOrder> productOrders);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(source = "orderId", target = "order")
+    @Mapping(source = "productId", target = "product")
+    ProductOrder mapToEntity(ProductOrderDTO productOrderDTO);
+
+    default Order orderFromId(Integer orderId) {
+        return orderId != null ? Order.builder().id(orderId).build() : null;
+    }
+
+    default Product productFromId(Integer productId) {
+        return productId != null ? Product.builder().id(productId).build() : null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.unibuc.fresh_market.mapper;
+
+import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ReviewMapper {
+    @Mapping(source = "farm.id", target = "farmId")
+    @Mapping(source = "user.id", target = "userId")
+    @Mapping(source = "user.username", target = "username")
+    ReviewDTO mapToDTO(Review review);
+    List<ReviewDTO> mapToDTOs(List<Review> reviews);
+}
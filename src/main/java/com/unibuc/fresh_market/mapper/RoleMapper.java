@@ -3,8 +3,10 @@ import com.unibuc.fresh_market.domain.security.Role;
 import com.unibuc.fresh_market.dto.RoleDTO;
 import org.mapstruct.Mapper;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface RoleMapper {
     RoleDTO mapToDTO(Role role);
-    Role mapToEntity(RoleDTO roleDTO);
+    List<RoleDTO> mapToDTOs(List<Role> roles);
 }
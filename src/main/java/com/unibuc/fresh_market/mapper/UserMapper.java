@@ -3,9 +3,13 @@ package com.unibuc.fresh_market.mapper;
 import com.unibuc.fresh_market.domain.security.User;
 import com.unibuc.fresh_market.dto.UserDTO;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
+    @Mapping(source = "farm.id", target = "farmId")
     UserDTO mapToDTO(User user);
-    User mapToEntity(UserDTO userDTO);
+    List<UserDTO> mapToDTOs(List<User> users);
 }
@@ -0,0 +1,15 @@
+package com.unibuc.fresh_market.repository;
+
+import com.unibuc.fresh_market.domain.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+    // the database clock, so instances with drifting clocks still agree on Last-Modified
+    @Modifying
+    @Query(value = "UPDATE CatalogVersion cv SET cv.version = cv.version + 1, cv.lastModified = CURRENT_TIMESTAMP WHERE cv.id = :id")
+    int bumpCatalogVersion(Integer id);
+}
@@ -2,8 +2,14 @@ package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
+    @Query(value = "SELECT c.id FROM Category c WHERE c.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
 }
@@ -1,12 +1,19 @@
 package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.dto.DeliveryDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface DeliveryRepository extends JpaRepository<Delivery, Integer> {
-    List<Delivery> findDeliveriesByDeliveryStatus(String status);
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.DeliveryDTO(d.id, d.version, d.deliveryStatus, d.deliveryDate, o.id) " +
+            "FROM Delivery d LEFT JOIN d.order o WHERE d.deliveryStatus = :status")
+    List<DeliveryDTO> findDeliveriesByDeliveryStatus(String status);
+
+    List<Delivery> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
 }
@@ -0,0 +1,20 @@
+package com.unibuc.fresh_market.repository;
+
+import com.unibuc.fresh_market.domain.FarmRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface FarmRatingRepository extends JpaRepository<FarmRating, Integer> {
+    @Modifying
+    @Query(value = "UPDATE FarmRating fr SET fr.reviewCount = fr.reviewCount + :count, fr.ratingSum = fr.ratingSum + :sum, " +
+            "fr.oneStarCount = fr.oneStarCount + :oneStar, fr.twoStarCount = fr.twoStarCount + :twoStar, " +
+            "fr.threeStarCount = fr.threeStarCount + :threeStar, fr.fourStarCount = fr.fourStarCount + :fourStar, " +
+            "fr.fiveStarCount = fr.fiveStarCount + :fiveStar, fr.lastUpdated = :updatedAt WHERE fr.farmId = :farmId")
+    int addToFarmRating(Integer farmId, Long count, Long sum, Long oneStar, Long twoStar, Long threeStar,
+                        Long fourStar, Long fiveStar, Date updatedAt);
+}
@@ -1,9 +1,30 @@
 package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.dto.FarmDashboardDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface FarmRepository extends JpaRepository<Farm, Integer> {
+    List<Farm> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.FarmDashboardDTO(f.id, f.name, " +
+            "(SELECT COALESCE(SUM(o.totalAmount), 0.0) FROM Order o WHERE o.farm.id = f.id), " +
+            "(SELECT COUNT(o) FROM Order o WHERE o.farm.id = f.id), " +
+            "(SELECT COALESCE(AVG(r.rating), 0.0) FROM Review r WHERE r.farm.id = f.id), " +
+            "(SELECT COUNT(r) FROM Review r WHERE r.farm.id = f.id), " +
+            "(SELECT COUNT(DISTINCT pf.product.id) FROM ProductFarm pf WHERE pf.farm.id = f.id), " +
+            "(SELECT COALESCE(SUM(pf.quantity), 0L) FROM ProductFarm pf WHERE pf.farm.id = f.id)) " +
+            "FROM Farm f WHERE f.id = :farmId")
+    Optional<FarmDashboardDTO> getFarmDashboard(Integer farmId);
+
+    @Query(value = "SELECT f.id FROM Farm f WHERE f.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
 }
@@ -0,0 +1,17 @@
+package com.unibuc.fresh_market.repository;
+
+import com.unibuc.fresh_market.domain.FarmSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface FarmSalesRepository extends JpaRepository<FarmSales, Integer> {
+    @Modifying
+    @Query(value = "UPDATE FarmSales fs SET fs.totalSales = fs.totalSales + :amount, fs.orderCount = fs.orderCount + :count, " +
+            "fs.lastUpdated = :updatedAt WHERE fs.farmId = :farmId")
+    int addToFarmSales(Integer farmId, Double amount, Long count, Date updatedAt);
+}
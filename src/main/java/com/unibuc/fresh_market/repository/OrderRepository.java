@@ -1,13 +1,64 @@
 package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.dto.FarmOrderTotalDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptRowDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
-    List<Order> findOrdersByStatus(String status);
-    List<Order> findOrdersByFarmId(Integer farmId);
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.OrderDTO(o.id, o.version, o.status, o.totalAmount, o.createdAt, " +
+            "o.user.id, o.farm.id, o.delivery.id) FROM Order o WHERE o.status = :status")
+    List<OrderDTO> findOrdersByStatus(String status);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.OrderDTO(o.id, o.version, o.status, o.totalAmount, o.createdAt, " +
+            "o.user.id, o.farm.id, o.delivery.id) FROM Order o WHERE o.farm.id = :farmId")
+    List<OrderDTO> findOrdersByFarmId(Integer farmId);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.OrderDTO(o.id, o.version, o.status, o.totalAmount, o.createdAt, " +
+            "o.user.id, o.farm.id, o.delivery.id) FROM Order o WHERE o.user.id = :userId")
+    List<OrderDTO> findOrdersByUserId(Integer userId);
+
+    @Query(value = "SELECT COALESCE(SUM(o.totalAmount), 0.0) FROM Order o WHERE o.farm.id = :farmId")
+    Double sumTotalAmountByFarmId(Integer farmId);
+
+    long countByFarmId(Integer farmId);
+
+    // what a user's orders add to each farm's sales, taken back out before the cascade deletes them
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.FarmOrderTotalDTO(o.farm.id, COALESCE(SUM(o.totalAmount), 0.0), COUNT(o)) " +
+            "FROM Order o WHERE o.user.id = :userId AND o.farm IS NOT NULL GROUP BY o.farm.id")
+    List<FarmOrderTotalDTO> sumOrdersByFarmForUserId(Integer userId);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.OrderReceiptRowDTO(o.id, o.status, o.createdAt, o.farm.id, " +
+            "po.id, p.id, p.name, po.unitPrice, po.quantity) " +
+            "FROM Order o LEFT JOIN o.productOrders po LEFT JOIN po.product p WHERE o.id = :orderId ORDER BY po.id")
+    List<OrderReceiptRowDTO> getOrderReceiptRows(Integer orderId);
+
+    List<Order> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    // read through a JDBC cursor in fetch-size chunks, must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.OrderDTO(o.id, o.version, o.status, o.totalAmount, o.createdAt, " +
+            "o.user.id, o.farm.id, o.delivery.id) FROM Order o ORDER BY o.id")
+    Stream<OrderDTO> streamAllOrders();
+
+    @Query(value = "SELECT o.id FROM Order o WHERE o.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
+
+    // one checkpointed export segment, read through a JDBC cursor like streamAllOrders
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.OrderDTO(o.id, o.version, o.status, o.totalAmount, o.createdAt, " +
+            "o.user.id, o.farm.id, o.delivery.id) FROM Order o WHERE o.id > :afterId ORDER BY o.id")
+    Stream<OrderDTO> streamOrdersAfter(Integer afterId, Limit limit);
 }
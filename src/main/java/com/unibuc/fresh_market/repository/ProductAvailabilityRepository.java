@@ -0,0 +1,24 @@
+package com.unibuc.fresh_market.repository;
+
+import com.unibuc.fresh_market.domain.ProductAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+
+@Repository
+public interface ProductAvailabilityRepository extends JpaRepository<ProductAvailability, Integer> {
+    @Modifying
+    @Query(value = "UPDATE ProductAvailability pa SET pa.totalQuantity = pa.totalQuantity + :quantity, " +
+            "pa.farmsInStock = pa.farmsInStock + :farmsInStock, pa.lastUpdated = :updatedAt WHERE pa.productId = :productId")
+    int addToProductAvailability(Integer productId, Long quantity, Long farmsInStock, Date updatedAt);
+
+    // zeroed counters for new products, one statement however many were created
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO ProductAvailability (productId, totalQuantity, farmsInStock, lastUpdated) " +
+            "SELECT p.id, 0L, 0L, CURRENT_TIMESTAMP FROM Product p WHERE p.id IN :productIds")
+    int createProductAvailabilities(Collection<Integer> productIds);
+}
@@ -1,13 +1,55 @@
 package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductFarmRepository extends JpaRepository<ProductFarm, Integer> {
-    List<ProductFarm> findAllByFarmId(Integer farmId);
-    List<ProductFarm> findAllByProductId(Integer productId);
+    // the filtered side is inner joined, so the planner can start from it instead of scanning every stock row
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ProductFarmDTO(pf.id, pf.version, f.id, f.name, p.id, p.name, pf.quantity, pf.notes) " +
+            "FROM ProductFarm pf JOIN pf.farm f LEFT JOIN pf.product p WHERE f.id = :farmId")
+    List<ProductFarmDTO> findAllByFarmId(Integer farmId);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ProductFarmDTO(pf.id, pf.version, f.id, f.name, p.id, p.name, pf.quantity, pf.notes) " +
+            "FROM ProductFarm pf JOIN pf.product p LEFT JOIN pf.farm f WHERE p.id = :productId")
+    List<ProductFarmDTO> findAllByProductId(Integer productId);
+
+    @Query(value = "SELECT COALESCE(SUM(pf.quantity), 0L) FROM ProductFarm pf WHERE pf.product.id = :productId")
+    Long sumQuantityByProductId(Integer productId);
+
+    long countByProductIdAndQuantityGreaterThan(Integer productId, Integer quantity);
+
+    @EntityGraph(attributePaths = {"product", "farm"})
+    List<ProductFarm> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    boolean existsByFarmIdAndProductId(Integer farmId, Integer productId);
+
+    List<ProductFarm> findAllByFarmIdInAndProductIdIn(Collection<Integer> farmIds, Collection<Integer> productIds);
+
+    @Modifying
+    @Query(value = "UPDATE ProductFarm pf SET pf.quantity = pf.quantity - :quantity, pf.version = pf.version + 1 " +
+            "WHERE pf.farm.id = :farmId AND pf.product.id = :productId AND pf.quantity >= :quantity")
+    int decrementQuantity(Integer farmId, Integer productId, Integer quantity);
+
+    @Query(value = "SELECT pf.product.id FROM ProductFarm pf WHERE pf.farm.id = :farmId AND pf.product.id IN :productIds AND pf.quantity = 0")
+    List<Integer> findSoldOutProductIds(Integer farmId, Collection<Integer> productIds);
+
+    // one checkpointed export segment, read through a JDBC cursor in fetch-size chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ProductFarmDTO(pf.id, pf.version, f.id, f.name, p.id, p.name, pf.quantity, pf.notes) " +
+            "FROM ProductFarm pf LEFT JOIN pf.farm f LEFT JOIN pf.product p WHERE pf.id > :afterId ORDER BY pf.id")
+    Stream<ProductFarmDTO> streamProductFarmsAfter(Integer afterId, Limit limit);
 }
@@ -1,12 +1,62 @@
 package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.FarmReportLineDTO;
+import com.unibuc.fresh_market.dto.OrderTotalDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductOrderRepository extends JpaRepository<ProductOrder, Integer> {
-    List<ProductOrder> findProductOrdersByOrderId(Integer orderId);
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ProductOrderDTO(po.id, po.version, po.order.id, p.id, p.name, po.quantity, po.unitPrice, po.notes) " +
+            "FROM ProductOrder po LEFT JOIN po.product p WHERE po.order.id = :orderId")
+    List<ProductOrderDTO> findProductOrdersByOrderId(Integer orderId);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.OrderTotalDTO(COUNT(po), COUNT(p), SUM(po.unitPrice * po.quantity)) " +
+            "FROM ProductOrder po LEFT JOIN po.product p WHERE po.order.id = :orderId")
+    OrderTotalDTO getOrderTotal(Integer orderId);
+
+    @EntityGraph(attributePaths = {"product", "order"})
+    List<ProductOrder> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    // read through a JDBC cursor in fetch-size chunks, must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ProductOrderDTO(po.id, po.version, po.order.id, p.id, p.name, po.quantity, po.unitPrice, po.notes) " +
+            "FROM ProductOrder po LEFT JOIN po.product p ORDER BY po.id")
+    Stream<ProductOrderDTO> streamAllProductOrders();
+
+    // one checkpointed export segment, read through a JDBC cursor like streamAllProductOrders
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ProductOrderDTO(po.id, po.version, po.order.id, p.id, p.name, po.quantity, po.unitPrice, po.notes) " +
+            "FROM ProductOrder po LEFT JOIN po.product p WHERE po.id > :afterId ORDER BY po.id")
+    Stream<ProductOrderDTO> streamProductOrdersAfter(Integer afterId, Limit limit);
+
+    // the farms whose reports hold lines of a product or category, looked up before the cascade deletes them
+    @Query(value = "SELECT DISTINCT o.farm.id FROM ProductOrder po JOIN po.order o WHERE po.product.id = :productId")
+    List<Integer> findOrderFarmIdsByProductId(Integer productId);
+
+    @Query(value = "SELECT DISTINCT o.farm.id FROM ProductOrder po JOIN po.order o WHERE po.product.category.id = :categoryId")
+    List<Integer> findOrderFarmIdsByCategoryId(Integer categoryId);
+
+    // a farm's month in one query: each product's quantity and amount per order at the price it sold for, grouped so the
+    // report writer can emit a product subtotal whenever the product changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.FarmReportLineDTO('ORDER', p.id, p.name, o.id, o.createdAt, o.status, " +
+            "SUM(po.quantity), po.unitPrice, SUM(po.quantity * po.unitPrice)) " +
+            "FROM ProductOrder po JOIN po.order o JOIN po.product p " +
+            "WHERE o.farm.id = :farmId AND o.createdAt >= :from AND o.createdAt < :to " +
+            "GROUP BY p.id, p.name, po.unitPrice, o.id, o.createdAt, o.status " +
+            "ORDER BY p.name, p.id, o.createdAt, o.id")
+    Stream<FarmReportLineDTO> streamMonthlyReportLines(Integer farmId, Date from, Date to);
 }
@@ -1,17 +1,33 @@
 package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Integer> {
 
-    @Query(value = "SELECT p FROM Product p JOIN p.productFarms pf WHERE pf.farm.id = :farmId")
-    List<Product> getProductsByFarmId(Integer farmId);
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ProductDTO(p.id, p.version, p.name, p.description, p.price, c.id, c.name) " +
+            "FROM ProductFarm pf JOIN pf.product p LEFT JOIN p.category c WHERE pf.farm.id = :farmId")
+    List<ProductDTO> getProductsByFarmId(Integer farmId);
 
+    // result ids go to the query cache, any write to products invalidates it
+    // filters on the foreign key column, the derived query joined categories first
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(value = "SELECT p FROM Product p WHERE p.category.id = :categoryId")
     List<Product> getProductsByCategoryId(Integer categoryId);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    @Query(value = "SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
 }
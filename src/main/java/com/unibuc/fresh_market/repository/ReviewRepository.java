@@ -1,14 +1,43 @@
 package com.unibuc.fresh_market.repository;
 
 import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.dto.FarmRatingCountDTO;
+import com.unibuc.fresh_market.dto.RatingCountDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
-    @Query(value = "SELECT r FROM Review r WHERE r.farm.id = :farmId")
-    List<Review> getReviewsByFarmId(Integer farmId);
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ReviewDTO(r.id, r.version, r.rating, r.content, r.farm.id, u.id, u.username) " +
+            "FROM Review r LEFT JOIN r.user u WHERE r.farm.id = :farmId")
+    List<ReviewDTO> getReviewsByFarmId(Integer farmId);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ReviewDTO(r.id, r.version, r.rating, r.content, r.farm.id, u.id, u.username) " +
+            "FROM Review r JOIN r.user u WHERE u.id = :userId")
+    List<ReviewDTO> getReviewsByUserId(Integer userId);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.RatingCountDTO(r.rating, COUNT(r)) FROM Review r " +
+            "WHERE r.farm.id = :farmId AND r.rating IS NOT NULL GROUP BY r.rating")
+    List<RatingCountDTO> countRatingsByFarmId(Integer farmId);
+
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.FarmRatingCountDTO(r.farm.id, r.rating, COUNT(r)) FROM Review r " +
+            "WHERE r.user.id = :userId AND r.farm IS NOT NULL AND r.rating IS NOT NULL GROUP BY r.farm.id, r.rating")
+    List<FarmRatingCountDTO> countRatingsByFarmForUserId(Integer userId);
+
+    List<Review> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
+
+    // one checkpointed export segment, read through a JDBC cursor in fetch-size chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT new com.unibuc.fresh_market.dto.ReviewDTO(r.id, r.version, r.rating, r.content, r.farm.id, u.id, u.username) " +
+            "FROM Review r LEFT JOIN r.user u WHERE r.id > :afterId ORDER BY r.id")
+    Stream<ReviewDTO> streamReviewsAfter(Integer afterId, Limit limit);
 }
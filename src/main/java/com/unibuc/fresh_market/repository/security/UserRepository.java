@@ -1,13 +1,17 @@
 package com.unibuc.fresh_market.repository.security;
 
 import com.unibuc.fresh_market.domain.security.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
 
     Optional<User> findByUsername(String username);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Integer id, Limit limit);
 }
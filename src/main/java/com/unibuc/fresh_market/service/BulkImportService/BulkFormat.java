@@ -0,0 +1,22 @@
+package com.unibuc.fresh_market.service.BulkImportService;
+
+import org.springframework.http.MediaType;
+
+public enum BulkFormat {
+    NDJSON,
+    CSV;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static BulkFormat fromContentType(String contentType) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        if (mediaType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))) {
+            return CSV;
+        }
+
+        throw new IllegalArgumentException("Unsupported bulk format: " + contentType);
+    }
+}
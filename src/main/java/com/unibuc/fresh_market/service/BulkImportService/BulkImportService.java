@@ -0,0 +1,12 @@
+package com.unibuc.fresh_market.service.BulkImportService;
+
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BulkImportService {
+    BulkImportReportDTO importProducts(InputStream input, BulkFormat format) throws IOException;
+    BulkImportReportDTO importProductFarms(InputStream input, BulkFormat format) throws IOException;
+    BulkImportReportDTO importProductOrders(InputStream input, BulkFormat format) throws IOException;
+}
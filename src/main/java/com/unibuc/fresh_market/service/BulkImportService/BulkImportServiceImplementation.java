@@ -0,0 +1,300 @@
+package com.unibuc.fresh_market.service.BulkImportService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.BulkRowErrorDTO;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.ProductFarmMapper;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
+import com.unibuc.fresh_market.repository.CategoryRepository;
+import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import com.unibuc.fresh_market.service.ProductService.ProductService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class BulkImportServiceImplementation implements BulkImportService {
+    // a multiple of hibernate.jdbc.batch_size, so every chunk goes out as whole JDBC batches in its own transaction
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final Validator validator;
+    private final ProductService productService;
+    private final ProductFarmService productFarmService;
+    private final ProductOrderService productOrderService;
+    private final CategoryRepository categoryRepository;
+    private final FarmRepository farmRepository;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final ProductMapper productMapper;
+    private final ProductFarmMapper productFarmMapper;
+    private final ProductOrderMapper productOrderMapper;
+
+    public BulkImportServiceImplementation(ObjectMapper objectMapper, Validator validator,
+                                           ProductService productService, ProductFarmService productFarmService,
+                                           ProductOrderService productOrderService, CategoryRepository categoryRepository,
+                                           FarmRepository farmRepository, ProductRepository productRepository,
+                                           OrderRepository orderRepository, ProductMapper productMapper,
+                                           ProductFarmMapper productFarmMapper, ProductOrderMapper productOrderMapper) {
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL, CsvParser.Feature.SKIP_EMPTY_LINES)
+                .build();
+        this.validator = validator;
+        this.productService = productService;
+        this.productFarmService = productFarmService;
+        this.productOrderService = productOrderService;
+        this.categoryRepository = categoryRepository;
+        this.farmRepository = farmRepository;
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.productMapper = productMapper;
+        this.productFarmMapper = productFarmMapper;
+        this.productOrderMapper = productOrderMapper;
+    }
+
+    public BulkImportReportDTO importProducts(InputStream input, BulkFormat format) throws IOException {
+        List<Reference<Product>> references = List.of(
+                new Reference<>("category", product -> product.getCategory() != null ? product.getCategory().getId() : null,
+                        categoryRepository::findExistingIds));
+        return importRows(input, format, ProductDTO.class, productMapper::mapToEntity, references, productService::createProducts);
+    }
+
+    public BulkImportReportDTO importProductFarms(InputStream input, BulkFormat format) throws IOException {
+        List<Reference<ProductFarm>> references = List.of(
+                new Reference<>("farm", productFarm -> productFarm.getFarm() != null ? productFarm.getFarm().getId() : null,
+                        farmRepository::findExistingIds),
+                new Reference<>("product", productFarm -> productFarm.getProduct() != null ? productFarm.getProduct().getId() : null,
+                        productRepository::findExistingIds));
+        return importRows(input, format, ProductFarmDTO.class, productFarmMapper::mapToEntity, references, productFarmService::upsertProductFarms);
+    }
+
+    public BulkImportReportDTO importProductOrders(InputStream input, BulkFormat format) throws IOException {
+        List<Reference<ProductOrder>> references = List.of(
+                new Reference<>("order", productOrder -> productOrder.getOrder() != null ? productOrder.getOrder().getId() : null,
+                        orderRepository::findExistingIds),
+                new Reference<>("product", productOrder -> productOrder.getProduct() != null ? productOrder.getProduct().getId() : null,
+                        productRepository::findExistingIds));
+        return importRows(input, format, ProductOrderDTO.class, productOrderMapper::mapToEntity, references, productOrderService::createProductOrders);
+    }
+
+    // reads one row at a time, so only the current chunk is ever held in memory
+    private <D, E> BulkImportReportDTO importRows(InputStream input, BulkFormat format, Class<D> rowType, Function<D, E> toEntity,
+                                                 List<Reference<E>> references, Consumer<List<E>> write) throws IOException {
+        Report report = new Report();
+        List<Row<E>> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowReader<D> rows = format == BulkFormat.CSV ? csvRows(rowType, reader) : ndjsonRows(rowType, reader);
+        while (rows.next()) {
+            report.receivedRows++;
+            E entity;
+            try {
+                D row = rows.read();
+                if (row == null) {
+                    report.reject(rows.line(), "Malformed row: empty value");
+                    continue;
+                }
+                entity = toEntity.apply(row);
+            } catch (JsonProcessingException e) {
+                report.reject(rows.line(), "Malformed row: " + e.getOriginalMessage());
+                continue;
+            }
+
+            String violations = violationsOf(entity);
+            if (violations != null) {
+                report.reject(rows.line(), violations);
+                continue;
+            }
+
+            chunk.add(new Row<>(rows.line(), entity));
+            if (chunk.size() == CHUNK_SIZE) {
+                writeChunk(chunk, references, write, report);
+                chunk.clear();
+            }
+        }
+
+        writeChunk(chunk, references, write, report);
+        return report.toDTO();
+    }
+
+    private <D> RowReader<D> ndjsonRows(Class<D> rowType, BufferedReader reader) {
+        ObjectReader rowReader = objectMapper.readerFor(rowType).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return new RowReader<>() {
+            private long lineNumber;
+            private String line;
+
+            @Override
+            public boolean next() throws IOException {
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public D read() throws JsonProcessingException {
+                return rowReader.readValue(line);
+            }
+
+            @Override
+            public long line() {
+                return lineNumber;
+            }
+        };
+    }
+
+    // the parser handles quoted commas and line breaks, and the header row names the columns
+    private <D> RowReader<D> csvRows(Class<D> rowType, Reader reader) throws IOException {
+        MappingIterator<D> iterator = csvMapper.readerFor(rowType)
+                .with(CsvSchema.emptySchema().withHeader())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValues(reader);
+        return new RowReader<>() {
+            // the iterator skips the rest of a record it failed on, so the next call starts at the following record
+            @Override
+            public boolean next() throws IOException {
+                return iterator.hasNextValue();
+            }
+
+            @Override
+            public D read() throws IOException {
+                return iterator.nextValue();
+            }
+
+            // the line of the record's last value read, which for a malformed record is the one that failed
+            @Override
+            public long line() {
+                return iterator.getParser().currentTokenLocation().getLineNr();
+            }
+        };
+    }
+
+    private String violationsOf(Object entity) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private <E> void writeChunk(List<Row<E>> chunk, List<Reference<E>> references, Consumer<List<E>> write, Report report) {
+        // one IN query per referenced table instead of a lookup per row
+        List<Row<E>> resolvedRows = chunk;
+        for (Reference<E> reference : references) {
+            Set<Integer> ids = resolvedRows.stream()
+                    .map(row -> reference.id().apply(row.entity()))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Set<Integer> existingIds = ids.isEmpty() ? Set.of() : new HashSet<>(reference.existingIds().apply(ids));
+
+            List<Row<E>> nextRows = new ArrayList<>(resolvedRows.size());
+            for (Row<E> row : resolvedRows) {
+                Integer id = reference.id().apply(row.entity());
+                if (id == null) {
+                    report.reject(row.line(), reference.name() + "Id is required");
+                } else if (!existingIds.contains(id)) {
+                    report.reject(row.line(), "Unknown " + reference.name() + " " + id);
+                } else {
+                    nextRows.add(row);
+                }
+            }
+            resolvedRows = nextRows;
+        }
+
+        if (resolvedRows.isEmpty()) {
+            return;
+        }
+
+        try {
+            write.accept(resolvedRows.stream().map(Row::entity).toList());
+            report.importedRows += resolvedRows.size();
+        } catch (DataAccessException e) {
+            // the chunk's transaction rolled back as a whole, so every row in it is rejected
+            String message = "Chunk rolled back: " + e.getMostSpecificCause().getMessage();
+            resolvedRows.forEach(row -> report.reject(row.line(), message));
+        }
+    }
+
+    private interface RowReader<D> {
+        boolean next() throws IOException;
+
+        D read() throws IOException;
+
+        long line();
+    }
+
+    private record Row<E>(long line, E entity) {
+    }
+
+    private record Reference<E>(String name, Function<E, Integer> id, Function<Collection<Integer>, List<Integer>> existingIds) {
+    }
+
+    private static class Report {
+        private long receivedRows;
+        private long importedRows;
+        private long rejectedRows;
+        private final List<BulkRowErrorDTO> errors = new ArrayList<>();
+
+        private void reject(long line, String message) {
+            rejectedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(BulkRowErrorDTO.builder().line(line).message(message).build());
+            }
+        }
+
+        private BulkImportReportDTO toDTO() {
+            return BulkImportReportDTO.builder()
+                    .receivedRows(receivedRows)
+                    .importedRows(importedRows)
+                    .rejectedRows(rejectedRows)
+                    .errors(errors.stream().sorted(Comparator.comparing(BulkRowErrorDTO::getLine)).toList())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.unibuc.fresh_market.service.CacheStatsService;
+
+import com.unibuc.fresh_market.dto.CacheStatsDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CacheStatsService {
+    List<CacheStatsDTO> getAllCacheStats();
+    Optional<CacheStatsDTO> getCacheStats(String cacheName);
+}
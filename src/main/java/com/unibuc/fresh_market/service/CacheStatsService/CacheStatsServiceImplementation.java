@@ -0,0 +1,55 @@
+package com.unibuc.fresh_market.service.CacheStatsService;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.unibuc.fresh_market.dto.CacheStatsDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Service
+public class CacheStatsServiceImplementation implements CacheStatsService {
+    private final CacheManager cacheManager;
+
+    public CacheStatsServiceImplementation(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public List<CacheStatsDTO> getAllCacheStats() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(this::statsOf)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    public Optional<CacheStatsDTO> getCacheStats(String cacheName) {
+        // check the name first, the Caffeine manager would otherwise create the cache on lookup
+        if (!cacheManager.getCacheNames().contains(cacheName)) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(cacheManager.getCache(cacheName)).flatMap(this::statsOf);
+    }
+
+    private Optional<CacheStatsDTO> statsOf(Cache cache) {
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache)) {
+            return Optional.empty();
+        }
+
+        CacheStats stats = caffeineCache.stats();
+        return Optional.of(CacheStatsDTO.builder()
+                .name(cache.getName())
+                .size(caffeineCache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .build());
+    }
+}
@@ -0,0 +1,8 @@
+package com.unibuc.fresh_market.service.CatalogVersionService;
+
+import com.unibuc.fresh_market.domain.CatalogVersion;
+
+public interface CatalogVersionService {
+    CatalogVersion getCatalogVersion();
+    void bumpCatalogVersion();
+}
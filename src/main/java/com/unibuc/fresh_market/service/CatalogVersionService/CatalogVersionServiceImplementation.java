@@ -0,0 +1,30 @@
+package com.unibuc.fresh_market.service.CatalogVersionService;
+
+import com.unibuc.fresh_market.domain.CatalogVersion;
+import com.unibuc.fresh_market.repository.CatalogVersionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// the version lives in the database, so every instance hands out the same one and a restart never reuses one
+@Service
+public class CatalogVersionServiceImplementation implements CatalogVersionService {
+    private static final Integer CATALOG_VERSION_ID = 1;
+
+    private final CatalogVersionRepository catalogVersionRepository;
+
+    public CatalogVersionServiceImplementation(CatalogVersionRepository catalogVersionRepository) {
+        this.catalogVersionRepository = catalogVersionRepository;
+    }
+
+    public CatalogVersion getCatalogVersion() {
+        return catalogVersionRepository.findById(CATALOG_VERSION_ID)
+                .orElseThrow(() -> new IllegalStateException("The catalog_version row is missing"));
+    }
+
+    // joins the caller's write transaction, the new version becomes visible with the rows it describes and
+    // is rolled back with them
+    @Transactional
+    public void bumpCatalogVersion() {
+        catalogVersionRepository.bumpCatalogVersion(CATALOG_VERSION_ID);
+    }
+}
@@ -10,7 +10,7 @@ public interface CategoryService {
     Category createCategory(Category category);
     List<Category> getAllCategories();
     Optional<Category> getCategoryById(Integer id);
-    Optional<Category> updateCategory(Integer id, Category category);
+    Optional<Category> updateCategory(Integer id, Category category, Long expectedVersion);
     Optional<Category> deleteCategory(Integer id);
 
     List<Product> getProductsByCategoryId(Integer categoryId);
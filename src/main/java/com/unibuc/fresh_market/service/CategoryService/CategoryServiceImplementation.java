@@ -1,10 +1,21 @@
 package com.unibuc.fresh_market.service.CategoryService;
 
+import com.unibuc.fresh_market.config.CacheConfig;
 import com.unibuc.fresh_market.domain.Category;
 import com.unibuc.fresh_market.domain.Product;
 import com.unibuc.fresh_market.repository.CategoryRepository;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
 import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,41 +24,79 @@ import java.util.Optional;
 public class CategoryServiceImplementation implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final ProductAvailabilityRepository productAvailabilityRepository;
+    private final ProductOrderRepository productOrderRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final FarmReportService farmReportService;
 
-    public CategoryServiceImplementation(CategoryRepository categoryRepository, ProductRepository productRepository) {
+    public CategoryServiceImplementation(CategoryRepository categoryRepository, ProductRepository productRepository,
+                                         ProductAvailabilityRepository productAvailabilityRepository,
+                                         ProductOrderRepository productOrderRepository, CatalogVersionService catalogVersionService,
+                                         FarmReportService farmReportService) {
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
+        this.productAvailabilityRepository = productAvailabilityRepository;
+        this.productOrderRepository = productOrderRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.farmReportService = farmReportService;
     }
 
+    @Transactional
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        Category createdCategory = categoryRepository.save(category);
+        catalogVersionService.bumpCatalogVersion();
+        return createdCategory;
     }
 
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
 
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id", unless = "#result == null")
     public Optional<Category> getCategoryById(Integer id) {
         Category category = categoryRepository.findById(id).orElse(null);
         return Optional.ofNullable(category);
     }
 
-    public Optional<Category> updateCategory(Integer id, Category category) {
+    // cached products embed their category
+    @Transactional
+    @Caching(put = @CachePut(cacheNames = CacheConfig.CATEGORIES, key = "#id", unless = "#result == null"),
+            evict = @CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true))
+    public Optional<Category> updateCategory(Integer id, Category category, Long expectedVersion) {
         Category categoryToUpdate = categoryRepository.findById(id).orElse(null);
         if (categoryToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != categoryToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("Category " + id + " has been modified since version " + expectedVersion);
+            }
+
             categoryToUpdate.setName(category.getName());
             categoryToUpdate.setDescription(category.getDescription());
             Category updatedCategory = categoryRepository.save(categoryToUpdate);
+            catalogVersionService.bumpCatalogVersion();
             return Optional.of(updatedCategory);
         }
 
         return Optional.empty();
     }
 
+    // the category's products go with it in the cascade, and so do their stock rows, counters and order lines
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true)
+    })
     public Optional<Category> deleteCategory(Integer id) {
         Category categoryToDelete = categoryRepository.findById(id).orElse(null);
         if (categoryToDelete != null) {
+            List<Integer> productIds = categoryToDelete.getProducts() != null
+                    ? categoryToDelete.getProducts().stream().map(Product::getId).toList()
+                    : List.of();
+            farmReportService.invalidateMonthlyReports(productOrderRepository.findOrderFarmIdsByCategoryId(id));
             categoryRepository.delete(categoryToDelete);
+            if (!productIds.isEmpty()) {
+                productAvailabilityRepository.deleteAllByIdInBatch(productIds);
+            }
+            catalogVersionService.bumpCatalogVersion();
             return Optional.of(categoryToDelete);
         }
 
@@ -0,0 +1,8 @@
+package com.unibuc.fresh_market.service.CheckoutService;
+
+import com.unibuc.fresh_market.dto.CheckoutRequestDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+
+public interface CheckoutService {
+    OrderReceiptDTO checkout(CheckoutRequestDTO checkoutRequest);
+}
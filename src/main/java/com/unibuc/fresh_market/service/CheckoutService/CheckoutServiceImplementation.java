@@ -0,0 +1,115 @@
+package com.unibuc.fresh_market.service.CheckoutService;
+
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.CheckoutItemDTO;
+import com.unibuc.fresh_market.dto.CheckoutRequestDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.dto.ReceiptLineDTO;
+import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.repository.security.UserRepository;
+import com.unibuc.fresh_market.service.OrderService.OrderService;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CheckoutServiceImplementation implements CheckoutService {
+    private final OrderService orderService;
+    private final ProductFarmService productFarmService;
+    private final ProductOrderRepository productOrderRepository;
+    private final ProductRepository productRepository;
+    private final FarmRepository farmRepository;
+    private final UserRepository userRepository;
+
+    public CheckoutServiceImplementation(OrderService orderService, ProductFarmService productFarmService,
+                                         ProductOrderRepository productOrderRepository, ProductRepository productRepository,
+                                         FarmRepository farmRepository, UserRepository userRepository) {
+        this.orderService = orderService;
+        this.productFarmService = productFarmService;
+        this.productOrderRepository = productOrderRepository;
+        this.productRepository = productRepository;
+        this.farmRepository = farmRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Transactional
+    public OrderReceiptDTO checkout(CheckoutRequestDTO checkoutRequest) {
+        User user = userRepository.findById(checkoutRequest.getUserId())
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + checkoutRequest.getUserId()));
+        Farm farm = farmRepository.findById(checkoutRequest.getFarmId())
+                .orElseThrow(() -> new IllegalArgumentException("Farm not found: " + checkoutRequest.getFarmId()));
+
+        Map<Integer, Integer> quantitiesByProductId = new LinkedHashMap<>();
+        for (CheckoutItemDTO item : checkoutRequest.getItems()) {
+            quantitiesByProductId.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Map<Integer, Product> products = productRepository.findAllById(quantitiesByProductId.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Integer productId : quantitiesByProductId.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+        }
+
+        // decrement the stock first so a sold out basket fails before anything is inserted
+        productFarmService.reserveStock(farm.getId(), quantitiesByProductId);
+
+        Order order = Order.builder()
+                .status("Pending")
+                .user(user)
+                .farm(farm)
+                .totalAmount(quantitiesByProductId.entrySet().stream()
+                        .mapToDouble(entry -> priceOf(products.get(entry.getKey())) * entry.getValue())
+                        .sum())
+                .build();
+        Order createdOrder = orderService.createOrder(order);
+
+        List<ProductOrder> productOrders = checkoutRequest.getItems().stream()
+                .map(item -> ProductOrder.builder()
+                        .order(createdOrder)
+                        .product(products.get(item.getProductId()))
+                        .quantity(item.getQuantity())
+                        .unitPrice(priceOf(products.get(item.getProductId())))
+                        .notes(item.getNotes())
+                        .build())
+                .toList();
+        List<ProductOrder> createdProductOrders = productOrderRepository.saveAll(productOrders);
+
+        List<ReceiptLineDTO> lines = createdProductOrders.stream()
+                .map(productOrder -> ReceiptLineDTO.builder()
+                        .productOrderId(productOrder.getId())
+                        .productId(productOrder.getProduct().getId())
+                        .productName(productOrder.getProduct().getName())
+                        .unitPrice(productOrder.getUnitPrice())
+                        .quantity(productOrder.getQuantity())
+                        .lineTotal(productOrder.getUnitPrice() * productOrder.getQuantity())
+                        .build())
+                .toList();
+
+        return OrderReceiptDTO.builder()
+                .orderId(createdOrder.getId())
+                .status(createdOrder.getStatus())
+                .createdAt(createdOrder.getCreatedAt())
+                .farmId(farm.getId())
+                .lines(lines)
+                .total(createdOrder.getTotalAmount())
+                .build();
+    }
+
+    private double priceOf(Product product) {
+        return product.getPrice() != null ? product.getPrice() : 0.0;
+    }
+}
@@ -0,0 +1,7 @@
+package com.unibuc.fresh_market.service.DataGeneratorService;
+
+import com.unibuc.fresh_market.dto.GeneratedDataDTO;
+
+public interface DataGeneratorService {
+    GeneratedDataDTO generate();
+}
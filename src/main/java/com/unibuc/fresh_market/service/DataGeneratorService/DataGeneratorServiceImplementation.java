@@ -0,0 +1,247 @@
+package com.unibuc.fresh_market.service.DataGeneratorService;
+
+import com.unibuc.fresh_market.config.GeneratorProperties;
+import com.unibuc.fresh_market.dto.GeneratedDataDTO;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotService;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotTable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// ids are assigned here instead of by the sequences and every batch draws from its own seeded random,
+// so the rows only depend on the seed and the sizes, not on how the batches were scheduled across cores
+@Service
+public class DataGeneratorServiceImplementation implements DataGeneratorService {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final int ADMIN_ROLE_ID = 1;
+    private static final int USER_ROLE_ID = 2;
+
+    private static final Table ROLES = new Table("roles", "id, version, name",
+            Types.INTEGER, Types.BIGINT, Types.VARCHAR);
+    private static final Table CATEGORIES = new Table("categories", "id, version, name, description",
+            Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.VARCHAR);
+    private static final Table FARM = new Table("farm", "id, version, name, address",
+            Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.VARCHAR);
+    private static final Table USERS = new Table("users", "id, version, username, email, password, farm_id",
+            Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER);
+    private static final Table USER_ROLE = new Table("user_role", "user_id, role_id",
+            Types.INTEGER, Types.INTEGER);
+    private static final Table PRODUCTS = new Table("products", "id, version, name, description, price, category_id",
+            Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.INTEGER);
+    private static final Table PRODUCT_FARM = new Table("product_farm", "id, version, farm_id, product_id, quantity, notes",
+            Types.INTEGER, Types.BIGINT, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.VARCHAR);
+    private static final Table DELIVERIES = new Table("deliveries", "id, version, delivery_status, delivery_date",
+            Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP);
+    private static final Table ORDERS = new Table("orders", "id, version, status, total_amount, created_at, user_id, farm_id, delivery_id",
+            Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.DOUBLE, Types.TIMESTAMP, Types.INTEGER, Types.INTEGER, Types.INTEGER);
+    private static final Table PRODUCT_ORDER = new Table("product_order", "id, version, order_id, product_id, quantity, unit_price, notes",
+            Types.INTEGER, Types.BIGINT, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.DOUBLE, Types.VARCHAR);
+    private static final Table REVIEWS = new Table("reviews", "id, version, rating, content, user_id, farm_id",
+            Types.INTEGER, Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.INTEGER);
+
+    // the same totals FarmService.rebuildSalesByFarmId, ReviewService.rebuildRatingByFarmId and
+    // ProductFarmService.rebuildAvailabilityByProductId compute, for every farm and product in one statement
+    private static final String FARM_SALES = "INSERT INTO farm_sales (farm_id, total_sales, order_count, last_updated) " +
+            "SELECT f.id, COALESCE(SUM(o.total_amount), 0.0), COUNT(o.id), ? FROM farm f " +
+            "LEFT JOIN orders o ON o.farm_id = f.id GROUP BY f.id";
+    private static final String FARM_RATINGS = "INSERT INTO farm_ratings (farm_id, review_count, rating_sum, one_star_count, " +
+            "two_star_count, three_star_count, four_star_count, five_star_count, last_updated) " +
+            "SELECT f.id, COUNT(r.rating), COALESCE(SUM(r.rating), 0), COUNT(CASE WHEN r.rating = 1 THEN 1 END), " +
+            "COUNT(CASE WHEN r.rating = 2 THEN 1 END), COUNT(CASE WHEN r.rating = 3 THEN 1 END), " +
+            "COUNT(CASE WHEN r.rating = 4 THEN 1 END), COUNT(CASE WHEN r.rating = 5 THEN 1 END), ? FROM farm f " +
+            "LEFT JOIN reviews r ON r.farm_id = f.id GROUP BY f.id";
+    private static final String PRODUCT_AVAILABILITY = "INSERT INTO product_availability (product_id, total_quantity, farms_in_stock, last_updated) " +
+            "SELECT p.id, COALESCE(SUM(pf.quantity), 0), COUNT(CASE WHEN pf.quantity > 0 THEN 1 END), ? FROM products p " +
+            "LEFT JOIN product_farm pf ON pf.product_id = p.id GROUP BY p.id";
+    // a generated catalog is not the one clients hold ETags for
+    private static final String BUMP_CATALOG_VERSION = "UPDATE catalog_version SET version = version + 1, last_modified = CURRENT_TIMESTAMP WHERE id = 1";
+
+    private final GeneratorProperties generatorProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final PasswordEncoder passwordEncoder;
+    private final SnapshotService snapshotService;
+
+    public DataGeneratorServiceImplementation(GeneratorProperties generatorProperties, DataSource dataSource,
+                                              PlatformTransactionManager transactionManager, PasswordEncoder passwordEncoder,
+                                              SnapshotService snapshotService) {
+        this.generatorProperties = generatorProperties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.snapshotService = snapshotService;
+    }
+
+    public GeneratedDataDTO generate() {
+        long start = System.nanoTime();
+        int users = generatorProperties.getUsers();
+        int farms = generatorProperties.getFarms();
+        int categories = generatorProperties.getCategories();
+        int products = generatorProperties.getProducts();
+        int productsPerFarm = Math.min(generatorProperties.getProductsPerFarm(), products);
+        int maxLinesPerOrder = generatorProperties.getMaxLinesPerOrder();
+        long untilMillis = generatorProperties.getUntil().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long spanMillis = generatorProperties.getDays() * DAY_MILLIS;
+
+        // one BCrypt round for the whole dataset instead of one per user
+        String passwordHash = passwordEncoder.encode(generatorProperties.getPassword());
+        double[] prices = productPrices(products);
+        ZipfDistribution productPopularity = new ZipfDistribution(products, generatorProperties.getProductSkew());
+
+        generateInBatches(List.of(ROLES), 3, (id, random, rows) ->
+                add(rows, ROLES, id, 0L, List.of("ADMIN", "USER", "GUEST").get(id - 1)));
+
+        generateInBatches(List.of(CATEGORIES), categories, (id, random, rows) ->
+                add(rows, CATEGORIES, id, 0L, "Category " + id, "Generated category " + id));
+
+        generateInBatches(List.of(FARM), farms, (id, random, rows) ->
+                add(rows, FARM, id, 0L, "Farm " + id, id + " Market Street"));
+
+        // the first users own one farm each
+        generateInBatches(List.of(USERS, USER_ROLE), users, (id, random, rows) -> {
+            add(rows, USERS, id, 0L, "user" + id, "user" + id + "@fresh-market.test", passwordHash, id <= farms ? id : null);
+            add(rows, USER_ROLE, id, id == 1 ? ADMIN_ROLE_ID : USER_ROLE_ID);
+        });
+
+        generateInBatches(List.of(PRODUCTS), products, (id, random, rows) ->
+                add(rows, PRODUCTS, id, 0L, "Product " + id, "Generated product " + id, prices[id - 1], 1 + (id - 1) % categories));
+
+        // popular products are stocked by more farms
+        generateInBatches(List.of(PRODUCT_FARM), farms, (farmId, random, rows) -> {
+            Set<Integer> stocked = new LinkedHashSet<>();
+            for (int attempt = 0; stocked.size() < productsPerFarm; attempt++) {
+                stocked.add(attempt < productsPerFarm * 10 ? productPopularity.sample(random) : 1 + random.nextInt(products));
+            }
+
+            int line = 0;
+            for (Integer productId : stocked) {
+                add(rows, PRODUCT_FARM, (farmId - 1) * productsPerFarm + ++line, 0L, farmId, productId, random.nextInt(500), null);
+            }
+        });
+
+        generateInBatches(List.of(DELIVERIES, ORDERS, PRODUCT_ORDER), generatorProperties.getOrders(), (orderId, random, rows) -> {
+            long createdAt = untilMillis - (long) (random.nextDouble() * spanMillis);
+            double statusDraw = random.nextDouble();
+            String status = statusDraw < 0.2 ? "Pending" : statusDraw < 0.5 ? "Shipped" : "Delivered";
+
+            Integer deliveryId = null;
+            if (!status.equals("Pending")) {
+                deliveryId = orderId;
+                add(rows, DELIVERIES, deliveryId, 0L, status.equals("Delivered") ? "Delivered" : "In Progress",
+                        new Timestamp(createdAt + (1 + random.nextInt(3)) * DAY_MILLIS));
+            }
+
+            double totalAmount = 0;
+            int lines = 1 + random.nextInt(maxLinesPerOrder);
+            for (int line = 1; line <= lines; line++) {
+                int productId = productPopularity.sample(random);
+                int quantity = 1 + random.nextInt(10);
+                totalAmount += prices[productId - 1] * quantity;
+                add(rows, PRODUCT_ORDER, (orderId - 1) * maxLinesPerOrder + line, 0L, orderId, productId, quantity, prices[productId - 1], null);
+            }
+
+            add(rows, ORDERS, orderId, 0L, status, Math.round(totalAmount * 100) / 100.0, new Timestamp(createdAt),
+                    1 + random.nextInt(users), skewedFarm(random), deliveryId);
+        });
+
+        // mostly happy customers
+        generateInBatches(List.of(REVIEWS), generatorProperties.getReviews(), (id, random, rows) -> {
+            double ratingDraw = random.nextDouble();
+            int rating = ratingDraw < 0.05 ? 1 : ratingDraw < 0.1 ? 2 : ratingDraw < 0.2 ? 3 : ratingDraw < 0.5 ? 4 : 5;
+            add(rows, REVIEWS, id, 0L, rating, "Generated review " + id, 1 + random.nextInt(users), skewedFarm(random));
+        });
+
+        Timestamp lastUpdated = new Timestamp(untilMillis);
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.update(FARM_SALES, lastUpdated);
+            jdbcTemplate.update(FARM_RATINGS, lastUpdated);
+            jdbcTemplate.update(PRODUCT_AVAILABILITY, lastUpdated);
+            jdbcTemplate.update(BUMP_CATALOG_VERSION);
+        });
+        snapshotService.restartSequences();
+
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        for (SnapshotTable table : SnapshotTable.values()) {
+            rowCounts.put(table.getTableName(), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table.getTableName(), Long.class));
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        long totalRows = rowCounts.values().stream().mapToLong(Long::longValue).sum();
+        return GeneratedDataDTO.builder()
+                .seed(generatorProperties.getSeed())
+                .rowCounts(rowCounts)
+                .totalRows(totalRows)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(elapsedNanos > 0 ? totalRows * 1e9 / elapsedNanos : 0.0)
+                .build();
+    }
+
+    // rows are generated and inserted batch by batch on every core, each batch in its own transaction
+    private void generateInBatches(List<Table> tables, int count, RowGenerator generator) {
+        int batchSize = generatorProperties.getBatchSize();
+        int batches = (count + batchSize - 1) / batchSize;
+        long tableSeed = generatorProperties.getSeed() * 31 + tables.getFirst().name().hashCode() * 1_000_003L;
+
+        IntStream.range(0, batches).parallel().forEach(batch -> {
+            SplittableRandom random = new SplittableRandom(tableSeed + batch);
+            Map<Table, List<Object[]>> rows = new LinkedHashMap<>();
+            tables.forEach(table -> rows.put(table, new ArrayList<>()));
+
+            int lastId = Math.min(count, (batch + 1) * batchSize);
+            for (int id = batch * batchSize + 1; id <= lastId; id++) {
+                generator.generate(id, random, rows);
+            }
+
+            // tables in the order given, so every foreign key points at a row inserted before it
+            transaction.executeWithoutResult(status -> rows.forEach((table, tableRows) ->
+                    jdbcTemplate.batchUpdate(table.insertSql(), tableRows, table.types())));
+        });
+    }
+
+    private double[] productPrices(int products) {
+        SplittableRandom random = new SplittableRandom(generatorProperties.getSeed());
+        double[] prices = new double[products];
+        for (int i = 0; i < products; i++) {
+            prices[i] = Math.round((0.5 + random.nextDouble() * 19.5) * 100) / 100.0;
+        }
+
+        return prices;
+    }
+
+    private int skewedFarm(SplittableRandom random) {
+        int farms = generatorProperties.getFarms();
+        int hotFarms = Math.max(1, (int) Math.round(farms * generatorProperties.getHotFarmRatio()));
+        return random.nextDouble() < generatorProperties.getHotFarmShare() ? 1 + random.nextInt(hotFarms) : 1 + random.nextInt(farms);
+    }
+
+    private static void add(Map<Table, List<Object[]>> rows, Table table, Object... values) {
+        rows.get(table).add(values);
+    }
+
+    private interface RowGenerator {
+        void generate(int id, SplittableRandom random, Map<Table, List<Object[]>> rows);
+    }
+
+    private record Table(String name, String columns, int... types) {
+        String insertSql() {
+            return "INSERT INTO " + name + " (" + columns + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(types.length, "?")) + ")";
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.unibuc.fresh_market.service.DeliveryService;
 
 import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.DeliveryDTO;
 
 import java.util.List;
 import java.util.Optional;
@@ -8,9 +10,10 @@ import java.util.Optional;
 public interface DeliveryService {
     Delivery createDelivery(Delivery delivery);
     List<Delivery> getAllDeliveries();
+    CursorPage<Delivery> getDeliveriesPage(String after, Integer limit);
     Optional<Delivery> getDeliveryById(Integer id);
-    Optional<Delivery> updateDelivery(Integer id, Delivery delivery);
+    Optional<Delivery> updateDelivery(Integer id, Delivery delivery, Long expectedVersion);
     Optional<Delivery> deleteDelivery(Integer id);
 
-    List<Delivery> getDeliveriesByStatus(String status);
+    List<DeliveryDTO> getDeliveriesByStatus(String status);
 }
@@ -1,7 +1,11 @@
 package com.unibuc.fresh_market.service.DeliveryService;
 
 import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.DeliveryDTO;
 import com.unibuc.fresh_market.repository.DeliveryRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,15 +27,25 @@ public class DeliveryServiceImplementation implements DeliveryService {
         return deliveryRepository.findAll();
     }
 
+    public CursorPage<Delivery> getDeliveriesPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Delivery> deliveries = deliveryRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(deliveries, pageSize, Delivery::getId);
+    }
+
     public Optional<Delivery> getDeliveryById(Integer id) {
         Delivery delivery = deliveryRepository.findById(id).orElse(null);
         return Optional.ofNullable(delivery);
     }
 
-    public Optional<Delivery> updateDelivery(Integer id, Delivery delivery) {
+    public Optional<Delivery> updateDelivery(Integer id, Delivery delivery, Long expectedVersion) {
         Delivery deliveryToUpdate = deliveryRepository.findById(id).orElse(null);
 
         if (deliveryToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != deliveryToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("Delivery " + id + " has been modified since version " + expectedVersion);
+            }
+
             deliveryToUpdate.setDeliveryDate(delivery.getDeliveryDate());
             deliveryToUpdate.setDeliveryStatus(delivery.getDeliveryStatus());
             Delivery updatedDelivery = deliveryRepository.save(deliveryToUpdate);
@@ -51,7 +65,7 @@ public class DeliveryServiceImplementation implements DeliveryService {
         return Optional.empty();
     }
 
-    public List<Delivery> getDeliveriesByStatus(String status) {
+    public List<DeliveryDTO> getDeliveriesByStatus(String status) {
         return deliveryRepository.findDeliveriesByDeliveryStatus(status);
     }
 
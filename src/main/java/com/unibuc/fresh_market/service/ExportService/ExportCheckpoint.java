@@ -0,0 +1,6 @@
+package com.unibuc.fresh_market.service.ExportService;
+
+// everything up to bytesWritten in the part file is complete gzip members holding the rows up to lastId
+record ExportCheckpoint(Integer lastId, long rowsWritten, long bytesWritten) {
+    static final ExportCheckpoint START = new ExportCheckpoint(0, 0, 0);
+}
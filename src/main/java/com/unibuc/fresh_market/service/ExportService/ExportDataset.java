@@ -0,0 +1,28 @@
+package com.unibuc.fresh_market.service.ExportService;
+
+public enum ExportDataset {
+    ORDERS("orders"),
+    PRODUCT_ORDER("product_order"),
+    PRODUCT_FARM("product_farm"),
+    REVIEWS("reviews");
+
+    private final String tableName;
+
+    ExportDataset(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public static ExportDataset fromTableName(String tableName) {
+        for (ExportDataset dataset : values()) {
+            if (dataset.tableName.equalsIgnoreCase(tableName)) {
+                return dataset;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown export dataset: " + tableName);
+    }
+}
@@ -0,0 +1,13 @@
+package com.unibuc.fresh_market.service.ExportService;
+
+import com.unibuc.fresh_market.dto.ExportJobDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ExportService {
+    ExportJobDTO startExport(ExportDataset dataset, ExportFormat format);
+    ExportJobDTO runExport(ExportDataset dataset, ExportFormat format);
+    List<ExportJobDTO> getExports();
+    Optional<ExportJobDTO> getExport(ExportDataset dataset, ExportFormat format);
+}
@@ -0,0 +1,311 @@
+package com.unibuc.fresh_market.service.ExportService;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.unibuc.fresh_market.config.ExportProperties;
+import com.unibuc.fresh_market.dto.ExportJobDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductFarmRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ReviewRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class ExportServiceImplementation implements ExportService {
+    static final String PART_SUFFIX = ".part";
+    static final String CHECKPOINT_SUFFIX = ".checkpoint.json";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ExportProperties exportProperties;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final OrderRepository orderRepository;
+    private final ProductOrderRepository productOrderRepository;
+    private final ProductFarmRepository productFarmRepository;
+    private final ReviewRepository reviewRepository;
+
+    // one export at a time, so the nightly dumps don't compete with each other for the database
+    private final ExecutorService exportExecutor;
+    private final Map<String, ExportJobDTO> jobs = new ConcurrentHashMap<>();
+
+    public ExportServiceImplementation(ExportProperties exportProperties, ObjectMapper objectMapper,
+                                       PlatformTransactionManager transactionManager, OrderRepository orderRepository,
+                                       ProductOrderRepository productOrderRepository, ProductFarmRepository productFarmRepository,
+                                       ReviewRepository reviewRepository, Environment environment) {
+        // on a virtual thread when spring.threads.virtual.enabled is set, like the rest of the application's threads
+        ThreadFactory exportThreads = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("export-", 0).factory()
+                : Thread.ofPlatform().name("export-", 0).factory();
+        this.exportExecutor = Executors.newSingleThreadExecutor(exportThreads);
+        this.exportProperties = exportProperties;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.orderRepository = orderRepository;
+        this.productOrderRepository = productOrderRepository;
+        this.productFarmRepository = productFarmRepository;
+        this.reviewRepository = reviewRepository;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // a running export stops at its next segment and resumes from the last checkpoint on the next start
+        exportExecutor.shutdownNow();
+    }
+
+    public ExportJobDTO startExport(ExportDataset dataset, ExportFormat format) {
+        ExportRun run = register(dataset, format);
+        exportExecutor.execute(() -> export(run, sourceOf(dataset)));
+        return run.snapshot();
+    }
+
+    public ExportJobDTO runExport(ExportDataset dataset, ExportFormat format) {
+        ExportRun run = register(dataset, format);
+        export(run, sourceOf(dataset));
+        return jobs.get(run.fileName);
+    }
+
+    public List<ExportJobDTO> getExports() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ExportJobDTO::getFile))
+                .toList();
+    }
+
+    public Optional<ExportJobDTO> getExport(ExportDataset dataset, ExportFormat format) {
+        return Optional.ofNullable(jobs.get(fileName(dataset, format)));
+    }
+
+    private ExportRun register(ExportDataset dataset, ExportFormat format) {
+        ExportRun run = new ExportRun(dataset, format, fileName(dataset, format));
+        ExportJobDTO job = run.snapshot();
+        ExportJobDTO current = jobs.compute(run.fileName, (fileName, previous) ->
+                previous != null && ExportStatus.RUNNING.name().equals(previous.getStatus()) ? previous : job);
+        if (current != job) {
+            throw new IllegalStateException("Export " + run.fileName + " is already running");
+        }
+
+        return run;
+    }
+
+    private Source<?> sourceOf(ExportDataset dataset) {
+        return switch (dataset) {
+            case ORDERS -> new Source<>(OrderDTO.class, orderRepository::streamOrdersAfter, OrderDTO::getId);
+            case PRODUCT_ORDER -> new Source<>(ProductOrderDTO.class, productOrderRepository::streamProductOrdersAfter, ProductOrderDTO::getId);
+            case PRODUCT_FARM -> new Source<>(ProductFarmDTO.class, productFarmRepository::streamProductFarmsAfter, ProductFarmDTO::getId);
+            case REVIEWS -> new Source<>(ReviewDTO.class, reviewRepository::streamReviewsAfter, ReviewDTO::getId);
+        };
+    }
+
+    private <T> void export(ExportRun run, Source<T> source) {
+        Path directory = Paths.get(exportProperties.getDirectory());
+        Path partFile = directory.resolve(run.fileName + PART_SUFFIX);
+        Path checkpointFile = directory.resolve(run.fileName + CHECKPOINT_SUFFIX);
+        int segmentSize = exportProperties.getSegmentSize();
+
+        try {
+            Files.createDirectories(directory);
+            ExportCheckpoint checkpoint = readCheckpoint(checkpointFile, partFile);
+            run.resumeFrom(checkpoint);
+            publish(run);
+
+            try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // drop whatever an interrupted run wrote after its last checkpoint
+                channel.truncate(checkpoint.bytesWritten());
+                channel.position(checkpoint.bytesWritten());
+                OutputStream out = Channels.newOutputStream(channel);
+
+                int segmentRows;
+                do {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Export interrupted after row " + run.lastId);
+                    }
+
+                    segmentRows = writeSegment(out, source, run, channel.position() == 0, segmentSize);
+                    channel.force(false);
+                    run.bytesWritten = channel.position();
+                    writeCheckpoint(checkpointFile, new ExportCheckpoint(run.lastId, run.rowsWritten, run.bytesWritten));
+                    publish(run);
+                } while (segmentRows == segmentSize);
+            }
+
+            Files.move(partFile, directory.resolve(run.fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(checkpointFile);
+            run.status = ExportStatus.COMPLETED;
+        } catch (IOException | RuntimeException e) {
+            run.status = ExportStatus.FAILED;
+            run.error = e instanceof UncheckedIOException unchecked ? unchecked.getCause().getMessage() : e.getMessage();
+        }
+
+        run.finishedAt = new Date();
+        publish(run);
+    }
+
+    // one gzip member per segment: members concatenate into a single valid .gz, so a resumed run just appends
+    private <T> int writeSegment(OutputStream out, Source<T> source, ExportRun run, boolean header, int segmentSize) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        JsonGenerator generator = createGenerator(gzip, run.format, source.rowType(), header);
+
+        Integer segmentRows;
+        try {
+            segmentRows = readOnlyTransaction.execute(status -> {
+                int rows = 0;
+                try (Stream<T> stream = source.rowsAfter().apply(run.lastId, Limit.of(segmentSize))) {
+                    Iterator<T> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        T row = iterator.next();
+                        generator.writeObject(row);
+                        if (run.format == ExportFormat.NDJSON) {
+                            generator.writeRaw('\n');
+                        }
+                        run.lastId = source.id().apply(row);
+                        run.rowsWritten++;
+                        run.rowsThisRun++;
+                        rows++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return rows;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        generator.close();
+        gzip.finish();
+        return segmentRows != null ? segmentRows : 0;
+    }
+
+    private JsonGenerator createGenerator(OutputStream out, ExportFormat format, Class<?> rowType, boolean header) throws IOException {
+        if (format == ExportFormat.CSV) {
+            CsvGenerator generator = csvMapper.getFactory().createGenerator(out);
+            generator.setSchema(csvMapper.schemaFor(rowType).withUseHeader(header));
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return generator;
+        }
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private ExportCheckpoint readCheckpoint(Path checkpointFile, Path partFile) throws IOException {
+        if (!Files.exists(checkpointFile) || !Files.exists(partFile)) {
+            return ExportCheckpoint.START;
+        }
+
+        ExportCheckpoint checkpoint = objectMapper.readValue(checkpointFile.toFile(), ExportCheckpoint.class);
+        return Files.size(partFile) >= checkpoint.bytesWritten() ? checkpoint : ExportCheckpoint.START;
+    }
+
+    private void writeCheckpoint(Path checkpointFile, ExportCheckpoint checkpoint) throws IOException {
+        Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        objectMapper.writeValue(temporaryFile.toFile(), checkpoint);
+        Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void publish(ExportRun run) {
+        jobs.put(run.fileName, run.snapshot());
+    }
+
+    private String fileName(ExportDataset dataset, ExportFormat format) {
+        return dataset.getTableName() + "." + format.getExtension() + ".gz";
+    }
+
+    private record Source<T>(Class<T> rowType, BiFunction<Integer, Limit, Stream<T>> rowsAfter, Function<T, Integer> id) {
+    }
+
+    // progress of one export, only touched by the thread running it; readers see published snapshots
+    private static class ExportRun {
+        private final ExportDataset dataset;
+        private final ExportFormat format;
+        private final String fileName;
+        private final Date startedAt = new Date();
+        private final long startNanos = System.nanoTime();
+        private ExportStatus status = ExportStatus.RUNNING;
+        private Integer lastId = 0;
+        private long rowsWritten;
+        private long rowsThisRun;
+        private long bytesWritten;
+        private boolean resumed;
+        private Date finishedAt;
+        private String error;
+
+        private ExportRun(ExportDataset dataset, ExportFormat format, String fileName) {
+            this.dataset = dataset;
+            this.format = format;
+            this.fileName = fileName;
+        }
+
+        private void resumeFrom(ExportCheckpoint checkpoint) {
+            lastId = checkpoint.lastId();
+            rowsWritten = checkpoint.rowsWritten();
+            bytesWritten = checkpoint.bytesWritten();
+            resumed = checkpoint.bytesWritten() > 0;
+        }
+
+        private ExportJobDTO snapshot() {
+            double elapsedSeconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+            return ExportJobDTO.builder()
+                    .dataset(dataset.getTableName())
+                    .format(format.getExtension())
+                    .status(status.name())
+                    .file(fileName)
+                    .rowsWritten(rowsWritten)
+                    .bytesWritten(bytesWritten)
+                    .rowsPerSecond(rowsThisRun / elapsedSeconds)
+                    .lastId(lastId)
+                    .resumed(resumed)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.unibuc.fresh_market.service.ExportService;
+
+public enum ExportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,14 @@
+package com.unibuc.fresh_market.service.FarmReportService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Date;
+
+public interface FarmReportService {
+    void writeMonthlyReport(Integer farmId, YearMonth month, OutputStream out) throws IOException;
+    void invalidateMonthlyReport(Integer farmId, Date orderDate);
+    void invalidateMonthlyReports(Collection<Integer> farmIds);
+    void invalidateAllMonthlyReports();
+}
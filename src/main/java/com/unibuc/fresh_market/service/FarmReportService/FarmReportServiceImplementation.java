@@ -0,0 +1,235 @@
+package com.unibuc.fresh_market.service.FarmReportService;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.unibuc.fresh_market.config.ReportProperties;
+import com.unibuc.fresh_market.dto.FarmReportLineDTO;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Service
+public class FarmReportServiceImplementation implements FarmReportService {
+    private final ReportProperties reportProperties;
+    private final ProductOrderRepository productOrderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final CsvMapper csvMapper;
+    private final CsvSchema schema;
+    // counts deleted reports, a report generated while one was deleted may hold the old rows and is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public FarmReportServiceImplementation(ReportProperties reportProperties, ProductOrderRepository productOrderRepository,
+                                           PlatformTransactionManager transactionManager) {
+        this.reportProperties = reportProperties;
+        this.productOrderRepository = productOrderRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.csvMapper = CsvMapper.builder()
+                .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        this.schema = csvMapper.schemaFor(FarmReportLineDTO.class).withHeader();
+    }
+
+    public void writeMonthlyReport(Integer farmId, YearMonth month, OutputStream out) throws IOException {
+        if (!month.isBefore(YearMonth.now(reportProperties.getZone()))) {
+            // orders can still land in this month, so it is generated on every request
+            writeReport(farmId, month, out);
+            return;
+        }
+
+        Path report = reportFile(farmId, month);
+        if (Files.exists(report)) {
+            Files.copy(report, out);
+            return;
+        }
+
+        Files.createDirectories(report.getParent());
+        Path temporaryFile = Files.createTempFile(report.getParent(), month + "-", ".tmp");
+        try {
+            long invalidationsBefore = invalidations.get();
+            try (OutputStream fileOut = Files.newOutputStream(temporaryFile)) {
+                writeReport(farmId, month, fileOut);
+            }
+            if (invalidations.get() == invalidationsBefore) {
+                Files.move(temporaryFile, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.copy(report, out);
+            } else {
+                Files.copy(temporaryFile, out);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    // rows go straight from the cursor through the CSV generator's fixed buffer, nothing is collected
+    private void writeReport(Integer farmId, YearMonth month, OutputStream out) throws IOException {
+        ZoneId zone = reportProperties.getZone();
+        Date from = Date.from(month.atDay(1).atStartOfDay(zone).toInstant());
+        Date to = Date.from(month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant());
+
+        try (SequenceWriter writer = csvMapper.writer(schema).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValues(out)) {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<FarmReportLineDTO> lines = productOrderRepository.streamMonthlyReportLines(farmId, from, to)) {
+                    writeLines(writer, lines.iterator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeLines(SequenceWriter writer, Iterator<FarmReportLineDTO> lines) throws IOException {
+        Total monthTotal = new Total(null, null);
+        Total productTotal = null;
+
+        while (lines.hasNext()) {
+            FarmReportLineDTO line = lines.next();
+            if (productTotal != null && !Objects.equals(productTotal.productId, line.getProductId())) {
+                writer.write(productTotal.toLine("PRODUCT_TOTAL"));
+                productTotal = null;
+            }
+            if (productTotal == null) {
+                productTotal = new Total(line.getProductId(), line.getProductName());
+            }
+
+            writer.write(line);
+            productTotal.add(line);
+            monthTotal.add(line);
+        }
+
+        if (productTotal != null) {
+            writer.write(productTotal.toLine("PRODUCT_TOTAL"));
+        }
+        writer.write(monthTotal.toLine("MONTH_TOTAL"));
+    }
+
+    // only the farm and month of the changed order, an open month has no file to delete
+    public void invalidateMonthlyReport(Integer farmId, Date orderDate) {
+        if (farmId == null || orderDate == null) {
+            return;
+        }
+
+        Path report = reportFile(farmId, YearMonth.from(orderDate.toInstant().atZone(reportProperties.getZone())));
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            Files.deleteIfExists(report);
+        });
+    }
+
+    // a cascade delete takes order lines from any month of these farms, so all of their reports go
+    public void invalidateMonthlyReports(Collection<Integer> farmIds) {
+        List<Path> farmDirectories = farmIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(this::farmDirectory)
+                .toList();
+        if (farmDirectories.isEmpty()) {
+            return;
+        }
+
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            for (Path farmDirectory : farmDirectories) {
+                FileSystemUtils.deleteRecursively(farmDirectory);
+            }
+        });
+    }
+
+    // a snapshot restore or a generator run replaces every farm's orders
+    public void invalidateAllMonthlyReports() {
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            FileSystemUtils.deleteRecursively(Paths.get(reportProperties.getDirectory()));
+        });
+    }
+
+    // deleting before the commit would let a concurrent request cache the old rows again
+    private void afterCommit(Deletion deletion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete(deletion);
+                }
+            });
+            return;
+        }
+
+        delete(deletion);
+    }
+
+    private void delete(Deletion deletion) {
+        try {
+            deletion.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Deletion {
+        void run() throws IOException;
+    }
+
+    private Path reportFile(Integer farmId, YearMonth month) {
+        return farmDirectory(farmId).resolve(month + ".csv");
+    }
+
+    private Path farmDirectory(Integer farmId) {
+        return Paths.get(reportProperties.getDirectory(), "farm-" + farmId);
+    }
+
+    private static class Total {
+        private final Integer productId;
+        private final String productName;
+        private long quantity;
+        private double amount;
+
+        private Total(Integer productId, String productName) {
+            this.productId = productId;
+            this.productName = productName;
+        }
+
+        private void add(FarmReportLineDTO line) {
+            quantity += line.getQuantity() != null ? line.getQuantity() : 0;
+            amount += line.getAmount() != null ? line.getAmount() : 0.0;
+        }
+
+        private FarmReportLineDTO toLine(String lineType) {
+            return FarmReportLineDTO.builder()
+                    .lineType(lineType)
+                    .productId(productId)
+                    .productName(productName)
+                    .quantity(quantity)
+                    .amount(amount)
+                    .build();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.unibuc.fresh_market.service.FarmService;
 
 import com.unibuc.fresh_market.domain.Farm;
-import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.FarmSales;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.FarmDashboardDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ProductDTO;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,11 +13,14 @@ import java.util.Optional;
 public interface FarmService {
     Farm createFarm(Farm farm);
     List<Farm> getAllFarms();
+    CursorPage<Farm> getFarmsPage(String after, Integer limit);
     Optional<Farm> getFarmById(Integer id);
-    Optional<Farm> updateFarm(Integer id, Farm farm);
+    Optional<Farm> updateFarm(Integer id, Farm farm, Long expectedVersion);
     Optional<Farm> deleteFarm(Integer id);
 
-    List<Product> getProductsByFarmId(Integer farmId);
-    List<Order> getOrdersByFarmId(Integer farmId);
+    List<ProductDTO> getProductsByFarmId(Integer farmId);
+    List<OrderDTO> getOrdersByFarmId(Integer farmId);
     double calculateTotalSalesByFarmId(Integer farmId);
+    FarmSales rebuildSalesByFarmId(Integer farmId);
+    Optional<FarmDashboardDTO> getFarmDashboard(Integer farmId);
 }
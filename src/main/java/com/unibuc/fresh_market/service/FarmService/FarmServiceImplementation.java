@@ -1,13 +1,32 @@
 package com.unibuc.fresh_market.service.FarmService;
 
+import com.unibuc.fresh_market.config.CacheConfig;
 import com.unibuc.fresh_market.domain.Farm;
-import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.FarmRating;
+import com.unibuc.fresh_market.domain.FarmSales;
+import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.FarmDashboardDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.repository.FarmRatingRepository;
 import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.FarmSalesRepository;
 import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
 import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,29 +35,71 @@ public class FarmServiceImplementation implements FarmService {
     private final FarmRepository farmRepository;
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
+    private final FarmSalesRepository farmSalesRepository;
+    private final FarmRatingRepository farmRatingRepository;
+    private final ProductAvailabilityRepository productAvailabilityRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final FarmReportService farmReportService;
 
-    public FarmServiceImplementation(FarmRepository farmRepository, ProductRepository productRepository, OrderRepository orderRepository) {
+    public FarmServiceImplementation(FarmRepository farmRepository, ProductRepository productRepository, OrderRepository orderRepository,
+                                     FarmSalesRepository farmSalesRepository, FarmRatingRepository farmRatingRepository,
+                                     ProductAvailabilityRepository productAvailabilityRepository, CatalogVersionService catalogVersionService,
+                                     FarmReportService farmReportService) {
         this.farmRepository = farmRepository;
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
+        this.farmSalesRepository = farmSalesRepository;
+        this.farmRatingRepository = farmRatingRepository;
+        this.productAvailabilityRepository = productAvailabilityRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.farmReportService = farmReportService;
     }
 
+    // the sales and rating rows are created with the farm, so orders and reviews only ever update them
+    // and two first orders or reviews can't both insert one
+    @Transactional
     public Farm createFarm(Farm farm) {
-        return farmRepository.save(farm);
+        Farm createdFarm = farmRepository.save(farm);
+        Date now = new Date();
+        farmSalesRepository.save(FarmSales.builder()
+                .farmId(createdFarm.getId())
+                .totalSales(0.0)
+                .orderCount(0L)
+                .lastUpdated(now)
+                .build());
+        farmRatingRepository.save(FarmRating.builder()
+                .farmId(createdFarm.getId())
+                .reviewCount(0L).ratingSum(0L)
+                .oneStarCount(0L).twoStarCount(0L).threeStarCount(0L).fourStarCount(0L).fiveStarCount(0L)
+                .lastUpdated(now)
+                .build());
+        return createdFarm;
     }
 
     public List<Farm> getAllFarms() {
         return farmRepository.findAll();
     }
 
+    public CursorPage<Farm> getFarmsPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Farm> farms = farmRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(farms, pageSize, Farm::getId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.FARMS, key = "#id", unless = "#result == null")
     public Optional<Farm> getFarmById(Integer id) {
         Farm farm = farmRepository.findById(id).orElse(null);
         return Optional.ofNullable(farm);
     }
 
-    public Optional<Farm> updateFarm(Integer id, Farm farm) {
+    @CachePut(cacheNames = CacheConfig.FARMS, key = "#id", unless = "#result == null")
+    public Optional<Farm> updateFarm(Integer id, Farm farm, Long expectedVersion) {
         Farm farmToUpdate = farmRepository.findById(id).orElse(null);
         if (farmToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != farmToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("Farm " + id + " has been modified since version " + expectedVersion);
+            }
+
             farmToUpdate.setName(farm.getName());
             farmToUpdate.setAddress(farm.getAddress());
             Farm updatedFarm = farmRepository.save(farmToUpdate);
@@ -48,26 +109,64 @@ public class FarmServiceImplementation implements FarmService {
         return Optional.empty();
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.FARMS, key = "#id")
     public Optional<Farm> deleteFarm(Integer id) {
         Farm farmToDelete = farmRepository.findById(id).orElse(null);
         if (farmToDelete != null) {
+            removeFromProductAvailability(farmToDelete.getProductFarms());
             farmRepository.delete(farmToDelete);
+            farmSalesRepository.deleteById(id);
+            farmRatingRepository.deleteById(id);
+            farmReportService.invalidateMonthlyReports(List.of(id));
+            catalogVersionService.bumpCatalogVersion();
             return Optional.of(farmToDelete);
         }
 
         return Optional.empty();
     }
 
-    public List<Product> getProductsByFarmId(Integer farmId) {
+    public List<ProductDTO> getProductsByFarmId(Integer farmId) {
         return productRepository.getProductsByFarmId(farmId);
     }
 
-    public List<Order> getOrdersByFarmId(Integer farmId) {
+    public List<OrderDTO> getOrdersByFarmId(Integer farmId) {
         return orderRepository.findOrdersByFarmId(farmId);
     }
 
     public double calculateTotalSalesByFarmId(Integer farmId) {
-        List<Order> orders = orderRepository.findOrdersByFarmId(farmId);
-        return orders.stream().mapToDouble(Order::getTotalAmount).sum();
+        return farmSalesRepository.findById(farmId)
+                .map(FarmSales::getTotalSales)
+                .orElse(0.0);
+    }
+
+    @Transactional
+    public FarmSales rebuildSalesByFarmId(Integer farmId) {
+        FarmSales farmSales = FarmSales.builder()
+                .farmId(farmId)
+                .totalSales(orderRepository.sumTotalAmountByFarmId(farmId))
+                .orderCount(orderRepository.countByFarmId(farmId))
+                .lastUpdated(new Date())
+                .build();
+        return farmSalesRepository.save(farmSales);
+    }
+
+    public Optional<FarmDashboardDTO> getFarmDashboard(Integer farmId) {
+        return farmRepository.getFarmDashboard(farmId);
+    }
+
+    // the farm's stock rows go with it in the cascade, so their quantities leave the product counters,
+    // one update per product in product id order like reserveStock takes its locks
+    private void removeFromProductAvailability(List<ProductFarm> productFarms) {
+        if (productFarms == null) {
+            return;
+        }
+
+        Date now = new Date();
+        productFarms.stream()
+                .filter(productFarm -> productFarm.getProduct() != null && productFarm.getQuantity() != null && productFarm.getQuantity() > 0)
+                .sorted(Comparator.comparing(productFarm -> productFarm.getProduct().getId()))
+                .forEach(productFarm -> productAvailabilityRepository.addToProductAvailability(productFarm.getProduct().getId(),
+                        (long) -productFarm.getQuantity(), -1L, now));
     }
 }
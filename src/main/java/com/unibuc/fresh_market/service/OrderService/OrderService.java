@@ -1,18 +1,25 @@
 package com.unibuc.fresh_market.service.OrderService;
 
 import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface OrderService {
     Order createOrder(Order order);
     List<Order> getAllOrders();
+    CursorPage<Order> getOrdersPage(String after, Integer limit);
+    void streamAllOrders(Consumer<OrderDTO> action);
     Optional<Order> getOrderById(Integer id);
-    Optional<Order> updateOrder(Integer id, Order order);
+    Optional<Order> updateOrder(Integer id, Order order, Long expectedVersion);
     Optional<Order> deleteOrder(Integer id);
 
-    List<Order> getOrdersByStatus(String status);
-    List<ProductOrder> getOrderDetails(Integer orderId);
+    List<OrderDTO> getOrdersByStatus(String status);
+    List<ProductOrderDTO> getOrderDetails(Integer orderId);
+    Optional<OrderReceiptDTO> getOrderReceipt(Integer orderId);
 }
@@ -1,67 +1,168 @@
 package com.unibuc.fresh_market.service.OrderService;
 
 import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptRowDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.dto.ReceiptLineDTO;
+import com.unibuc.fresh_market.repository.FarmSalesRepository;
 import com.unibuc.fresh_market.repository.OrderRepository;
 import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class OrderServiceImplementation implements OrderService {
     private final OrderRepository orderRepository;
     private final ProductOrderRepository productOrderRepository;
+    private final FarmSalesRepository farmSalesRepository;
+    private final FarmReportService farmReportService;
 
-    public OrderServiceImplementation(OrderRepository orderRepository, ProductOrderRepository productOrderRepository) {
+    public OrderServiceImplementation(OrderRepository orderRepository, ProductOrderRepository productOrderRepository,
+                                      FarmSalesRepository farmSalesRepository, FarmReportService farmReportService) {
         this.orderRepository = orderRepository;
         this.productOrderRepository = productOrderRepository;
+        this.farmSalesRepository = farmSalesRepository;
+        this.farmReportService = farmReportService;
     }
 
+    @Transactional
     public Order createOrder(Order order) {
         order.setCreatedAt(new Timestamp(new Date().getTime()));
-        return orderRepository.save(order);
+        Order createdOrder = orderRepository.save(order);
+        addToFarmSales(createdOrder, amountOf(createdOrder), 1L);
+        return createdOrder;
     }
 
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
+    public CursorPage<Order> getOrdersPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Order> orders = orderRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(orders, pageSize, Order::getId);
+    }
+
+    // rows reach the action one at a time while the cursor is open, nothing is collected in between
+    @Transactional(readOnly = true)
+    public void streamAllOrders(Consumer<OrderDTO> action) {
+        try (Stream<OrderDTO> orders = orderRepository.streamAllOrders()) {
+            orders.forEach(action);
+        }
+    }
+
     public Optional<Order> getOrderById(Integer id) {
         return orderRepository.findById(id);
     }
 
-    public Optional<Order> updateOrder(Integer id, Order order) {
+    @Transactional
+    public Optional<Order> updateOrder(Integer id, Order order, Long expectedVersion) {
         Order orderToUpdate = orderRepository.findById(id).orElse(null);
 
         if (orderToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != orderToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("Order " + id + " has been modified since version " + expectedVersion);
+            }
+
+            double previousAmount = amountOf(orderToUpdate);
             orderToUpdate.setStatus(order.getStatus());
             orderToUpdate.setTotalAmount(order.getTotalAmount());
             Order udpatedOrder = orderRepository.save(orderToUpdate);
+            addToFarmSales(udpatedOrder, amountOf(udpatedOrder) - previousAmount, 0L);
+            // the status is on every report line of the order
+            farmReportService.invalidateMonthlyReport(farmIdOf(udpatedOrder), udpatedOrder.getCreatedAt());
             return Optional.of(udpatedOrder);
         }
 
         return Optional.empty();
     }
 
+    @Transactional
     public Optional<Order> deleteOrder(Integer id) {
         Order orderToDelete = orderRepository.findById(id).orElse(null);
         if (orderToDelete != null) {
             orderRepository.delete(orderToDelete);
+            addToFarmSales(orderToDelete, -amountOf(orderToDelete), -1L);
+            farmReportService.invalidateMonthlyReport(farmIdOf(orderToDelete), orderToDelete.getCreatedAt());
             return Optional.of(orderToDelete);
         }
 
         return Optional.empty();
     }
 
-    public List<Order> getOrdersByStatus(String status) {
+    public List<OrderDTO> getOrdersByStatus(String status) {
         return orderRepository.findOrdersByStatus(status);
     }
 
-    public List<ProductOrder> getOrderDetails(Integer orderId) {
+    public List<ProductOrderDTO> getOrderDetails(Integer orderId) {
         return productOrderRepository.findProductOrdersByOrderId(orderId);
     }
+
+    public Optional<OrderReceiptDTO> getOrderReceipt(Integer orderId) {
+        List<OrderReceiptRowDTO> rows = orderRepository.getOrderReceiptRows(orderId);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // the order has no lines when its only row comes from the LEFT JOIN with nulls
+        List<ReceiptLineDTO> lines = rows.stream()
+                .filter(row -> row.getProductOrderId() != null)
+                .map(row -> ReceiptLineDTO.builder()
+                        .productOrderId(row.getProductOrderId())
+                        .productId(row.getProductId())
+                        .productName(row.getProductName())
+                        .unitPrice(row.getUnitPrice())
+                        .quantity(row.getQuantity())
+                        .lineTotal(lineTotalOf(row))
+                        .build())
+                .toList();
+
+        OrderReceiptRowDTO header = rows.getFirst();
+        return Optional.of(OrderReceiptDTO.builder()
+                .orderId(header.getOrderId())
+                .status(header.getStatus())
+                .createdAt(header.getCreatedAt())
+                .farmId(header.getFarmId())
+                .lines(lines)
+                .total(lines.stream().mapToDouble(ReceiptLineDTO::getLineTotal).sum())
+                .build());
+    }
+
+    private double lineTotalOf(OrderReceiptRowDTO row) {
+        if (row.getUnitPrice() == null || row.getQuantity() == null) {
+            return 0.0;
+        }
+
+        return row.getUnitPrice() * row.getQuantity();
+    }
+
+    private double amountOf(Order order) {
+        return order.getTotalAmount() != null ? order.getTotalAmount() : 0.0;
+    }
+
+    private Integer farmIdOf(Order order) {
+        return order.getFarm() != null ? order.getFarm().getId() : null;
+    }
+
+    private void addToFarmSales(Order order, double amount, long count) {
+        if (order.getFarm() == null || order.getFarm().getId() == null) {
+            return;
+        }
+
+        // every farm has its row from the moment it is created (FarmService.createFarm), this never has to insert it
+        farmSalesRepository.addToFarmSales(order.getFarm().getId(), amount, count, new Date());
+    }
 }
@@ -0,0 +1,9 @@
+package com.unibuc.fresh_market.service.ProductFarmService;
+
+// a basket asked a farm for more of a product than it has left, still an IllegalStateException so callers answer 409 as before
+public class InsufficientStockException extends IllegalStateException {
+
+    public InsufficientStockException(Integer productId, Integer farmId) {
+        super("Insufficient stock for product " + productId + " at farm " + farmId);
+    }
+}
@@ -1,18 +1,28 @@
 package com.unibuc.fresh_market.service.ProductFarmService;
 
+import com.unibuc.fresh_market.domain.ProductAvailability;
 import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductFarmService {
     ProductFarm createProductFarm(ProductFarm productFarm);
+    List<ProductFarm> createProductFarms(List<ProductFarm> productFarms);
+    List<ProductFarm> upsertProductFarms(List<ProductFarm> productFarms);
     List<ProductFarm> getAllProductFarms();
+    CursorPage<ProductFarm> getProductFarmsPage(String after, Integer limit);
     Optional<ProductFarm> getProductFarmById(Integer id);
-    Optional<ProductFarm> updateProductFarm(Integer id, ProductFarm productFarm);
+    Optional<ProductFarm> updateProductFarm(Integer id, ProductFarm productFarm, Long expectedVersion);
     Optional<ProductFarm> deleteProductFarm(Integer id);
 
-    List<ProductFarm> getProductFarmsByFarmId(Integer farmId);
-    List<ProductFarm> getProductFarmsByProductId(Integer productId);
+    List<ProductFarmDTO> getProductFarmsByFarmId(Integer farmId);
+    List<ProductFarmDTO> getProductFarmsByProductId(Integer productId);
     Integer calculateProductStockAcrossFarms(Integer productId);
+    List<ProductAvailability> getStockForProducts(List<Integer> productIds);
+    ProductAvailability rebuildAvailabilityByProductId(Integer productId);
+    void reserveStock(Integer farmId, Map<Integer, Integer> quantitiesByProductId);
 }
@@ -1,65 +1,255 @@
 package com.unibuc.fresh_market.service.ProductFarmService;
 
+import com.unibuc.fresh_market.domain.ProductAvailability;
 import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
 import com.unibuc.fresh_market.repository.ProductFarmRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductFarmServiceImplementation implements ProductFarmService {
     private final ProductFarmRepository productFarmRepository;
+    private final ProductAvailabilityRepository productAvailabilityRepository;
+    private final CatalogVersionService catalogVersionService;
 
-    public ProductFarmServiceImplementation(ProductFarmRepository productFarmRepository) {
+    public ProductFarmServiceImplementation(ProductFarmRepository productFarmRepository,
+                                            ProductAvailabilityRepository productAvailabilityRepository,
+                                            CatalogVersionService catalogVersionService) {
         this.productFarmRepository = productFarmRepository;
+        this.productAvailabilityRepository = productAvailabilityRepository;
+        this.catalogVersionService = catalogVersionService;
     }
 
+    @Transactional
     public ProductFarm createProductFarm(ProductFarm productFarm) {
-        return productFarmRepository.save(productFarm);
+        Integer farmId = productFarm.getFarm() != null ? productFarm.getFarm().getId() : null;
+        Integer productId = productFarm.getProduct() != null ? productFarm.getProduct().getId() : null;
+        if (farmId != null && productId != null && productFarmRepository.existsByFarmIdAndProductId(farmId, productId)) {
+            throw new IllegalStateException("Farm " + farmId + " already stocks product " + productId);
+        }
+
+        ProductFarm createdProductFarm = productFarmRepository.save(productFarm);
+        addToProductAvailability(createdProductFarm, 0, quantityOf(createdProductFarm));
+        catalogVersionService.bumpCatalogVersion();
+        return createdProductFarm;
+    }
+
+    @Transactional
+    public List<ProductFarm> createProductFarms(List<ProductFarm> productFarms) {
+        List<ProductFarm> createdProductFarms = productFarmRepository.saveAll(productFarms);
+
+        // one counter update per product instead of one per stock row
+        List<ProductFarm> stockedProductFarms = createdProductFarms.stream()
+                .filter(productFarm -> productFarm.getProduct() != null && productFarm.getProduct().getId() != null)
+                .toList();
+        Map<Integer, Long> quantityByProductId = stockedProductFarms.stream()
+                .collect(Collectors.groupingBy(productFarm -> productFarm.getProduct().getId(), TreeMap::new,
+                        Collectors.summingLong(this::quantityOf)));
+        Map<Integer, Long> farmsInStockByProductId = stockedProductFarms.stream()
+                .collect(Collectors.groupingBy(productFarm -> productFarm.getProduct().getId(),
+                        Collectors.summingLong(productFarm -> quantityOf(productFarm) > 0 ? 1 : 0)));
+        quantityByProductId.forEach((productId, quantity) ->
+                addToProductAvailability(productId, quantity, farmsInStockByProductId.get(productId)));
+
+        catalogVersionService.bumpCatalogVersion();
+        return createdProductFarms;
+    }
+
+    @Transactional
+    public List<ProductFarm> upsertProductFarms(List<ProductFarm> productFarms) {
+        // a farm stocks a product once, so a later row of the same farm and product replaces an earlier one
+        Map<List<Integer>, ProductFarm> rowsByKey = new LinkedHashMap<>();
+        productFarms.forEach(productFarm -> rowsByKey.put(keyOf(productFarm), productFarm));
+
+        Set<Integer> farmIds = rowsByKey.keySet().stream().map(List::getFirst).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Integer> productIds = rowsByKey.keySet().stream().map(List::getLast).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<List<Integer>, ProductFarm> storedByKey = farmIds.isEmpty() || productIds.isEmpty() ? Map.of()
+                : productFarmRepository.findAllByFarmIdInAndProductIdIn(farmIds, productIds).stream()
+                        .collect(Collectors.toMap(this::keyOf, Function.identity()));
+
+        List<ProductFarm> newProductFarms = new ArrayList<>();
+        List<ProductFarm> upsertedProductFarms = new ArrayList<>();
+        Map<Integer, Long> quantityDeltaByProductId = new TreeMap<>();
+        Map<Integer, Long> farmsInStockDeltaByProductId = new HashMap<>();
+        rowsByKey.forEach((key, productFarm) -> {
+            ProductFarm storedProductFarm = storedByKey.get(key);
+            int previousQuantity = storedProductFarm != null ? quantityOf(storedProductFarm) : 0;
+            int newQuantity = quantityOf(productFarm);
+            if (storedProductFarm == null) {
+                newProductFarms.add(productFarm);
+            } else {
+                // managed, so the change is flushed as a batched update
+                storedProductFarm.setQuantity(productFarm.getQuantity());
+                storedProductFarm.setNotes(productFarm.getNotes());
+                upsertedProductFarms.add(storedProductFarm);
+            }
+
+            Integer productId = key.getLast();
+            if (productId != null) {
+                quantityDeltaByProductId.merge(productId, (long) newQuantity - previousQuantity, Long::sum);
+                farmsInStockDeltaByProductId.merge(productId, (long) (newQuantity > 0 ? 1 : 0) - (previousQuantity > 0 ? 1 : 0), Long::sum);
+            }
+        });
+        upsertedProductFarms.addAll(productFarmRepository.saveAll(newProductFarms));
+
+        // only what changed goes to the counters, one update per product
+        quantityDeltaByProductId.forEach((productId, quantityDelta) -> {
+            long farmsInStockDelta = farmsInStockDeltaByProductId.get(productId);
+            if (quantityDelta != 0 || farmsInStockDelta != 0) {
+                addToProductAvailability(productId, quantityDelta, farmsInStockDelta);
+            }
+        });
+
+        catalogVersionService.bumpCatalogVersion();
+        return upsertedProductFarms;
     }
 
     public List<ProductFarm> getAllProductFarms() {
         return productFarmRepository.findAll();
     }
 
+    public CursorPage<ProductFarm> getProductFarmsPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<ProductFarm> productFarms = productFarmRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(productFarms, pageSize, ProductFarm::getId);
+    }
+
     public Optional<ProductFarm> getProductFarmById(Integer id) {
         ProductFarm productFarm = productFarmRepository.findById(id).orElse(null);
         return Optional.ofNullable(productFarm);
     }
 
-    public Optional<ProductFarm> updateProductFarm(Integer id, ProductFarm productFarm) {
+    @Transactional
+    public Optional<ProductFarm> updateProductFarm(Integer id, ProductFarm productFarm, Long expectedVersion) {
         ProductFarm productFarmToUpdate = productFarmRepository.findById(id).orElse(null);
         if (productFarmToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != productFarmToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("ProductFarm " + id + " has been modified since version " + expectedVersion);
+            }
+
+            int previousQuantity = quantityOf(productFarmToUpdate);
             productFarmToUpdate.setQuantity(productFarm.getQuantity());
             productFarmToUpdate.setNotes(productFarm.getNotes());
             ProductFarm updatedProductFarm = productFarmRepository.save(productFarmToUpdate);
+            addToProductAvailability(updatedProductFarm, previousQuantity, quantityOf(updatedProductFarm));
             return Optional.of(updatedProductFarm);
         }
 
         return Optional.empty();
     }
 
+    @Transactional
     public Optional<ProductFarm> deleteProductFarm(Integer id) {
         ProductFarm productFarmToDelete = productFarmRepository.findById(id).orElse(null);
         if (productFarmToDelete != null) {
             productFarmRepository.delete(productFarmToDelete);
+            addToProductAvailability(productFarmToDelete, quantityOf(productFarmToDelete), 0);
+            catalogVersionService.bumpCatalogVersion();
             return Optional.of(productFarmToDelete);
         }
 
         return Optional.empty();
     }
 
-    public List<ProductFarm> getProductFarmsByFarmId(Integer farmId) {
+    public List<ProductFarmDTO> getProductFarmsByFarmId(Integer farmId) {
         return productFarmRepository.findAllByFarmId(farmId);
     }
 
-    public List<ProductFarm> getProductFarmsByProductId(Integer productId) {
+    public List<ProductFarmDTO> getProductFarmsByProductId(Integer productId) {
         return productFarmRepository.findAllByProductId(productId);
     }
 
     public Integer calculateProductStockAcrossFarms(Integer productId) {
-        List<ProductFarm> productFarms = getProductFarmsByProductId(productId);
-        return productFarms.stream().mapToInt(ProductFarm::getQuantity).sum();
+        return productAvailabilityRepository.findById(productId)
+                .map(productAvailability -> productAvailability.getTotalQuantity().intValue())
+                .orElse(0);
+    }
+
+    public List<ProductAvailability> getStockForProducts(List<Integer> productIds) {
+        Map<Integer, ProductAvailability> availabilities = productAvailabilityRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductAvailability::getProductId, Function.identity()));
+
+        return productIds.stream()
+                .distinct()
+                .map(productId -> availabilities.getOrDefault(productId, ProductAvailability.builder()
+                        .productId(productId)
+                        .totalQuantity(0L)
+                        .farmsInStock(0L)
+                        .build()))
+                .toList();
+    }
+
+    @Transactional
+    public ProductAvailability rebuildAvailabilityByProductId(Integer productId) {
+        ProductAvailability productAvailability = ProductAvailability.builder()
+                .productId(productId)
+                .totalQuantity(productFarmRepository.sumQuantityByProductId(productId))
+                .farmsInStock(productFarmRepository.countByProductIdAndQuantityGreaterThan(productId, 0))
+                .lastUpdated(new Date())
+                .build();
+        return productAvailabilityRepository.save(productAvailability);
+    }
+
+    @Transactional
+    public void reserveStock(Integer farmId, Map<Integer, Integer> quantitiesByProductId) {
+        // lock the stock rows in product id order so concurrent baskets can't deadlock each other
+        Map<Integer, Integer> quantities = new TreeMap<>(quantitiesByProductId);
+        quantities.forEach((productId, quantity) -> {
+            // (farm, product) is unique, anything but one updated row means the sale can't be served from this farm
+            if (productFarmRepository.decrementQuantity(farmId, productId, quantity) != 1) {
+                throw new InsufficientStockException(productId, farmId);
+            }
+        });
+
+        List<Integer> soldOutProductIds = productFarmRepository.findSoldOutProductIds(farmId, quantities.keySet());
+        Date now = new Date();
+        quantities.forEach((productId, quantity) -> {
+            long farmsInStockDelta = soldOutProductIds.contains(productId) ? -1 : 0;
+            productAvailabilityRepository.addToProductAvailability(productId, (long) -quantity, farmsInStockDelta, now);
+        });
+    }
+
+    private int quantityOf(ProductFarm productFarm) {
+        return productFarm.getQuantity() != null ? productFarm.getQuantity() : 0;
+    }
+
+    private List<Integer> keyOf(ProductFarm productFarm) {
+        return Arrays.asList(productFarm.getFarm() != null ? productFarm.getFarm().getId() : null,
+                productFarm.getProduct() != null ? productFarm.getProduct().getId() : null);
+    }
+
+    private void addToProductAvailability(ProductFarm productFarm, int previousQuantity, int newQuantity) {
+        if (productFarm.getProduct() == null || productFarm.getProduct().getId() == null) {
+            return;
+        }
+
+        long quantityDelta = newQuantity - previousQuantity;
+        long farmsInStockDelta = (newQuantity > 0 ? 1 : 0) - (previousQuantity > 0 ? 1 : 0);
+        addToProductAvailability(productFarm.getProduct().getId(), quantityDelta, farmsInStockDelta);
+    }
+
+    private void addToProductAvailability(Integer productId, long quantityDelta, long farmsInStockDelta) {
+        // every product has its counters from the moment it is created (ProductService.createProduct), this never has to insert them
+        productAvailabilityRepository.addToProductAvailability(productId, quantityDelta, farmsInStockDelta, new Date());
     }
 }
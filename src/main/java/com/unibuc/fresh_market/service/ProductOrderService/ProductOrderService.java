@@ -1,17 +1,23 @@
 package com.unibuc.fresh_market.service.ProductOrderService;
 
 import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductOrderService {
     ProductOrder createProductOrder(ProductOrder productOrder);
+    List<ProductOrder> createProductOrders(List<ProductOrder> productOrders);
     List<ProductOrder> getAllProductOrders();
+    CursorPage<ProductOrder> getProductOrdersPage(String after, Integer limit);
+    void streamAllProductOrders(Consumer<ProductOrderDTO> action);
     Optional<ProductOrder> getProductOrderById(Integer id);
-    Optional<ProductOrder> updateProductOrder(Integer id, ProductOrder productOrder);
+    Optional<ProductOrder> updateProductOrder(Integer id, ProductOrder productOrder, Long expectedVersion);
     Optional<ProductOrder> deleteProductOrder(Integer id);
 
-    List<ProductOrder> getProductOrdersByOrderId(Integer orderId);
+    List<ProductOrderDTO> getProductOrdersByOrderId(Integer orderId);
     double calculateTotalOrderValue(Integer orderId);
 }
@@ -1,40 +1,94 @@
 package com.unibuc.fresh_market.service.ProductOrderService;
 
+import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Product;
 import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderTotalDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
 import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductOrderServiceImplementation implements ProductOrderService {
     private final ProductOrderRepository productOrderRepository;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final FarmReportService farmReportService;
 
-    public ProductOrderServiceImplementation(ProductOrderRepository productOrderRepository) {
+    public ProductOrderServiceImplementation(ProductOrderRepository productOrderRepository, ProductRepository productRepository,
+                                             OrderRepository orderRepository, FarmReportService farmReportService) {
         this.productOrderRepository = productOrderRepository;
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.farmReportService = farmReportService;
     }
 
+    // lines can be added to orders of a closed month, whose cached report then no longer holds
     public ProductOrder createProductOrder(ProductOrder productOrder) {
-        return productOrderRepository.save(productOrder);
+        recordUnitPrices(List.of(productOrder));
+        ProductOrder createdProductOrder = productOrderRepository.save(productOrder);
+        invalidateMonthlyReports(List.of(createdProductOrder));
+        return createdProductOrder;
+    }
+
+    @Transactional
+    public List<ProductOrder> createProductOrders(List<ProductOrder> productOrders) {
+        recordUnitPrices(productOrders);
+        List<ProductOrder> createdProductOrders = productOrderRepository.saveAll(productOrders);
+        invalidateMonthlyReports(createdProductOrders);
+        return createdProductOrders;
     }
 
     public List<ProductOrder> getAllProductOrders() {
         return productOrderRepository.findAll();
     }
 
+    public CursorPage<ProductOrder> getProductOrdersPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<ProductOrder> productOrders = productOrderRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(productOrders, pageSize, ProductOrder::getId);
+    }
+
+    // rows reach the action one at a time while the cursor is open, nothing is collected in between
+    @Transactional(readOnly = true)
+    public void streamAllProductOrders(Consumer<ProductOrderDTO> action) {
+        try (Stream<ProductOrderDTO> productOrders = productOrderRepository.streamAllProductOrders()) {
+            productOrders.forEach(action);
+        }
+    }
+
     public Optional<ProductOrder> getProductOrderById(Integer id) {
         ProductOrder productOrder = productOrderRepository.findById(id).orElse(null);
         return Optional.ofNullable(productOrder);
     }
 
-    public Optional<ProductOrder> updateProductOrder(Integer id, ProductOrder productOrder) {
+    public Optional<ProductOrder> updateProductOrder(Integer id, ProductOrder productOrder, Long expectedVersion) {
         ProductOrder productOrderToUpdate = productOrderRepository.findById(id).orElse(null);
         if (productOrderToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != productOrderToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("ProductOrder " + id + " has been modified since version " + expectedVersion);
+            }
+
             productOrderToUpdate.setQuantity(productOrder.getQuantity());
             productOrderToUpdate.setNotes(productOrder.getNotes());
             ProductOrder updatedProductOrder = productOrderRepository.save(productOrderToUpdate);
+            invalidateMonthlyReports(List.of(updatedProductOrder));
             return Optional.of(updatedProductOrder);
         }
 
@@ -45,33 +99,66 @@ public class ProductOrderServiceImplementation implements ProductOrderService {
         ProductOrder productOrderToDelete = productOrderRepository.findById(id).orElse(null);
         if (productOrderToDelete != null) {
             productOrderRepository.delete(productOrderToDelete);
+            invalidateMonthlyReports(List.of(productOrderToDelete));
             return Optional.of(productOrderToDelete);
         }
 
         return Optional.empty();
     }
 
-    public List<ProductOrder> getProductOrdersByOrderId(Integer orderId) {
+    public List<ProductOrderDTO> getProductOrdersByOrderId(Integer orderId) {
         return productOrderRepository.findProductOrdersByOrderId(orderId);
     }
 
     public double calculateTotalOrderValue(Integer orderId) {
-        List<ProductOrder> productOrders = productOrderRepository.findProductOrdersByOrderId(orderId);
+        OrderTotalDTO orderTotal = productOrderRepository.getOrderTotal(orderId);
 
-        if (productOrders == null || productOrders.isEmpty()) {
+        if (orderTotal == null || orderTotal.getLineCount() == 0) {
             throw new IllegalArgumentException("No products found for the given order ID: " + orderId);
         }
 
-        double totalValue = productOrders.stream()
-                .mapToDouble(productOrder -> {
-                    Product product = productOrder.getProduct();
-                    if (product == null) {
-                        throw new IllegalStateException("Product not found for ProductOrder ID: " + productOrder.getId());
-                    }
-                    return product.getPrice() * productOrder.getQuantity();
-                })
-                .sum();
-
-        return totalValue;
+        if (orderTotal.getProductCount() < orderTotal.getLineCount()) {
+            throw new IllegalStateException("Product not found for a ProductOrder of order ID: " + orderId);
+        }
+
+        return orderTotal.getTotal() != null ? orderTotal.getTotal() : 0.0;
+    }
+
+    // the cached reports of the farms and months these lines' orders fall in, imported lines only carry the order's id
+    private void invalidateMonthlyReports(List<ProductOrder> productOrders) {
+        List<Integer> orderIds = productOrders.stream()
+                .map(productOrder -> productOrder.getOrder() != null ? productOrder.getOrder().getId() : null)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        for (Order order : orderRepository.findAllById(orderIds)) {
+            farmReportService.invalidateMonthlyReport(order.getFarm() != null ? order.getFarm().getId() : null, order.getCreatedAt());
+        }
+    }
+
+    // a line without a price is sold at the product's current one, looked up once for all of them
+    private void recordUnitPrices(List<ProductOrder> productOrders) {
+        List<Integer> productIds = productOrders.stream()
+                .filter(productOrder -> productOrder.getUnitPrice() == null && productOrder.getProduct() != null)
+                .map(productOrder -> productOrder.getProduct().getId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (ProductOrder productOrder : productOrders) {
+            Product product = productOrder.getProduct() != null ? products.get(productOrder.getProduct().getId()) : null;
+            if (productOrder.getUnitPrice() == null && product != null) {
+                productOrder.setUnitPrice(product.getPrice());
+            }
+        }
     }
 }
@@ -1,16 +1,20 @@
 package com.unibuc.fresh_market.service.ProductService;
 
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductDTO;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface ProductService {
     Product createProduct(Product product);
+    List<Product> createProducts(List<Product> products);
     List<Product> getAllProducts();
+    CursorPage<Product> getProductsPage(String after, Integer limit);
     Optional<Product> getProductById(Integer id);
-    Optional<Product> updateProduct(Integer id, Product product);
+    Optional<Product> updateProduct(Integer id, Product product, Long expectedVersion);
     Optional<Product> deleteProduct(Integer id);
 
-    List<Product> getProductsByFarmId(Integer farmId);
+    List<ProductDTO> getProductsByFarmId(Integer farmId);
 }
@@ -1,8 +1,20 @@
 package com.unibuc.fresh_market.service.ProductService;
 
+import com.unibuc.fresh_market.config.CacheConfig;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
 import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,50 +22,97 @@ import java.util.Optional;
 @Service
 public class ProductServiceImplementation implements ProductService {
     private final ProductRepository productRepository;
+    private final ProductAvailabilityRepository productAvailabilityRepository;
+    private final ProductOrderRepository productOrderRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final FarmReportService farmReportService;
 
-    public ProductServiceImplementation(ProductRepository productRepository) {
+    public ProductServiceImplementation(ProductRepository productRepository, ProductAvailabilityRepository productAvailabilityRepository,
+                                        ProductOrderRepository productOrderRepository, CatalogVersionService catalogVersionService,
+                                        FarmReportService farmReportService) {
         this.productRepository = productRepository;
+        this.productAvailabilityRepository = productAvailabilityRepository;
+        this.productOrderRepository = productOrderRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.farmReportService = farmReportService;
     }
 
+    // the stock counters are created with the product, so stock writes only ever update them
+    // and two first stock rows of a product can't both insert them
+    @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product createdProduct = productRepository.save(product);
+        productAvailabilityRepository.createProductAvailabilities(List.of(createdProduct.getId()));
+        catalogVersionService.bumpCatalogVersion();
+        return createdProduct;
+    }
+
+    @Transactional
+    public List<Product> createProducts(List<Product> products) {
+        List<Product> createdProducts = productRepository.saveAll(products);
+        if (!createdProducts.isEmpty()) {
+            productAvailabilityRepository.createProductAvailabilities(createdProducts.stream().map(Product::getId).toList());
+        }
+        catalogVersionService.bumpCatalogVersion();
+        return createdProducts;
     }
 
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
+    public CursorPage<Product> getProductsPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(products, pageSize, Product::getId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#productId", unless = "#result == null")
     public Optional<Product> getProductById(Integer productId) {
         return productRepository.findById(productId);
     }
 
-    public Optional<Product> updateProduct(Integer productId, Product product) {
+    // evict rather than put: the saved product still points at the category stub from the request body
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
+    public Optional<Product> updateProduct(Integer productId, Product product, Long expectedVersion) {
         Product productToUpdate = productRepository.findById(productId).orElse(null);
 
         if (productToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != productToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("Product " + productId + " has been modified since version " + expectedVersion);
+            }
+
             productToUpdate.setName(product.getName());
             productToUpdate.setPrice(product.getPrice());
             productToUpdate.setDescription(product.getDescription());
             productToUpdate.setCategory(product.getCategory());
 
             Product updatedProduct = productRepository.save(productToUpdate);
+            catalogVersionService.bumpCatalogVersion();
             return Optional.of(updatedProduct);
         }
 
         return Optional.empty();
     }
 
+    // the product's stock rows and order lines go with it in the cascade, so do its counters and the reports of the farms it sold at
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#productId")
     public Optional<Product> deleteProduct(Integer productId) {
         Product productToDelete = productRepository.findById(productId).orElse(null);
         if (productToDelete != null) {
+            farmReportService.invalidateMonthlyReports(productOrderRepository.findOrderFarmIdsByProductId(productId));
             productRepository.delete(productToDelete);
+            productAvailabilityRepository.deleteById(productId);
+            catalogVersionService.bumpCatalogVersion();
             return Optional.of(productToDelete);
         }
 
         return Optional.empty();
     }
 
-    public List<Product> getProductsByFarmId(Integer farmId) {
+    public List<ProductDTO> getProductsByFarmId(Integer farmId) {
         return productRepository.getProductsByFarmId(farmId);
     }
 }
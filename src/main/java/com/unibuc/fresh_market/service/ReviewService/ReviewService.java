@@ -1,6 +1,10 @@
 package com.unibuc.fresh_market.service.ReviewService;
 
+import com.unibuc.fresh_market.domain.FarmRating;
 import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.RatingHistogramDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
 
 import java.util.List;
 import java.util.Optional;
@@ -9,9 +13,13 @@ public interface ReviewService {
     Review createReview(Review review);
     Optional<Review> getReviewById(Integer id);
     List<Review> getAllReviews();
-    Optional<Review> updateReview(Integer id, Review review);
+    CursorPage<Review> getReviewsPage(String after, Integer limit);
+    Optional<Review> updateReview(Integer id, Review review, Long expectedVersion);
     Optional<Review> deleteReview(Integer id);
 
-    List<Review> getReviewsByFarmId(Integer farmId);
+    List<ReviewDTO> getReviewsByFarmId(Integer farmId);
     double calculateAverageRatingByFarmId(Integer farmId);
+    RatingHistogramDTO getRatingHistogramByFarmId(Integer farmId);
+    FarmRating rebuildRatingByFarmId(Integer farmId);
+    void removeFromFarmRatingsByUserId(Integer userId);
 }
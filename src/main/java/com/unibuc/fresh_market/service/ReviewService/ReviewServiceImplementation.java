@@ -1,22 +1,41 @@
 package com.unibuc.fresh_market.service.ReviewService;
 
+import com.unibuc.fresh_market.domain.FarmRating;
 import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.FarmRatingCountDTO;
+import com.unibuc.fresh_market.dto.RatingCountDTO;
+import com.unibuc.fresh_market.dto.RatingHistogramDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.repository.FarmRatingRepository;
 import com.unibuc.fresh_market.repository.ReviewRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class ReviewServiceImplementation implements ReviewService {
     private final ReviewRepository reviewRepository;
+    private final FarmRatingRepository farmRatingRepository;
 
-    public ReviewServiceImplementation(ReviewRepository reviewRepository) {
+    public ReviewServiceImplementation(ReviewRepository reviewRepository, FarmRatingRepository farmRatingRepository) {
         this.reviewRepository = reviewRepository;
+        this.farmRatingRepository = farmRatingRepository;
     }
 
+    @Transactional
     public Review createReview(Review review) {
-        return reviewRepository.save(review);
+        Review createdReview = reviewRepository.save(review);
+        addToFarmRating(createdReview, null, createdReview.getRating());
+        return createdReview;
     }
 
     public Optional<Review> getReviewById(Integer id) {
@@ -28,45 +47,149 @@ public class ReviewServiceImplementation implements ReviewService {
         return reviewRepository.findAll();
     }
 
-    public Optional<Review> updateReview(Integer id, Review review) {
+    public CursorPage<Review> getReviewsPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Review> reviews = reviewRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(reviews, pageSize, Review::getId);
+    }
+
+    @Transactional
+    public Optional<Review> updateReview(Integer id, Review review, Long expectedVersion) {
        Review reviewToUpdate = reviewRepository.findById(id).orElse(null);
 
        if (reviewToUpdate != null) {
+           if (expectedVersion != null && expectedVersion != reviewToUpdate.getVersion()) {
+               throw new OptimisticLockingFailureException("Review " + id + " has been modified since version " + expectedVersion);
+           }
+
+           Integer previousRating = reviewToUpdate.getRating();
            reviewToUpdate.setContent(review.getContent());
            reviewToUpdate.setRating(review.getRating());
 
            Review updatedReview = reviewRepository.save(reviewToUpdate);
+           if (!Objects.equals(previousRating, updatedReview.getRating())) {
+               addToFarmRating(updatedReview, previousRating, updatedReview.getRating());
+           }
            return Optional.of(updatedReview);
        }
 
        return Optional.empty();
     }
 
+    @Transactional
     public Optional<Review> deleteReview(Integer id) {
         Review review = reviewRepository.findById(id).orElse(null);
         if (review != null) {
             reviewRepository.delete(review);
+            addToFarmRating(review, review.getRating(), null);
             return Optional.of(review);
         }
 
         return Optional.empty();
     }
 
-    public List<Review> getReviewsByFarmId(Integer farmId) {
+    public List<ReviewDTO> getReviewsByFarmId(Integer farmId) {
         return reviewRepository.getReviewsByFarmId(farmId);
     }
 
     public double calculateAverageRatingByFarmId(Integer farmId) {
-        List<Review> reviews = getReviewsByFarmId(farmId);
+        return farmRatingRepository.findById(farmId)
+                .map(this::averageOf)
+                .orElse(0.0);
+    }
+
+    public RatingHistogramDTO getRatingHistogramByFarmId(Integer farmId) {
+        FarmRating farmRating = farmRatingRepository.findById(farmId).orElse(emptyFarmRating(farmId));
+
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        histogram.put(1, farmRating.getOneStarCount());
+        histogram.put(2, farmRating.getTwoStarCount());
+        histogram.put(3, farmRating.getThreeStarCount());
+        histogram.put(4, farmRating.getFourStarCount());
+        histogram.put(5, farmRating.getFiveStarCount());
+
+        return RatingHistogramDTO.builder()
+                .farmId(farmId)
+                .reviewCount(farmRating.getReviewCount())
+                .averageRating(averageOf(farmRating))
+                .histogram(histogram)
+                .build();
+    }
+
+    @Transactional
+    public FarmRating rebuildRatingByFarmId(Integer farmId) {
+        FarmRating farmRating = emptyFarmRating(farmId);
+        for (RatingCountDTO ratingCount : reviewRepository.countRatingsByFarmId(farmId)) {
+            addToHistogram(farmRating, ratingCount.getRating(), ratingCount.getCount());
+        }
+
+        farmRating.setLastUpdated(new Date());
+        return farmRatingRepository.save(farmRating);
+    }
+
+    // a user's reviews leave every farm's histogram before the cascade from the user deletes them
+    @Transactional
+    public void removeFromFarmRatingsByUserId(Integer userId) {
+        Map<Integer, FarmRating> deltas = new LinkedHashMap<>();
+        for (FarmRatingCountDTO ratingCount : reviewRepository.countRatingsByFarmForUserId(userId)) {
+            FarmRating delta = deltas.computeIfAbsent(ratingCount.getFarmId(), this::emptyFarmRating);
+            addToHistogram(delta, ratingCount.getRating(), -ratingCount.getCount());
+        }
+
+        Date now = new Date();
+        deltas.values().forEach(delta -> addToFarmRating(delta, now));
+    }
 
-        if (reviews.isEmpty()) {
+    private double averageOf(FarmRating farmRating) {
+        if (farmRating.getReviewCount() == 0) {
             return 0.0;
         }
 
-        double totalRating = reviews.stream()
-                .mapToDouble(Review::getRating)
-                .sum();
+        return (double) farmRating.getRatingSum() / farmRating.getReviewCount();
+    }
+
+    private FarmRating emptyFarmRating(Integer farmId) {
+        return FarmRating.builder()
+                .farmId(farmId)
+                .reviewCount(0L).ratingSum(0L)
+                .oneStarCount(0L).twoStarCount(0L).threeStarCount(0L).fourStarCount(0L).fiveStarCount(0L)
+                .build();
+    }
+
+    private void addToHistogram(FarmRating farmRating, Integer rating, long count) {
+        farmRating.setReviewCount(farmRating.getReviewCount() + count);
+        farmRating.setRatingSum(farmRating.getRatingSum() + rating * count);
+        switch (rating) {
+            case 1 -> farmRating.setOneStarCount(farmRating.getOneStarCount() + count);
+            case 2 -> farmRating.setTwoStarCount(farmRating.getTwoStarCount() + count);
+            case 3 -> farmRating.setThreeStarCount(farmRating.getThreeStarCount() + count);
+            case 4 -> farmRating.setFourStarCount(farmRating.getFourStarCount() + count);
+            case 5 -> farmRating.setFiveStarCount(farmRating.getFiveStarCount() + count);
+            default -> throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+    }
+
+    private void addToFarmRating(Review review, Integer removedRating, Integer addedRating) {
+        if ((removedRating == null && addedRating == null) || review.getFarm() == null || review.getFarm().getId() == null) {
+            return;
+        }
+
+        Integer farmId = review.getFarm().getId();
+        FarmRating delta = emptyFarmRating(farmId);
+        if (removedRating != null) {
+            addToHistogram(delta, removedRating, -1);
+        }
+        if (addedRating != null) {
+            addToHistogram(delta, addedRating, 1);
+        }
+
+        addToFarmRating(delta, new Date());
+    }
 
-        return totalRating / reviews.size();
+    // every farm has its row from the moment it is created (FarmService.createFarm), this never has to insert it
+    private void addToFarmRating(FarmRating delta, Date updatedAt) {
+        farmRatingRepository.addToFarmRating(delta.getFarmId(), delta.getReviewCount(), delta.getRatingSum(),
+                delta.getOneStarCount(), delta.getTwoStarCount(), delta.getThreeStarCount(),
+                delta.getFourStarCount(), delta.getFiveStarCount(), updatedAt);
     }
 }
@@ -9,6 +9,6 @@ public interface RoleService {
     Role createRole(Role role);
     Optional<Role> getRoleById(Integer id);
     List<Role> getAllRoles();
-    Optional<Role> updateRole(Integer id, Role role);
+    Optional<Role> updateRole(Integer id, Role role, Long expectedVersion);
     Optional<Role> deleteRole(Integer id);
 }
@@ -1,7 +1,12 @@
 package com.unibuc.fresh_market.service.RoleService;
 
+import com.unibuc.fresh_market.config.CacheConfig;
 import com.unibuc.fresh_market.domain.security.Role;
 import com.unibuc.fresh_market.repository.security.RoleRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,6 +24,7 @@ public class RoleServiceImplementation implements RoleService {
         return roleRepository.save(role);
     }
 
+    @Cacheable(cacheNames = CacheConfig.ROLES, key = "#id", unless = "#result == null")
     public Optional<Role> getRoleById(Integer id) {
         Role role = roleRepository.findById(id).orElse(null);
         return Optional.ofNullable(role);
@@ -28,10 +34,15 @@ public class RoleServiceImplementation implements RoleService {
         return roleRepository.findAll();
     }
 
-    public Optional<Role> updateRole(Integer id, Role role) {
+    @CachePut(cacheNames = CacheConfig.ROLES, key = "#id", unless = "#result == null")
+    public Optional<Role> updateRole(Integer id, Role role, Long expectedVersion) {
         Role roleToUpdate = roleRepository.findById(id).orElse(null);
 
         if (roleToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != roleToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("Role " + id + " has been modified since version " + expectedVersion);
+            }
+
             roleToUpdate.setName(role.getName());
             Role updatedRole = roleRepository.save(roleToUpdate);
             return Optional.of(updatedRole);
@@ -40,6 +51,7 @@ public class RoleServiceImplementation implements RoleService {
         return Optional.empty();
     }
 
+    @CacheEvict(cacheNames = CacheConfig.ROLES, key = "#id")
     public Optional<Role> deleteRole(Integer id) {
         Role roleToDelete = roleRepository.findById(id).orElse(null);
         if (roleToDelete != null) {
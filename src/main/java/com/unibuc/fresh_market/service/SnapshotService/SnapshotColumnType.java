@@ -0,0 +1,127 @@
+package com.unibuc.fresh_market.service.SnapshotService;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// how one column is encoded in a snapshot, fixed-width numbers and length-prefixed modified UTF-8 text (DataOutput.writeUTF)
+enum SnapshotColumnType {
+    INTEGER(1, Types.INTEGER) {
+        Object read(ResultSet resultSet, int column) throws SQLException {
+            int value = resultSet.getInt(column);
+            return resultSet.wasNull() ? null : value;
+        }
+
+        void write(DataOutput out, Object value) throws IOException {
+            out.writeInt((Integer) value);
+        }
+
+        Object read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    },
+    BIGINT(2, Types.BIGINT) {
+        Object read(ResultSet resultSet, int column) throws SQLException {
+            long value = resultSet.getLong(column);
+            return resultSet.wasNull() ? null : value;
+        }
+
+        void write(DataOutput out, Object value) throws IOException {
+            out.writeLong((Long) value);
+        }
+
+        Object read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    },
+    DOUBLE(3, Types.DOUBLE) {
+        Object read(ResultSet resultSet, int column) throws SQLException {
+            double value = resultSet.getDouble(column);
+            return resultSet.wasNull() ? null : value;
+        }
+
+        void write(DataOutput out, Object value) throws IOException {
+            out.writeDouble((Double) value);
+        }
+
+        Object read(DataInput in) throws IOException {
+            return in.readDouble();
+        }
+    },
+    VARCHAR(4, Types.VARCHAR) {
+        Object read(ResultSet resultSet, int column) throws SQLException {
+            return resultSet.getString(column);
+        }
+
+        void write(DataOutput out, Object value) throws IOException {
+            out.writeUTF((String) value);
+        }
+
+        Object read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    },
+    // the column's wall clock value in microseconds, the precision of timestamp(6), read and written as a LocalDateTime
+    // so no JVM time zone is applied on either side
+    TIMESTAMP(5, Types.TIMESTAMP) {
+        Object read(ResultSet resultSet, int column) throws SQLException {
+            return resultSet.getObject(column, LocalDateTime.class);
+        }
+
+        void write(DataOutput out, Object value) throws IOException {
+            LocalDateTime timestamp = (LocalDateTime) value;
+            out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1000);
+        }
+
+        Object read(DataInput in) throws IOException {
+            long micros = in.readLong();
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+        }
+    };
+
+    private final byte code;
+    private final int sqlType;
+
+    SnapshotColumnType(int code, int sqlType) {
+        this.code = (byte) code;
+        this.sqlType = sqlType;
+    }
+
+    abstract Object read(ResultSet resultSet, int column) throws SQLException;
+
+    abstract void write(DataOutput out, Object value) throws IOException;
+
+    abstract Object read(DataInput in) throws IOException;
+
+    byte getCode() {
+        return code;
+    }
+
+    int getSqlType() {
+        return sqlType;
+    }
+
+    static SnapshotColumnType fromCode(byte code) {
+        return Arrays.stream(values())
+                .filter(type -> type.code == code)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown snapshot column type: " + code));
+    }
+
+    static SnapshotColumnType fromSqlType(int sqlType) {
+        return switch (sqlType) {
+            case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> INTEGER;
+            case Types.BIGINT -> BIGINT;
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+            case Types.VARCHAR, Types.CHAR, Types.LONGVARCHAR, Types.NVARCHAR -> VARCHAR;
+            case Types.TIMESTAMP -> TIMESTAMP;
+            default -> throw new IllegalArgumentException("Unsupported snapshot column type: " + sqlType);
+        };
+    }
+}
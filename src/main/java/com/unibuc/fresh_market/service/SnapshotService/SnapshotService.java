@@ -0,0 +1,14 @@
+package com.unibuc.fresh_market.service.SnapshotService;
+
+import com.unibuc.fresh_market.dto.SnapshotDTO;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface SnapshotService {
+    SnapshotDTO writeSnapshot() throws IOException;
+
+    SnapshotDTO restoreSnapshot(Path file) throws IOException;
+
+    void restartSequences();
+}
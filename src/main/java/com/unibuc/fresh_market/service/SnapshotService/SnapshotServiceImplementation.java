@@ -0,0 +1,263 @@
+package com.unibuc.fresh_market.service.SnapshotService;
+
+import com.unibuc.fresh_market.config.SnapshotProperties;
+import com.unibuc.fresh_market.dto.SnapshotDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// a snapshot is the magic number, the table count, then per table its name, its column names and types,
+// one null bitmap plus the non-null values per row, an end marker and the row count as a check
+@Service
+public class SnapshotServiceImplementation implements SnapshotService {
+    // version 2 stores timestamps as wall clock values, version 1 files were written in the JVM's time zone
+    static final int MAGIC = 0x464D5332;
+    static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FETCH_SIZE = 5000;
+    // the restored catalog is not the one clients hold ETags for
+    private static final String BUMP_CATALOG_VERSION = "UPDATE catalog_version SET version = version + 1, last_modified = CURRENT_TIMESTAMP WHERE id = 1";
+
+    private final SnapshotProperties snapshotProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate transaction;
+
+    public SnapshotServiceImplementation(SnapshotProperties snapshotProperties, DataSource dataSource,
+                                         PlatformTransactionManager transactionManager) {
+        this.snapshotProperties = snapshotProperties;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public SnapshotDTO writeSnapshot() throws IOException {
+        Path directory = Paths.get(snapshotProperties.getDirectory());
+        Files.createDirectories(directory);
+        String fileName = "fresh-market-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + SNAPSHOT_SUFFIX;
+        Path file = directory.resolve(fileName);
+        Path partFile = directory.resolve(fileName + ".part");
+
+        long start = System.nanoTime();
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partFile), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeShort(SnapshotTable.values().length);
+
+                // one repeatable read transaction, so every table is dumped as of the same moment
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    for (SnapshotTable table : SnapshotTable.values()) {
+                        rowCounts.put(table.getTableName(), writeTable(out, table));
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partFile);
+        }
+
+        return snapshotOf(file, rowCounts, start);
+    }
+
+    // meant for startup, before anything has been read into the caches
+    public SnapshotDTO restoreSnapshot(Path file) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+
+        // one transaction for the whole file, so a failed restore leaves the database empty and can simply be retried,
+        // the migrations' indexes stay in place and are maintained as the rows go in
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+
+            transaction.executeWithoutResult(status -> {
+                try {
+                    checkEmpty();
+                    int tableCount = in.readUnsignedShort();
+                    for (int i = 0; i < tableCount; i++) {
+                        SnapshotTable table = SnapshotTable.fromTableName(in.readUTF());
+                        rowCounts.put(table.getTableName(), restoreTable(in, table));
+                    }
+                    jdbcTemplate.update(BUMP_CATALOG_VERSION);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // only after the commit, a sequence restart is not rolled back with the rows
+        restartSequences();
+        return snapshotOf(file, rowCounts, start);
+    }
+
+    // the pooled id generators continue after ids that were inserted without them
+    public void restartSequences() {
+        for (SnapshotTable table : SnapshotTable.values()) {
+            if (table.getSequenceName() == null) {
+                continue;
+            }
+
+            Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.getTableName(), Integer.class);
+            if (maxId != null) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + table.getSequenceName() + " RESTART WITH " + (maxId + 1));
+            }
+        }
+    }
+
+    private void checkEmpty() {
+        for (SnapshotTable table : SnapshotTable.values()) {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table.getTableName(), Long.class);
+            if (rows != null && rows > 0) {
+                throw new IllegalStateException("Snapshots can only be restored into an empty database, " + table.getTableName() + " has rows");
+            }
+        }
+    }
+
+    private long writeTable(DataOutputStream out, SnapshotTable table) {
+        String sql = "SELECT * FROM " + table.getTableName() + " ORDER BY " + table.getPrimaryKey();
+        Long rows = jdbcTemplate.query(sql, resultSet -> {
+            try {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                SnapshotColumnType[] types = new SnapshotColumnType[columnCount];
+
+                out.writeUTF(table.getTableName());
+                out.writeShort(columnCount);
+                for (int column = 0; column < columnCount; column++) {
+                    types[column] = SnapshotColumnType.fromSqlType(metaData.getColumnType(column + 1));
+                    out.writeUTF(metaData.getColumnLabel(column + 1).toLowerCase(Locale.ROOT));
+                    out.writeByte(types[column].getCode());
+                }
+
+                Object[] values = new Object[columnCount];
+                byte[] nulls = new byte[(columnCount + 7) / 8];
+                long rowsWritten = 0;
+                while (resultSet.next()) {
+                    Arrays.fill(nulls, (byte) 0);
+                    for (int column = 0; column < columnCount; column++) {
+                        values[column] = types[column].read(resultSet, column + 1);
+                        if (values[column] == null) {
+                            nulls[column / 8] |= (byte) (1 << (column % 8));
+                        }
+                    }
+
+                    out.writeBoolean(true);
+                    out.write(nulls);
+                    for (int column = 0; column < columnCount; column++) {
+                        if (values[column] != null) {
+                            types[column].write(out, values[column]);
+                        }
+                    }
+                    rowsWritten++;
+                }
+
+                out.writeBoolean(false);
+                out.writeLong(rowsWritten);
+                return rowsWritten;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private long restoreTable(DataInputStream in, SnapshotTable table) throws IOException {
+        int columnCount = in.readUnsignedShort();
+        List<String> columns = new ArrayList<>(columnCount);
+        SnapshotColumnType[] types = new SnapshotColumnType[columnCount];
+        int[] sqlTypes = new int[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            columns.add(identifier(in.readUTF()));
+            types[column] = SnapshotColumnType.fromCode(in.readByte());
+            sqlTypes[column] = types[column].getSqlType();
+        }
+
+        String sql = "INSERT INTO " + table.getTableName() + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+        byte[] nulls = new byte[(columnCount + 7) / 8];
+        long rowsRestored = 0;
+
+        boolean moreRows = in.readBoolean();
+        while (moreRows) {
+            List<Object[]> batch = new ArrayList<>(snapshotProperties.getBatchSize());
+            while (moreRows && batch.size() < snapshotProperties.getBatchSize()) {
+                in.readFully(nulls);
+                Object[] values = new Object[columnCount];
+                for (int column = 0; column < columnCount; column++) {
+                    boolean isNull = (nulls[column / 8] & (1 << (column % 8))) != 0;
+                    values[column] = isNull ? null : types[column].read(in);
+                }
+                batch.add(values);
+                moreRows = in.readBoolean();
+            }
+
+            jdbcTemplate.batchUpdate(sql, batch, sqlTypes);
+            rowsRestored += batch.size();
+        }
+
+        long expectedRows = in.readLong();
+        if (expectedRows != rowsRestored) {
+            throw new IOException("Snapshot of " + table.getTableName() + " holds " + rowsRestored + " of " + expectedRows + " rows");
+        }
+
+        return rowsRestored;
+    }
+
+    private String identifier(String name) throws IOException {
+        if (!IDENTIFIER.matcher(name).matches()) {
+            throw new IOException("Invalid column in snapshot: " + name);
+        }
+
+        return name;
+    }
+
+    private SnapshotDTO snapshotOf(Path file, Map<String, Long> rowCounts, long start) throws IOException {
+        long elapsedNanos = System.nanoTime() - start;
+        long totalRows = rowCounts.values().stream().mapToLong(Long::longValue).sum();
+
+        return SnapshotDTO.builder()
+                .file(file.getFileName().toString())
+                .rowCounts(rowCounts)
+                .totalRows(totalRows)
+                .bytes(Files.size(file))
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(elapsedNanos > 0 ? totalRows * 1e9 / elapsedNanos : 0.0)
+                .build();
+    }
+}
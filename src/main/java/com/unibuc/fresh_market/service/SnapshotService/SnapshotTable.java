@@ -0,0 +1,41 @@
+package com.unibuc.fresh_market.service.SnapshotService;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+// every table behind an entity, in an order where foreign keys only point at tables restored earlier
+@Getter
+public enum SnapshotTable {
+    CATEGORIES("categories", "id", "categories_seq"),
+    FARM("farm", "id", "farm_seq"),
+    USERS("users", "id", "users_seq"),
+    ROLES("roles", "id", "roles_seq"),
+    USER_ROLE("user_role", "user_id, role_id", null),
+    DELIVERIES("deliveries", "id", "deliveries_seq"),
+    ORDERS("orders", "id", "orders_seq"),
+    PRODUCTS("products", "id", "products_seq"),
+    PRODUCT_FARM("product_farm", "id", "product_farm_seq"),
+    PRODUCT_ORDER("product_order", "id", "product_order_seq"),
+    REVIEWS("reviews", "id", "reviews_seq"),
+    FARM_RATINGS("farm_ratings", "farm_id", null),
+    FARM_SALES("farm_sales", "farm_id", null),
+    PRODUCT_AVAILABILITY("product_availability", "product_id", null);
+
+    private final String tableName;
+    private final String primaryKey;
+    private final String sequenceName;
+
+    SnapshotTable(String tableName, String primaryKey, String sequenceName) {
+        this.tableName = tableName;
+        this.primaryKey = primaryKey;
+        this.sequenceName = sequenceName;
+    }
+
+    public static SnapshotTable fromTableName(String tableName) {
+        return Arrays.stream(values())
+                .filter(table -> table.tableName.equals(tableName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown snapshot table: " + tableName));
+    }
+}
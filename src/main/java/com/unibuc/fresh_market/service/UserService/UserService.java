@@ -1,8 +1,9 @@
 package com.unibuc.fresh_market.service.UserService;
 
-import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.Review;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,10 +11,11 @@ import java.util.Optional;
 public interface UserService {
     User createUser(User user);
     List<User> getAllUsers();
+    CursorPage<User> getUsersPage(String after, Integer limit);
     Optional<User> getUserById(Integer id);
-    Optional<User> updateUser(Integer id, User user);
+    Optional<User> updateUser(Integer id, User user, Long expectedVersion);
     Optional<User> deleteUser(Integer id);
 
-    List<Order> getOrdersByUserId(Integer userId);
-    List<Review> getReviewsByUserId(Integer userId);
+    List<OrderDTO> getOrdersByUserId(Integer userId);
+    List<ReviewDTO> getReviewsByUserId(Integer userId);
 }
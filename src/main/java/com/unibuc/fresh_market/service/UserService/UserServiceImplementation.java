@@ -1,28 +1,61 @@
 package com.unibuc.fresh_market.service.UserService;
 
-import com.unibuc.fresh_market.domain.Order;
-import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.config.CacheConfig;
+import com.unibuc.fresh_market.domain.Farm;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.FarmOrderTotalDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.repository.FarmSalesRepository;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ReviewRepository;
 import com.unibuc.fresh_market.repository.security.UserRepository;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import com.unibuc.fresh_market.service.FarmService.FarmService;
+import com.unibuc.fresh_market.service.ReviewService.ReviewService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class UserServiceImplementation implements UserService {
     private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final ReviewRepository reviewRepository;
     private final PasswordEncoder passwordEncoder;
-
-    public UserServiceImplementation(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final FarmService farmService;
+    private final FarmReportService farmReportService;
+    private final FarmSalesRepository farmSalesRepository;
+    private final ReviewService reviewService;
+
+    public UserServiceImplementation(UserRepository userRepository, OrderRepository orderRepository,
+                                     ReviewRepository reviewRepository, PasswordEncoder passwordEncoder, FarmService farmService,
+                                     FarmReportService farmReportService, FarmSalesRepository farmSalesRepository,
+                                     ReviewService reviewService) {
         this.userRepository = userRepository;
+        this.orderRepository = orderRepository;
+        this.reviewRepository = reviewRepository;
         this.passwordEncoder = passwordEncoder;
+        this.farmService = farmService;
+        this.farmReportService = farmReportService;
+        this.farmSalesRepository = farmSalesRepository;
+        this.reviewService = reviewService;
     }
 
+    // cached farms embed their owner
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.FARMS, key = "#user.farm.id", condition = "#user.farm != null && #user.farm.id != null")
     public User createUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
+        createNewFarm(user);
         return userRepository.save(user);
     }
 
@@ -30,18 +63,31 @@ public class UserServiceImplementation implements UserService {
         return userRepository.findAll();
     }
 
+    public CursorPage<User> getUsersPage(String after, Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decodeCursor(after), Limit.of(pageSize + 1));
+        return CursorPage.of(users, pageSize, User::getId);
+    }
+
     public Optional<User> getUserById(Integer id) {
         return userRepository.findById(id);
     }
 
-    public Optional<User> updateUser(Integer id, User user) {
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.FARMS, allEntries = true)
+    public Optional<User> updateUser(Integer id, User user, Long expectedVersion) {
         User userToUpdate = userRepository.findById(id).orElse(null);
 
         if (userToUpdate != null) {
+            if (expectedVersion != null && expectedVersion != userToUpdate.getVersion()) {
+                throw new OptimisticLockingFailureException("User " + id + " has been modified since version " + expectedVersion);
+            }
+
             userToUpdate.setUsername(user.getUsername());
             userToUpdate.setEmail(user.getEmail());
             userToUpdate.setPassword(user.getPassword());
             userToUpdate.setRoles(user.getRoles());
+            createNewFarm(user);
             userToUpdate.setFarm(user.getFarm());
             userToUpdate.setOrders(user.getOrders());
             userToUpdate.setReviews(user.getReviews());
@@ -53,9 +99,16 @@ public class UserServiceImplementation implements UserService {
         return Optional.empty();
     }
 
+    // the user's orders and reviews go with them in the cascade, so they leave the sales, reports and ratings of every farm
+    // they ordered from or reviewed
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.FARMS, allEntries = true)
     public Optional<User> deleteUser(Integer id) {
         User deletedUser = userRepository.findById(id).orElse(null);
         if (deletedUser != null) {
+            removeFromFarmSales(id);
+            reviewService.removeFromFarmRatingsByUserId(id);
+            deleteOwnFarm(deletedUser);
             userRepository.delete(deletedUser);
             return Optional.of(deletedUser);
         }
@@ -63,23 +116,43 @@ public class UserServiceImplementation implements UserService {
         return Optional.empty();
     }
 
-    public List<Order> getOrdersByUserId(Integer id) {
-        User user = userRepository.findById(id).orElse(null);
-
-        if (user != null) {
-            return user.getOrders();
+    // a farm that comes in with its owner goes through FarmService like any other, for the rows created along with it,
+    // the cascade from the user then finds it already saved
+    private void createNewFarm(User user) {
+        if (user.getFarm() != null && user.getFarm().getId() == null) {
+            user.setFarm(farmService.createFarm(user.getFarm()));
         }
-
-        return new ArrayList<>();
     }
 
-    public List<Review> getReviewsByUserId(Integer id) {
-        User user = userRepository.findById(id).orElse(null);
+    private void removeFromFarmSales(Integer userId) {
+        List<FarmOrderTotalDTO> farmOrderTotals = orderRepository.sumOrdersByFarmForUserId(userId);
+        Date now = new Date();
+        for (FarmOrderTotalDTO farmOrderTotal : farmOrderTotals) {
+            farmSalesRepository.addToFarmSales(farmOrderTotal.getFarmId(), -farmOrderTotal.getTotalAmount(),
+                    -farmOrderTotal.getOrderCount(), now);
+        }
+        farmReportService.invalidateMonthlyReports(farmOrderTotals.stream().map(FarmOrderTotalDTO::getFarmId).toList());
+    }
 
-        if (user != null) {
-            return user.getReviews();
+    // and a farm that goes with its owner goes through FarmService too, for its stock counters and aggregate rows and the
+    // catalog version its products pages are cached under, the user stops pointing at it first so the farm row can be
+    // deleted before the user row
+    private void deleteOwnFarm(User user) {
+        Farm farm = user.getFarm();
+        if (farm == null || farm.getId() == null) {
+            return;
         }
 
-        return new ArrayList<>();
+        user.setFarm(null);
+        userRepository.saveAndFlush(user);
+        farmService.deleteFarm(farm.getId());
+    }
+
+    public List<OrderDTO> getOrdersByUserId(Integer id) {
+        return orderRepository.findOrdersByUserId(id);
+    }
+
+    public List<ReviewDTO> getReviewsByUserId(Integer id) {
+        return reviewRepository.getReviewsByUserId(id);
     }
 }
@@ -0,0 +1,160 @@
+-- baseline: the schema Hibernate generated from the entity mappings
+-- sequence increments must match spring.jpa.properties.fresh_market.id.allocation_size
+
+create sequence categories_seq start with 1 increment by 50;
+create sequence deliveries_seq start with 1 increment by 50;
+create sequence farm_seq start with 1 increment by 50;
+create sequence orders_seq start with 1 increment by 50;
+create sequence product_farm_seq start with 1 increment by 50;
+create sequence product_order_seq start with 1 increment by 50;
+create sequence products_seq start with 1 increment by 50;
+create sequence reviews_seq start with 1 increment by 50;
+create sequence roles_seq start with 1 increment by 50;
+create sequence users_seq start with 1 increment by 50;
+
+create table categories (
+    id integer not null,
+    version bigint not null,
+    description varchar(255),
+    name varchar(255) not null,
+    constraint pk_categories primary key (id),
+    constraint uk_categories_name unique (name)
+);
+
+create table deliveries (
+    id integer not null,
+    delivery_date timestamp(6),
+    version bigint not null,
+    delivery_status varchar(30) not null,
+    constraint pk_deliveries primary key (id)
+);
+
+create table farm (
+    id integer not null,
+    version bigint not null,
+    name varchar(20) not null,
+    address varchar(255),
+    constraint pk_farm primary key (id)
+);
+
+create table farm_ratings (
+    farm_id integer not null,
+    five_star_count bigint not null,
+    four_star_count bigint not null,
+    last_updated timestamp(6),
+    one_star_count bigint not null,
+    rating_sum bigint not null,
+    review_count bigint not null,
+    three_star_count bigint not null,
+    two_star_count bigint not null,
+    constraint pk_farm_ratings primary key (farm_id)
+);
+
+create table farm_sales (
+    farm_id integer not null,
+    total_sales float(53) not null,
+    last_updated timestamp(6),
+    order_count bigint not null,
+    constraint pk_farm_sales primary key (farm_id)
+);
+
+create table users (
+    farm_id integer,
+    id integer not null,
+    version bigint not null,
+    email varchar(255),
+    password varchar(255),
+    username varchar(255) not null,
+    constraint pk_users primary key (id),
+    constraint uk_users_farm_id unique (farm_id),
+    constraint uk_users_email unique (email),
+    constraint fk_users_farm foreign key (farm_id) references farm (id)
+);
+
+create table roles (
+    id integer not null,
+    version bigint not null,
+    name varchar(30) not null,
+    constraint pk_roles primary key (id),
+    constraint uk_roles_name unique (name)
+);
+
+create table user_role (
+    role_id integer not null,
+    user_id integer not null,
+    constraint pk_user_role primary key (role_id, user_id),
+    constraint fk_user_role_role foreign key (role_id) references roles (id),
+    constraint fk_user_role_user foreign key (user_id) references users (id)
+);
+
+create table orders (
+    delivery_id integer,
+    farm_id integer,
+    id integer not null,
+    total_amount float(53),
+    user_id integer,
+    created_at timestamp(6),
+    version bigint not null,
+    status varchar(20) not null,
+    constraint pk_orders primary key (id),
+    constraint uk_orders_delivery_id unique (delivery_id),
+    constraint fk_orders_delivery foreign key (delivery_id) references deliveries (id),
+    constraint fk_orders_farm foreign key (farm_id) references farm (id),
+    constraint fk_orders_user foreign key (user_id) references users (id)
+);
+
+create table products (
+    category_id integer not null,
+    id integer not null,
+    price float(53),
+    version bigint not null,
+    name varchar(30) not null,
+    description varchar(255),
+    constraint pk_products primary key (id),
+    constraint fk_products_category foreign key (category_id) references categories (id)
+);
+
+create table product_availability (
+    product_id integer not null,
+    farms_in_stock bigint not null,
+    last_updated timestamp(6),
+    total_quantity bigint not null,
+    constraint pk_product_availability primary key (product_id)
+);
+
+create table product_farm (
+    farm_id integer,
+    id integer not null,
+    product_id integer,
+    quantity integer,
+    version bigint not null,
+    notes varchar(255),
+    constraint pk_product_farm primary key (id),
+    constraint fk_product_farm_farm foreign key (farm_id) references farm (id),
+    constraint fk_product_farm_product foreign key (product_id) references products (id)
+);
+
+create table product_order (
+    id integer not null,
+    order_id integer,
+    product_id integer,
+    quantity integer,
+    version bigint not null,
+    notes varchar(255),
+    constraint pk_product_order primary key (id),
+    constraint fk_product_order_order foreign key (order_id) references orders (id),
+    constraint fk_product_order_product foreign key (product_id) references products (id)
+);
+
+create table reviews (
+    farm_id integer,
+    id integer not null,
+    rating integer,
+    user_id integer,
+    version bigint not null,
+    content varchar(255),
+    constraint pk_reviews primary key (id),
+    constraint ck_reviews_rating check (rating >= 1 and rating <= 5),
+    constraint fk_reviews_farm foreign key (farm_id) references farm (id),
+    constraint fk_reviews_user foreign key (user_id) references users (id)
+);
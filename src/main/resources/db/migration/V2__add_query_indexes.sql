@@ -0,0 +1,36 @@
+-- one index per repository access path, leading with the equality columns the query filters on
+-- (QueryPlanTest checks each query below runs against its index instead of a full scan)
+
+-- OrderRepository.findOrdersByFarmId, countByFarmId, sumTotalAmountByFarmId, FarmRepository.getFarmDashboard
+create index idx_orders_farm_created_at on orders (farm_id, created_at);
+-- OrderRepository.findOrdersByStatus
+create index idx_orders_status_created_at on orders (status, created_at);
+-- User.orders
+create index idx_orders_user_id on orders (user_id);
+
+-- ProductFarmRepository.findAllByFarmId, decrementQuantity, findSoldOutProductIds, ProductRepository.getProductsByFarmId
+create index idx_product_farm_farm_product on product_farm (farm_id, product_id, quantity);
+-- ProductFarmRepository.findAllByProductId, sumQuantityByProductId, countByProductIdAndQuantityGreaterThan
+create index idx_product_farm_product_quantity on product_farm (product_id, quantity);
+
+-- ProductOrderRepository.findProductOrdersByOrderId, getOrderTotal, OrderRepository.getOrderReceiptRows
+create index idx_product_order_order_id on product_order (order_id, id);
+-- Product.productOrders, and deleting a product
+create index idx_product_order_product_id on product_order (product_id);
+
+-- ProductRepository.getProductsByCategoryId
+create index idx_products_category_id on products (category_id);
+
+-- ReviewRepository.getReviewsByFarmId, countRatingsByFarmId
+create index idx_reviews_farm_rating on reviews (farm_id, rating);
+-- User.reviews
+create index idx_reviews_user_id on reviews (user_id);
+
+-- DeliveryRepository.findDeliveriesByDeliveryStatus
+create index idx_deliveries_delivery_status on deliveries (delivery_status);
+
+-- UserRepository.findByUsername
+create index idx_users_username on users (username);
+
+-- User.roles (Role.users is served by the primary key)
+create index idx_user_role_user_id on user_role (user_id);
@@ -0,0 +1,17 @@
+-- a farm holds one stock row per product, so a sale decrements exactly one row (ProductFarmServiceImplementation.reserveStock)
+
+-- fold any duplicate stock rows into the oldest one of their farm and product
+update product_farm pf
+set quantity = (select sum(coalesce(d.quantity, 0)) from product_farm d where d.farm_id = pf.farm_id and d.product_id = pf.product_id)
+where pf.id = (select min(d.id) from product_farm d where d.farm_id = pf.farm_id and d.product_id = pf.product_id)
+  and exists (select 1 from product_farm d where d.farm_id = pf.farm_id and d.product_id = pf.product_id and d.id <> pf.id);
+
+delete from product_farm pf
+where exists (select 1 from product_farm d where d.farm_id = pf.farm_id and d.product_id = pf.product_id and d.id < pf.id);
+
+-- duplicates were counted more than once in farms_in_stock
+update product_availability pa
+set total_quantity = (select coalesce(sum(pf.quantity), 0) from product_farm pf where pf.product_id = pa.product_id),
+    farms_in_stock = (select count(*) from product_farm pf where pf.product_id = pa.product_id and pf.quantity > 0);
+
+alter table product_farm add constraint uk_product_farm_farm_product unique (farm_id, product_id);
@@ -0,0 +1,5 @@
+-- the price a line was sold at, so reports and receipts don't follow later price changes
+alter table product_order add column unit_price float(53);
+
+-- lines sold before this column existed only have the current price to go by
+update product_order po set unit_price = (select p.price from products p where p.id = po.product_id);
@@ -0,0 +1,26 @@
+-- aggregate rows are created along with their farm or product now and only ever updated after that,
+-- older farms and products without one get it here, with the totals the rebuild endpoints compute
+
+insert into farm_sales (farm_id, total_sales, order_count, last_updated)
+select f.id, coalesce(sum(o.total_amount), 0.0), count(o.id), current_timestamp
+from farm f
+left join orders o on o.farm_id = f.id
+where not exists (select 1 from farm_sales fs where fs.farm_id = f.id)
+group by f.id;
+
+insert into farm_ratings (farm_id, review_count, rating_sum, one_star_count, two_star_count, three_star_count,
+                          four_star_count, five_star_count, last_updated)
+select f.id, count(r.rating), coalesce(sum(r.rating), 0), count(case when r.rating = 1 then 1 end),
+       count(case when r.rating = 2 then 1 end), count(case when r.rating = 3 then 1 end),
+       count(case when r.rating = 4 then 1 end), count(case when r.rating = 5 then 1 end), current_timestamp
+from farm f
+left join reviews r on r.farm_id = f.id
+where not exists (select 1 from farm_ratings fr where fr.farm_id = f.id)
+group by f.id;
+
+insert into product_availability (product_id, total_quantity, farms_in_stock, last_updated)
+select p.id, coalesce(sum(pf.quantity), 0), count(case when pf.quantity > 0 then 1 end), current_timestamp
+from products p
+left join product_farm pf on pf.product_id = p.id
+where not exists (select 1 from product_availability pa where pa.product_id = p.id)
+group by p.id;
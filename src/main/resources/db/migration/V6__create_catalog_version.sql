@@ -0,0 +1,11 @@
+-- the catalog ETag, one row every instance reads and every catalog write bumps in its own transaction,
+-- so the version survives restarts and is the same behind any instance
+
+create table catalog_version (
+    id integer not null,
+    version bigint not null,
+    last_modified timestamp(6) not null,
+    constraint pk_catalog_version primary key (id)
+);
+
+insert into catalog_version (id, version, last_modified) values (1, 1, current_timestamp);
@@ -0,0 +1,171 @@
+package com.unibuc.fresh_market;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.BulkRowErrorDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductFarmRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class BulkImportTest {
+    private static final int ROWS = 20000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductFarmRepository productFarmRepository;
+
+    @Autowired
+    private ProductFarmService productFarmService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private List<Integer> existingProductOrderIds;
+
+    private List<Integer> existingProductIds;
+
+    private Order order;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        existingProductOrderIds = productOrderRepository.findAll().stream().map(ProductOrder::getId).toList();
+        existingProductIds = productRepository.findAll().stream().map(Product::getId).toList();
+        order = orderRepository.findAll().getFirst();
+        product = productRepository.findAll().getFirst();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productOrderRepository.deleteAllByIdInBatch(productOrderRepository.findAll().stream()
+                .map(ProductOrder::getId)
+                .filter(id -> !existingProductOrderIds.contains(id))
+                .toList());
+        productRepository.deleteAllByIdInBatch(productRepository.findAll().stream()
+                .map(Product::getId)
+                .filter(id -> !existingProductIds.contains(id))
+                .toList());
+    }
+
+    @Test
+    void givenManyOrderLines_whenImportedAsNdjson_thenWriteThemInJdbcBatches() throws Exception {
+        // Given
+        String body = IntStream.range(0, ROWS)
+                .mapToObj(i -> "{\"orderId\":" + order.getId() + ",\"productId\":" + product.getId() + ",\"quantity\":" + (1 + i % 5) + "}")
+                .collect(Collectors.joining("\n"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        BulkImportReportDTO report = importRows("/productOrders/bulk", MediaType.APPLICATION_NDJSON, body);
+
+        // Then
+        assertEquals(ROWS, report.getReceivedRows());
+        assertEquals(ROWS, report.getImportedRows());
+        assertEquals(0, report.getRejectedRows());
+        assertEquals(existingProductOrderIds.size() + ROWS, productOrderRepository.count());
+        assertTrue(statistics.getPrepareStatementCount() * 10 <= ROWS);
+    }
+
+    @Test
+    void givenCsvWithBadRows_whenImported_thenReportEachRejectedLine() throws Exception {
+        // Given
+        Integer categoryId = product.getCategory().getId();
+        String body = String.join("\n",
+                "name,description,price,categoryId",
+                "Imported kale,,3.5," + categoryId,
+                "Imported leeks,fresh,-1," + categoryId,
+                "",
+                "Imported chard,,2.0,999999",
+                "Imported beets,,not a price," + categoryId,
+                ",,1.0," + categoryId,
+                "Imported radish,spicy,1.25," + categoryId);
+
+        // When
+        BulkImportReportDTO report = importRows("/products/bulk", MediaType.parseMediaType("text/csv"), body);
+
+        // Then
+        assertEquals(6, report.getReceivedRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(4, report.getRejectedRows());
+        assertEquals(List.of(3L, 5L, 6L, 7L), report.getErrors().stream().map(BulkRowErrorDTO::getLine).toList());
+        assertEquals("Unknown category 999999", report.getErrors().get(1).getMessage());
+        assertEquals(existingProductIds.size() + 2, productRepository.count());
+    }
+
+    @Test
+    void givenStockedProduct_whenImportedTwice_thenUpdateItsRowAndAvailabilityByTheDelta() throws Exception {
+        // Given
+        ProductFarm stocked = productFarmRepository.findAll().getFirst();
+        Integer farmId = stocked.getFarm().getId();
+        Integer productId = stocked.getProduct().getId();
+        long stockRows = productFarmRepository.count();
+        int totalQuantity = productFarmService.calculateProductStockAcrossFarms(productId);
+        String row = "{\"farmId\":" + farmId + ",\"productId\":" + productId + ",\"quantity\":" + (stocked.getQuantity() + 5) + "}";
+
+        // When
+        importRows("/productFarms/bulk", MediaType.APPLICATION_NDJSON, row);
+        BulkImportReportDTO report = importRows("/productFarms/bulk", MediaType.APPLICATION_NDJSON, row);
+
+        // Then
+        assertEquals(1, report.getImportedRows());
+        assertEquals(stockRows, productFarmRepository.count());
+        assertEquals(stocked.getQuantity() + 5, productFarmRepository.findById(stocked.getId()).orElseThrow().getQuantity());
+        assertEquals(totalQuantity + 5, productFarmService.calculateProductStockAcrossFarms(productId));
+
+        productFarmService.updateProductFarm(stocked.getId(), stocked, null);
+    }
+
+    private BulkImportReportDTO importRows(String path, MediaType contentType, String body) throws Exception {
+        String response = mockMvc.perform(post(path).contentType(contentType).content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readValue(response, BulkImportReportDTO.class);
+    }
+}
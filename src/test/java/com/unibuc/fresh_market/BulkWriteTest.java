@@ -0,0 +1,118 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductFarmRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BulkWriteTest {
+    private static final int ROWS = 500;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductOrderService productOrderService;
+
+    @Autowired
+    private ProductFarmService productFarmService;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private ProductFarmRepository productFarmRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private FarmRepository farmRepository;
+
+    private Statistics statistics;
+
+    private Order order;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        order = orderRepository.findAll().getFirst();
+        product = productRepository.findAll().getFirst();
+    }
+
+    @Test
+    void givenOrderLines_whenWrittenInBulk_thenIssueTenTimesFewerStatements() {
+        IntFunction<ProductOrder> orderLine = i -> ProductOrder.builder().order(order).product(product).quantity(1 + i % 5).build();
+        List<Integer> existingIds = productOrderRepository.findAll().stream().map(ProductOrder::getId).toList();
+
+        long rowByRow = statements(orderLine, rows -> rows.forEach(productOrderService::createProductOrder));
+        long bulk = statements(orderLine, productOrderService::createProductOrders);
+
+        assertTrue(rowByRow >= 10 * bulk);
+
+        productOrderRepository.deleteAllByIdInBatch(productOrderRepository.findAll().stream()
+                .map(ProductOrder::getId)
+                .filter(id -> !existingIds.contains(id))
+                .toList());
+    }
+
+    @Test
+    void givenStockRows_whenWrittenInBulk_thenIssueTenTimesFewerStatements() {
+        // a farm stocks a product once, so every row goes to a farm of its own
+        List<Farm> farms = farmRepository.saveAll(IntStream.range(0, 2 * ROWS)
+                .mapToObj(i -> Farm.builder().name("Bulk farm " + i).build())
+                .toList());
+        IntFunction<ProductFarm> rowByRowStockRow = i -> ProductFarm.builder().farm(farms.get(i)).product(product).quantity(i % 3).build();
+        IntFunction<ProductFarm> bulkStockRow = i -> ProductFarm.builder().farm(farms.get(ROWS + i)).product(product).quantity(i % 3).build();
+        List<Integer> existingIds = productFarmRepository.findAll().stream().map(ProductFarm::getId).toList();
+
+        long rowByRow = statements(rowByRowStockRow, rows -> rows.forEach(productFarmService::createProductFarm));
+        long bulk = statements(bulkStockRow, productFarmService::createProductFarms);
+
+        assertTrue(rowByRow >= 10 * bulk);
+
+        productFarmRepository.deleteAllByIdInBatch(productFarmRepository.findAll().stream()
+                .map(ProductFarm::getId)
+                .filter(id -> !existingIds.contains(id))
+                .toList());
+        farmRepository.deleteAllByIdInBatch(farms.stream().map(Farm::getId).toList());
+        productFarmService.rebuildAvailabilityByProductId(product.getId());
+    }
+
+    // throughput is measured by BulkWriteBenchmark in the benchmarks module, here only the statements are counted
+    private <T> long statements(IntFunction<T> rowFactory, Consumer<List<T>> write) {
+        List<T> rows = IntStream.range(0, ROWS).mapToObj(rowFactory).toList();
+
+        statistics.clear();
+        write.accept(rows);
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,154 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.config.GeneratorProperties;
+import com.unibuc.fresh_market.config.SnapshotProperties;
+import com.unibuc.fresh_market.dto.GeneratedDataDTO;
+import com.unibuc.fresh_market.service.DataGeneratorService.DataGeneratorServiceImplementation;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotServiceImplementation;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotTable;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// generates into freshly migrated in-memory databases, no application context needed
+class DataGeneratorTest {
+
+    private final List<DriverManagerDataSource> databases = new ArrayList<>();
+
+    private GeneratorProperties generatorProperties;
+
+    @BeforeEach
+    void setUp() {
+        generatorProperties = new GeneratorProperties();
+        generatorProperties.setUsers(500);
+        generatorProperties.setFarms(20);
+        generatorProperties.setCategories(5);
+        generatorProperties.setProducts(200);
+        generatorProperties.setProductsPerFarm(10);
+        generatorProperties.setOrders(5000);
+        generatorProperties.setReviews(1000);
+        generatorProperties.setBatchSize(400);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databases.forEach(database -> new JdbcTemplate(database).execute("SHUTDOWN"));
+    }
+
+    @Test
+    void givenSameSeed_whenGeneratedTwice_thenEveryTableIsIdentical() {
+        // Given
+        DriverManagerDataSource first = emptyDatabase();
+        DriverManagerDataSource second = emptyDatabase();
+
+        // When
+        GeneratedDataDTO generated = generator(first, new BCryptPasswordEncoder()).generate();
+        generator(second, new BCryptPasswordEncoder()).generate();
+
+        // Then
+        assertEquals(500L, generated.getRowCounts().get("users"));
+        assertEquals(5000L, generated.getRowCounts().get("orders"));
+        assertEquals(200L, generated.getRowCounts().get("product_farm"));
+
+        // BCrypt salts every hash, so the password column is the only one that differs
+        for (SnapshotTable table : SnapshotTable.values()) {
+            String sql = "SELECT * FROM " + table.getTableName() + " ORDER BY " + table.getPrimaryKey();
+            List<Map<String, Object>> firstRows = withoutPasswords(new JdbcTemplate(first).queryForList(sql));
+            List<Map<String, Object>> secondRows = withoutPasswords(new JdbcTemplate(second).queryForList(sql));
+            assertEquals(firstRows, secondRows, table.getTableName());
+        }
+    }
+
+    @Test
+    void givenDifferentSeed_whenGenerated_thenOrdersDiffer() {
+        // Given
+        DriverManagerDataSource first = emptyDatabase();
+        DriverManagerDataSource second = emptyDatabase();
+        generator(first, new BCryptPasswordEncoder()).generate();
+
+        // When
+        generatorProperties.setSeed(7);
+        generator(second, new BCryptPasswordEncoder()).generate();
+
+        // Then
+        String sql = "SELECT * FROM orders ORDER BY id";
+        assertNotEquals(new JdbcTemplate(first).queryForList(sql), new JdbcTemplate(second).queryForList(sql));
+    }
+
+    @Test
+    void givenSkewSettings_whenGenerated_thenHotFarmsAndPopularProductsDominate() {
+        // Given
+        DriverManagerDataSource database = emptyDatabase();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+        // When
+        generator(database, new BCryptPasswordEncoder()).generate();
+
+        // Then
+        long hotFarmOrders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE farm_id = 1", Long.class);
+        long coldFarmOrders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE farm_id = 20", Long.class);
+        assertTrue(hotFarmOrders > 5000 / 2);
+        assertTrue(hotFarmOrders > 10 * coldFarmOrders);
+
+        List<Integer> productsByPopularity = jdbcTemplate.queryForList(
+                "SELECT product_id FROM product_order GROUP BY product_id ORDER BY SUM(quantity) DESC", Integer.class);
+        assertEquals(1, productsByPopularity.getFirst());
+    }
+
+    @Test
+    void givenGeneratedData_whenInspected_thenAggregatesMatchAndSequencesContinue() {
+        // Given
+        DriverManagerDataSource database = emptyDatabase();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        PasswordEncoder passwordEncoder = spy(new BCryptPasswordEncoder());
+
+        // When
+        generator(database, passwordEncoder).generate();
+
+        // Then
+        verify(passwordEncoder, times(1)).encode(anyString());
+        assertEquals(jdbcTemplate.queryForObject("SELECT SUM(total_amount) FROM orders", Double.class),
+                jdbcTemplate.queryForObject("SELECT SUM(total_sales) FROM farm_sales", Double.class), 0.01);
+        assertEquals(1000L, jdbcTemplate.queryForObject("SELECT SUM(review_count) FROM farm_ratings", Long.class));
+        assertEquals(jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM product_farm", Long.class),
+                jdbcTemplate.queryForObject("SELECT SUM(total_quantity) FROM product_availability", Long.class));
+
+        Integer maxOrderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Integer.class);
+        Integer nextOrderId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR orders_seq", Integer.class);
+        assertTrue(nextOrderId > maxOrderId);
+
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT version FROM catalog_version", Long.class));
+    }
+
+    private DataGeneratorServiceImplementation generator(DriverManagerDataSource database, PasswordEncoder passwordEncoder) {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+        SnapshotServiceImplementation snapshotService = new SnapshotServiceImplementation(new SnapshotProperties(), database, transactionManager);
+        return new DataGeneratorServiceImplementation(generatorProperties, database, transactionManager, passwordEncoder, snapshotService);
+    }
+
+    private DriverManagerDataSource emptyDatabase() {
+        DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:generator-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(database).locations("classpath:db/migration").load().migrate();
+        databases.add(database);
+        return database;
+    }
+
+    private List<Map<String, Object>> withoutPasswords(List<Map<String, Object>> rows) {
+        rows.forEach(row -> row.remove("PASSWORD"));
+        return rows;
+    }
+}
@@ -0,0 +1,112 @@
+package com.unibuc.fresh_market;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.ExportJobDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.ExportService.ExportDataset;
+import com.unibuc.fresh_market.service.ExportService.ExportFormat;
+import com.unibuc.fresh_market.service.ExportService.ExportService;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "export.directory=${java.io.tmpdir}/fresh-market-export-test",
+        "export.segment-size=1000"
+})
+class ExportTest {
+    private static final int ROWS = 5000;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductOrderService productOrderService;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private List<Integer> existingIds;
+
+    @BeforeEach
+    void setUp() {
+        existingIds = productOrderRepository.findAll().stream().map(ProductOrder::getId).toList();
+
+        Order order = orderRepository.findAll().getFirst();
+        Product product = productRepository.findAll().getFirst();
+        productOrderService.createProductOrders(IntStream.range(0, ROWS)
+                .mapToObj(i -> ProductOrder.builder().order(order).product(product).quantity(1 + i % 5).build())
+                .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        productOrderRepository.deleteAllByIdInBatch(productOrderRepository.findAll().stream()
+                .map(ProductOrder::getId)
+                .filter(id -> !existingIds.contains(id))
+                .toList());
+    }
+
+    @Test
+    void givenManyOrderLines_whenExported_thenGzipFileHoldsEveryRowInIdOrder() throws IOException {
+        // Given
+        long expectedRows = productOrderRepository.count();
+
+        // When
+        ExportJobDTO job = exportService.runExport(ExportDataset.PRODUCT_ORDER, ExportFormat.NDJSON);
+
+        // Then
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(expectedRows, job.getRowsWritten());
+
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"), "fresh-market-export-test", job.getFile());
+        assertEquals(Files.size(file), job.getBytesWritten());
+
+        List<Integer> ids;
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            ids = new String(input.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .map(this::readId)
+                    .toList();
+        }
+        assertEquals(expectedRows, ids.size());
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+    }
+
+    private Integer readId(String line) {
+        try {
+            return objectMapper.readValue(line, ProductOrderDTO.class).getId();
+        } catch (IOException e) {
+            throw new IllegalStateException("Not a JSON line: " + line, e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "report.directory=${java.io.tmpdir}/fresh-market-report-test"
+})
+@AutoConfigureMockMvc
+class FarmReportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductOrderService productOrderService;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private FarmRepository farmRepository;
+
+    private Farm farm;
+
+    private List<Order> orders;
+
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileSystemUtils.deleteRecursively(reportDirectory());
+
+        farm = farmRepository.findAll().getFirst();
+        products = productRepository.findAll().subList(0, 2);
+
+        // a month far enough back that only these orders fall into it
+        orders = orderRepository.saveAll(List.of(
+                Order.builder().status("Delivered").farm(farm).createdAt(dateOf(2001, 2, 3)).build(),
+                Order.builder().status("Delivered").farm(farm).createdAt(dateOf(2001, 2, 20)).build()));
+        productOrderService.createProductOrders(List.of(
+                ProductOrder.builder().order(orders.get(0)).product(products.get(0)).quantity(2).build(),
+                ProductOrder.builder().order(orders.get(0)).product(products.get(0)).quantity(1).build(),
+                ProductOrder.builder().order(orders.get(0)).product(products.get(1)).quantity(4).build(),
+                ProductOrder.builder().order(orders.get(1)).product(products.get(0)).quantity(5).build()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        List<Integer> orderIds = orders.stream().map(Order::getId).toList();
+        productOrderRepository.deleteAllByIdInBatch(productOrderRepository.findAll().stream()
+                .filter(productOrder -> orderIds.contains(productOrder.getOrder().getId()))
+                .map(ProductOrder::getId)
+                .toList());
+        orderRepository.deleteAllByIdInBatch(orderIds);
+        FileSystemUtils.deleteRecursively(reportDirectory());
+    }
+
+    @Test
+    void givenClosedMonth_whenReportRequestedTwice_thenAggregateOnceAndServeTheCachedFile() throws Exception {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When
+        statistics.clear();
+        String first = report("2001-02");
+        long firstStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        String second = report("2001-02");
+        long secondStatements = statistics.getPrepareStatementCount();
+
+        // Then
+        List<String> rows = first.lines().toList();
+        assertEquals(7, rows.size());
+        assertEquals(3, rows.stream().filter(row -> row.startsWith("ORDER,")).count());
+        assertEquals(2, rows.stream().filter(row -> row.startsWith("PRODUCT_TOTAL,")).count());
+        assertTrue(rows.getLast().startsWith("MONTH_TOTAL,,,,,,12,"));
+
+        // the second request only looks the farm up, the report itself comes from disk
+        assertEquals(first, second);
+        assertTrue(secondStatements < firstStatements);
+        assertTrue(secondStatements <= 1);
+    }
+
+    @Test
+    void givenPriceChangedAfterTheSale_whenReported_thenLinesKeepThePriceTheyWereSoldAt() throws Exception {
+        // Given
+        Product product = products.get(0);
+        Double salePrice = product.getPrice();
+        product.setPrice(salePrice + 100);
+        Product repricedProduct = productRepository.save(product);
+
+        try {
+            // When
+            List<String> rows = report("2001-02").lines().toList();
+
+            // Then
+            double expectedTotal = 8 * salePrice + 4 * products.get(1).getPrice();
+            String monthTotal = rows.getLast();
+            assertEquals(expectedTotal, Double.parseDouble(monthTotal.substring(monthTotal.lastIndexOf(',') + 1)), 0.001);
+            assertTrue(rows.stream()
+                    .filter(row -> row.startsWith("ORDER," + product.getId() + ","))
+                    .allMatch(row -> row.contains("," + salePrice + ",")));
+        } finally {
+            repricedProduct.setPrice(salePrice);
+            productRepository.save(repricedProduct);
+        }
+    }
+
+    private String report(String month) throws Exception {
+        MvcResult asyncResult = mockMvc.perform(get("/farms/" + farm.getId() + "/reports/" + month))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn();
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private Path reportDirectory() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "fresh-market-report-test");
+    }
+
+    private Date dateOf(int year, int month, int day) {
+        return Date.from(LocalDate.of(year, month, day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,438 @@
+package com.unibuc.fresh_market;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibuc.fresh_market.config.GeneratorProperties;
+import com.unibuc.fresh_market.dto.CheckoutItemDTO;
+import com.unibuc.fresh_market.dto.CheckoutRequestDTO;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// drives the REST API the way the storefront does: concurrent virtual thread clients each pick one of the main flows
+// by weight, every request's latency goes into the HdrHistogram of its endpoint, settings and budgets are in loadtest.properties,
+// with loadtest.base-url set the clients drive a server started elsewhere instead of the one in this JVM, both run the loadtest
+// profile and so hold the same dataset
+@Tag("loadtest")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.config.import=classpath:loadtest.properties")
+class LoadTest {
+    private static final Path REPORT_DIRECTORY = Paths.get("target", "loadtest");
+    private static final int PAGE_SIZE = 24;
+    private static final int MAX_ERROR_SAMPLES = 10;
+
+    private enum Scenario {
+        BROWSE_CATALOG("browse-catalog"),
+        VIEW_FARM("view-farm"),
+        PLACE_ORDER("place-order"),
+        CHECK_DELIVERY("check-delivery");
+
+        private final String key;
+
+        Scenario(String key) {
+            this.key = key;
+        }
+    }
+
+    private enum Endpoint {
+        PRODUCTS_PAGE("products-page", "GET /products"),
+        PRODUCT("product", "GET /products/{id}"),
+        FARM("farm", "GET /farms/{id}"),
+        FARM_PRODUCTS("farm-products", "GET /products/farm/{id}"),
+        FARM_RATING("farm-rating", "GET /reviews/farm/{id}/average"),
+        CHECKOUT("checkout", "POST /checkout"),
+        ORDER("order", "GET /orders/{id}"),
+        DELIVERY("delivery", "GET /deliveries/{id}");
+
+        private final String key;
+        private final String route;
+
+        Endpoint(String key, String route) {
+            this.key = key;
+            this.route = route;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private GeneratorProperties generatorProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+
+    private final Map<Endpoint, LongAdder> rejected = new EnumMap<>(Endpoint.class);
+
+    private final Queue<String> errorSamples = new ConcurrentLinkedQueue<>();
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private List<Integer> stockedFarmIds;
+
+    private Map<Integer, List<Integer>> stockedProductIdsByFarmId;
+
+    private String baseUrl;
+
+    private long measureFrom;
+
+    @Test
+    void givenGeneratedDataset_whenDrivenByConcurrentClients_thenEveryEndpointStaysWithinItsBudget() throws Exception {
+        // Given
+        int clients = environment.getRequiredProperty("loadtest.clients", Integer.class);
+        Duration warmup = environment.getRequiredProperty("loadtest.warmup", Duration.class);
+        Duration duration = environment.getRequiredProperty("loadtest.duration", Duration.class);
+        int[] weights = new int[Scenario.values().length];
+        for (Scenario scenario : Scenario.values()) {
+            weights[scenario.ordinal()] = environment.getRequiredProperty("loadtest.weight." + scenario.key, Integer.class);
+        }
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+            rejected.put(endpoint, new LongAdder());
+        }
+        baseUrl = environment.getProperty("loadtest.base-url", "");
+        if (baseUrl.isEmpty()) {
+            baseUrl = "http://localhost:" + port;
+        }
+        loadStock();
+
+        // When
+        measureFrom = System.nanoTime() + warmup.toNanos();
+        long until = measureFrom + duration.toNanos();
+        ServerTime serverTimeAtStart;
+        try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                virtualThreads.submit(() -> runClient(weights, until));
+            }
+            Thread.sleep(Duration.ofNanos(Math.max(0, measureFrom - System.nanoTime())));
+            serverTimeAtStart = serverTime();
+        }
+
+        // Then
+        writeReport(clients, warmup, duration, serverTime().minus(serverTimeAtStart));
+        List<String> violations = new ArrayList<>();
+        long requests = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            requests += histogram.getTotalCount();
+
+            double budgetMillis = environment.getRequiredProperty("loadtest.budget.p99-millis." + endpoint.key, Double.class);
+            double p99Millis = histogram.getValueAtPercentile(99) / 1000.0;
+            if (histogram.getTotalCount() == 0) {
+                violations.add(endpoint.route + " was never called");
+            } else if (p99Millis > budgetMillis) {
+                violations.add(String.format("%s p99 is %.2f ms, the budget is %.2f ms", endpoint.route, p99Millis, budgetMillis));
+            }
+
+            if (errors.get(endpoint).sum() > 0) {
+                violations.add(endpoint.route + " failed " + errors.get(endpoint).sum() + " times");
+            }
+        }
+
+        double requestsPerSecond = requests / (duration.toNanos() / 1e9);
+        double minRequestsPerSecond = environment.getRequiredProperty("loadtest.budget.min-requests-per-second", Double.class);
+        if (requestsPerSecond < minRequestsPerSecond) {
+            violations.add(String.format("%.0f requests per second, the minimum is %.0f", requestsPerSecond, minRequestsPerSecond));
+        }
+        violations.addAll(errorSamples);
+
+        assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    private void runClient(int[] weights, long until) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalWeight = 0;
+        for (int weight : weights) {
+            totalWeight += weight;
+        }
+
+        while (System.nanoTime() < until) {
+            Scenario scenario = pickScenario(weights, random.nextInt(totalWeight));
+            try {
+                switch (scenario) {
+                    case BROWSE_CATALOG -> browseCatalog(random);
+                    case VIEW_FARM -> viewFarm(random);
+                    case PLACE_ORDER -> placeOrder(random);
+                    case CHECK_DELIVERY -> checkDelivery(random);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                sampleError(scenario.key + " failed: " + e);
+            }
+        }
+    }
+
+    private Scenario pickScenario(int[] weights, int ticket) {
+        for (Scenario scenario : Scenario.values()) {
+            ticket -= weights[scenario.ordinal()];
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+
+        return Scenario.values()[Scenario.values().length - 1];
+    }
+
+    private void browseCatalog(ThreadLocalRandom random) throws IOException, InterruptedException {
+        int products = generatorProperties.getProducts();
+        get(Endpoint.PRODUCTS_PAGE, "/products?limit=" + PAGE_SIZE + "&after=" + CursorPage.encodeCursor(random.nextInt(products)));
+        get(Endpoint.PRODUCT, "/products/" + (1 + random.nextInt(products)));
+    }
+
+    private void viewFarm(ThreadLocalRandom random) throws IOException, InterruptedException {
+        int farmId = 1 + random.nextInt(generatorProperties.getFarms());
+        get(Endpoint.FARM, "/farms/" + farmId);
+        get(Endpoint.FARM_PRODUCTS, "/products/farm/" + farmId);
+        get(Endpoint.FARM_RATING, "/reviews/farm/" + farmId + "/average");
+    }
+
+    private void placeOrder(ThreadLocalRandom random) throws IOException, InterruptedException {
+        Integer farmId = stockedFarmIds.get(random.nextInt(stockedFarmIds.size()));
+        List<Integer> productIds = stockedProductIdsByFarmId.get(farmId);
+        int firstLine = random.nextInt(productIds.size());
+        int lines = Math.min(1 + random.nextInt(3), productIds.size());
+
+        List<CheckoutItemDTO> items = new ArrayList<>();
+        for (int line = 0; line < lines; line++) {
+            items.add(CheckoutItemDTO.builder()
+                    .productId(productIds.get((firstLine + line) % productIds.size()))
+                    .quantity(1)
+                    .build());
+        }
+        CheckoutRequestDTO checkoutRequest = CheckoutRequestDTO.builder()
+                .userId(1 + random.nextInt(generatorProperties.getUsers()))
+                .farmId(farmId)
+                .items(items)
+                .build();
+
+        send(Endpoint.CHECKOUT, HttpRequest.newBuilder(uri("/checkout"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(checkoutRequest)))
+                .build());
+    }
+
+    private void checkDelivery(ThreadLocalRandom random) throws IOException, InterruptedException {
+        HttpResponse<String> response = get(Endpoint.ORDER, "/orders/" + (1 + random.nextInt(generatorProperties.getOrders())));
+        if (response.statusCode() != HttpStatus.OK.value()) {
+            return;
+        }
+
+        OrderDTO order = objectMapper.readValue(response.body(), OrderDTO.class);
+        if (order.getDeliveryId() != null) {
+            get(Endpoint.DELIVERY, "/deliveries/" + order.getDeliveryId());
+        }
+    }
+
+    private HttpResponse<String> get(Endpoint endpoint, String path) throws IOException, InterruptedException {
+        return send(endpoint, HttpRequest.newBuilder(uri(path)).GET().build());
+    }
+
+    private HttpResponse<String> send(Endpoint endpoint, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        long latencyMicros = (System.nanoTime() - start) / 1000;
+
+        // a 503 from the backpressure filter is counted on its own, its short latency would flatter the served requests'
+        if (response.statusCode() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+            if (start >= measureFrom) {
+                rejected.get(endpoint).increment();
+            }
+            return response;
+        }
+
+        if (start >= measureFrom) {
+            latencies.get(endpoint).recordValue(latencyMicros);
+        }
+
+        // a sold out basket is an expected outcome of checkout, not a failure
+        boolean soldOut = endpoint == Endpoint.CHECKOUT && response.statusCode() == HttpStatus.CONFLICT.value();
+        if (response.statusCode() >= 400 && !soldOut) {
+            errors.get(endpoint).increment();
+            sampleError(endpoint.route + " returned " + response.statusCode() + ": " + request.uri());
+        }
+
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private void sampleError(String error) {
+        if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+            errorSamples.add(error);
+        }
+    }
+
+    // the farms with something in stock, and what, so that checkouts mostly succeed, a server started with the same
+    // generator settings has the same rows
+    private void loadStock() {
+        stockedProductIdsByFarmId = new TreeMap<>();
+        jdbcTemplate.query("SELECT farm_id, product_id FROM product_farm WHERE quantity > 0", resultSet -> {
+            stockedProductIdsByFarmId.computeIfAbsent(resultSet.getInt(1), farmId -> new ArrayList<>()).add(resultSet.getInt(2));
+        });
+        stockedFarmIds = new ArrayList<>(stockedProductIdsByFarmId.keySet());
+    }
+
+    // requests the server finished and the time it spent on them, from the target's own http.server.requests timers,
+    // scraped like Prometheus does so that it works for a remote server too, the scrapes themselves are left out
+    private ServerTime serverTime() throws IOException, InterruptedException {
+        long count = 0;
+        double totalMillis = 0;
+        for (String line : scrape()) {
+            if (line.contains("uri=\"/actuator")) {
+                continue;
+            }
+
+            if (line.startsWith("http_server_requests_seconds_count{")) {
+                count += (long) sampleValue(line);
+            } else if (line.startsWith("http_server_requests_seconds_sum{")) {
+                totalMillis += sampleValue(line) * 1000;
+            }
+        }
+
+        return new ServerTime(count, totalMillis);
+    }
+
+    private int serverCpus() throws IOException, InterruptedException {
+        return scrape().stream()
+                .filter(line -> line.startsWith("system_cpu_count"))
+                .mapToInt(line -> (int) sampleValue(line))
+                .findFirst()
+                .orElse(0);
+    }
+
+    private List<String> scrape() throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri("/actuator/prometheus")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return response.body().lines().toList();
+    }
+
+    private double sampleValue(String line) {
+        return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+    }
+
+    private record ServerTime(long count, double totalMillis) {
+        private ServerTime minus(ServerTime earlier) {
+            return new ServerTime(count - earlier.count, totalMillis - earlier.totalMillis);
+        }
+    }
+
+    // the settings of the run, then a summary table plus the full percentile distribution of every endpoint, in milliseconds,
+    // and the server's side of the same window: by Little's law clients / req/s is the mean latency the clients see,
+    // the part of it not spent in the application was spent queueing in front of it
+    private void writeReport(int clients, Duration warmup, Duration duration, ServerTime serverTime) throws IOException, InterruptedException {
+        Files.createDirectories(REPORT_DIRECTORY);
+        double seconds = duration.toNanos() / 1e9;
+
+        try (PrintStream summary = new PrintStream(Files.newOutputStream(REPORT_DIRECTORY.resolve("summary.txt")))) {
+            boolean remote = !environment.getProperty("loadtest.base-url", "").isEmpty();
+            boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+            String settings = String.format("%d clients, %d s warmup, %d s measured, %s, %d server cpus, %d client cpus",
+                    clients, warmup.toSeconds(), duration.toSeconds(), remote ? "server at " + baseUrl : "server in the same JVM",
+                    serverCpus(), Runtime.getRuntime().availableProcessors());
+            // a remote server's thread and pool settings are its own, only the in-process one's are known here
+            if (!remote) {
+                settings += String.format(", %s threads, connection pool %s", virtualThreads ? "virtual" : "platform",
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", "10"));
+            }
+            if (!remote && virtualThreads) {
+                settings += String.format(", backpressure %s slots with a %s acquire timeout",
+                        environment.getProperty("backpressure.max-concurrent-requests", "50"),
+                        environment.getProperty("backpressure.acquire-timeout", "500ms"));
+            }
+            summary.println(settings);
+            System.out.println(settings);
+
+            String header = String.format("%-32s %10s %10s %10s %9s %9s %9s %9s %9s",
+                    "endpoint", "requests", "req/s", "rejected", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            summary.println(header);
+            System.out.println(header);
+
+            // every endpoint together is the row to compare between platform and virtual threads
+            Histogram allLatencies = new Histogram(3);
+            long allRejected = 0;
+            for (Endpoint endpoint : Endpoint.values()) {
+                Histogram histogram = latencies.get(endpoint);
+                String line = tableLine(endpoint.route, histogram, rejected.get(endpoint).sum(), seconds);
+                summary.println(line);
+                System.out.println(line);
+
+                try (PrintStream distribution = new PrintStream(Files.newOutputStream(REPORT_DIRECTORY.resolve(endpoint.key + ".hgrm")))) {
+                    histogram.outputPercentileDistribution(distribution, 1000.0);
+                }
+                allLatencies.add(histogram);
+                allRejected += rejected.get(endpoint).sum();
+            }
+
+            String all = tableLine("all endpoints", allLatencies, allRejected, seconds);
+            long attempted = allLatencies.getTotalCount() + allRejected;
+            String rejection = String.format("rejected with 503: %d of %d requests, %.2f %%",
+                    allRejected, attempted, attempted > 0 ? allRejected * 100.0 / attempted : 0.0);
+            summary.println(all);
+            summary.println(rejection);
+            System.out.println(all);
+            System.out.println(rejection);
+
+            String server = String.format("server side: %d requests, mean %.2f ms in the application (http.server.requests)",
+                    serverTime.count(), serverTime.count() > 0 ? serverTime.totalMillis() / serverTime.count() : 0.0);
+            summary.println(server);
+            System.out.println(server);
+        }
+    }
+
+    private String tableLine(String name, Histogram histogram, long rejectedCount, double seconds) {
+        return String.format("%-32s %10d %10.1f %10d %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name, histogram.getTotalCount(), histogram.getTotalCount() / seconds, rejectedCount,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.unibuc.fresh_market;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "http_server_requests_seconds_bucket{",
+            "uri=\"/categories/{categoryId}\"",
+            "service_method_seconds_count{application=\"Fresh Market\",class=\"CategoryServiceImplementation\"",
+            "hibernate_request_statements_count{",
+            "hibernate_second_level_cache_hit_ratio{",
+            "hibernate_entities_loads_total{",
+            "hikaricp_connections_pending{",
+            "hikaricp_connections_acquire_seconds_bucket{",
+            "jvm_gc_memory_allocated_bytes_total{"
+    })
+    void givenServedRequests_whenScraped_thenMeterIsExported(String meter) throws Exception {
+        // Given
+        mockMvc.perform(get("/categories")).andExpect(status().isOk());
+        mockMvc.perform(get("/categories/1"));
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // Then
+        assertTrue(scrape.contains(meter), meter + " is missing from the scrape");
+    }
+}
@@ -0,0 +1,121 @@
+package com.unibuc.fresh_market;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class NdjsonStreamTest {
+    private static final int ROWS = 5000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductOrderService productOrderService;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private List<Integer> existingIds;
+
+    @BeforeEach
+    void setUp() {
+        existingIds = productOrderRepository.findAll().stream().map(ProductOrder::getId).toList();
+
+        Order order = orderRepository.findAll().getFirst();
+        Product product = productRepository.findAll().getFirst();
+        productOrderService.createProductOrders(IntStream.range(0, ROWS)
+                .mapToObj(i -> ProductOrder.builder().order(order).product(product).quantity(1 + i % 5).build())
+                .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        productOrderRepository.deleteAllByIdInBatch(productOrderRepository.findAll().stream()
+                .map(ProductOrder::getId)
+                .filter(id -> !existingIds.contains(id))
+                .toList());
+    }
+
+    @Test
+    void givenManyOrderLines_whenStreamed_thenEveryLineIsWrittenFromOneCursorWithoutLoadingEntities() throws Exception {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long expectedRows = productOrderRepository.count();
+        statistics.clear();
+
+        // When
+        MvcResult asyncResult = mockMvc.perform(get("/productOrders/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        // Then
+        List<String> lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(expectedRows, lines.size());
+        assertEquals(existingIds.size() + ROWS, lines.size());
+
+        List<Integer> ids = lines.stream()
+                .map(line -> readRow(line).getId())
+                .toList();
+        assertEquals(ids.stream().sorted().toList(), ids);
+
+        // the rows are DTO projections, so the persistence context never holds them
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private ProductOrderDTO readRow(String line) {
+        try {
+            return objectMapper.readValue(line, ProductOrderDTO.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Not a JSON line: " + line, e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.repository.DeliveryRepository;
+import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductFarmRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.repository.ReviewRepository;
+import com.unibuc.fresh_market.repository.security.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+// runs each hot repository query, captures the SQL Hibernate generates for it and fails when its EXPLAIN shows a full table scan
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+    private static final List<String> CAPTURED_SQL = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class CaptureSqlConfig {
+        // ordered last so it wraps the StatementCounter installed by MetricsConfig
+        @Bean
+        @Order(Ordered.LOWEST_PRECEDENCE)
+        HibernatePropertiesCustomizer captureSqlCustomizer() {
+            return hibernateProperties -> {
+                StatementInspector inspector = (StatementInspector) hibernateProperties.get(AvailableSettings.STATEMENT_INSPECTOR);
+                hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                    CAPTURED_SQL.add(sql);
+                    return inspector != null ? inspector.inspect(sql) : sql;
+                });
+            };
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductFarmRepository productFarmRepository;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FarmRepository farmRepository;
+
+    private boolean postgres;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String databaseProductName = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        postgres = databaseProductName.toLowerCase().contains("postgres");
+
+        // a cached result would skip the query
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    // the repository call and the values it binds, in the order of the generated SQL's parameters
+    Stream<Arguments> hotQueries() {
+        Timestamp from = Timestamp.valueOf("2024-01-01 00:00:00");
+        Timestamp to = Timestamp.valueOf("2024-02-01 00:00:00");
+        return Stream.of(
+                arguments("OrderRepository.findOrdersByFarmId",
+                        (Runnable) () -> orderRepository.findOrdersByFarmId(1), List.of(1)),
+                arguments("OrderRepository.findOrdersByUserId",
+                        (Runnable) () -> orderRepository.findOrdersByUserId(1), List.of(1)),
+                arguments("OrderRepository.findOrdersByStatus",
+                        (Runnable) () -> orderRepository.findOrdersByStatus("Pending"), List.of("Pending")),
+                arguments("OrderRepository.sumTotalAmountByFarmId",
+                        (Runnable) () -> orderRepository.sumTotalAmountByFarmId(1), List.of(1)),
+                arguments("OrderRepository.streamOrdersAfter",
+                        (Runnable) () -> orderRepository.streamOrdersAfter(1, Limit.of(50000)).close(), List.of(1, 50000)),
+                arguments("OrderRepository.getOrderReceiptRows",
+                        (Runnable) () -> orderRepository.getOrderReceiptRows(1), List.of(1)),
+                arguments("ProductFarmRepository.findAllByFarmId",
+                        (Runnable) () -> productFarmRepository.findAllByFarmId(1), List.of(1)),
+                arguments("ProductFarmRepository.findAllByProductId",
+                        (Runnable) () -> productFarmRepository.findAllByProductId(1), List.of(1)),
+                arguments("ProductFarmRepository.streamProductFarmsAfter",
+                        (Runnable) () -> productFarmRepository.streamProductFarmsAfter(1, Limit.of(50000)).close(), List.of(1, 50000)),
+                arguments("ProductFarmRepository.sumQuantityByProductId",
+                        (Runnable) () -> productFarmRepository.sumQuantityByProductId(1), List.of(1)),
+                arguments("ProductFarmRepository.decrementQuantity",
+                        (Runnable) () -> productFarmRepository.decrementQuantity(1, 1, 1), List.of(1, 1, 1, 1)),
+                arguments("ProductFarmRepository.findSoldOutProductIds",
+                        (Runnable) () -> productFarmRepository.findSoldOutProductIds(1, List.of(1, 2)), List.of(1, 1, 2)),
+                arguments("ProductOrderRepository.findProductOrdersByOrderId",
+                        (Runnable) () -> productOrderRepository.findProductOrdersByOrderId(1), List.of(1)),
+                arguments("ProductOrderRepository.streamProductOrdersAfter",
+                        (Runnable) () -> productOrderRepository.streamProductOrdersAfter(1, Limit.of(50000)).close(), List.of(1, 50000)),
+                arguments("ProductOrderRepository.getOrderTotal",
+                        (Runnable) () -> productOrderRepository.getOrderTotal(1), List.of(1)),
+                arguments("ProductOrderRepository.streamMonthlyReportLines",
+                        (Runnable) () -> productOrderRepository.streamMonthlyReportLines(1, from, to).close(), List.of(1, from, to)),
+                arguments("ProductRepository.getProductsByCategoryId",
+                        (Runnable) () -> productRepository.getProductsByCategoryId(1), List.of(1)),
+                arguments("ProductRepository.getProductsByFarmId",
+                        (Runnable) () -> productRepository.getProductsByFarmId(1), List.of(1)),
+                arguments("ReviewRepository.getReviewsByFarmId",
+                        (Runnable) () -> reviewRepository.getReviewsByFarmId(1), List.of(1)),
+                arguments("ReviewRepository.getReviewsByUserId",
+                        (Runnable) () -> reviewRepository.getReviewsByUserId(1), List.of(1)),
+                arguments("ReviewRepository.streamReviewsAfter",
+                        (Runnable) () -> reviewRepository.streamReviewsAfter(1, Limit.of(50000)).close(), List.of(1, 50000)),
+                arguments("ReviewRepository.countRatingsByFarmId",
+                        (Runnable) () -> reviewRepository.countRatingsByFarmId(1), List.of(1)),
+                arguments("DeliveryRepository.findDeliveriesByDeliveryStatus",
+                        (Runnable) () -> deliveryRepository.findDeliveriesByDeliveryStatus("Delivered"), List.of("Delivered")),
+                arguments("UserRepository.findByUsername",
+                        (Runnable) () -> userRepository.findByUsername("admin"), List.of("admin")),
+                arguments("FarmRepository.getFarmDashboard",
+                        (Runnable) () -> farmRepository.getFarmDashboard(1), List.of(1))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void whenExplainingHotQuery_thenNoFullTableScan(String repositoryQuery, Runnable call, List<Object> parameters) {
+        // Given
+        String sql = capture(call);
+
+        // When
+        String plan = explain(sql, parameters);
+
+        // Then
+        assertFalse(isFullScan(plan), repositoryQuery + " scans a whole table:\n" + sql + "\n" + plan);
+    }
+
+    // the first statement is the query itself, any later ones load associations of its results
+    private String capture(Runnable call) {
+        CAPTURED_SQL.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            call.run();
+            status.setRollbackOnly();
+        });
+        assertFalse(CAPTURED_SQL.isEmpty(), "no SQL was captured");
+        return CAPTURED_SQL.getFirst();
+    }
+
+    private String explain(String sql, List<Object> parameters) {
+        assertEquals(parameters.size(), sql.chars().filter(c -> c == '?').count(), "parameters of " + sql);
+        if (!postgres) {
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters.toArray()));
+        }
+
+        // the seed data is tiny, so make the planner show whether an index path exists at all
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            List<String> rows = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters.toArray());
+            return String.join("\n", rows);
+        });
+    }
+
+    private boolean isFullScan(String plan) {
+        return postgres ? plan.contains("Seq Scan") : plan.contains(".tableScan");
+    }
+}
@@ -0,0 +1,137 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.domain.Category;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.repository.CategoryRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.repository.security.RoleRepository;
+import com.unibuc.fresh_market.repository.security.UserRepository;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    private Integer productId;
+
+    private Integer categoryId;
+
+    private Integer roleId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Product product = productRepository.findAll().getFirst();
+        productId = product.getId();
+        categoryId = product.getCategory().getId();
+        roleId = roleRepository.findAll().getFirst().getId();
+    }
+
+    @Test
+    void givenWarmCache_whenServingRequest_thenIssueFewerStatements() {
+        // Given
+        long uncachedStatements = statementsPerRequest(CacheRetrieveMode.BYPASS);
+        statementsPerRequest(CacheRetrieveMode.USE);
+
+        // When
+        long cachedStatements = statementsPerRequest(CacheRetrieveMode.USE);
+
+        // Then
+        assertTrue(cachedStatements < uncachedStatements);
+    }
+
+    @Test
+    void givenCachedCategory_whenCategoryUpdated_thenProductSeesNewName() {
+        // Given
+        String originalName = inTransaction(() -> productRepository.findById(productId).orElseThrow().getCategory().getName());
+
+        // When
+        runInTransaction(() -> categoryRepository.findById(categoryId).orElseThrow().setName(originalName + " (renamed)"));
+        String cachedName = inTransaction(() -> productRepository.findById(productId).orElseThrow().getCategory().getName());
+
+        // Then
+        assertEquals(originalName + " (renamed)", cachedName);
+
+        runInTransaction(() -> categoryRepository.findById(categoryId).orElseThrow().setName(originalName));
+    }
+
+    @Test
+    void givenCachedCategoryQuery_whenProductAdded_thenQueryResultIsInvalidated() {
+        // Given
+        int productCount = inTransaction(() -> productRepository.getProductsByCategoryId(categoryId).size());
+        int collectionSize = inTransaction(() -> categoryRepository.findById(categoryId).orElseThrow().getProducts().size());
+
+        // When
+        Product createdProduct = inTransaction(() -> {
+            Category category = categoryRepository.findById(categoryId).orElseThrow();
+            return productRepository.save(Product.builder().name("Cache probe").price(1.0).category(category).build());
+        });
+
+        // Then
+        assertEquals(productCount + 1, inTransaction(() -> productRepository.getProductsByCategoryId(categoryId).size()));
+        assertEquals(collectionSize + 1, inTransaction(() -> categoryRepository.findById(categoryId).orElseThrow().getProducts().size()));
+
+        runInTransaction(() -> productRepository.deleteById(createdProduct.getId()));
+        assertEquals(productCount, inTransaction(() -> productRepository.getProductsByCategoryId(categoryId).size()));
+    }
+
+    // the reads a typical catalog request makes: a product with its category, the category listing,
+    // a role, and every user with their eagerly fetched roles
+    private long statementsPerRequest(CacheRetrieveMode retrieveMode) {
+        statistics.clear();
+        inTransaction(() -> {
+            entityManager.setProperty("jakarta.persistence.cache.retrieveMode", retrieveMode);
+            productRepository.findById(productId).orElseThrow().getCategory().getName();
+            productRepository.getProductsByCategoryId(categoryId).forEach(product -> product.getCategory().getName());
+            categoryRepository.findById(categoryId).orElseThrow().getProducts().size();
+            roleRepository.findById(roleId).orElseThrow();
+            userRepository.findAll().forEach(user -> user.getRoles().size());
+            return null;
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private void runInTransaction(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> work.run());
+    }
+}
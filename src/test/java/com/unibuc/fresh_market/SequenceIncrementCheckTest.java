@@ -0,0 +1,66 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.config.SequenceIncrementCheck;
+import com.unibuc.fresh_market.domain.PooledSequenceGenerator;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// checks a freshly migrated in-memory database, no application context needed
+class SequenceIncrementCheckTest {
+
+    private DriverManagerDataSource database;
+
+    @BeforeEach
+    void setUp() {
+        database = new DriverManagerDataSource("jdbc:h2:mem:sequence-check-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(database).locations("classpath:db/migration").load().migrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(database).execute("SHUTDOWN");
+    }
+
+    @Test
+    void givenAllocationSizeOfTheMigrations_whenChecked_thenStartupContinues() {
+        // Given
+        SequenceIncrementCheck check = new SequenceIncrementCheck(database, jpaProperties("50"));
+
+        // When, Then
+        assertDoesNotThrow(check::afterSingletonsInstantiated);
+    }
+
+    @Test
+    void givenNoAllocationSize_whenChecked_thenTheDefaultMatchesTheMigrations() {
+        // Given
+        SequenceIncrementCheck check = new SequenceIncrementCheck(database, new JpaProperties());
+
+        // When, Then
+        assertDoesNotThrow(check::afterSingletonsInstantiated);
+    }
+
+    @Test
+    void givenOtherAllocationSize_whenChecked_thenRefuseToStart() {
+        // Given
+        SequenceIncrementCheck check = new SequenceIncrementCheck(database, jpaProperties("100"));
+
+        // When
+        IllegalStateException exception = assertThrows(IllegalStateException.class, check::afterSingletonsInstantiated);
+
+        // Then
+        assertTrue(exception.getMessage().toLowerCase().contains("orders_seq increments by 50"), exception.getMessage());
+    }
+
+    private JpaProperties jpaProperties(String allocationSize) {
+        JpaProperties jpaProperties = new JpaProperties();
+        jpaProperties.getProperties().put(PooledSequenceGenerator.ALLOCATION_SIZE_SETTING, allocationSize);
+        return jpaProperties;
+    }
+}
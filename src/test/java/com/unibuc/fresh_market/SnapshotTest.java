@@ -0,0 +1,190 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.config.SnapshotProperties;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.SnapshotDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotService;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotServiceImplementation;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotTable;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "snapshot.directory=${java.io.tmpdir}/fresh-market-snapshot-test")
+class SnapshotTest {
+    private static final int ROWS = 10000;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductOrderService productOrderService;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private List<Integer> existingIds;
+
+    private DriverManagerDataSource emptyDatabase;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileSystemUtils.deleteRecursively(snapshotDirectory());
+        existingIds = productOrderRepository.findAll().stream().map(ProductOrder::getId).toList();
+
+        Order order = orderRepository.findAll().getFirst();
+        Product product = productRepository.findAll().getFirst();
+        productOrderService.createProductOrders(IntStream.range(0, ROWS)
+                .mapToObj(i -> ProductOrder.builder().order(order).product(product).quantity(1 + i % 5)
+                        .notes(i % 3 == 0 ? null : "line " + i).build())
+                .toList());
+
+        // a second, freshly migrated database to restore into
+        emptyDatabase = new DriverManagerDataSource("jdbc:h2:mem:snapshot-restore-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(emptyDatabase).locations("classpath:db/migration").load().migrate();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        productOrderRepository.deleteAllByIdInBatch(productOrderRepository.findAll().stream()
+                .map(ProductOrder::getId)
+                .filter(id -> !existingIds.contains(id))
+                .toList());
+        new JdbcTemplate(emptyDatabase).execute("SHUTDOWN");
+        FileSystemUtils.deleteRecursively(snapshotDirectory());
+    }
+
+    @Test
+    void givenLiveDatabase_whenSnapshotRestoredIntoEmptyDatabase_thenEveryTableMatches() throws IOException {
+        // Given
+        SnapshotDTO written = snapshotService.writeSnapshot();
+        SnapshotServiceImplementation restorer = restorerFor(emptyDatabase);
+        JdbcTemplate restored = new JdbcTemplate(emptyDatabase);
+
+        // When
+        SnapshotDTO restoredSnapshot = restorer.restoreSnapshot(snapshotDirectory().resolve(written.getFile()));
+
+        // Then
+        assertEquals(written.getRowCounts(), restoredSnapshot.getRowCounts());
+        assertTrue(written.getRowCounts().get("product_order") >= ROWS);
+
+        for (SnapshotTable table : SnapshotTable.values()) {
+            String sql = "SELECT * FROM " + table.getTableName() + " ORDER BY " + table.getPrimaryKey();
+            assertEquals(jdbcTemplate.queryForList(sql), restored.queryForList(sql), table.getTableName());
+        }
+    }
+
+    @Test
+    void givenRestoredDatabase_whenInspected_thenIndexesAreInPlaceAndSequencesContinueAfterRestoredIds() throws IOException {
+        // Given
+        SnapshotDTO written = snapshotService.writeSnapshot();
+
+        // When
+        restorerFor(emptyDatabase).restoreSnapshot(snapshotDirectory().resolve(written.getFile()));
+
+        // Then
+        JdbcTemplate restored = new JdbcTemplate(emptyDatabase);
+        List<String> indexes = restored.queryForList("SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES", String.class);
+        assertTrue(indexes.containsAll(List.of("idx_orders_farm_created_at", "idx_product_order_order_id", "idx_user_role_user_id")));
+
+        Integer maxId = restored.queryForObject("SELECT MAX(id) FROM product_order", Integer.class);
+        Integer nextId = restored.queryForObject("SELECT NEXT VALUE FOR product_order_seq", Integer.class);
+        assertTrue(nextId > maxId);
+
+        assertEquals(2L, restored.queryForObject("SELECT version FROM catalog_version", Long.class));
+    }
+
+    @Test
+    void givenTruncatedSnapshot_whenRestored_thenNothingIsKeptAndARetryWithTheWholeFileSucceeds() throws IOException {
+        // Given
+        SnapshotDTO written = snapshotService.writeSnapshot();
+        Path file = snapshotDirectory().resolve(written.getFile());
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncatedFile = Files.write(snapshotDirectory().resolve("truncated.snapshot"), Arrays.copyOf(bytes, bytes.length * 3 / 4));
+        SnapshotServiceImplementation restorer = restorerFor(emptyDatabase);
+        JdbcTemplate restored = new JdbcTemplate(emptyDatabase);
+
+        // When
+        assertThrows(IOException.class, () -> restorer.restoreSnapshot(truncatedFile));
+        List<Long> rowsLeft = Arrays.stream(SnapshotTable.values())
+                .map(table -> restored.queryForObject("SELECT COUNT(*) FROM " + table.getTableName(), Long.class))
+                .toList();
+        SnapshotDTO retried = restorer.restoreSnapshot(file);
+
+        // Then
+        assertTrue(rowsLeft.stream().allMatch(rows -> rows == 0));
+        assertEquals(written.getRowCounts(), retried.getRowCounts());
+    }
+
+    @Test
+    void givenRestoringJvmInAnotherTimeZone_whenRestored_thenTimestampsKeepTheirWallClockValue() throws IOException {
+        // Given
+        SnapshotDTO written = snapshotService.writeSnapshot();
+        String sql = "SELECT CAST(created_at AS VARCHAR) FROM orders ORDER BY id";
+        TimeZone timeZone = TimeZone.getDefault();
+
+        // When
+        TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+        try {
+            restorerFor(emptyDatabase).restoreSnapshot(snapshotDirectory().resolve(written.getFile()));
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+
+        // Then
+        assertEquals(jdbcTemplate.queryForList(sql, String.class), new JdbcTemplate(emptyDatabase).queryForList(sql, String.class));
+    }
+
+    @Test
+    void givenDatabaseWithRows_whenRestoreSnapshot_thenRefuse() throws IOException {
+        // Given
+        SnapshotDTO written = snapshotService.writeSnapshot();
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> snapshotService.restoreSnapshot(snapshotDirectory().resolve(written.getFile())));
+    }
+
+    private SnapshotServiceImplementation restorerFor(DriverManagerDataSource dataSource) {
+        SnapshotProperties snapshotProperties = new SnapshotProperties();
+        snapshotProperties.setDirectory(snapshotDirectory().toString());
+        snapshotProperties.setBatchSize(1000);
+        return new SnapshotServiceImplementation(snapshotProperties, dataSource, new DataSourceTransactionManager(dataSource));
+    }
+
+    private Path snapshotDirectory() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "fresh-market-snapshot-test");
+    }
+}
@@ -0,0 +1,143 @@
+package com.unibuc.fresh_market;
+
+import com.unibuc.fresh_market.config.BackpressureFilter;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "backpressure.max-concurrent-requests=1",
+        "backpressure.acquire-timeout=50ms"
+})
+@ActiveProfiles("virtual-threads")
+class VirtualThreadsTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private BackpressureFilter backpressureFilter;
+
+    @Test
+    void givenVirtualThreadsProfile_whenServing_thenTomcatAndAsyncTasksRunOnVirtualThreads() throws Exception {
+        // Given
+        TomcatWebServer webServer = (TomcatWebServer) applicationContext.getWebServer();
+        Executor requestExecutor = webServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+
+        // When
+        boolean asyncTaskIsVirtual = applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual()).get();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/categories")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertInstanceOf(VirtualThreadExecutor.class, requestExecutor);
+        assertTrue(asyncTaskIsVirtual);
+        assertEquals(HttpStatus.OK.value(), response.statusCode());
+        assertEquals(1, backpressureFilter.getAvailableSlots());
+    }
+
+    @Test
+    void givenEverySlotTaken_whenAnotherRequestArrives_thenItIsTurnedAwayUntilASlotFrees() throws Exception {
+        // Given
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread slowRequest = Thread.ofVirtual().start(() -> {
+            try {
+                backpressureFilter.doFilter(new MockHttpServletRequest("GET", "/orders"), new MockHttpServletResponse(), (request, response) -> {
+                    inside.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        inside.await();
+
+        // When
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        backpressureFilter.doFilter(new MockHttpServletRequest("GET", "/products"), rejected, (request, response) -> {
+            throw new AssertionError("a request past the limit reached the application");
+        });
+
+        finish.countDown();
+        slowRequest.join();
+
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        backpressureFilter.doFilter(new MockHttpServletRequest("GET", "/products"), accepted,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(HttpStatus.OK.value()));
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.OK.value(), accepted.getStatus());
+        assertEquals(1, backpressureFilter.getAvailableSlots());
+    }
+
+    @Test
+    void givenEverySlotTaken_whenActuatorIsCalled_thenItIsServed() throws Exception {
+        // Given
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread slowRequest = Thread.ofVirtual().start(() -> {
+            try {
+                backpressureFilter.doFilter(new MockHttpServletRequest("GET", "/orders"), new MockHttpServletResponse(), (request, response) -> {
+                    inside.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        inside.await();
+
+        // When
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        backpressureFilter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), health,
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(HttpStatus.OK.value()));
+
+        finish.countDown();
+        slowRequest.join();
+
+        // Then
+        assertEquals(HttpStatus.OK.value(), health.getStatus());
+        assertEquals(1, backpressureFilter.getAvailableSlots());
+    }
+}
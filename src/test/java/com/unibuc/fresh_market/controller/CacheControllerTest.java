@@ -0,0 +1,80 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.CacheStatsDTO;
+import com.unibuc.fresh_market.service.CacheStatsService.CacheStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CacheControllerTest {
+
+    @Mock
+    private CacheStatsService cacheStatsService;
+
+    @InjectMocks
+    private CacheController cacheController;
+
+    private CacheStatsDTO cacheStats;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        cacheStats = CacheStatsDTO.builder()
+                .name("products")
+                .size(1L)
+                .hitCount(3L)
+                .missCount(1L)
+                .hitRate(0.75)
+                .evictionCount(0L)
+                .build();
+    }
+
+    @Test
+    void whenGetAllCacheStats_thenReturnStats() {
+        // Given
+        when(cacheStatsService.getAllCacheStats()).thenReturn(List.of(cacheStats));
+
+        // When
+        ResponseEntity<?> response = cacheController.getAllCacheStats();
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of(cacheStats), response.getBody());
+        verify(cacheStatsService, times(1)).getAllCacheStats();
+    }
+
+    @Test
+    void givenExistingCache_whenGetCacheStats_thenReturnStats() {
+        // Given
+        when(cacheStatsService.getCacheStats("products")).thenReturn(Optional.of(cacheStats));
+
+        // When
+        ResponseEntity<?> response = cacheController.getCacheStats("products");
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(cacheStats, response.getBody());
+    }
+
+    @Test
+    void givenUnknownCache_whenGetCacheStats_thenReturnNotFound() {
+        // Given
+        when(cacheStatsService.getCacheStats("unknown")).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<?> response = cacheController.getCacheStats("unknown");
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+    }
+}
@@ -1,16 +1,26 @@
 package com.unibuc.fresh_market.controller;
 
+import com.unibuc.fresh_market.domain.CatalogVersion;
 import com.unibuc.fresh_market.domain.Category;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.mapper.CategoryMapper;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
 import com.unibuc.fresh_market.service.CategoryService.CategoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,15 +35,27 @@ class CategoryControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Spy
+    private CategoryMapper categoryMapper = Mappers.getMapper(CategoryMapper.class);
+
+    @Spy
+    private ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+
     @InjectMocks
     private CategoryController categoryController;
 
+    private ServletWebRequest webRequest;
+
     private Category category;
     private List<Category> categoryList;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
         Category category1 = Category.builder().id(1).name("Fruits").build();
         Category category2 = Category.builder().id(2).name("Dairy").build();
 
@@ -53,7 +75,7 @@ class CategoryControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(category, response.getBody());
+        assertEquals(categoryMapper.mapToDTO(category), response.getBody());
     }
 
     @Test
@@ -78,14 +100,14 @@ class CategoryControllerTest {
         updatedCategory.setName("Updated Fruits");
 
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(categoryService.updateCategory(categoryId, updatedCategory)).thenReturn(Optional.of(updatedCategory));
+        when(categoryService.updateCategory(categoryId, updatedCategory, null)).thenReturn(Optional.of(updatedCategory));
 
         // When
-        ResponseEntity<?> response = categoryController.updateCategory(updatedCategory, bindingResult, String.valueOf(categoryId));
+        ResponseEntity<?> response = categoryController.updateCategory(updatedCategory, bindingResult, String.valueOf(categoryId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(updatedCategory, response.getBody());
+        assertEquals(categoryMapper.mapToDTO(updatedCategory), response.getBody());
     }
 
     @Test
@@ -99,7 +121,7 @@ class CategoryControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = categoryController.updateCategory(updatedCategory, bindingResult, String.valueOf(categoryId));
+        ResponseEntity<?> response = categoryController.updateCategory(updatedCategory, bindingResult, String.valueOf(categoryId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -112,11 +134,11 @@ class CategoryControllerTest {
         when(categoryService.getAllCategories()).thenReturn(categoryList);
 
         // When
-        ResponseEntity<?> response = categoryController.getAllCategories();
+        ResponseEntity<?> response = categoryController.getAllCategories(webRequest);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(categoryList, response.getBody());
+        assertEquals(categoryMapper.mapToDTOs(categoryList), response.getBody());
     }
 
     @Test
@@ -130,7 +152,7 @@ class CategoryControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(category, response.getBody());
+        assertEquals(categoryMapper.mapToDTO(category), response.getBody());
     }
 
     @Test
@@ -157,7 +179,7 @@ class CategoryControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(category, response.getBody());
+        assertEquals(categoryMapper.mapToDTO(category), response.getBody());
     }
 
     @Test
@@ -185,10 +207,42 @@ class CategoryControllerTest {
         when(categoryService.getProductsByCategoryId(categoryId)).thenReturn(productList);
 
         // When
-        ResponseEntity<?> response = categoryController.getProductsByCategory(String.valueOf(categoryId));
+        ResponseEntity<?> response = categoryController.getProductsByCategory(String.valueOf(categoryId), webRequest);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(productMapper.mapToDTOs(productList), response.getBody());
+    }
+
+    @Test
+    void givenMatchingIfNoneMatch_whenGetAllCategories_thenReturnNotModifiedWithoutQuerying() {
+        // Given
+        when(catalogVersionService.getCatalogVersion()).thenReturn(CatalogVersion.builder().id(1).version(42L).lastModified(new Date()).build());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/categories");
+        request.addHeader("If-None-Match", "\"catalog-42\"");
+
+        // When
+        ResponseEntity<?> response = categoryController.getAllCategories(new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        // Then
+        assertEquals(304, response.getStatusCode().value());
+        verifyNoInteractions(categoryService);
+    }
+
+    @Test
+    void givenStaleIfNoneMatch_whenGetProductsByCategory_thenReturnProductsWithETag() {
+        // Given
+        when(catalogVersionService.getCatalogVersion()).thenReturn(CatalogVersion.builder().id(1).version(43L).lastModified(new Date()).build());
+        when(categoryService.getProductsByCategoryId(1)).thenReturn(List.of());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/categories/1/products");
+        request.addHeader("If-None-Match", "\"catalog-42\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        // When
+        ResponseEntity<?> response = categoryController.getProductsByCategory("1", new ServletWebRequest(request, servletResponse));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productList, response.getBody());
+        assertEquals("\"catalog-43\"", servletResponse.getHeader("ETag"));
     }
 }
@@ -0,0 +1,102 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.CheckoutItemDTO;
+import com.unibuc.fresh_market.dto.CheckoutRequestDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.service.CheckoutService.CheckoutService;
+import com.unibuc.fresh_market.service.ProductFarmService.InsufficientStockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CheckoutControllerTest {
+
+    @Mock
+    private CheckoutService checkoutService;
+
+    @Mock
+    private BindingResult bindingResult;
+
+    @InjectMocks
+    private CheckoutController checkoutController;
+
+    private CheckoutRequestDTO checkoutRequest;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        checkoutRequest = CheckoutRequestDTO.builder()
+                .userId(1)
+                .farmId(1)
+                .items(List.of(CheckoutItemDTO.builder().productId(1).quantity(2).build()))
+                .build();
+    }
+
+    @Test
+    void givenValidBasket_whenCheckout_thenReturnReceipt() {
+        // Given
+        OrderReceiptDTO receipt = OrderReceiptDTO.builder().orderId(1).status("Pending").lines(List.of()).total(6.0).build();
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(checkoutService.checkout(checkoutRequest)).thenReturn(receipt);
+
+        // When
+        ResponseEntity<?> response = checkoutController.checkout(checkoutRequest, bindingResult);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(receipt, response.getBody());
+        verify(checkoutService, times(1)).checkout(checkoutRequest);
+    }
+
+    @Test
+    void givenInvalidBasket_whenCheckout_thenReturnBadRequest() {
+        // Given
+        when(bindingResult.hasErrors()).thenReturn(true);
+
+        // When
+        ResponseEntity<?> response = checkoutController.checkout(checkoutRequest, bindingResult);
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Validation errors found!", response.getBody());
+        verify(checkoutService, never()).checkout(any());
+    }
+
+    @Test
+    void givenUnknownProduct_whenCheckout_thenReturnBadRequest() {
+        // Given
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(checkoutService.checkout(checkoutRequest)).thenThrow(new IllegalArgumentException("Product not found: 1"));
+
+        // When
+        ResponseEntity<?> response = checkoutController.checkout(checkoutRequest, bindingResult);
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Product not found: 1", response.getBody());
+    }
+
+    @Test
+    void givenInsufficientStock_whenCheckout_thenReturnConflict() {
+        // Given
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(checkoutService.checkout(checkoutRequest)).thenThrow(new InsufficientStockException(1, 1));
+
+        // When
+        ResponseEntity<?> response = checkoutController.checkout(checkoutRequest, bindingResult);
+
+        // Then
+        assertEquals(409, response.getStatusCode().value());
+        assertEquals("Insufficient stock for product 1 at farm 1", response.getBody());
+    }
+}
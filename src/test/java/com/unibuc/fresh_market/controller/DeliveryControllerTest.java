@@ -1,12 +1,17 @@
 package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.DeliveryDTO;
+import com.unibuc.fresh_market.mapper.DeliveryMapper;
 import com.unibuc.fresh_market.service.DeliveryService.DeliveryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 
@@ -24,6 +29,9 @@ class DeliveryControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Spy
+    private DeliveryMapper deliveryMapper = Mappers.getMapper(DeliveryMapper.class);
+
     @InjectMocks
     private DeliveryController deliveryController;
 
@@ -51,7 +59,7 @@ class DeliveryControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(delivery, response.getBody());
+        assertEquals(deliveryMapper.mapToDTO(delivery), response.getBody());
     }
 
     @Test
@@ -70,14 +78,15 @@ class DeliveryControllerTest {
     @Test
     void givenDeliveries_whenGetAllDeliveries_thenReturnDeliveryList() {
         // Given
-        when(deliveryService.getAllDeliveries()).thenReturn(deliveryList);
+        CursorPage<Delivery> page = new CursorPage<>(deliveryList, null);
+        when(deliveryService.getDeliveriesPage(null, null)).thenReturn(page);
 
         // When
-        ResponseEntity<?> response = deliveryController.getAllDeliveries();
+        ResponseEntity<?> response = deliveryController.getAllDeliveries(null, null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(deliveryList, response.getBody());
+        assertEquals(page.map(deliveryMapper::mapToDTO), response.getBody());
     }
 
     @Test
@@ -91,7 +100,7 @@ class DeliveryControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(Optional.of(delivery), response.getBody());
+        assertEquals(deliveryMapper.mapToDTO(delivery), response.getBody());
     }
 
     @Test
@@ -114,14 +123,14 @@ class DeliveryControllerTest {
         Delivery updatedDelivery = Delivery.builder().id(deliveryId).deliveryStatus("Shipped").build();
 
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(deliveryService.updateDelivery(deliveryId, updatedDelivery)).thenReturn(Optional.of(updatedDelivery));
+        when(deliveryService.updateDelivery(deliveryId, updatedDelivery, null)).thenReturn(Optional.of(updatedDelivery));
 
         // When
-        ResponseEntity<?> response = deliveryController.updateDelivery(updatedDelivery, bindingResult, String.valueOf(deliveryId));
+        ResponseEntity<?> response = deliveryController.updateDelivery(updatedDelivery, bindingResult, String.valueOf(deliveryId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(Optional.of(updatedDelivery), response.getBody());
+        assertEquals(deliveryMapper.mapToDTO(updatedDelivery), response.getBody());
     }
 
     @Test
@@ -133,7 +142,7 @@ class DeliveryControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = deliveryController.updateDelivery(updatedDelivery, bindingResult, String.valueOf(deliveryId));
+        ResponseEntity<?> response = deliveryController.updateDelivery(updatedDelivery, bindingResult, String.valueOf(deliveryId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -147,10 +156,10 @@ class DeliveryControllerTest {
         Delivery updatedDelivery = Delivery.builder().id(deliveryId).deliveryStatus("Shipped").build();
 
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(deliveryService.updateDelivery(deliveryId, updatedDelivery)).thenReturn(Optional.empty());
+        when(deliveryService.updateDelivery(deliveryId, updatedDelivery, null)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> response = deliveryController.updateDelivery(updatedDelivery, bindingResult, String.valueOf(deliveryId));
+        ResponseEntity<?> response = deliveryController.updateDelivery(updatedDelivery, bindingResult, String.valueOf(deliveryId), null);
 
         // Then
         assertEquals(404, response.getStatusCode().value());
@@ -167,7 +176,7 @@ class DeliveryControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(Optional.of(delivery), response.getBody());
+        assertEquals(deliveryMapper.mapToDTO(delivery), response.getBody());
     }
 
     @Test
@@ -188,14 +197,15 @@ class DeliveryControllerTest {
         // Given
         String status = "Delivered";
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(deliveryService.getDeliveriesByStatus(status)).thenReturn(deliveryList);
+        List<DeliveryDTO> deliveryDTOs = deliveryMapper.mapToDTOs(deliveryList);
+        when(deliveryService.getDeliveriesByStatus(status)).thenReturn(deliveryDTOs);
 
         // When
         ResponseEntity<?> response = deliveryController.getDeliveriesByStatus(status, bindingResult);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(deliveryList, response.getBody());
+        assertEquals(deliveryDTOs, response.getBody());
     }
 
     @Test
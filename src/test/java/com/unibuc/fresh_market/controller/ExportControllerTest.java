@@ -0,0 +1,125 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.ExportJobDTO;
+import com.unibuc.fresh_market.service.ExportService.ExportDataset;
+import com.unibuc.fresh_market.service.ExportService.ExportFormat;
+import com.unibuc.fresh_market.service.ExportService.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ExportControllerTest {
+
+    @Mock
+    private ExportService exportService;
+
+    @InjectMocks
+    private ExportController exportController;
+
+    private ExportJobDTO exportJob;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        exportJob = ExportJobDTO.builder()
+                .dataset("orders")
+                .format("csv")
+                .status("RUNNING")
+                .file("orders.csv.gz")
+                .rowsWritten(0L)
+                .bytesWritten(0L)
+                .rowsPerSecond(0.0)
+                .lastId(0)
+                .resumed(false)
+                .startedAt(new Date())
+                .build();
+    }
+
+    @Test
+    void givenKnownDataset_whenStartExport_thenReturnAccepted() {
+        // Given
+        when(exportService.startExport(ExportDataset.ORDERS, ExportFormat.CSV)).thenReturn(exportJob);
+
+        // When
+        ResponseEntity<?> response = exportController.startExport("orders", "csv");
+
+        // Then
+        assertEquals(202, response.getStatusCode().value());
+        assertEquals(exportJob, response.getBody());
+        verify(exportService, times(1)).startExport(ExportDataset.ORDERS, ExportFormat.CSV);
+    }
+
+    @Test
+    void givenUnknownDataset_whenStartExport_thenReturnBadRequest() {
+        // When
+        ResponseEntity<?> response = exportController.startExport("users", "ndjson");
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Unknown export!", response.getBody());
+        verifyNoInteractions(exportService);
+    }
+
+    @Test
+    void givenRunningExport_whenStartExport_thenReturnConflict() {
+        // Given
+        when(exportService.startExport(ExportDataset.ORDERS, ExportFormat.CSV))
+                .thenThrow(new IllegalStateException("Export orders.csv.gz is already running"));
+
+        // When
+        ResponseEntity<?> response = exportController.startExport("orders", "csv");
+
+        // Then
+        assertEquals(409, response.getStatusCode().value());
+        assertEquals("Export orders.csv.gz is already running", response.getBody());
+    }
+
+    @Test
+    void whenGetExports_thenReturnEveryExport() {
+        // Given
+        when(exportService.getExports()).thenReturn(List.of(exportJob));
+
+        // When
+        ResponseEntity<?> response = exportController.getExports();
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of(exportJob), response.getBody());
+    }
+
+    @Test
+    void givenStartedExport_whenGetExport_thenReturnProgress() {
+        // Given
+        when(exportService.getExport(ExportDataset.ORDERS, ExportFormat.CSV)).thenReturn(Optional.of(exportJob));
+
+        // When
+        ResponseEntity<?> response = exportController.getExport("orders", "csv");
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(exportJob, response.getBody());
+    }
+
+    @Test
+    void givenNeverStartedExport_whenGetExport_thenReturnNotFound() {
+        // Given
+        when(exportService.getExport(ExportDataset.REVIEWS, ExportFormat.NDJSON)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<?> response = exportController.getExport("reviews", "ndjson");
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+    }
+}
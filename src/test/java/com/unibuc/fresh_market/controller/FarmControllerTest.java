@@ -1,17 +1,39 @@
 package com.unibuc.fresh_market.controller;
 
+import com.unibuc.fresh_market.domain.CatalogVersion;
 import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.FarmSales;
 import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.FarmDashboardDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.mapper.FarmMapper;
+import com.unibuc.fresh_market.mapper.FarmSalesMapper;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
 import com.unibuc.fresh_market.service.FarmService.FarmService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,9 +48,26 @@ class FarmControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Mock
+    private FarmReportService farmReportService;
+
+    @Spy
+    private FarmMapper farmMapper = Mappers.getMapper(FarmMapper.class);
+
+    @Spy
+    private FarmSalesMapper farmSalesMapper = Mappers.getMapper(FarmSalesMapper.class);
+
     @InjectMocks
     private FarmController farmController;
 
+    private final OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+
+    private ServletWebRequest webRequest;
+
     private Farm farm;
     private List<Farm> farmList;
 
@@ -38,6 +77,7 @@ class FarmControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
 
         Farm farm1 = Farm.builder().id(1).name("Sunny Farm").address("123 Green Lane").build();
         Farm farm2 = Farm.builder().id(2).name("Happy Farm").address("456 Blue Street").build();
@@ -65,7 +105,7 @@ class FarmControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(farm, response.getBody());
+        assertEquals(farmMapper.mapToDTO(farm), response.getBody());
     }
 
     @Test
@@ -88,14 +128,14 @@ class FarmControllerTest {
         Farm updatedFarm = Farm.builder().id(farmId).name("Updated Farm").address("789 Red Avenue").build();
 
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(farmService.updateFarm(farmId, updatedFarm)).thenReturn(Optional.of(updatedFarm));
+        when(farmService.updateFarm(farmId, updatedFarm, null)).thenReturn(Optional.of(updatedFarm));
 
         // When
-        ResponseEntity<?> response = farmController.updateFarm(updatedFarm, String.valueOf(farmId), bindingResult);
+        ResponseEntity<?> response = farmController.updateFarm(updatedFarm, String.valueOf(farmId), bindingResult, null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(updatedFarm, response.getBody());
+        assertEquals(farmMapper.mapToDTO(updatedFarm), response.getBody());
     }
 
     @Test
@@ -107,7 +147,7 @@ class FarmControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = farmController.updateFarm(updatedFarm, String.valueOf(farmId), bindingResult);
+        ResponseEntity<?> response = farmController.updateFarm(updatedFarm, String.valueOf(farmId), bindingResult, null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -117,14 +157,15 @@ class FarmControllerTest {
     @Test
     void givenFarms_whenGetAllFarms_thenReturnFarmList() {
         // Given
-        when(farmService.getAllFarms()).thenReturn(farmList);
+        CursorPage<Farm> page = new CursorPage<>(farmList, null);
+        when(farmService.getFarmsPage(null, null)).thenReturn(page);
 
         // When
-        ResponseEntity<?> response = farmController.getAllFarms();
+        ResponseEntity<?> response = farmController.getAllFarms(null, null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(farmList, response.getBody());
+        assertEquals(page.map(farmMapper::mapToDTO), response.getBody());
     }
 
     @Test
@@ -138,7 +179,7 @@ class FarmControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(farm, response.getBody());
+        assertEquals(farmMapper.mapToDTO(farm), response.getBody());
     }
 
     @Test
@@ -165,7 +206,7 @@ class FarmControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(farm, response.getBody());
+        assertEquals(farmMapper.mapToDTO(farm), response.getBody());
     }
 
     @Test
@@ -185,28 +226,30 @@ class FarmControllerTest {
     void givenValidFarmId_whenGetFarmProducts_thenReturnProductList() {
         // Given
         Integer farmId = 1;
-        when(farmService.getProductsByFarmId(farmId)).thenReturn(productList);
+        List<ProductDTO> productDTOs = productMapper.mapToDTOs(productList);
+        when(farmService.getProductsByFarmId(farmId)).thenReturn(productDTOs);
 
         // When
-        ResponseEntity<?> response = farmController.getFarmProducts(String.valueOf(farmId));
+        ResponseEntity<?> response = farmController.getFarmProducts(String.valueOf(farmId), webRequest);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productList, response.getBody());
+        assertEquals(productDTOs, response.getBody());
     }
 
     @Test
     void givenValidFarmId_whenGetFarmOrders_thenReturnOrderList() {
         // Given
         Integer farmId = 1;
-        when(farmService.getOrdersByFarmId(farmId)).thenReturn(orderList);
+        List<OrderDTO> orderDTOs = orderMapper.mapToDTOs(orderList);
+        when(farmService.getOrdersByFarmId(farmId)).thenReturn(orderDTOs);
 
         // When
         ResponseEntity<?> response = farmController.getFarmOrders(String.valueOf(farmId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(orderList, response.getBody());
+        assertEquals(orderDTOs, response.getBody());
     }
 
     @Test
@@ -223,4 +266,117 @@ class FarmControllerTest {
         assertEquals(200, response.getStatusCode().value());
         assertEquals(totalSales, response.getBody());
     }
+
+    @Test
+    void givenValidFarmId_whenRebuildFarmSales_thenReturnRebuiltSales() {
+        // Given
+        Integer farmId = 1;
+        FarmSales farmSales = FarmSales.builder().farmId(farmId).totalSales(1500.0).orderCount(3L).build();
+        when(farmService.getFarmById(farmId)).thenReturn(Optional.of(farm));
+        when(farmService.rebuildSalesByFarmId(farmId)).thenReturn(farmSales);
+
+        // When
+        ResponseEntity<?> response = farmController.rebuildFarmSales(String.valueOf(farmId));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(farmSalesMapper.mapToDTO(farmSales), response.getBody());
+    }
+
+    @Test
+    void givenInvalidFarmId_whenRebuildFarmSales_thenReturnNotFound() {
+        // Given
+        Integer farmId = 1;
+        when(farmService.getFarmById(farmId)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<?> response = farmController.rebuildFarmSales(String.valueOf(farmId));
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+        verify(farmService, never()).rebuildSalesByFarmId(farmId);
+    }
+
+    @Test
+    void givenValidFarmId_whenGetFarmDashboard_thenReturnDashboard() {
+        // Given
+        Integer farmId = 1;
+        FarmDashboardDTO dashboard = FarmDashboardDTO.builder().farmId(farmId).farmName("Sunny Farm").totalSales(1500.0).build();
+        when(farmService.getFarmDashboard(farmId)).thenReturn(Optional.of(dashboard));
+
+        // When
+        ResponseEntity<?> response = farmController.getFarmDashboard(String.valueOf(farmId));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(dashboard, response.getBody());
+    }
+
+    @Test
+    void givenInvalidFarmId_whenGetFarmDashboard_thenReturnNotFound() {
+        // Given
+        Integer farmId = 1;
+        when(farmService.getFarmDashboard(farmId)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<?> response = farmController.getFarmDashboard(String.valueOf(farmId));
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+    }
+
+    @Test
+    void givenMatchingIfNoneMatch_whenGetFarmProducts_thenReturnNotModifiedWithoutQuerying() {
+        // Given
+        when(catalogVersionService.getCatalogVersion()).thenReturn(CatalogVersion.builder().id(1).version(7L).lastModified(new Date()).build());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/farms/1/products");
+        request.addHeader("If-None-Match", "\"catalog-7\"");
+
+        // When
+        ResponseEntity<?> response = farmController.getFarmProducts("1", new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        // Then
+        assertEquals(304, response.getStatusCode().value());
+        verify(farmService, never()).getProductsByFarmId(any());
+    }
+
+    @Test
+    void givenValidFarmAndMonth_whenGetMonthlyReport_thenStreamReportAsCsv() throws IOException {
+        // Given
+        Integer farmId = 1;
+        when(farmService.getFarmById(farmId)).thenReturn(Optional.of(farm));
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = farmController.getMonthlyReport(String.valueOf(farmId), "2024-03");
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("text/csv", response.getHeaders().getContentType().toString());
+        verify(farmReportService, times(1)).writeMonthlyReport(eq(farmId), eq(YearMonth.of(2024, 3)), any());
+    }
+
+    @Test
+    void givenInvalidMonth_whenGetMonthlyReport_thenReturnBadRequest() {
+        // When
+        ResponseEntity<StreamingResponseBody> response = farmController.getMonthlyReport("1", "March");
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(farmReportService);
+    }
+
+    @Test
+    void givenInvalidFarmId_whenGetMonthlyReport_thenReturnNotFound() {
+        // Given
+        Integer farmId = 999;
+        when(farmService.getFarmById(farmId)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = farmController.getMonthlyReport(String.valueOf(farmId), "2024-03");
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+        verifyNoInteractions(farmReportService);
+    }
 }
@@ -1,18 +1,34 @@
 package com.unibuc.fresh_market.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unibuc.fresh_market.domain.Delivery;
 import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
 import com.unibuc.fresh_market.service.OrderService.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -25,9 +41,17 @@ class OrderControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Spy
+    private OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private OrderController orderController;
 
+    private final ProductOrderMapper productOrderMapper = Mappers.getMapper(ProductOrderMapper.class);
+
     private Order order;
     private List<Order> orderList;
 
@@ -66,20 +90,58 @@ class OrderControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(order, response.getBody());
+        assertEquals(orderMapper.mapToDTO(order), response.getBody());
     }
 
     @Test
     void givenOrders_whenGetAllOrders_thenReturnOrderList() {
         // Given
-        when(orderService.getAllOrders()).thenReturn(orderList);
+        CursorPage<Order> page = new CursorPage<>(orderList, null);
+        when(orderService.getOrdersPage(null, null)).thenReturn(page);
+
+        // When
+        ResponseEntity<?> response = orderController.getAllOrders(null, null);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(page.map(orderMapper::mapToDTO), response.getBody());
+    }
+
+    @Test
+    void givenInvalidCursor_whenGetAllOrders_thenReturnBadRequest() {
+        // Given
+        when(orderService.getOrdersPage("bad", null)).thenThrow(new IllegalArgumentException("Invalid cursor: bad"));
+
+        // When
+        ResponseEntity<?> response = orderController.getAllOrders("bad", null);
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Invalid cursor!", response.getBody());
+    }
+
+    @Test
+    void givenOrders_whenStreamAllOrders_thenWriteOneJsonLinePerOrder() throws IOException {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<OrderDTO> action = invocation.getArgument(0);
+            orderList.forEach(row -> action.accept(orderMapper.mapToDTO(row)));
+            return null;
+        }).when(orderService).streamAllOrders(any());
 
         // When
-        ResponseEntity<?> response = orderController.getAllOrders();
+        ResponseEntity<StreamingResponseBody> response = orderController.streamAllOrders();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(orderList, response.getBody());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        List<OrderDTO> rows = new ArrayList<>();
+        for (String line : outputStream.toString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readValue(line, OrderDTO.class));
+        }
+        assertEquals(orderMapper.mapToDTOs(orderList), rows);
     }
 
     @Test
@@ -93,7 +155,7 @@ class OrderControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(order, response.getBody());
+        assertEquals(orderMapper.mapToDTO(order), response.getBody());
     }
 
     @Test
@@ -129,14 +191,14 @@ class OrderControllerTest {
         when(bindingResult.hasErrors()).thenReturn(false);
         Order updatedOrder = Order.builder().id(orderId).status("Shipped").totalAmount(150.0).createdAt(new Date()).delivery(delivery).build();
 
-        when(orderService.updateOrder(orderId, updatedOrder)).thenReturn(Optional.of(updatedOrder));
+        when(orderService.updateOrder(orderId, updatedOrder, null)).thenReturn(Optional.of(updatedOrder));
 
         // When
-        ResponseEntity<?> response = orderController.updateOrder(updatedOrder, bindingResult, String.valueOf(orderId));
+        ResponseEntity<?> response = orderController.updateOrder(updatedOrder, bindingResult, String.valueOf(orderId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(updatedOrder, response.getBody());
+        assertEquals(orderMapper.mapToDTO(updatedOrder), response.getBody());
     }
 
     @Test
@@ -150,7 +212,7 @@ class OrderControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(order, response.getBody());
+        assertEquals(orderMapper.mapToDTO(order), response.getBody());
     }
 
     @Test
@@ -170,14 +232,15 @@ class OrderControllerTest {
     void givenValidOrderId_whenGetOrderDetails_thenReturnProductOrderList() {
         // Given
         Integer orderId = 1;
-        when(orderService.getOrderDetails(orderId)).thenReturn(productOrderList);
+        List<ProductOrderDTO> productOrderDTOs = productOrderMapper.mapToDTOs(productOrderList);
+        when(orderService.getOrderDetails(orderId)).thenReturn(productOrderDTOs);
 
         // When
         ResponseEntity<?> response = orderController.getOrderDetails(String.valueOf(orderId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productOrderList, response.getBody());
+        assertEquals(productOrderDTOs, response.getBody());
     }
 
     @Test
@@ -189,10 +252,53 @@ class OrderControllerTest {
         Order updatedOrder = Order.builder().id(orderId).status("Shipped").totalAmount(150.0).createdAt(new Date()).delivery(delivery).build();
 
         // When
-        ResponseEntity<?> response = orderController.updateOrder(updatedOrder, bindingResult, String.valueOf(orderId));
+        ResponseEntity<?> response = orderController.updateOrder(updatedOrder, bindingResult, String.valueOf(orderId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
         assertEquals("Validation errors found!", response.getBody());
     }
+
+    @Test
+    void givenValidOrderId_whenGetOrderReceipt_thenReturnReceipt() {
+        // Given
+        Integer orderId = 1;
+        OrderReceiptDTO receipt = OrderReceiptDTO.builder().orderId(orderId).status("Pending").lines(List.of()).total(0.0).build();
+        when(orderService.getOrderReceipt(orderId)).thenReturn(Optional.of(receipt));
+
+        // When
+        ResponseEntity<?> response = orderController.getOrderReceipt(String.valueOf(orderId));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(receipt, response.getBody());
+    }
+
+    @Test
+    void givenInvalidOrderId_whenGetOrderReceipt_thenReturnNotFound() {
+        // Given
+        Integer orderId = 1;
+        when(orderService.getOrderReceipt(orderId)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<?> response = orderController.getOrderReceipt(String.valueOf(orderId));
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+    }
+
+    @Test
+    void givenStaleIfMatch_whenUpdateOrder_thenReturnPreconditionFailed() {
+        // Given
+        Integer orderId = 1;
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(orderService.updateOrder(eq(orderId), any(Order.class), any()))
+                .thenThrow(new OptimisticLockingFailureException("Order 1 has been modified since version 0"));
+
+        // When
+        ResponseEntity<?> response = orderController.updateOrder(order, bindingResult, String.valueOf(orderId), "\"0\"");
+
+        // Then
+        assertEquals(412, response.getStatusCode().value());
+    }
 }
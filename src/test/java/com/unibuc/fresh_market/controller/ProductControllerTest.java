@@ -1,15 +1,35 @@
 package com.unibuc.fresh_market.controller;
 
+import com.unibuc.fresh_market.domain.CatalogVersion;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.BulkRowErrorDTO;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.service.BulkImportService.BulkFormat;
+import com.unibuc.fresh_market.service.BulkImportService.BulkImportService;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
 import com.unibuc.fresh_market.service.ProductService.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,15 +44,27 @@ class ProductControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Spy
+    private ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+
+    @Mock
+    private BulkImportService bulkImportService;
+
     @InjectMocks
     private ProductController productController;
 
+    private ServletWebRequest webRequest;
+
     private Product product;
     private List<Product> productList;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
 
         product = Product.builder()
                 .id(1)
@@ -60,7 +92,7 @@ class ProductControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(product, response.getBody());
+        assertEquals(productMapper.mapToDTO(product), response.getBody());
     }
 
     @Test
@@ -79,14 +111,15 @@ class ProductControllerTest {
     @Test
     void givenProducts_whenGetAllProducts_thenReturnProductList() {
         // Given
-        when(productService.getAllProducts()).thenReturn(productList);
+        CursorPage<Product> page = new CursorPage<>(productList, null);
+        when(productService.getProductsPage(null, null)).thenReturn(page);
 
         // When
-        ResponseEntity<?> response = productController.getAllProducts();
+        ResponseEntity<?> response = productController.getAllProducts(null, null, webRequest);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productList, response.getBody());
+        assertEquals(page.map(productMapper::mapToDTO), response.getBody());
     }
 
     @Test
@@ -100,7 +133,7 @@ class ProductControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(product, response.getBody());
+        assertEquals(productMapper.mapToDTO(product), response.getBody());
     }
 
     @Test
@@ -121,14 +154,14 @@ class ProductControllerTest {
         // Given
         Integer productId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(productService.updateProduct(eq(productId), any(Product.class))).thenReturn(Optional.of(product));
+        when(productService.updateProduct(eq(productId), any(Product.class), any())).thenReturn(Optional.of(product));
 
         // When
-        ResponseEntity<?> response = productController.updateProduct(product, bindingResult, String.valueOf(productId));
+        ResponseEntity<?> response = productController.updateProduct(product, bindingResult, String.valueOf(productId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(product, response.getBody());
+        assertEquals(productMapper.mapToDTO(product), response.getBody());
     }
 
     @Test
@@ -138,7 +171,7 @@ class ProductControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = productController.updateProduct(product, bindingResult, String.valueOf(productId));
+        ResponseEntity<?> response = productController.updateProduct(product, bindingResult, String.valueOf(productId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -150,10 +183,10 @@ class ProductControllerTest {
         // Given
         Integer productId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(productService.updateProduct(productId, product)).thenReturn(Optional.empty());
+        when(productService.updateProduct(productId, product, null)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> response = productController.updateProduct(product, bindingResult, String.valueOf(productId));
+        ResponseEntity<?> response = productController.updateProduct(product, bindingResult, String.valueOf(productId), null);
 
         // Then
         assertEquals(404, response.getStatusCode().value());
@@ -170,7 +203,7 @@ class ProductControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(product, response.getBody());
+        assertEquals(productMapper.mapToDTO(product), response.getBody());
     }
 
     @Test
@@ -190,13 +223,78 @@ class ProductControllerTest {
     void givenValidFarmId_whenGetProductsByFarmId_thenReturnProductList() {
         // Given
         Integer farmId = 1;
-        when(productService.getProductsByFarmId(farmId)).thenReturn(productList);
+        List<ProductDTO> productDTOs = productMapper.mapToDTOs(productList);
+        when(productService.getProductsByFarmId(farmId)).thenReturn(productDTOs);
 
         // When
-        ResponseEntity<?> response = productController.getProductByFarmId(String.valueOf(farmId));
+        ResponseEntity<?> response = productController.getProductByFarmId(String.valueOf(farmId), webRequest);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productList, response.getBody());
+        assertEquals(productDTOs, response.getBody());
+    }
+
+    @Test
+    void givenStaleIfMatch_whenUpdateProduct_thenReturnPreconditionFailed() {
+        // Given
+        Integer productId = 1;
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(productService.updateProduct(eq(productId), any(Product.class), any()))
+                .thenThrow(new OptimisticLockingFailureException("Product 1 has been modified since version 0"));
+
+        // When
+        ResponseEntity<?> response = productController.updateProduct(product, bindingResult, String.valueOf(productId), "\"0\"");
+
+        // Then
+        assertEquals(412, response.getStatusCode().value());
+    }
+
+    @Test
+    void givenMatchingIfNoneMatch_whenGetAllProducts_thenReturnNotModifiedWithoutQuerying() {
+        // Given
+        when(catalogVersionService.getCatalogVersion()).thenReturn(CatalogVersion.builder().id(1).version(7L).lastModified(new Date()).build());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addHeader("If-None-Match", "\"catalog-7\"");
+
+        // When
+        ResponseEntity<?> response = productController.getAllProducts(null, null, new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        // Then
+        assertEquals(304, response.getStatusCode().value());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void givenBulkBody_whenImportProducts_thenReturnImportReport() throws IOException {
+        // Given
+        InputStream body = new ByteArrayInputStream("ignored".getBytes(StandardCharsets.UTF_8));
+        BulkImportReportDTO report = BulkImportReportDTO.builder()
+                .receivedRows(3L)
+                .importedRows(2L)
+                .rejectedRows(1L)
+                .errors(List.of(BulkRowErrorDTO.builder().line(2L).message("Unknown product 99").build()))
+                .build();
+        when(bulkImportService.importProducts(body, BulkFormat.CSV)).thenReturn(report);
+
+        // When
+        ResponseEntity<?> response = productController.importProducts("text/csv", body);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(report, response.getBody());
+        verify(bulkImportService, times(1)).importProducts(body, BulkFormat.CSV);
+    }
+
+    @Test
+    void givenUnreadableBody_whenImportProducts_thenReturnBadRequest() throws IOException {
+        // Given
+        when(bulkImportService.importProducts(any(InputStream.class), eq(BulkFormat.NDJSON))).thenThrow(new IOException("connection reset"));
+
+        // When
+        ResponseEntity<?> response = productController.importProducts("application/x-ndjson", new ByteArrayInputStream(new byte[0]));
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Could not read request body!", response.getBody());
     }
 }
@@ -2,17 +2,34 @@ package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.Farm;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductAvailability;
 import com.unibuc.fresh_market.domain.ProductFarm;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.BulkRowErrorDTO;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import com.unibuc.fresh_market.mapper.ProductAvailabilityMapper;
+import com.unibuc.fresh_market.mapper.ProductFarmMapper;
+import com.unibuc.fresh_market.service.BulkImportService.BulkFormat;
+import com.unibuc.fresh_market.service.BulkImportService.BulkImportService;
 import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +44,15 @@ class ProductFarmControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Spy
+    private ProductFarmMapper productFarmMapper = Mappers.getMapper(ProductFarmMapper.class);
+
+    @Spy
+    private ProductAvailabilityMapper productAvailabilityMapper = Mappers.getMapper(ProductAvailabilityMapper.class);
+
+    @Mock
+    private BulkImportService bulkImportService;
+
     @InjectMocks
     private ProductFarmController productFarmController;
 
@@ -83,7 +109,22 @@ class ProductFarmControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productFarm, response.getBody());
+        assertEquals(productFarmMapper.mapToDTO(productFarm), response.getBody());
+    }
+
+    @Test
+    void givenStockedProduct_whenCreateProductFarm_thenReturnConflict() {
+        // Given
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(productFarmService.createProductFarm(any(ProductFarm.class)))
+                .thenThrow(new IllegalStateException("Farm 1 already stocks product 1"));
+
+        // When
+        ResponseEntity<?> response = productFarmController.createProductFarm(productFarm, bindingResult);
+
+        // Then
+        assertEquals(409, response.getStatusCode().value());
+        assertEquals("Farm 1 already stocks product 1", response.getBody());
     }
 
     @Test
@@ -102,14 +143,15 @@ class ProductFarmControllerTest {
     @Test
     void givenProductFarms_whenGetAllProductFarms_thenReturnProductFarmList() {
         // Given
-        when(productFarmService.getAllProductFarms()).thenReturn(productFarmList);
+        CursorPage<ProductFarm> page = new CursorPage<>(productFarmList, null);
+        when(productFarmService.getProductFarmsPage(null, null)).thenReturn(page);
 
         // When
-        ResponseEntity<?> response = productFarmController.getAllProductFarm();
+        ResponseEntity<?> response = productFarmController.getAllProductFarm(null, null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productFarmList, response.getBody());
+        assertEquals(page.map(productFarmMapper::mapToDTO), response.getBody());
     }
 
     @Test
@@ -123,7 +165,7 @@ class ProductFarmControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productFarm, response.getBody());
+        assertEquals(productFarmMapper.mapToDTO(productFarm), response.getBody());
     }
 
     @Test
@@ -144,14 +186,14 @@ class ProductFarmControllerTest {
         // Given
         Integer productFarmId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(productFarmService.updateProductFarm(eq(productFarmId), any(ProductFarm.class))).thenReturn(Optional.of(productFarm));
+        when(productFarmService.updateProductFarm(eq(productFarmId), any(ProductFarm.class), any())).thenReturn(Optional.of(productFarm));
 
         // When
-        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult);
+        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult, null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productFarm, response.getBody());
+        assertEquals(productFarmMapper.mapToDTO(productFarm), response.getBody());
     }
 
     @Test
@@ -161,7 +203,7 @@ class ProductFarmControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult);
+        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult, null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -173,10 +215,10 @@ class ProductFarmControllerTest {
         // Given
         Integer productFarmId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(productFarmService.updateProductFarm(productFarmId, productFarm)).thenReturn(Optional.empty());
+        when(productFarmService.updateProductFarm(productFarmId, productFarm, null)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult);
+        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult, null);
 
         // Then
         assertEquals(404, response.getStatusCode().value());
@@ -193,7 +235,7 @@ class ProductFarmControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productFarm, response.getBody());
+        assertEquals(productFarmMapper.mapToDTO(productFarm), response.getBody());
     }
 
     @Test
@@ -213,28 +255,30 @@ class ProductFarmControllerTest {
     void givenValidFarmId_whenGetProductFarmByFarmId_thenReturnProductFarmList() {
         // Given
         Integer farmId = 1;
-        when(productFarmService.getProductFarmsByFarmId(farmId)).thenReturn(productFarmList);
+        List<ProductFarmDTO> productFarmDTOs = productFarmMapper.mapToDTOs(productFarmList);
+        when(productFarmService.getProductFarmsByFarmId(farmId)).thenReturn(productFarmDTOs);
 
         // When
         ResponseEntity<?> response = productFarmController.getProductFarmByFarmId(String.valueOf(farmId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productFarmList, response.getBody());
+        assertEquals(productFarmDTOs, response.getBody());
     }
 
     @Test
     void givenValidProductId_whenGetProductFarmByProductId_thenReturnProductFarmList() {
         // Given
         Integer productId = 1;
-        when(productFarmService.getProductFarmsByProductId(productId)).thenReturn(productFarmList);
+        List<ProductFarmDTO> productFarmDTOs = productFarmMapper.mapToDTOs(productFarmList);
+        when(productFarmService.getProductFarmsByProductId(productId)).thenReturn(productFarmDTOs);
 
         // When
         ResponseEntity<?> response = productFarmController.getProductFarmByProductId(String.valueOf(productId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productFarmList, response.getBody());
+        assertEquals(productFarmDTOs, response.getBody());
     }
 
     @Test
@@ -251,4 +295,146 @@ class ProductFarmControllerTest {
         assertEquals(200, response.getStatusCode().value());
         assertEquals(stock, response.getBody());
     }
+
+    @Test
+    void givenProductIds_whenGetStockForProducts_thenReturnStockList() {
+        // Given
+        List<ProductAvailability> stock = List.of(
+                ProductAvailability.builder().productId(1).totalQuantity(100L).farmsInStock(1L).build(),
+                ProductAvailability.builder().productId(2).totalQuantity(0L).farmsInStock(0L).build());
+        when(productFarmService.getStockForProducts(List.of(1, 2))).thenReturn(stock);
+
+        // When
+        ResponseEntity<?> response = productFarmController.getStockForProducts(List.of(1, 2));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(productAvailabilityMapper.mapToDTOs(stock), response.getBody());
+    }
+
+    @Test
+    void givenProductId_whenRebuildProductStock_thenReturnRebuiltAvailability() {
+        // Given
+        Integer productId = 1;
+        ProductAvailability productAvailability = ProductAvailability.builder().productId(productId).totalQuantity(100L).farmsInStock(2L).build();
+        when(productFarmService.rebuildAvailabilityByProductId(productId)).thenReturn(productAvailability);
+
+        // When
+        ResponseEntity<?> response = productFarmController.rebuildProductStock(String.valueOf(productId));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(productAvailabilityMapper.mapToDTO(productAvailability), response.getBody());
+    }
+
+    @Test
+    void givenTooManyProductIds_whenGetStockForProducts_thenReturnBadRequest() {
+        // Given
+        List<Integer> productIds = Collections.nCopies(CursorPage.MAX_LIMIT + 1, 1);
+
+        // When
+        ResponseEntity<?> response = productFarmController.getStockForProducts(productIds);
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        verify(productFarmService, never()).getStockForProducts(productIds);
+    }
+
+    @Test
+    void givenMatchingIfMatch_whenUpdateProductFarm_thenReturnNewETag() {
+        // Given
+        Integer productFarmId = 1;
+        ProductFarm saved = ProductFarm.builder().id(productFarmId).version(4L).quantity(10).build();
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(productFarmService.updateProductFarm(eq(productFarmId), any(ProductFarm.class), any())).thenReturn(Optional.of(saved));
+
+        // When
+        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult, "\"3\"");
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        verify(productFarmService).updateProductFarm(eq(productFarmId), any(ProductFarm.class), eq(3L));
+    }
+
+    @Test
+    void givenStaleIfMatch_whenUpdateProductFarm_thenReturnPreconditionFailed() {
+        // Given
+        Integer productFarmId = 1;
+        when(bindingResult.hasErrors()).thenReturn(false);
+        when(productFarmService.updateProductFarm(eq(productFarmId), any(ProductFarm.class), any()))
+                .thenThrow(new OptimisticLockingFailureException("ProductFarm 1 has been modified since version 2"));
+
+        // When
+        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult, "\"2\"");
+
+        // Then
+        assertEquals(412, response.getStatusCode().value());
+        assertEquals("Version mismatch!", response.getBody());
+    }
+
+    @Test
+    void givenWeakIfMatch_whenUpdateProductFarm_thenReturnPreconditionFailed() {
+        // Given
+        Integer productFarmId = 1;
+        when(bindingResult.hasErrors()).thenReturn(false);
+
+        // When
+        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult, "W/\"3\"");
+
+        // Then
+        assertEquals(412, response.getStatusCode().value());
+        assertEquals("Version mismatch!", response.getBody());
+        verify(productFarmService, never()).updateProductFarm(any(), any(), any());
+    }
+
+    @Test
+    void givenMalformedIfMatch_whenUpdateProductFarm_thenReturnBadRequest() {
+        // Given
+        Integer productFarmId = 1;
+        when(bindingResult.hasErrors()).thenReturn(false);
+
+        // When
+        ResponseEntity<?> response = productFarmController.updateProductFarm(productFarm, String.valueOf(productFarmId), bindingResult, "\"abc\"");
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Invalid If-Match header!", response.getBody());
+        verify(productFarmService, never()).updateProductFarm(any(), any(), any());
+    }
+
+    @Test
+    void givenVersionedProductFarm_whenGetProductFarmById_thenReturnETag() {
+        // Given
+        Integer productFarmId = 1;
+        productFarm.setVersion(7L);
+        when(productFarmService.getProductFarmById(productFarmId)).thenReturn(Optional.of(productFarm));
+
+        // When
+        ResponseEntity<?> response = productFarmController.getProductFarmById(String.valueOf(productFarmId));
+
+        // Then
+        assertEquals("\"7\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void givenBulkBody_whenImportProductFarms_thenReturnImportReport() throws IOException {
+        // Given
+        InputStream body = new ByteArrayInputStream("ignored".getBytes(StandardCharsets.UTF_8));
+        BulkImportReportDTO report = BulkImportReportDTO.builder()
+                .receivedRows(3L)
+                .importedRows(2L)
+                .rejectedRows(1L)
+                .errors(List.of(BulkRowErrorDTO.builder().line(2L).message("Unknown product 99").build()))
+                .build();
+        when(bulkImportService.importProductFarms(body, BulkFormat.NDJSON)).thenReturn(report);
+
+        // When
+        ResponseEntity<?> response = productFarmController.importProductFarms("application/x-ndjson", body);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(report, response.getBody());
+        verify(bulkImportService, times(1)).importProductFarms(body, BulkFormat.NDJSON);
+    }
 }
@@ -1,22 +1,41 @@
 package com.unibuc.fresh_market.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unibuc.fresh_market.domain.Farm;
 import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Product;
 import com.unibuc.fresh_market.domain.ProductOrder;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.BulkRowErrorDTO;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
+import com.unibuc.fresh_market.service.BulkImportService.BulkFormat;
+import com.unibuc.fresh_market.service.BulkImportService.BulkImportService;
 import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -29,6 +48,15 @@ class ProductOrderControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Spy
+    private ProductOrderMapper productOrderMapper = Mappers.getMapper(ProductOrderMapper.class);
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private BulkImportService bulkImportService;
+
     @InjectMocks
     private ProductOrderController productOrderController;
 
@@ -102,7 +130,7 @@ class ProductOrderControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productOrder, response.getBody());
+        assertEquals(productOrderMapper.mapToDTO(productOrder), response.getBody());
     }
 
     @Test
@@ -121,14 +149,39 @@ class ProductOrderControllerTest {
     @Test
     void givenProductOrders_whenGetAllProductOrders_thenReturnProductOrderList() {
         // Given
-        when(productOrderService.getAllProductOrders()).thenReturn(productOrderList);
+        CursorPage<ProductOrder> page = new CursorPage<>(productOrderList, null);
+        when(productOrderService.getProductOrdersPage(null, null)).thenReturn(page);
+
+        // When
+        ResponseEntity<?> response = productOrderController.getAllProductOrders(null, null);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(page.map(productOrderMapper::mapToDTO), response.getBody());
+    }
+
+    @Test
+    void givenProductOrders_whenStreamAllProductOrders_thenWriteOneJsonLinePerProductOrder() throws IOException {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<ProductOrderDTO> action = invocation.getArgument(0);
+            productOrderList.forEach(row -> action.accept(productOrderMapper.mapToDTO(row)));
+            return null;
+        }).when(productOrderService).streamAllProductOrders(any());
 
         // When
-        ResponseEntity<?> response = productOrderController.getAllProductOrders();
+        ResponseEntity<StreamingResponseBody> response = productOrderController.streamAllProductOrders();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productOrderList, response.getBody());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        List<ProductOrderDTO> rows = new ArrayList<>();
+        for (String line : outputStream.toString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readValue(line, ProductOrderDTO.class));
+        }
+        assertEquals(productOrderMapper.mapToDTOs(productOrderList), rows);
     }
 
     @Test
@@ -142,7 +195,7 @@ class ProductOrderControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productOrder, response.getBody());
+        assertEquals(productOrderMapper.mapToDTO(productOrder), response.getBody());
     }
 
     @Test
@@ -163,14 +216,14 @@ class ProductOrderControllerTest {
         // Given
         Integer productOrderId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(productOrderService.updateProductOrder(eq(productOrderId), any(ProductOrder.class))).thenReturn(Optional.of(productOrder));
+        when(productOrderService.updateProductOrder(eq(productOrderId), any(ProductOrder.class), any())).thenReturn(Optional.of(productOrder));
 
         // When
-        ResponseEntity<?> response = productOrderController.updateProductOrder(productOrder, bindingResult, String.valueOf(productOrderId));
+        ResponseEntity<?> response = productOrderController.updateProductOrder(productOrder, bindingResult, String.valueOf(productOrderId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productOrder, response.getBody());
+        assertEquals(productOrderMapper.mapToDTO(productOrder), response.getBody());
     }
 
     @Test
@@ -180,7 +233,7 @@ class ProductOrderControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = productOrderController.updateProductOrder(productOrder, bindingResult, String.valueOf(productOrderId));
+        ResponseEntity<?> response = productOrderController.updateProductOrder(productOrder, bindingResult, String.valueOf(productOrderId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -192,10 +245,10 @@ class ProductOrderControllerTest {
         // Given
         Integer productOrderId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(productOrderService.updateProductOrder(productOrderId, productOrder)).thenReturn(Optional.empty());
+        when(productOrderService.updateProductOrder(productOrderId, productOrder, null)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> response = productOrderController.updateProductOrder(productOrder, bindingResult, String.valueOf(productOrderId));
+        ResponseEntity<?> response = productOrderController.updateProductOrder(productOrder, bindingResult, String.valueOf(productOrderId), null);
 
         // Then
         assertEquals(404, response.getStatusCode().value());
@@ -212,7 +265,7 @@ class ProductOrderControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productOrder, response.getBody());
+        assertEquals(productOrderMapper.mapToDTO(productOrder), response.getBody());
     }
 
     @Test
@@ -232,14 +285,15 @@ class ProductOrderControllerTest {
     void givenValidOrderId_whenGetProductOrderByOrderId_thenReturnProductOrderList() {
         // Given
         Integer orderId = 1;
-        when(productOrderService.getProductOrdersByOrderId(orderId)).thenReturn(productOrderList);
+        List<ProductOrderDTO> productOrderDTOs = productOrderMapper.mapToDTOs(productOrderList);
+        when(productOrderService.getProductOrdersByOrderId(orderId)).thenReturn(productOrderDTOs);
 
         // When
         ResponseEntity<?> response = productOrderController.getProductOrderByOrderId(String.valueOf(orderId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(productOrderList, response.getBody());
+        assertEquals(productOrderDTOs, response.getBody());
     }
 
     @Test
@@ -256,4 +310,25 @@ class ProductOrderControllerTest {
         assertEquals(200, response.getStatusCode().value());
         assertEquals(totalValue, response.getBody());
     }
+
+    @Test
+    void givenBulkBody_whenImportProductOrders_thenReturnImportReport() throws IOException {
+        // Given
+        InputStream body = new ByteArrayInputStream("ignored".getBytes(StandardCharsets.UTF_8));
+        BulkImportReportDTO report = BulkImportReportDTO.builder()
+                .receivedRows(3L)
+                .importedRows(2L)
+                .rejectedRows(1L)
+                .errors(List.of(BulkRowErrorDTO.builder().line(2L).message("Unknown product 99").build()))
+                .build();
+        when(bulkImportService.importProductOrders(body, BulkFormat.NDJSON)).thenReturn(report);
+
+        // When
+        ResponseEntity<?> response = productOrderController.importProductOrders("application/x-ndjson", body);
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(report, response.getBody());
+        verify(bulkImportService, times(1)).importProductOrders(body, BulkFormat.NDJSON);
+    }
 }
@@ -1,16 +1,27 @@
 package com.unibuc.fresh_market.controller;
 
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.FarmRating;
 import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.RatingHistogramDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.mapper.FarmRatingMapper;
+import com.unibuc.fresh_market.mapper.ReviewMapper;
+import com.unibuc.fresh_market.service.FarmService.FarmService;
 import com.unibuc.fresh_market.service.ReviewService.ReviewService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -21,9 +32,18 @@ class ReviewControllerTest {
     @Mock
     private ReviewService reviewService;
 
+    @Mock
+    private FarmService farmService;
+
     @Mock
     private BindingResult bindingResult;
 
+    @Spy
+    private ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
+    @Spy
+    private FarmRatingMapper farmRatingMapper = Mappers.getMapper(FarmRatingMapper.class);
+
     @InjectMocks
     private ReviewController reviewController;
 
@@ -60,7 +80,7 @@ class ReviewControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(review, response.getBody());
+        assertEquals(reviewMapper.mapToDTO(review), response.getBody());
     }
 
     @Test
@@ -79,14 +99,15 @@ class ReviewControllerTest {
     @Test
     void givenReviews_whenGetAllReviews_thenReturnReviewList() {
         // Given
-        when(reviewService.getAllReviews()).thenReturn(reviewList);
+        CursorPage<Review> page = new CursorPage<>(reviewList, null);
+        when(reviewService.getReviewsPage(null, null)).thenReturn(page);
 
         // When
-        ResponseEntity<?> response = reviewController.getAllReviews();
+        ResponseEntity<?> response = reviewController.getAllReviews(null, null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(reviewList, response.getBody());
+        assertEquals(page.map(reviewMapper::mapToDTO), response.getBody());
     }
 
     @Test
@@ -100,7 +121,7 @@ class ReviewControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(review, response.getBody());
+        assertEquals(reviewMapper.mapToDTO(review), response.getBody());
     }
 
     @Test
@@ -121,14 +142,14 @@ class ReviewControllerTest {
         // Given
         Integer reviewId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(reviewService.updateReview(eq(reviewId), any(Review.class))).thenReturn(Optional.of(review));
+        when(reviewService.updateReview(eq(reviewId), any(Review.class), any())).thenReturn(Optional.of(review));
 
         // When
-        ResponseEntity<?> response = reviewController.updateReview(review, bindingResult, String.valueOf(reviewId));
+        ResponseEntity<?> response = reviewController.updateReview(review, bindingResult, String.valueOf(reviewId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(review, response.getBody());
+        assertEquals(reviewMapper.mapToDTO(review), response.getBody());
     }
 
     @Test
@@ -138,7 +159,7 @@ class ReviewControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = reviewController.updateReview(review, bindingResult, String.valueOf(reviewId));
+        ResponseEntity<?> response = reviewController.updateReview(review, bindingResult, String.valueOf(reviewId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -150,10 +171,10 @@ class ReviewControllerTest {
         // Given
         Integer reviewId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(reviewService.updateReview(reviewId, review)).thenReturn(Optional.empty());
+        when(reviewService.updateReview(reviewId, review, null)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> response = reviewController.updateReview(review, bindingResult, String.valueOf(reviewId));
+        ResponseEntity<?> response = reviewController.updateReview(review, bindingResult, String.valueOf(reviewId), null);
 
         // Then
         assertEquals(404, response.getStatusCode().value());
@@ -170,7 +191,7 @@ class ReviewControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(review, response.getBody());
+        assertEquals(reviewMapper.mapToDTO(review), response.getBody());
     }
 
     @Test
@@ -190,14 +211,15 @@ class ReviewControllerTest {
     void givenValidFarmId_whenGetReviewsByFarmId_thenReturnReviewList() {
         // Given
         Integer farmId = 1;
-        when(reviewService.getReviewsByFarmId(farmId)).thenReturn(reviewList);
+        List<ReviewDTO> reviewDTOs = reviewMapper.mapToDTOs(reviewList);
+        when(reviewService.getReviewsByFarmId(farmId)).thenReturn(reviewDTOs);
 
         // When
         ResponseEntity<?> response = reviewController.getReviewsByFarmId(String.valueOf(farmId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(reviewList, response.getBody());
+        assertEquals(reviewDTOs, response.getBody());
     }
 
     @Test
@@ -214,4 +236,52 @@ class ReviewControllerTest {
         assertEquals(200, response.getStatusCode().value());
         assertEquals(averageRating, response.getBody());
     }
+
+    @Test
+    void givenValidFarmId_whenGetRatingHistogram_thenReturnHistogram() {
+        // Given
+        Integer farmId = 1;
+        RatingHistogramDTO histogram = RatingHistogramDTO.builder()
+                .farmId(farmId).reviewCount(2L).averageRating(4.5)
+                .histogram(Map.of(1, 0L, 2, 0L, 3, 0L, 4, 1L, 5, 1L))
+                .build();
+        when(reviewService.getRatingHistogramByFarmId(farmId)).thenReturn(histogram);
+
+        // When
+        ResponseEntity<?> response = reviewController.getRatingHistogramByFarmId(String.valueOf(farmId));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(histogram, response.getBody());
+    }
+
+    @Test
+    void givenValidFarmId_whenRebuildRating_thenReturnRebuiltAggregate() {
+        // Given
+        Integer farmId = 1;
+        FarmRating farmRating = FarmRating.builder().farmId(farmId).reviewCount(2L).ratingSum(9L).build();
+        when(farmService.getFarmById(farmId)).thenReturn(Optional.of(Farm.builder().id(farmId).build()));
+        when(reviewService.rebuildRatingByFarmId(farmId)).thenReturn(farmRating);
+
+        // When
+        ResponseEntity<?> response = reviewController.rebuildRatingByFarmId(String.valueOf(farmId));
+
+        // Then
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(farmRatingMapper.mapToDTO(farmRating), response.getBody());
+    }
+
+    @Test
+    void givenInvalidFarmId_whenRebuildRating_thenReturnNotFound() {
+        // Given
+        Integer farmId = 1;
+        when(farmService.getFarmById(farmId)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<?> response = reviewController.rebuildRatingByFarmId(String.valueOf(farmId));
+
+        // Then
+        assertEquals(404, response.getStatusCode().value());
+        verify(reviewService, never()).rebuildRatingByFarmId(farmId);
+    }
 }
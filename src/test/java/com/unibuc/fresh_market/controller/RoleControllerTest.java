@@ -1,12 +1,15 @@
 package com.unibuc.fresh_market.controller;
 
 import com.unibuc.fresh_market.domain.security.Role;
+import com.unibuc.fresh_market.mapper.RoleMapper;
 import com.unibuc.fresh_market.service.RoleService.RoleService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 
@@ -24,6 +27,9 @@ class RoleControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Spy
+    private RoleMapper roleMapper = Mappers.getMapper(RoleMapper.class);
+
     @InjectMocks
     private RoleController roleController;
 
@@ -58,7 +64,7 @@ class RoleControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(role, response.getBody());
+        assertEquals(roleMapper.mapToDTO(role), response.getBody());
     }
 
     @Test
@@ -84,7 +90,7 @@ class RoleControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(roleList, response.getBody());
+        assertEquals(roleMapper.mapToDTOs(roleList), response.getBody());
     }
 
     @Test
@@ -98,7 +104,7 @@ class RoleControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(role, response.getBody());
+        assertEquals(roleMapper.mapToDTO(role), response.getBody());
     }
 
     @Test
@@ -119,14 +125,14 @@ class RoleControllerTest {
         // Given
         Integer roleId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(roleService.updateRole(eq(roleId), any(Role.class))).thenReturn(Optional.of(role));
+        when(roleService.updateRole(eq(roleId), any(Role.class), any())).thenReturn(Optional.of(role));
 
         // When
-        ResponseEntity<?> response = roleController.updateRole(role, bindingResult, String.valueOf(roleId));
+        ResponseEntity<?> response = roleController.updateRole(role, bindingResult, String.valueOf(roleId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(role, response.getBody());
+        assertEquals(roleMapper.mapToDTO(role), response.getBody());
     }
 
     @Test
@@ -136,7 +142,7 @@ class RoleControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = roleController.updateRole(role, bindingResult, String.valueOf(roleId));
+        ResponseEntity<?> response = roleController.updateRole(role, bindingResult, String.valueOf(roleId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -148,10 +154,10 @@ class RoleControllerTest {
         // Given
         Integer roleId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(roleService.updateRole(roleId, role)).thenReturn(Optional.empty());
+        when(roleService.updateRole(roleId, role, null)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> response = roleController.updateRole(role, bindingResult, String.valueOf(roleId));
+        ResponseEntity<?> response = roleController.updateRole(role, bindingResult, String.valueOf(roleId), null);
 
         // Then
         assertEquals(404, response.getStatusCode().value());
@@ -168,7 +174,7 @@ class RoleControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(role, response.getBody());
+        assertEquals(roleMapper.mapToDTO(role), response.getBody());
     }
 
     @Test
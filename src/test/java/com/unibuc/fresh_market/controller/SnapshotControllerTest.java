@@ -0,0 +1,68 @@
+package com.unibuc.fresh_market.controller;
+
+import com.unibuc.fresh_market.dto.SnapshotDTO;
+import com.unibuc.fresh_market.service.SnapshotService.SnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class SnapshotControllerTest {
+
+    @Mock
+    private SnapshotService snapshotService;
+
+    @InjectMocks
+    private SnapshotController snapshotController;
+
+    private SnapshotDTO snapshot;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        snapshot = SnapshotDTO.builder()
+                .file("fresh-market-20240301-020000.snapshot")
+                .rowCounts(Map.of("orders", 3L))
+                .totalRows(3L)
+                .bytes(128L)
+                .elapsedMillis(5L)
+                .rowsPerSecond(600.0)
+                .build();
+    }
+
+    @Test
+    void whenCreateSnapshot_thenReturnCreatedSnapshot() throws IOException {
+        // Given
+        when(snapshotService.writeSnapshot()).thenReturn(snapshot);
+
+        // When
+        ResponseEntity<?> response = snapshotController.createSnapshot();
+
+        // Then
+        assertEquals(201, response.getStatusCode().value());
+        assertEquals(snapshot, response.getBody());
+        verify(snapshotService, times(1)).writeSnapshot();
+    }
+
+    @Test
+    void givenWriteFailure_whenCreateSnapshot_thenReturnServerError() throws IOException {
+        // Given
+        when(snapshotService.writeSnapshot()).thenThrow(new IOException("No space left on device"));
+
+        // When
+        ResponseEntity<?> response = snapshotController.createSnapshot();
+
+        // Then
+        assertEquals(500, response.getStatusCode().value());
+        assertEquals("Could not write snapshot!", response.getBody());
+    }
+}
@@ -3,12 +3,20 @@ package com.unibuc.fresh_market.controller;
 import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Review;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import com.unibuc.fresh_market.mapper.ReviewMapper;
+import com.unibuc.fresh_market.mapper.UserMapper;
 import com.unibuc.fresh_market.service.UserService.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 
@@ -26,9 +34,15 @@ class UserControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Spy
+    private UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
     @InjectMocks
     private UserController userController;
 
+    private final OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+    private final ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
     private User user;
     private List<User> userList;
     private List<Order> orderList;
@@ -73,7 +87,7 @@ class UserControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(user, response.getBody());
+        assertEquals(userMapper.mapToDTO(user), response.getBody());
     }
 
     @Test
@@ -92,14 +106,15 @@ class UserControllerTest {
     @Test
     void givenUsers_whenGetAllUsers_thenReturnUserList() {
         // Given
-        when(userService.getAllUsers()).thenReturn(userList);
+        CursorPage<User> page = new CursorPage<>(userList, null);
+        when(userService.getUsersPage(null, null)).thenReturn(page);
 
         // When
-        ResponseEntity<?> response = userController.getAllUsers();
+        ResponseEntity<?> response = userController.getAllUsers(null, null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(userList, response.getBody());
+        assertEquals(page.map(userMapper::mapToDTO), response.getBody());
     }
 
     @Test
@@ -113,7 +128,7 @@ class UserControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(user, response.getBody());
+        assertEquals(userMapper.mapToDTO(user), response.getBody());
     }
 
     @Test
@@ -134,14 +149,14 @@ class UserControllerTest {
         // Given
         Integer userId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(userService.updateUser(eq(userId), any(User.class))).thenReturn(Optional.of(user));
+        when(userService.updateUser(eq(userId), any(User.class), any())).thenReturn(Optional.of(user));
 
         // When
-        ResponseEntity<?> response = userController.updateUser(user, bindingResult, String.valueOf(userId));
+        ResponseEntity<?> response = userController.updateUser(user, bindingResult, String.valueOf(userId), null);
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(user, response.getBody());
+        assertEquals(userMapper.mapToDTO(user), response.getBody());
     }
 
     @Test
@@ -151,7 +166,7 @@ class UserControllerTest {
         when(bindingResult.hasErrors()).thenReturn(true);
 
         // When
-        ResponseEntity<?> response = userController.updateUser(user, bindingResult, String.valueOf(userId));
+        ResponseEntity<?> response = userController.updateUser(user, bindingResult, String.valueOf(userId), null);
 
         // Then
         assertEquals(400, response.getStatusCode().value());
@@ -163,10 +178,10 @@ class UserControllerTest {
         // Given
         Integer userId = 1;
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(userService.updateUser(userId, user)).thenReturn(Optional.empty());
+        when(userService.updateUser(userId, user, null)).thenReturn(Optional.empty());
 
         // When
-        ResponseEntity<?> response = userController.updateUser(user, bindingResult, String.valueOf(userId));
+        ResponseEntity<?> response = userController.updateUser(user, bindingResult, String.valueOf(userId), null);
 
         // Then
         assertEquals(404, response.getStatusCode().value());
@@ -183,7 +198,7 @@ class UserControllerTest {
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(user, response.getBody());
+        assertEquals(userMapper.mapToDTO(user), response.getBody());
     }
 
     @Test
@@ -203,27 +218,29 @@ class UserControllerTest {
     void givenValidUserId_whenGetOrdersByUserId_thenReturnOrderList() {
         // Given
         Integer userId = 1;
-        when(userService.getOrdersByUserId(userId)).thenReturn(orderList);
+        List<OrderDTO> orderDTOs = orderMapper.mapToDTOs(orderList);
+        when(userService.getOrdersByUserId(userId)).thenReturn(orderDTOs);
 
         // When
         ResponseEntity<?> response = userController.getOrdersByUserId(String.valueOf(userId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(orderList, response.getBody());
+        assertEquals(orderDTOs, response.getBody());
     }
 
     @Test
     void givenValidUserId_whenGetReviewsByUserId_thenReturnReviewList() {
         // Given
         Integer userId = 1;
-        when(userService.getReviewsByUserId(userId)).thenReturn(reviewList);
+        List<ReviewDTO> reviewDTOs = reviewMapper.mapToDTOs(reviewList);
+        when(userService.getReviewsByUserId(userId)).thenReturn(reviewDTOs);
 
         // When
         ResponseEntity<?> response = userController.getReviewsByUserId(String.valueOf(userId));
 
         // Then
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(reviewList, response.getBody());
+        assertEquals(reviewDTOs, response.getBody());
     }
 }
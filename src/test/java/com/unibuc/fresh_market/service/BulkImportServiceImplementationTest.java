@@ -0,0 +1,262 @@
+package com.unibuc.fresh_market.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.BulkImportReportDTO;
+import com.unibuc.fresh_market.dto.BulkRowErrorDTO;
+import com.unibuc.fresh_market.mapper.ProductFarmMapper;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
+import com.unibuc.fresh_market.repository.CategoryRepository;
+import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.BulkImportService.BulkFormat;
+import com.unibuc.fresh_market.service.BulkImportService.BulkImportServiceImplementation;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderService;
+import com.unibuc.fresh_market.service.ProductService.ProductService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkImportServiceImplementationTest {
+    private static final int CHUNK_SIZE = 1000;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductFarmService productFarmService;
+
+    @Mock
+    private ProductOrderService productOrderService;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private FarmRepository farmRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Captor
+    private ArgumentCaptor<List<Product>> writtenProducts;
+
+    @Captor
+    private ArgumentCaptor<List<ProductFarm>> writtenProductFarms;
+
+    @Captor
+    private ArgumentCaptor<List<ProductOrder>> writtenProductOrders;
+
+    private BulkImportServiceImplementation bulkImportService;
+
+    @BeforeEach
+    void setUp() {
+        bulkImportService = new BulkImportServiceImplementation(new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                productService, productFarmService, productOrderService,
+                categoryRepository, farmRepository, productRepository, orderRepository,
+                Mappers.getMapper(ProductMapper.class), Mappers.getMapper(ProductFarmMapper.class),
+                Mappers.getMapper(ProductOrderMapper.class));
+    }
+
+    @Test
+    void givenValidNdjsonRows_whenImportProductOrders_thenWriteThemInOneChunk() throws IOException {
+        // Given
+        String body = """
+                {"orderId":1,"productId":2,"quantity":3,"notes":"first"}
+                {"orderId":1,"productId":2,"quantity":4}
+                """;
+        when(orderRepository.findExistingIds(any())).thenReturn(List.of(1));
+        when(productRepository.findExistingIds(any())).thenReturn(List.of(2));
+
+        // When
+        BulkImportReportDTO report = bulkImportService.importProductOrders(input(body), BulkFormat.NDJSON);
+
+        // Then
+        assertEquals(2, report.getReceivedRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(0, report.getRejectedRows());
+        assertTrue(report.getErrors().isEmpty());
+
+        verify(productOrderService, times(1)).createProductOrders(writtenProductOrders.capture());
+        ProductOrder productOrder = writtenProductOrders.getValue().getFirst();
+        assertNull(productOrder.getId());
+        assertEquals(1, productOrder.getOrder().getId());
+        assertEquals(2, productOrder.getProduct().getId());
+        assertEquals(3, productOrder.getQuantity());
+        assertEquals("first", productOrder.getNotes());
+    }
+
+    @Test
+    void givenMoreRowsThanOneChunk_whenImportProductFarms_thenWriteFixedSizeChunks() throws IOException {
+        // Given
+        int rows = 2 * CHUNK_SIZE + 1;
+        String body = IntStream.range(0, rows)
+                .mapToObj(i -> "{\"farmId\":1,\"productId\":2,\"quantity\":" + i + "}")
+                .collect(Collectors.joining("\n"));
+        when(farmRepository.findExistingIds(any())).thenReturn(List.of(1));
+        when(productRepository.findExistingIds(any())).thenReturn(List.of(2));
+
+        // When
+        BulkImportReportDTO report = bulkImportService.importProductFarms(input(body), BulkFormat.NDJSON);
+
+        // Then
+        assertEquals(rows, report.getImportedRows());
+
+        verify(productFarmService, times(3)).upsertProductFarms(writtenProductFarms.capture());
+        assertEquals(List.of(CHUNK_SIZE, CHUNK_SIZE, 1),
+                writtenProductFarms.getAllValues().stream().map(List::size).toList());
+        // one existence check per referenced table and chunk
+        verify(farmRepository, times(3)).findExistingIds(any());
+        verify(productRepository, times(3)).findExistingIds(any());
+    }
+
+    @Test
+    void givenCsvWithHeader_whenImportProducts_thenMapColumnsByName() throws IOException {
+        // Given
+        String body = """
+                price,categoryId,name,description,categoryName
+                2.5,7,Tomatoes,,Vegetables
+                """;
+        when(categoryRepository.findExistingIds(any())).thenReturn(List.of(7));
+
+        // When
+        BulkImportReportDTO report = bulkImportService.importProducts(input(body), BulkFormat.CSV);
+
+        // Then
+        assertEquals(1, report.getReceivedRows());
+        assertEquals(1, report.getImportedRows());
+
+        verify(productService, times(1)).createProducts(writtenProducts.capture());
+        Product product = writtenProducts.getValue().getFirst();
+        assertEquals("Tomatoes", product.getName());
+        assertNull(product.getDescription());
+        assertEquals(2.5, product.getPrice());
+        assertEquals(7, product.getCategory().getId());
+    }
+
+    @Test
+    void givenCsvWithQuotedValues_whenImportProducts_thenKeepCommasAndLineBreaksAndReportRecordLines() throws IOException {
+        // Given
+        String body = """
+                name,description,price,categoryId
+                "Tomatoes, cherry","Sweet
+                and small",2.5,7
+                Cucumbers,,abc,7
+
+                Peppers,"Red, yellow",3.0,7
+                """;
+        when(categoryRepository.findExistingIds(any())).thenReturn(List.of(7));
+
+        // When
+        BulkImportReportDTO report = bulkImportService.importProducts(input(body), BulkFormat.CSV);
+
+        // Then
+        assertEquals(3, report.getReceivedRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(1, report.getRejectedRows());
+        assertEquals(4L, report.getErrors().getFirst().getLine());
+        assertTrue(report.getErrors().getFirst().getMessage().startsWith("Malformed row"));
+
+        verify(productService, times(1)).createProducts(writtenProducts.capture());
+        List<Product> products = writtenProducts.getValue();
+        assertEquals(List.of("Tomatoes, cherry", "Peppers"), products.stream().map(Product::getName).toList());
+        assertEquals("Sweet\nand small", products.getFirst().getDescription());
+        assertEquals("Red, yellow", products.get(1).getDescription());
+    }
+
+    @Test
+    void givenInvalidRows_whenImportProductOrders_thenReportThemByLineAndWriteTheRest() throws IOException {
+        // Given
+        String body = """
+                {"orderId":1,"productId":2,"quantity":1}
+                {"orderId":1,"productId":2,
+                {"orderId":1,"productId":2,"quantity":-5}
+
+                {"orderId":1,"productId":99,"quantity":1}
+                {"productId":2,"quantity":1}
+                """;
+        when(orderRepository.findExistingIds(any())).thenReturn(List.of(1));
+        when(productRepository.findExistingIds(any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return new ArrayList<>(ids.stream().filter(id -> id == 2).toList());
+        });
+
+        // When
+        BulkImportReportDTO report = bulkImportService.importProductOrders(input(body), BulkFormat.NDJSON);
+
+        // Then
+        assertEquals(5, report.getReceivedRows());
+        assertEquals(1, report.getImportedRows());
+        assertEquals(4, report.getRejectedRows());
+        assertEquals(List.of(2L, 3L, 5L, 6L), report.getErrors().stream().map(BulkRowErrorDTO::getLine).toList());
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Malformed row"));
+        assertEquals("quantity must be greater than or equal to 0", report.getErrors().get(1).getMessage());
+        assertEquals("Unknown product 99", report.getErrors().get(2).getMessage());
+        assertEquals("orderId is required", report.getErrors().get(3).getMessage());
+
+        verify(productOrderService, times(1)).createProductOrders(argThat(productOrders -> productOrders.size() == 1));
+    }
+
+    @Test
+    void givenChunkWriteFails_whenImportProducts_thenRejectEveryRowOfThatChunk() throws IOException {
+        // Given
+        String body = """
+                {"name":"Tomatoes","price":2.5,"categoryId":7}
+                {"name":"Cucumbers","price":1.5,"categoryId":7}
+                """;
+        when(categoryRepository.findExistingIds(any())).thenReturn(List.of(7));
+        when(productService.createProducts(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // When
+        BulkImportReportDTO report = bulkImportService.importProducts(input(body), BulkFormat.NDJSON);
+
+        // Then
+        assertEquals(2, report.getReceivedRows());
+        assertEquals(0, report.getImportedRows());
+        assertEquals(2, report.getRejectedRows());
+        assertEquals("Chunk rolled back: duplicate key", report.getErrors().getFirst().getMessage());
+    }
+
+    @Test
+    void givenUnsupportedContentType_whenResolvingFormat_thenThrow() {
+        assertEquals(BulkFormat.NDJSON, BulkFormat.fromContentType("application/x-ndjson"));
+        assertEquals(BulkFormat.CSV, BulkFormat.fromContentType("text/csv;charset=UTF-8"));
+        assertThrows(IllegalArgumentException.class, () -> BulkFormat.fromContentType("application/json"));
+    }
+
+    private InputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,70 @@
+package com.unibuc.fresh_market.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unibuc.fresh_market.dto.CacheStatsDTO;
+import com.unibuc.fresh_market.service.CacheStatsService.CacheStatsServiceImplementation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheStatsServiceImplementationTest {
+
+    private CaffeineCacheManager cacheManager;
+
+    private CacheStatsServiceImplementation cacheStatsService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache("products", Caffeine.newBuilder().maximumSize(10).recordStats().build());
+        cacheManager.registerCustomCache("categories", Caffeine.newBuilder().maximumSize(10).recordStats().build());
+        cacheStatsService = new CacheStatsServiceImplementation(cacheManager);
+    }
+
+    @Test
+    void givenHitsAndMisses_whenGetCacheStats_thenReturnCounts() {
+        // Given
+        Cache products = cacheManager.getCache("products");
+        products.put(1, "Apples");
+        products.get(1);
+        products.get(1);
+        products.get(2);
+
+        // When
+        Optional<CacheStatsDTO> stats = cacheStatsService.getCacheStats("products");
+
+        // Then
+        assertTrue(stats.isPresent());
+        assertEquals("products", stats.get().getName());
+        assertEquals(1L, stats.get().getSize());
+        assertEquals(2L, stats.get().getHitCount());
+        assertEquals(1L, stats.get().getMissCount());
+        assertEquals(2.0 / 3, stats.get().getHitRate(), 1e-9);
+        assertEquals(0L, stats.get().getEvictionCount());
+    }
+
+    @Test
+    void givenUnknownCache_whenGetCacheStats_thenReturnEmptyWithoutCreatingIt() {
+        // When
+        Optional<CacheStatsDTO> stats = cacheStatsService.getCacheStats("unknown");
+
+        // Then
+        assertTrue(stats.isEmpty());
+        assertFalse(cacheManager.getCacheNames().contains("unknown"));
+    }
+
+    @Test
+    void whenGetAllCacheStats_thenReturnEveryCacheSortedByName() {
+        // When
+        List<CacheStatsDTO> stats = cacheStatsService.getAllCacheStats();
+
+        // Then
+        assertEquals(List.of("categories", "products"), stats.stream().map(CacheStatsDTO::getName).toList());
+    }
+}
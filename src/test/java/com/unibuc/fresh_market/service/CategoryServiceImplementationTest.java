@@ -3,8 +3,12 @@ package com.unibuc.fresh_market.service;
 import com.unibuc.fresh_market.domain.Category;
 import com.unibuc.fresh_market.domain.Product;
 import com.unibuc.fresh_market.repository.CategoryRepository;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
 import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
 import com.unibuc.fresh_market.service.CategoryService.CategoryServiceImplementation;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -25,6 +29,18 @@ class CategoryServiceImplementationTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private ProductOrderRepository productOrderRepository;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Mock
+    private FarmReportService farmReportService;
+
     @InjectMocks
     private CategoryServiceImplementation categoryService;
 
@@ -133,7 +149,7 @@ class CategoryServiceImplementationTest {
         when(categoryRepository.save(any(Category.class))).thenReturn(updatedCategory);
 
         // When
-        Optional<Category> result = categoryService.updateCategory(categoryId, updatedCategory);
+        Optional<Category> result = categoryService.updateCategory(categoryId, updatedCategory, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -157,7 +173,7 @@ class CategoryServiceImplementationTest {
         when(categoryRepository.findById(categoryId)).thenReturn(Optional.empty());
 
         // When
-        Optional<Category> result = categoryService.updateCategory(categoryId, updatedCategory);
+        Optional<Category> result = categoryService.updateCategory(categoryId, updatedCategory, null);
 
         // Then
         assertFalse(result.isPresent());
@@ -178,6 +194,37 @@ class CategoryServiceImplementationTest {
         assertEquals("Fresh Produce", result.get().getName());
         verify(categoryRepository, times(1)).findById(categoryId);
         verify(categoryRepository, times(1)).delete(category);
+        verifyNoInteractions(productAvailabilityRepository);
+    }
+
+    @Test
+    void whenDeleteCategoryWithProducts_thenDeleteTheirStockCounters() {
+        // Given
+        Integer categoryId = 1;
+        category.setProducts(productList);
+        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(category));
+
+        // When
+        categoryService.deleteCategory(categoryId);
+
+        // Then
+        verify(categoryRepository, times(1)).delete(category);
+        verify(productAvailabilityRepository, times(1)).deleteAllByIdInBatch(List.of(1, 2));
+    }
+
+    @Test
+    void whenDeleteCategoryWithOrders_thenInvalidateTheReportsOfTheFarmsItsProductsSoldAt() {
+        // Given
+        Integer categoryId = 1;
+        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(category));
+        when(productOrderRepository.findOrderFarmIdsByCategoryId(categoryId)).thenReturn(List.of(3, 4));
+
+        // When
+        categoryService.deleteCategory(categoryId);
+
+        // Then
+        verify(farmReportService, times(1)).invalidateMonthlyReports(List.of(3, 4));
+        verify(categoryRepository, times(1)).delete(category);
     }
 
     @Test
@@ -208,5 +255,19 @@ class CategoryServiceImplementationTest {
         assertEquals(2, products.size());
         verify(productRepository, times(1)).getProductsByCategoryId(categoryId);
     }
-}
 
+    @Test
+    void whenCategoryIsWritten_thenBumpCatalogVersion() {
+        // Given
+        when(categoryRepository.save(any(Category.class))).thenReturn(category);
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(category));
+
+        // When
+        categoryService.createCategory(category);
+        categoryService.updateCategory(1, category, null);
+        categoryService.deleteCategory(1);
+
+        // Then
+        verify(catalogVersionService, times(3)).bumpCatalogVersion();
+    }
+}
@@ -0,0 +1,167 @@
+package com.unibuc.fresh_market.service;
+
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
+import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.CheckoutItemDTO;
+import com.unibuc.fresh_market.dto.CheckoutRequestDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.repository.security.UserRepository;
+import com.unibuc.fresh_market.service.CheckoutService.CheckoutServiceImplementation;
+import com.unibuc.fresh_market.service.OrderService.OrderService;
+import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckoutServiceImplementationTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private ProductFarmService productFarmService;
+
+    @Mock
+    private ProductOrderRepository productOrderRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private FarmRepository farmRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CheckoutServiceImplementation checkoutService;
+
+    private User user;
+    private Farm farm;
+    private Product apples;
+    private Product milk;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(1).username("john_doe").build();
+        farm = Farm.builder().id(1).name("Green Valley").user(user).build();
+        apples = Product.builder().id(10).name("Apples").price(3.0).build();
+        milk = Product.builder().id(20).name("Milk").price(1.5).build();
+    }
+
+    @Test
+    void whenCheckout_thenReserveStockAndCreateOrderWithLines() {
+        // Given
+        CheckoutRequestDTO checkoutRequest = CheckoutRequestDTO.builder()
+                .userId(1)
+                .farmId(1)
+                .items(List.of(
+                        CheckoutItemDTO.builder().productId(10).quantity(4).build(),
+                        CheckoutItemDTO.builder().productId(20).quantity(2).build()))
+                .build();
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(farmRepository.findById(1)).thenReturn(Optional.of(farm));
+        when(productRepository.findAllById(Set.of(10, 20))).thenReturn(List.of(apples, milk));
+        when(orderService.createOrder(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(5);
+            return order;
+        });
+        when(productOrderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        OrderReceiptDTO receipt = checkoutService.checkout(checkoutRequest);
+
+        // Then
+        assertEquals(5, receipt.getOrderId());
+        assertEquals(1, receipt.getFarmId());
+        assertEquals(2, receipt.getLines().size());
+        assertEquals(15.0, receipt.getTotal(), 0.01);
+
+        verify(productFarmService, times(1)).reserveStock(1, Map.of(10, 4, 20, 2));
+        verify(orderService, times(1)).createOrder(argThat(order ->
+                order.getFarm() == farm && order.getUser() == user && order.getTotalAmount() == 15.0));
+        verify(productOrderRepository, times(1)).saveAll(argThat(productOrders ->
+                ((List<ProductOrder>) productOrders).stream().allMatch(productOrder -> productOrder.getOrder().getId() == 5)));
+    }
+
+    @Test
+    void whenCheckoutWithDuplicateItems_thenReserveMergedQuantity() {
+        // Given
+        CheckoutRequestDTO checkoutRequest = CheckoutRequestDTO.builder()
+                .userId(1)
+                .farmId(1)
+                .items(List.of(
+                        CheckoutItemDTO.builder().productId(10).quantity(4).build(),
+                        CheckoutItemDTO.builder().productId(10).quantity(1).build()))
+                .build();
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(farmRepository.findById(1)).thenReturn(Optional.of(farm));
+        when(productRepository.findAllById(Set.of(10))).thenReturn(List.of(apples));
+        when(orderService.createOrder(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productOrderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        OrderReceiptDTO receipt = checkoutService.checkout(checkoutRequest);
+
+        // Then
+        assertEquals(15.0, receipt.getTotal(), 0.01);
+        verify(productFarmService, times(1)).reserveStock(1, Map.of(10, 5));
+    }
+
+    @Test
+    void whenCheckoutWithUnknownProduct_thenThrowExceptionBeforeReservingStock() {
+        // Given
+        CheckoutRequestDTO checkoutRequest = CheckoutRequestDTO.builder()
+                .userId(1)
+                .farmId(1)
+                .items(List.of(CheckoutItemDTO.builder().productId(99).quantity(1).build()))
+                .build();
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(farmRepository.findById(1)).thenReturn(Optional.of(farm));
+        when(productRepository.findAllById(Set.of(99))).thenReturn(List.of());
+
+        // When & Then
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            checkoutService.checkout(checkoutRequest);
+        });
+        assertEquals("Product not found: 99", thrown.getMessage());
+
+        verifyNoInteractions(productFarmService, orderService, productOrderRepository);
+    }
+
+    @Test
+    void whenCheckoutWithUnknownFarm_thenThrowException() {
+        // Given
+        CheckoutRequestDTO checkoutRequest = CheckoutRequestDTO.builder()
+                .userId(1)
+                .farmId(2)
+                .items(List.of(CheckoutItemDTO.builder().productId(10).quantity(1).build()))
+                .build();
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(farmRepository.findById(2)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> checkoutService.checkout(checkoutRequest));
+        verifyNoInteractions(productFarmService, orderService);
+    }
+}
@@ -1,11 +1,14 @@
 package com.unibuc.fresh_market.service;
 
 import com.unibuc.fresh_market.domain.Delivery;
+import com.unibuc.fresh_market.dto.DeliveryDTO;
+import com.unibuc.fresh_market.mapper.DeliveryMapper;
 import com.unibuc.fresh_market.repository.DeliveryRepository;
 import com.unibuc.fresh_market.service.DeliveryService.DeliveryServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -27,6 +30,8 @@ public class DeliveryServiceImplementationTest {
     @InjectMocks
     private DeliveryServiceImplementation deliveryService;
 
+    private final DeliveryMapper deliveryMapper = Mappers.getMapper(DeliveryMapper.class);
+
     private Delivery delivery;
 
     @BeforeEach
@@ -100,7 +105,7 @@ public class DeliveryServiceImplementationTest {
         when(deliveryRepository.save(any(Delivery.class))).thenReturn(updatedDelivery);
 
         // When
-        Optional<Delivery> result = deliveryService.updateDelivery(1, updatedDelivery);
+        Optional<Delivery> result = deliveryService.updateDelivery(1, updatedDelivery, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -130,10 +135,10 @@ public class DeliveryServiceImplementationTest {
     @Test
     void whenGetDeliveriesByStatus_thenReturnListOfDeliveries() {
         // Given
-        when(deliveryRepository.findDeliveriesByDeliveryStatus("Delivered")).thenReturn(List.of(delivery));
+        when(deliveryRepository.findDeliveriesByDeliveryStatus("Delivered")).thenReturn(List.of(deliveryMapper.mapToDTO(delivery)));
 
         // When
-        List<Delivery> result = deliveryService.getDeliveriesByStatus("Delivered");
+        List<DeliveryDTO> result = deliveryService.getDeliveriesByStatus("Delivered");
 
         // Then
         assertNotNull(result);
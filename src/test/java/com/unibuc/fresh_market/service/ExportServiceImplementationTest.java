@@ -0,0 +1,226 @@
+package com.unibuc.fresh_market.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibuc.fresh_market.config.ExportProperties;
+import com.unibuc.fresh_market.dto.ExportJobDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductFarmRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ReviewRepository;
+import com.unibuc.fresh_market.service.ExportService.ExportDataset;
+import com.unibuc.fresh_market.service.ExportService.ExportFormat;
+import com.unibuc.fresh_market.service.ExportService.ExportServiceImplementation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExportServiceImplementationTest {
+
+    @TempDir
+    Path exportDirectory;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductOrderRepository productOrderRepository;
+
+    @Mock
+    private ProductFarmRepository productFarmRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ExportServiceImplementation exportService;
+
+    private List<ProductOrderDTO> productOrders;
+
+    @BeforeEach
+    void setUp() {
+        ExportProperties exportProperties = new ExportProperties();
+        exportProperties.setDirectory(exportDirectory.toString());
+        exportProperties.setSegmentSize(2);
+
+        exportService = new ExportServiceImplementation(exportProperties, objectMapper, transactionManager,
+                orderRepository, productOrderRepository, productFarmRepository, reviewRepository, new MockEnvironment());
+
+        productOrders = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> ProductOrderDTO.builder().id(i * 10).version(0L).orderId(1).productId(2).productName("Apples").quantity(i).unitPrice(3.0).build())
+                .toList();
+    }
+
+    @Test
+    void givenRowsSpanningSegments_whenRunExportAsNdjson_thenWriteOneGzipFileWithOneLinePerRow() throws IOException {
+        // Given
+        when(productOrderRepository.streamProductOrdersAfter(anyInt(), any(Limit.class))).thenAnswer(invocation ->
+                rowsAfter(invocation.getArgument(0), invocation.getArgument(1)));
+
+        // When
+        ExportJobDTO job = exportService.runExport(ExportDataset.PRODUCT_ORDER, ExportFormat.NDJSON);
+
+        // Then
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals("product_order.ndjson.gz", job.getFile());
+        assertEquals(5, job.getRowsWritten());
+        assertEquals(50, job.getLastId());
+        assertFalse(job.getResumed());
+
+        Path file = exportDirectory.resolve("product_order.ndjson.gz");
+        assertEquals(Files.size(file), job.getBytesWritten());
+        assertFalse(Files.exists(exportDirectory.resolve("product_order.ndjson.gz.part")));
+        assertFalse(Files.exists(exportDirectory.resolve("product_order.ndjson.gz.checkpoint.json")));
+
+        List<ProductOrderDTO> rows = new ArrayList<>();
+        for (String line : gunzip(file)) {
+            rows.add(objectMapper.readValue(line, ProductOrderDTO.class));
+        }
+        assertEquals(productOrders, rows);
+
+        // 5 rows in segments of 2, the last short segment ends the export
+        verify(productOrderRepository, times(3)).streamProductOrdersAfter(anyInt(), any(Limit.class));
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void givenCsvFormat_whenRunExport_thenWriteTheHeaderOnce() throws IOException {
+        // Given
+        when(productOrderRepository.streamProductOrdersAfter(anyInt(), any(Limit.class))).thenAnswer(invocation ->
+                rowsAfter(invocation.getArgument(0), invocation.getArgument(1)));
+
+        // When
+        ExportJobDTO job = exportService.runExport(ExportDataset.PRODUCT_ORDER, ExportFormat.CSV);
+
+        // Then
+        assertEquals("COMPLETED", job.getStatus());
+        List<String> lines = gunzip(exportDirectory.resolve("product_order.csv.gz"));
+        assertEquals(6, lines.size());
+        assertEquals("id,version,orderId,productId,productName,quantity,unitPrice,notes", lines.getFirst());
+        assertEquals("10,0,1,2,Apples,1,3.0,", lines.get(1));
+        assertEquals("50,0,1,2,Apples,5,3.0,", lines.getLast());
+    }
+
+    @Test
+    void givenExportFailsMidway_whenRunAgain_thenResumeFromTheLastCheckpointWithoutDuplicates() throws IOException {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        when(productOrderRepository.streamProductOrdersAfter(anyInt(), any(Limit.class))).thenAnswer(invocation -> {
+            Stream<ProductOrderDTO> rows = rowsAfter(invocation.getArgument(0), invocation.getArgument(1));
+            // the second segment loses its connection after one row was already written
+            if (calls.incrementAndGet() == 2) {
+                return Stream.concat(rows.limit(1), Stream.generate(() -> {
+                    throw new DataAccessResourceFailureException("connection reset");
+                }));
+            }
+            return rows;
+        });
+
+        ExportJobDTO failedJob = exportService.runExport(ExportDataset.PRODUCT_ORDER, ExportFormat.NDJSON);
+        assertEquals("FAILED", failedJob.getStatus());
+        assertEquals("connection reset", failedJob.getError());
+        assertTrue(Files.exists(exportDirectory.resolve("product_order.ndjson.gz.checkpoint.json")));
+
+        // When
+        ExportJobDTO resumedJob = exportService.runExport(ExportDataset.PRODUCT_ORDER, ExportFormat.NDJSON);
+
+        // Then
+        assertEquals("COMPLETED", resumedJob.getStatus());
+        assertTrue(resumedJob.getResumed());
+        assertEquals(5, resumedJob.getRowsWritten());
+
+        List<Integer> ids = new ArrayList<>();
+        for (String line : gunzip(exportDirectory.resolve("product_order.ndjson.gz"))) {
+            ids.add(objectMapper.readValue(line, ProductOrderDTO.class).getId());
+        }
+        assertEquals(List.of(10, 20, 30, 40, 50), ids);
+        // the failed segment is read again from the checkpoint, not from where it broke off
+        verify(productOrderRepository, times(2)).streamProductOrdersAfter(eq(20), any(Limit.class));
+    }
+
+    @Test
+    void givenFinishedExport_whenGetExport_thenReturnItsLastProgress() {
+        // Given
+        when(reviewRepository.streamReviewsAfter(anyInt(), any(Limit.class))).thenReturn(Stream.empty());
+        exportService.runExport(ExportDataset.REVIEWS, ExportFormat.CSV);
+
+        // When
+        ExportJobDTO job = exportService.getExport(ExportDataset.REVIEWS, ExportFormat.CSV).orElseThrow();
+
+        // Then
+        assertEquals("reviews", job.getDataset());
+        assertEquals("csv", job.getFormat());
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(0, job.getRowsWritten());
+        assertNotNull(job.getFinishedAt());
+        assertEquals(List.of(job), exportService.getExports());
+        assertTrue(exportService.getExport(ExportDataset.ORDERS, ExportFormat.CSV).isEmpty());
+    }
+
+    @Test
+    void givenVirtualThreadsEnabled_whenStartExport_thenRunItOnAVirtualThread() throws Exception {
+        // Given
+        ExportProperties exportProperties = new ExportProperties();
+        exportProperties.setDirectory(exportDirectory.toString());
+        ExportServiceImplementation virtualExportService = new ExportServiceImplementation(exportProperties, objectMapper,
+                transactionManager, orderRepository, productOrderRepository, productFarmRepository, reviewRepository,
+                new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"));
+        CompletableFuture<Thread> exportThread = new CompletableFuture<>();
+        when(reviewRepository.streamReviewsAfter(anyInt(), any(Limit.class))).thenAnswer(invocation -> {
+            exportThread.complete(Thread.currentThread());
+            return Stream.empty();
+        });
+
+        // When
+        virtualExportService.startExport(ExportDataset.REVIEWS, ExportFormat.CSV);
+
+        // Then
+        Thread thread = exportThread.get(5, TimeUnit.SECONDS);
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("export-"));
+        virtualExportService.shutdown();
+    }
+
+    private Stream<ProductOrderDTO> rowsAfter(Integer afterId, Limit limit) {
+        return productOrders.stream()
+                .filter(productOrder -> productOrder.getId() > afterId)
+                .limit(limit.max());
+    }
+
+    private List<String> gunzip(Path file) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
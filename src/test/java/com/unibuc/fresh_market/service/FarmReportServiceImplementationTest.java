@@ -0,0 +1,230 @@
+package com.unibuc.fresh_market.service;
+
+import com.unibuc.fresh_market.config.ReportProperties;
+import com.unibuc.fresh_market.dto.FarmReportLineDTO;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportServiceImplementation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FarmReportServiceImplementationTest {
+
+    @TempDir
+    Path reportDirectory;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ProductOrderRepository productOrderRepository;
+
+    private FarmReportServiceImplementation farmReportService;
+
+    private List<FarmReportLineDTO> reportLines;
+
+    @BeforeEach
+    void setUp() {
+        ReportProperties reportProperties = new ReportProperties();
+        reportProperties.setDirectory(reportDirectory.toString());
+
+        farmReportService = new FarmReportServiceImplementation(reportProperties, productOrderRepository, transactionManager);
+
+        reportLines = List.of(
+                orderLine(1, "Apples", 10, 2L, 1.5),
+                orderLine(1, "Apples", 11, 4L, 1.5),
+                orderLine(2, "Carrots", 10, 3L, 2.0));
+    }
+
+    @Test
+    void givenOrderLines_whenWriteMonthlyReport_thenAddProductAndMonthTotals() throws IOException {
+        // Given
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> reportLines.stream());
+
+        // When
+        List<String> rows = report(YearMonth.now());
+
+        // Then
+        assertEquals(7, rows.size());
+        assertTrue(rows.get(0).startsWith("lineType,productId,productName,orderId"));
+        assertTrue(rows.get(1).startsWith("ORDER,1,Apples,10,"));
+        assertTrue(rows.get(2).startsWith("ORDER,1,Apples,11,"));
+        assertEquals("PRODUCT_TOTAL,1,Apples,,,,6,,9.0", rows.get(3));
+        assertTrue(rows.get(4).startsWith("ORDER,2,Carrots,10,"));
+        assertEquals("PRODUCT_TOTAL,2,Carrots,,,,3,,6.0", rows.get(5));
+        assertEquals("MONTH_TOTAL,,,,,,9,,15.0", rows.get(6));
+    }
+
+    @Test
+    void givenNoOrders_whenWriteMonthlyReport_thenWriteOnlyHeaderAndZeroTotal() throws IOException {
+        // Given
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> Stream.empty());
+
+        // When
+        List<String> rows = report(YearMonth.now());
+
+        // Then
+        assertEquals(2, rows.size());
+        assertEquals("MONTH_TOTAL,,,,,,0,,0.0", rows.get(1));
+    }
+
+    @Test
+    void givenClosedMonth_whenWriteMonthlyReportTwice_thenQueryOnceAndServeCachedFile() throws IOException {
+        // Given
+        YearMonth closedMonth = YearMonth.now().minusMonths(1);
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> reportLines.stream());
+
+        // When
+        List<String> first = report(closedMonth);
+        List<String> second = report(closedMonth);
+
+        // Then
+        assertEquals(first, second);
+        assertEquals(1, reportFiles().size());
+        verify(productOrderRepository, times(1)).streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class));
+    }
+
+    @Test
+    void givenCachedClosedMonths_whenAnOrderOfOneChanges_thenOnlyThatMonthIsQueriedAgain() throws IOException {
+        // Given
+        YearMonth closedMonth = YearMonth.now().minusMonths(1);
+        YearMonth earlierMonth = YearMonth.now().minusMonths(2);
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> reportLines.stream());
+        report(closedMonth);
+        report(earlierMonth);
+
+        // When
+        farmReportService.invalidateMonthlyReport(2, Date.from(closedMonth.atDay(10).atStartOfDay(ZoneId.of("UTC")).toInstant()));
+        farmReportService.invalidateMonthlyReport(1, Date.from(closedMonth.atDay(10).atStartOfDay(ZoneId.of("UTC")).toInstant()));
+        report(closedMonth);
+        report(earlierMonth);
+
+        // Then
+        verify(productOrderRepository, times(3)).streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class));
+        assertEquals(2, reportFiles().size());
+    }
+
+    @Test
+    void givenCachedClosedMonths_whenTheFarmsReportsAreInvalidated_thenEveryMonthIsQueriedAgain() throws IOException {
+        // Given
+        YearMonth closedMonth = YearMonth.now().minusMonths(1);
+        YearMonth earlierMonth = YearMonth.now().minusMonths(2);
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> reportLines.stream());
+        report(closedMonth);
+        report(earlierMonth);
+
+        // When
+        farmReportService.invalidateMonthlyReports(List.of(1, 2));
+        report(closedMonth);
+        report(earlierMonth);
+
+        // Then
+        verify(productOrderRepository, times(4)).streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class));
+        assertEquals(2, reportFiles().size());
+    }
+
+    @Test
+    void givenCachedClosedMonth_whenServiceRestarts_thenTheFileIsStillServed() throws IOException {
+        // Given
+        YearMonth closedMonth = YearMonth.now().minusMonths(1);
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> reportLines.stream());
+        List<String> first = report(closedMonth);
+
+        // When
+        ReportProperties reportProperties = new ReportProperties();
+        reportProperties.setDirectory(reportDirectory.toString());
+        farmReportService = new FarmReportServiceImplementation(reportProperties, productOrderRepository, transactionManager);
+        List<String> second = report(closedMonth);
+
+        // Then
+        assertEquals(first, second);
+        verify(productOrderRepository, times(1)).streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class));
+    }
+
+    @Test
+    void givenConfiguredZone_whenWriteMonthlyReport_thenMonthStartsAtMidnightThere() throws IOException {
+        // Given
+        ReportProperties reportProperties = new ReportProperties();
+        reportProperties.setDirectory(reportDirectory.toString());
+        reportProperties.setZone(ZoneId.of("Europe/Bucharest"));
+        farmReportService = new FarmReportServiceImplementation(reportProperties, productOrderRepository, transactionManager);
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> Stream.empty());
+
+        // When
+        report(YearMonth.of(2024, 1));
+
+        // Then
+        verify(productOrderRepository).streamMonthlyReportLines(1,
+                Date.from(Instant.parse("2023-12-31T22:00:00Z")), Date.from(Instant.parse("2024-01-31T22:00:00Z")));
+    }
+
+    @Test
+    void givenCurrentMonth_whenWriteMonthlyReportTwice_thenQueryEveryTime() throws IOException {
+        // Given
+        when(productOrderRepository.streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class)))
+                .thenAnswer(invocation -> reportLines.stream());
+
+        // When
+        report(YearMonth.now());
+        report(YearMonth.now());
+
+        // Then
+        assertTrue(reportFiles().isEmpty());
+        verify(productOrderRepository, times(2)).streamMonthlyReportLines(eq(1), any(Date.class), any(Date.class));
+    }
+
+    private List<Path> reportFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(reportDirectory)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private List<String> report(YearMonth month) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        farmReportService.writeMonthlyReport(1, month, out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private FarmReportLineDTO orderLine(Integer productId, String productName, Integer orderId, Long quantity, Double unitPrice) {
+        return FarmReportLineDTO.builder()
+                .lineType("ORDER")
+                .productId(productId)
+                .productName(productName)
+                .orderId(orderId)
+                .orderDate(new Date())
+                .orderStatus("Delivered")
+                .quantity(quantity)
+                .unitPrice(unitPrice)
+                .amount(quantity * unitPrice)
+                .build();
+    }
+}
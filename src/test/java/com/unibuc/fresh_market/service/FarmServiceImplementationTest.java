@@ -1,16 +1,29 @@
 package com.unibuc.fresh_market.service;
 
 import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.FarmSales;
 import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Product;
 import com.unibuc.fresh_market.domain.ProductFarm;
+import com.unibuc.fresh_market.dto.FarmDashboardDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.repository.FarmRatingRepository;
 import com.unibuc.fresh_market.repository.FarmRepository;
+import com.unibuc.fresh_market.repository.FarmSalesRepository;
 import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
 import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
 import com.unibuc.fresh_market.service.FarmService.FarmServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -21,6 +34,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,9 +49,28 @@ public class FarmServiceImplementationTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private FarmSalesRepository farmSalesRepository;
+
+    @Mock
+    private FarmRatingRepository farmRatingRepository;
+
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Mock
+    private FarmReportService farmReportService;
+
     @InjectMocks
     private FarmServiceImplementation farmService;
 
+    private final OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+
     private Farm farm;
     private Product product;
     private Order order;
@@ -73,6 +106,21 @@ public class FarmServiceImplementationTest {
         verify(farmRepository, times(1)).save(any(Farm.class));
     }
 
+    @Test
+    void whenCreateFarm_thenCreateItsSalesAndRatingAggregates() {
+        // Given
+        when(farmRepository.save(any(Farm.class))).thenReturn(farm);
+
+        // When
+        farmService.createFarm(farm);
+
+        // Then
+        verify(farmSalesRepository, times(1)).save(argThat(farmSales ->
+                farmSales.getFarmId() == 1 && farmSales.getTotalSales() == 0.0 && farmSales.getOrderCount() == 0L));
+        verify(farmRatingRepository, times(1)).save(argThat(farmRating ->
+                farmRating.getFarmId() == 1 && farmRating.getReviewCount() == 0L && farmRating.getFiveStarCount() == 0L));
+    }
+
     @Test
     void whenGetAllFarms_thenReturnListOfFarms() {
         // Given
@@ -113,7 +161,7 @@ public class FarmServiceImplementationTest {
         when(farmRepository.save(any(Farm.class))).thenReturn(updatedFarm);
 
         // When
-        Optional<Farm> result = farmService.updateFarm(1, updatedFarm);
+        Optional<Farm> result = farmService.updateFarm(1, updatedFarm, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -138,15 +186,38 @@ public class FarmServiceImplementationTest {
 
         verify(farmRepository, times(1)).findById(1);
         verify(farmRepository, times(1)).delete(farm);
+        verify(farmSalesRepository, times(1)).deleteById(1);
+        verify(farmRatingRepository, times(1)).deleteById(1);
+        verify(farmReportService, times(1)).invalidateMonthlyReports(List.of(1));
+    }
+
+    @Test
+    void whenDeleteFarmWithStock_thenRemoveItsStockFromProductAvailability() {
+        // Given
+        Product carrots = Product.builder().id(2).name("Carrots").price(2.0).build();
+        farm.setProductFarms(List.of(
+                ProductFarm.builder().farm(farm).product(carrots).quantity(30).build(),
+                ProductFarm.builder().farm(farm).product(product).quantity(100).build(),
+                ProductFarm.builder().farm(farm).product(Product.builder().id(3).build()).quantity(0).build()));
+        when(farmRepository.findById(1)).thenReturn(Optional.of(farm));
+
+        // When
+        farmService.deleteFarm(1);
+
+        // Then
+        InOrder inOrder = inOrder(productAvailabilityRepository);
+        inOrder.verify(productAvailabilityRepository).addToProductAvailability(eq(1), eq(-100L), eq(-1L), any());
+        inOrder.verify(productAvailabilityRepository).addToProductAvailability(eq(2), eq(-30L), eq(-1L), any());
+        verifyNoMoreInteractions(productAvailabilityRepository);
     }
 
     @Test
     void whenGetProductsByFarmId_thenReturnListOfProducts() {
         // Given
-        when(productRepository.getProductsByFarmId(1)).thenReturn(List.of(product));
+        when(productRepository.getProductsByFarmId(1)).thenReturn(List.of(productMapper.mapToDTO(product)));
 
         // When
-        List<Product> result = farmService.getProductsByFarmId(1);
+        List<ProductDTO> result = farmService.getProductsByFarmId(1);
 
         // Then
         assertNotNull(result);
@@ -160,10 +231,10 @@ public class FarmServiceImplementationTest {
     @Test
     void whenGetOrdersByFarmId_thenReturnListOfOrders() {
         // Given
-        when(orderRepository.findOrdersByFarmId(1)).thenReturn(List.of(order));
+        when(orderRepository.findOrdersByFarmId(1)).thenReturn(List.of(orderMapper.mapToDTO(order)));
 
         // When
-        List<Order> result = farmService.getOrdersByFarmId(1);
+        List<OrderDTO> result = farmService.getOrdersByFarmId(1);
 
         // Then
         assertNotNull(result);
@@ -177,7 +248,8 @@ public class FarmServiceImplementationTest {
     @Test
     void whenCalculateTotalSalesByFarmId_thenReturnTotalSales() {
         // Given
-        when(orderRepository.findOrdersByFarmId(1)).thenReturn(List.of(order));
+        FarmSales farmSales = FarmSales.builder().farmId(1).totalSales(100.0).orderCount(1L).build();
+        when(farmSalesRepository.findById(1)).thenReturn(Optional.of(farmSales));
 
         // When
         double totalSales = farmService.calculateTotalSalesByFarmId(1);
@@ -185,8 +257,62 @@ public class FarmServiceImplementationTest {
         // Then
         assertEquals(100.0, totalSales, 0.01);
 
-        // Verify the findOrdersByFarmId method is called
-        verify(orderRepository, times(1)).findOrdersByFarmId(1);
+        // The maintained aggregate is read instead of the order history
+        verify(farmSalesRepository, times(1)).findById(1);
+        verifyNoInteractions(orderRepository);
     }
-}
 
+    @Test
+    void whenCalculateTotalSalesByFarmId_withoutSales_thenReturnZero() {
+        // Given
+        when(farmSalesRepository.findById(1)).thenReturn(Optional.empty());
+
+        // When
+        double totalSales = farmService.calculateTotalSalesByFarmId(1);
+
+        // Then
+        assertEquals(0.0, totalSales, 0.01);
+    }
+
+    @Test
+    void whenRebuildSalesByFarmId_thenRecomputeFromOrders() {
+        // Given
+        when(orderRepository.sumTotalAmountByFarmId(1)).thenReturn(250.0);
+        when(orderRepository.countByFarmId(1)).thenReturn(3L);
+        when(farmSalesRepository.save(any(FarmSales.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        FarmSales farmSales = farmService.rebuildSalesByFarmId(1);
+
+        // Then
+        assertEquals(1, farmSales.getFarmId());
+        assertEquals(250.0, farmSales.getTotalSales(), 0.01);
+        assertEquals(3L, farmSales.getOrderCount());
+        assertNotNull(farmSales.getLastUpdated());
+
+        verify(farmSalesRepository, times(1)).save(any(FarmSales.class));
+    }
+
+    @Test
+    void whenGetFarmDashboard_thenReturnAggregatedDashboard() {
+        // Given
+        FarmDashboardDTO dashboard = FarmDashboardDTO.builder()
+                .farmId(1).farmName("Farm 1")
+                .totalSales(100.0).orderCount(1L)
+                .averageRating(4.5).reviewCount(2L)
+                .productCount(1L).totalStock(100L)
+                .build();
+        when(farmRepository.getFarmDashboard(1)).thenReturn(Optional.of(dashboard));
+
+        // When
+        Optional<FarmDashboardDTO> result = farmService.getFarmDashboard(1);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(100.0, result.get().getTotalSales(), 0.01);
+        assertEquals(100L, result.get().getTotalStock());
+
+        verify(farmRepository, times(1)).getFarmDashboard(1);
+        verifyNoInteractions(orderRepository, productRepository);
+    }
+}
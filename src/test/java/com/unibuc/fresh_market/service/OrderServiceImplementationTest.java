@@ -1,23 +1,40 @@
 package com.unibuc.fresh_market.service;
 
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.FarmSales;
 import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Product;
 import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.CursorPage;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptDTO;
+import com.unibuc.fresh_market.dto.OrderReceiptRowDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
+import com.unibuc.fresh_market.repository.FarmSalesRepository;
 import com.unibuc.fresh_market.repository.OrderRepository;
 import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
 import com.unibuc.fresh_market.service.OrderService.OrderServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,9 +46,19 @@ public class OrderServiceImplementationTest {
     @Mock
     private ProductOrderRepository productOrderRepository;
 
+    @Mock
+    private FarmSalesRepository farmSalesRepository;
+
+    @Mock
+    private FarmReportService farmReportService;
+
     @InjectMocks
     private OrderServiceImplementation orderService;
 
+    private final ProductOrderMapper productOrderMapper = Mappers.getMapper(ProductOrderMapper.class);
+
+    private final OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+
     private Order order;
     private ProductOrder productOrder;
 
@@ -71,6 +98,37 @@ public class OrderServiceImplementationTest {
         verify(orderRepository, times(1)).save(any(Order.class));
     }
 
+    @Test
+    void whenCreateOrderForFarm_thenAddToFarmSales() {
+        // Given
+        order.setFarm(Farm.builder().id(7).build());
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        when(farmSalesRepository.addToFarmSales(eq(7), eq(100.0), eq(1L), any())).thenReturn(1);
+
+        // When
+        orderService.createOrder(order);
+
+        // Then
+        verify(farmSalesRepository, times(1)).addToFarmSales(eq(7), eq(100.0), eq(1L), any());
+        verify(farmSalesRepository, never()).save(any(FarmSales.class));
+    }
+
+    @Test
+    void whenUpdateOrderTotal_thenAddDifferenceToFarmSales() {
+        // Given
+        order.setFarm(Farm.builder().id(7).build());
+        Order update = Order.builder().status("Shipped").totalAmount(null).build();
+        when(orderRepository.findById(1)).thenReturn(Optional.of(order));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        when(farmSalesRepository.addToFarmSales(eq(7), eq(-100.0), eq(0L), any())).thenReturn(1);
+
+        // When
+        orderService.updateOrder(1, update, null);
+
+        // Then
+        verify(farmSalesRepository, times(1)).addToFarmSales(eq(7), eq(-100.0), eq(0L), any());
+    }
+
     @Test
     void whenGetAllOrders_thenReturnListOfOrders() {
         // Given
@@ -88,6 +146,62 @@ public class OrderServiceImplementationTest {
         verify(orderRepository, times(1)).findAll();
     }
 
+    @Test
+    void whenGetOrdersPage_withMoreRows_thenReturnNextCursor() {
+        // Given
+        Order secondOrder = Order.builder().id(2).status("Shipped").build();
+        when(orderRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(2))).thenReturn(List.of(order, secondOrder));
+
+        // When
+        CursorPage<Order> page = orderService.getOrdersPage(null, 1);
+
+        // Then
+        assertEquals(1, page.getItems().size());
+        assertEquals(order.getId(), page.getItems().getFirst().getId());
+        assertEquals(CursorPage.encodeCursor(order.getId()), page.getNextCursor());
+
+        verify(orderRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(2));
+    }
+
+    @Test
+    void whenGetOrdersPage_afterCursor_thenQueryFromCursorId() {
+        // Given
+        String cursor = CursorPage.encodeCursor(1);
+        when(orderRepository.findByIdGreaterThanOrderByIdAsc(1, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of());
+
+        // When
+        CursorPage<Order> page = orderService.getOrdersPage(cursor, null);
+
+        // Then
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void whenGetOrdersPage_withInvalidCursor_thenThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersPage("not-a-cursor", 10));
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void whenStreamAllOrders_thenHandEachRowToActionAndCloseStream() {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        List<OrderDTO> rows = orderMapper.mapToDTOs(List.of(order));
+        when(orderRepository.streamAllOrders()).thenReturn(rows.stream().onClose(() -> closed.set(true)));
+
+        // When
+        List<OrderDTO> result = new ArrayList<>();
+        orderService.streamAllOrders(result::add);
+
+        // Then
+        assertEquals(rows, result);
+        assertTrue(closed.get());
+
+        verify(orderRepository, times(1)).streamAllOrders();
+    }
+
     @Test
     void whenGetOrderById_thenReturnOrder() {
         // Given
@@ -116,7 +230,7 @@ public class OrderServiceImplementationTest {
         when(orderRepository.save(any(Order.class))).thenReturn(updatedOrder);
 
         // When
-        Optional<Order> result = orderService.updateOrder(1, updatedOrder);
+        Optional<Order> result = orderService.updateOrder(1, updatedOrder, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -146,10 +260,10 @@ public class OrderServiceImplementationTest {
     @Test
     void whenGetOrdersByStatus_thenReturnListOfOrders() {
         // Given
-        when(orderRepository.findOrdersByStatus("Pending")).thenReturn(List.of(order));
+        when(orderRepository.findOrdersByStatus("Pending")).thenReturn(List.of(orderMapper.mapToDTO(order)));
 
         // When
-        List<Order> result = orderService.getOrdersByStatus("Pending");
+        List<OrderDTO> result = orderService.getOrdersByStatus("Pending");
 
         // Then
         assertNotNull(result);
@@ -163,10 +277,10 @@ public class OrderServiceImplementationTest {
     @Test
     void whenGetOrderDetails_thenReturnListOfProductOrders() {
         // Given
-        when(productOrderRepository.findProductOrdersByOrderId(1)).thenReturn(List.of(productOrder));
+        when(productOrderRepository.findProductOrdersByOrderId(1)).thenReturn(List.of(productOrderMapper.mapToDTO(productOrder)));
 
         // When
-        List<ProductOrder> result = orderService.getOrderDetails(1);
+        List<ProductOrderDTO> result = orderService.getOrderDetails(1);
 
         // Then
         assertNotNull(result);
@@ -175,5 +289,66 @@ public class OrderServiceImplementationTest {
 
         verify(productOrderRepository, times(1)).findProductOrdersByOrderId(1);
     }
-}
 
+    @Test
+    void whenGetOrderReceipt_thenBuildReceiptFromRows() {
+        // Given
+        List<OrderReceiptRowDTO> rows = List.of(
+                new OrderReceiptRowDTO(1, "Pending", order.getCreatedAt(), 7, 10, 1, "Apples", 3.0, 4),
+                new OrderReceiptRowDTO(1, "Pending", order.getCreatedAt(), 7, 11, 2, "Milk", 1.5, 2));
+        when(orderRepository.getOrderReceiptRows(1)).thenReturn(rows);
+
+        // When
+        Optional<OrderReceiptDTO> receipt = orderService.getOrderReceipt(1);
+
+        // Then
+        assertTrue(receipt.isPresent());
+        assertEquals(7, receipt.get().getFarmId());
+        assertEquals(2, receipt.get().getLines().size());
+        assertEquals(12.0, receipt.get().getLines().getFirst().getLineTotal(), 0.01);
+        assertEquals(15.0, receipt.get().getTotal(), 0.01);
+
+        verify(orderRepository, times(1)).getOrderReceiptRows(1);
+        verifyNoInteractions(productOrderRepository);
+    }
+
+    @Test
+    void whenGetOrderReceiptWithoutLines_thenReturnEmptyReceipt() {
+        // Given
+        when(orderRepository.getOrderReceiptRows(1)).thenReturn(List.of(
+                new OrderReceiptRowDTO(1, "Pending", order.getCreatedAt(), null, null, null, null, null, null)));
+
+        // When
+        Optional<OrderReceiptDTO> receipt = orderService.getOrderReceipt(1);
+
+        // Then
+        assertTrue(receipt.isPresent());
+        assertTrue(receipt.get().getLines().isEmpty());
+        assertEquals(0.0, receipt.get().getTotal(), 0.01);
+    }
+
+    @Test
+    void whenGetOrderReceiptForMissingOrder_thenReturnEmpty() {
+        // Given
+        when(orderRepository.getOrderReceiptRows(1)).thenReturn(List.of());
+
+        // When
+        Optional<OrderReceiptDTO> receipt = orderService.getOrderReceipt(1);
+
+        // Then
+        assertTrue(receipt.isEmpty());
+    }
+
+    @Test
+    void whenUpdateOrderWithStaleVersion_thenThrowExceptionAndKeepFarmSales() {
+        // Given
+        order.setVersion(3L);
+        Order staleOrder = Order.builder().id(1).status("Shipped").totalAmount(500.0).build();
+        when(orderRepository.findById(1)).thenReturn(Optional.of(order));
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> orderService.updateOrder(1, staleOrder, 2L));
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(farmSalesRepository);
+    }
+}
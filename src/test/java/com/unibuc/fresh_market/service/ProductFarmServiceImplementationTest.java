@@ -2,21 +2,33 @@ package com.unibuc.fresh_market.service;
 
 import com.unibuc.fresh_market.domain.Farm;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductAvailability;
 import com.unibuc.fresh_market.domain.ProductFarm;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.ProductFarmDTO;
+import com.unibuc.fresh_market.mapper.ProductFarmMapper;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
 import com.unibuc.fresh_market.repository.ProductFarmRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.ProductFarmService.InsufficientStockException;
 import com.unibuc.fresh_market.service.ProductFarmService.ProductFarmServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,9 +37,17 @@ public class ProductFarmServiceImplementationTest {
     @Mock
     private ProductFarmRepository productFarmRepository;
 
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
     @InjectMocks
     private ProductFarmServiceImplementation productFarmService;
 
+    private final ProductFarmMapper productFarmMapper = Mappers.getMapper(ProductFarmMapper.class);
+
     private ProductFarm productFarm;
     private List<ProductFarm> productFarmList;
 
@@ -87,6 +107,26 @@ public class ProductFarmServiceImplementationTest {
         verify(productFarmRepository, times(1)).save(any(ProductFarm.class));
     }
 
+    @Test
+    void whenCreateProductFarmForStockedProduct_thenThrowException() {
+        // Given
+        ProductFarm duplicate = ProductFarm.builder()
+                .product(Product.builder().id(100).build())
+                .farm(Farm.builder().id(1).build())
+                .quantity(5)
+                .build();
+        when(productFarmRepository.existsByFarmIdAndProductId(1, 100)).thenReturn(true);
+
+        // When & Then
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+            productFarmService.createProductFarm(duplicate);
+        });
+        assertEquals("Farm 1 already stocks product 100", thrown.getMessage());
+
+        verify(productFarmRepository, never()).save(any());
+        verify(productAvailabilityRepository, never()).addToProductAvailability(any(), any(), any(), any());
+    }
+
     @Test
     void whenGetAllProductFarms_thenReturnListOfProductFarms() {
         // Given
@@ -136,7 +176,7 @@ public class ProductFarmServiceImplementationTest {
         when(productFarmRepository.save(any(ProductFarm.class))).thenReturn(updatedProductFarm);
 
         // When
-        Optional<ProductFarm> result = productFarmService.updateProductFarm(1, updatedProductFarm);
+        Optional<ProductFarm> result = productFarmService.updateProductFarm(1, updatedProductFarm, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -166,16 +206,16 @@ public class ProductFarmServiceImplementationTest {
     @Test
     void whenGetProductFarmsByFarmId_thenReturnListOfProductFarms() {
         // Given
-        when(productFarmRepository.findAllByFarmId(10)).thenReturn(List.of(productFarm));
+        when(productFarmRepository.findAllByFarmId(10)).thenReturn(List.of(productFarmMapper.mapToDTO(productFarm)));
 
         // When
-        List<ProductFarm> result = productFarmService.getProductFarmsByFarmId(10);
+        List<ProductFarmDTO> result = productFarmService.getProductFarmsByFarmId(10);
 
         // Then
         assertNotNull(result);
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
-        assertEquals(productFarm.getFarm(), result.getFirst().getFarm());
+        assertEquals(productFarm.getFarm().getId(), result.getFirst().getFarmId());
 
         verify(productFarmRepository, times(1)).findAllByFarmId(10);
     }
@@ -183,16 +223,16 @@ public class ProductFarmServiceImplementationTest {
     @Test
     void whenGetProductFarmsByProductId_thenReturnListOfProductFarms() {
         // Given
-        when(productFarmRepository.findAllByProductId(100)).thenReturn(productFarmList);
+        when(productFarmRepository.findAllByProductId(100)).thenReturn(productFarmMapper.mapToDTOs(productFarmList));
 
         // When
-        List<ProductFarm> result = productFarmService.getProductFarmsByProductId(100);
+        List<ProductFarmDTO> result = productFarmService.getProductFarmsByProductId(100);
 
         // Then
         assertNotNull(result);
         assertFalse(result.isEmpty());
         assertEquals(2, result.size());
-        assertEquals(productFarm.getProduct(), result.getFirst().getProduct());
+        assertEquals(productFarm.getProduct().getId(), result.getFirst().getProductId());
 
         verify(productFarmRepository, times(1)).findAllByProductId(100);
     }
@@ -200,7 +240,8 @@ public class ProductFarmServiceImplementationTest {
     @Test
     void whenCalculateProductStockAcrossFarms_thenReturnTotalStock() {
         // Given
-        when(productFarmRepository.findAllByProductId(100)).thenReturn(productFarmList);
+        ProductAvailability productAvailability = ProductAvailability.builder().productId(100).totalQuantity(250L).farmsInStock(2L).build();
+        when(productAvailabilityRepository.findById(100)).thenReturn(Optional.of(productAvailability));
 
         // When
         Integer totalStock = productFarmService.calculateProductStockAcrossFarms(100);
@@ -209,7 +250,176 @@ public class ProductFarmServiceImplementationTest {
         assertNotNull(totalStock);
         assertEquals(250, totalStock);
 
-        verify(productFarmRepository, times(1)).findAllByProductId(100);
+        verify(productAvailabilityRepository, times(1)).findById(100);
+        verify(productFarmRepository, never()).findAllByProductId(100);
+    }
+
+    @Test
+    void whenUpdateProductFarmToZero_thenDecrementFarmsInStock() {
+        // Given
+        productFarm.getProduct().setId(100);
+        ProductFarm soldOut = ProductFarm.builder().quantity(0).build();
+        when(productFarmRepository.findById(1)).thenReturn(Optional.of(productFarm));
+        when(productFarmRepository.save(any(ProductFarm.class))).thenReturn(productFarm);
+        when(productAvailabilityRepository.addToProductAvailability(eq(100), eq(-100L), eq(-1L), any())).thenReturn(1);
+
+        // When
+        productFarmService.updateProductFarm(1, soldOut, null);
+
+        // Then
+        verify(productAvailabilityRepository, times(1)).addToProductAvailability(eq(100), eq(-100L), eq(-1L), any());
+    }
+
+    @Test
+    void whenGetStockForProducts_thenReturnOneEntryPerProduct() {
+        // Given
+        ProductAvailability apples = ProductAvailability.builder().productId(1).totalQuantity(30L).farmsInStock(1L).build();
+        when(productAvailabilityRepository.findAllById(List.of(1, 2))).thenReturn(List.of(apples));
+
+        // When
+        List<ProductAvailability> stock = productFarmService.getStockForProducts(List.of(1, 2));
+
+        // Then
+        assertEquals(2, stock.size());
+        assertEquals(30L, stock.get(0).getTotalQuantity());
+        assertEquals(2, stock.get(1).getProductId());
+        assertEquals(0L, stock.get(1).getTotalQuantity());
+
+        verify(productAvailabilityRepository, times(1)).findAllById(List.of(1, 2));
+    }
+
+    @Test
+    void whenReserveStock_thenDecrementStockAndAvailability() {
+        // Given
+        when(productFarmRepository.decrementQuantity(1, 100, 10)).thenReturn(1);
+        when(productFarmRepository.decrementQuantity(1, 101, 5)).thenReturn(1);
+        when(productFarmRepository.findSoldOutProductIds(eq(1), any())).thenReturn(List.of(101));
+        when(productAvailabilityRepository.addToProductAvailability(eq(100), eq(-10L), eq(0L), any())).thenReturn(1);
+        when(productAvailabilityRepository.addToProductAvailability(eq(101), eq(-5L), eq(-1L), any())).thenReturn(1);
+
+        // When
+        productFarmService.reserveStock(1, Map.of(101, 5, 100, 10));
+
+        // Then
+        verify(productFarmRepository, times(1)).decrementQuantity(1, 100, 10);
+        verify(productFarmRepository, times(1)).decrementQuantity(1, 101, 5);
+        verify(productAvailabilityRepository, times(2)).addToProductAvailability(any(), any(), any(), any());
+        verify(productAvailabilityRepository, never()).save(any());
+    }
+
+    @Test
+    void whenReserveStockWithInsufficientStock_thenThrowException() {
+        // Given
+        when(productFarmRepository.decrementQuantity(1, 100, 10)).thenReturn(0);
+
+        // When & Then
+        InsufficientStockException thrown = assertThrows(InsufficientStockException.class, () -> {
+            productFarmService.reserveStock(1, Map.of(100, 10));
+        });
+        assertEquals("Insufficient stock for product 100 at farm 1", thrown.getMessage());
+
+        verify(productAvailabilityRepository, never()).addToProductAvailability(any(), any(), any(), any());
+    }
+
+    @Test
+    void whenReserveStockDecrementsMoreThanOneRow_thenThrowException() {
+        // Given
+        when(productFarmRepository.decrementQuantity(1, 100, 10)).thenReturn(2);
+
+        // When & Then
+        InsufficientStockException thrown = assertThrows(InsufficientStockException.class, () -> {
+            productFarmService.reserveStock(1, Map.of(100, 10));
+        });
+        assertEquals("Insufficient stock for product 100 at farm 1", thrown.getMessage());
+
+        verify(productAvailabilityRepository, never()).addToProductAvailability(any(), any(), any(), any());
+    }
+
+    @Test
+    void whenUpdateProductFarmWithStaleVersion_thenThrowExceptionAndKeepAvailability() {
+        // Given
+        productFarm.setVersion(5L);
+        ProductFarm staleProductFarm = ProductFarm.builder().id(1).quantity(0).build();
+        when(productFarmRepository.findById(1)).thenReturn(Optional.of(productFarm));
+
+        // When & Then
+        OptimisticLockingFailureException thrown = assertThrows(OptimisticLockingFailureException.class, () -> {
+            productFarmService.updateProductFarm(1, staleProductFarm, 4L);
+        });
+        assertEquals("ProductFarm 1 has been modified since version 4", thrown.getMessage());
+
+        verify(productFarmRepository, never()).save(any(ProductFarm.class));
+        verifyNoInteractions(productAvailabilityRepository);
     }
-}
 
+    @Test
+    void whenUpdateProductFarmWithMatchingVersion_thenSave() {
+        // Given
+        productFarm.setVersion(5L);
+        ProductFarm update = ProductFarm.builder().id(1).quantity(100).notes("Restocked").build();
+        when(productFarmRepository.findById(1)).thenReturn(Optional.of(productFarm));
+        when(productFarmRepository.save(productFarm)).thenReturn(productFarm);
+
+        // When
+        Optional<ProductFarm> result = productFarmService.updateProductFarm(1, update, 5L);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals("Restocked", result.get().getNotes());
+    }
+
+    @Test
+    void whenCreateProductFarms_thenSaveInOneCallAndUpdateAvailabilityOncePerProduct() {
+        // Given
+        Product apples = Product.builder().id(100).name("Apples").build();
+        Product carrots = Product.builder().id(101).name("Carrots").build();
+        List<ProductFarm> stockRows = List.of(
+                ProductFarm.builder().product(apples).quantity(10).build(),
+                ProductFarm.builder().product(apples).quantity(0).build(),
+                ProductFarm.builder().product(apples).quantity(5).build(),
+                ProductFarm.builder().product(carrots).quantity(7).build());
+        when(productFarmRepository.saveAll(stockRows)).thenReturn(stockRows);
+        when(productAvailabilityRepository.addToProductAvailability(eq(100), eq(15L), eq(2L), any())).thenReturn(1);
+        when(productAvailabilityRepository.addToProductAvailability(eq(101), eq(7L), eq(1L), any())).thenReturn(1);
+
+        // When
+        List<ProductFarm> createdProductFarms = productFarmService.createProductFarms(stockRows);
+
+        // Then
+        assertEquals(4, createdProductFarms.size());
+        verify(productFarmRepository, times(1)).saveAll(stockRows);
+        verify(productFarmRepository, never()).save(any(ProductFarm.class));
+        verify(productAvailabilityRepository, times(2)).addToProductAvailability(any(), any(), any(), any());
+        verify(productAvailabilityRepository, never()).save(any(ProductAvailability.class));
+        verify(catalogVersionService, times(1)).bumpCatalogVersion();
+    }
+
+    @Test
+    void whenUpsertProductFarms_thenUpdateStockedRowsInsertTheRestAndApplyOnlyTheDelta() {
+        // Given
+        Farm farm = Farm.builder().id(1).build();
+        Product apples = Product.builder().id(100).name("Apples").build();
+        Product carrots = Product.builder().id(101).name("Carrots").build();
+        ProductFarm storedApples = ProductFarm.builder().id(7).farm(farm).product(apples).quantity(10).notes("old").build();
+        ProductFarm carrotsRow = ProductFarm.builder().farm(farm).product(carrots).quantity(7).build();
+        List<ProductFarm> stockRows = List.of(
+                ProductFarm.builder().farm(farm).product(carrots).quantity(3).build(),
+                ProductFarm.builder().farm(farm).product(apples).quantity(4).notes("recount").build(),
+                carrotsRow);
+        when(productFarmRepository.findAllByFarmIdInAndProductIdIn(Set.of(1), Set.of(100, 101))).thenReturn(List.of(storedApples));
+        when(productFarmRepository.saveAll(List.of(carrotsRow))).thenReturn(List.of(carrotsRow));
+        when(productAvailabilityRepository.addToProductAvailability(eq(100), eq(-6L), eq(0L), any())).thenReturn(1);
+        when(productAvailabilityRepository.addToProductAvailability(eq(101), eq(7L), eq(1L), any())).thenReturn(1);
+
+        // When
+        List<ProductFarm> upsertedProductFarms = productFarmService.upsertProductFarms(stockRows);
+
+        // Then
+        assertEquals(List.of(storedApples, carrotsRow), upsertedProductFarms);
+        assertEquals(4, storedApples.getQuantity());
+        assertEquals("recount", storedApples.getNotes());
+        verify(productFarmRepository, times(1)).saveAll(List.of(carrotsRow));
+        verify(productAvailabilityRepository, times(2)).addToProductAvailability(any(), any(), any(), any());
+        verify(catalogVersionService, times(1)).bumpCatalogVersion();
+    }
+}
@@ -1,18 +1,30 @@
 package com.unibuc.fresh_market.service;
 
+import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Product;
 import com.unibuc.fresh_market.domain.ProductOrder;
+import com.unibuc.fresh_market.dto.OrderTotalDTO;
+import com.unibuc.fresh_market.dto.ProductOrderDTO;
+import com.unibuc.fresh_market.mapper.ProductOrderMapper;
+import com.unibuc.fresh_market.repository.OrderRepository;
 import com.unibuc.fresh_market.repository.ProductOrderRepository;
+import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
 import com.unibuc.fresh_market.service.ProductOrderService.ProductOrderServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,9 +35,20 @@ public class ProductOrderServiceImplementationTest {
     @Mock
     private ProductOrderRepository productOrderRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private FarmReportService farmReportService;
+
     @InjectMocks
     private ProductOrderServiceImplementation productOrderService;
 
+    private final ProductOrderMapper productOrderMapper = Mappers.getMapper(ProductOrderMapper.class);
+
     private ProductOrder productOrder;
     private List<ProductOrder> productOrderList;
 
@@ -86,6 +109,24 @@ public class ProductOrderServiceImplementationTest {
         verify(productOrderRepository, times(1)).findAll();
     }
 
+    @Test
+    void whenStreamAllProductOrders_thenHandEachRowToActionAndCloseStream() {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        List<ProductOrderDTO> rows = productOrderMapper.mapToDTOs(productOrderList);
+        when(productOrderRepository.streamAllProductOrders()).thenReturn(rows.stream().onClose(() -> closed.set(true)));
+
+        // When
+        List<ProductOrderDTO> result = new ArrayList<>();
+        productOrderService.streamAllProductOrders(result::add);
+
+        // Then
+        assertEquals(rows, result);
+        assertTrue(closed.get());
+
+        verify(productOrderRepository, times(1)).streamAllProductOrders();
+    }
+
     @Test
     void whenGetProductOrderById_thenReturnProductOrder() {
         // Given
@@ -117,7 +158,7 @@ public class ProductOrderServiceImplementationTest {
         when(productOrderRepository.save(any(ProductOrder.class))).thenReturn(updatedProductOrder);
 
         // When
-        Optional<ProductOrder> result = productOrderService.updateProductOrder(1, updatedProductOrder);
+        Optional<ProductOrder> result = productOrderService.updateProductOrder(1, updatedProductOrder, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -131,7 +172,11 @@ public class ProductOrderServiceImplementationTest {
     @Test
     void whenDeleteProductOrder_thenReturnDeletedProductOrder() {
         // Given
+        Date orderDate = new Date();
+        Order order = Order.builder().id(7).farm(Farm.builder().id(3).build()).createdAt(orderDate).build();
+        productOrder.setOrder(Order.builder().id(7).build());
         when(productOrderRepository.findById(1)).thenReturn(Optional.of(productOrder));
+        when(orderRepository.findAllById(List.of(7))).thenReturn(List.of(order));
 
         // When
         Optional<ProductOrder> result = productOrderService.deleteProductOrder(1);
@@ -142,15 +187,16 @@ public class ProductOrderServiceImplementationTest {
 
         verify(productOrderRepository, times(1)).findById(1);
         verify(productOrderRepository, times(1)).delete(productOrder);
+        verify(farmReportService, times(1)).invalidateMonthlyReport(3, orderDate);
     }
 
     @Test
     void whenGetProductOrdersByOrderId_thenReturnListOfProductOrders() {
         // Given
-        when(productOrderRepository.findProductOrdersByOrderId(1)).thenReturn(productOrderList);
+        when(productOrderRepository.findProductOrdersByOrderId(1)).thenReturn(productOrderMapper.mapToDTOs(productOrderList));
 
         // When
-        List<ProductOrder> result = productOrderService.getProductOrdersByOrderId(1);
+        List<ProductOrderDTO> result = productOrderService.getProductOrdersByOrderId(1);
 
         // Then
         assertNotNull(result);
@@ -164,7 +210,7 @@ public class ProductOrderServiceImplementationTest {
     @Test
     void whenCalculateTotalOrderValue_thenReturnTotalValue() {
         // Given
-        when(productOrderRepository.findProductOrdersByOrderId(1)).thenReturn(productOrderList);
+        when(productOrderRepository.getOrderTotal(1)).thenReturn(new OrderTotalDTO(2L, 2L, 600.0));
 
         // When
         double totalValue = productOrderService.calculateTotalOrderValue(1);
@@ -172,13 +218,15 @@ public class ProductOrderServiceImplementationTest {
         // Then
         assertEquals(600.0, totalValue, 0.01);
 
-        verify(productOrderRepository, times(1)).findProductOrdersByOrderId(1);
+        // The total is summed in SQL, no line items are loaded
+        verify(productOrderRepository, times(1)).getOrderTotal(1);
+        verify(productOrderRepository, never()).findProductOrdersByOrderId(1);
     }
 
     @Test
     void whenCalculateTotalOrderValue_thenThrowExceptionIfNoProducts() {
         // Given
-        when(productOrderRepository.findProductOrdersByOrderId(1)).thenReturn(List.of());
+        when(productOrderRepository.getOrderTotal(1)).thenReturn(new OrderTotalDTO(0L, 0L, null));
 
         // When & Then
         IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
@@ -190,18 +238,45 @@ public class ProductOrderServiceImplementationTest {
     @Test
     void whenCalculateTotalOrderValue_thenThrowExceptionIfProductNotFound() {
         // Given
-        ProductOrder invalidProductOrder = ProductOrder.builder()
-                .id(1)
-                .product(null)  // Simulating missing product
-                .quantity(100)
-                .build();
-        when(productOrderRepository.findProductOrdersByOrderId(1)).thenReturn(List.of(invalidProductOrder));
+        when(productOrderRepository.getOrderTotal(1)).thenReturn(new OrderTotalDTO(1L, 0L, null));
 
         // When & Then
         IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
             productOrderService.calculateTotalOrderValue(1);
         });
-        assertEquals("Product not found for ProductOrder ID: 1", thrown.getMessage());
+        assertEquals("Product not found for a ProductOrder of order ID: 1", thrown.getMessage());
+    }
+
+    @Test
+    void whenCreateProductOrders_thenSaveAllInOneCall() {
+        // Given
+        when(productOrderRepository.saveAll(productOrderList)).thenReturn(productOrderList);
+
+        // When
+        List<ProductOrder> createdProductOrders = productOrderService.createProductOrders(productOrderList);
+
+        // Then
+        assertEquals(productOrderList, createdProductOrders);
+        verify(productOrderRepository, times(1)).saveAll(productOrderList);
+        verify(productOrderRepository, never()).save(any(ProductOrder.class));
     }
-}
 
+    @Test
+    void givenLinesWithoutPrice_whenCreateProductOrders_thenRecordTheProductsCurrentPrice() {
+        // Given
+        Product apples = Product.builder().id(1).name("Apples").price(3.0).build();
+        ProductOrder unpriced = ProductOrder.builder().product(Product.builder().id(1).build()).quantity(2).build();
+        ProductOrder priced = ProductOrder.builder().product(Product.builder().id(1).build()).quantity(1).unitPrice(2.5).build();
+        List<ProductOrder> productOrders = List.of(unpriced, priced);
+        when(productRepository.findAllById(List.of(1))).thenReturn(List.of(apples));
+        when(productOrderRepository.saveAll(productOrders)).thenReturn(productOrders);
+
+        // When
+        productOrderService.createProductOrders(productOrders);
+
+        // Then
+        assertEquals(3.0, unpriced.getUnitPrice());
+        assertEquals(2.5, priced.getUnitPrice());
+        verify(productRepository, times(1)).findAllById(List.of(1));
+    }
+}
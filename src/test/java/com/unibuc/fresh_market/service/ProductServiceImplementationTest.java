@@ -1,14 +1,23 @@
 package com.unibuc.fresh_market.service;
 
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.dto.ProductDTO;
+import com.unibuc.fresh_market.mapper.ProductMapper;
+import com.unibuc.fresh_market.repository.ProductAvailabilityRepository;
+import com.unibuc.fresh_market.repository.ProductOrderRepository;
 import com.unibuc.fresh_market.repository.ProductRepository;
+import com.unibuc.fresh_market.service.CatalogVersionService.CatalogVersionService;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
 import com.unibuc.fresh_market.service.ProductService.ProductServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,9 +32,23 @@ public class ProductServiceImplementationTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private ProductOrderRepository productOrderRepository;
+
+    @Mock
+    private CatalogVersionService catalogVersionService;
+
+    @Mock
+    private FarmReportService farmReportService;
+
     @InjectMocks
     private ProductServiceImplementation productService;
 
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+
     private Product product;
 
     @BeforeEach
@@ -54,6 +77,24 @@ public class ProductServiceImplementationTest {
         assertEquals(product.getDescription(), createdProduct.getDescription());
 
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(productAvailabilityRepository, times(1)).createProductAvailabilities(List.of(1));
+    }
+
+    @Test
+    void whenCreateProducts_thenSaveThemTogetherAndBumpCatalogVersionOnce() {
+        // Given
+        List<Product> productList = List.of(product, Product.builder().id(2).name("Product 2").price(20.0).build());
+        when(productRepository.saveAll(productList)).thenReturn(productList);
+
+        // When
+        List<Product> createdProducts = productService.createProducts(productList);
+
+        // Then
+        assertEquals(productList, createdProducts);
+        verify(productRepository, times(1)).saveAll(productList);
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productAvailabilityRepository, times(1)).createProductAvailabilities(List.of(1, 2));
+        verify(catalogVersionService, times(1)).bumpCatalogVersion();
     }
 
     @Test
@@ -101,7 +142,7 @@ public class ProductServiceImplementationTest {
         when(productRepository.save(any(Product.class))).thenReturn(updatedProduct);
 
         // When
-        Optional<Product> result = productService.updateProduct(1, updatedProduct);
+        Optional<Product> result = productService.updateProduct(1, updatedProduct, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -127,15 +168,31 @@ public class ProductServiceImplementationTest {
 
         verify(productRepository, times(1)).findById(1);
         verify(productRepository, times(1)).delete(product);
+        verify(productAvailabilityRepository, times(1)).deleteById(1);
+    }
+
+    @Test
+    void whenDeleteProductWithOrders_thenInvalidateTheReportsOfTheFarmsItSoldAt() {
+        // Given
+        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+        when(productOrderRepository.findOrderFarmIdsByProductId(1)).thenReturn(List.of(3, 4));
+
+        // When
+        productService.deleteProduct(1);
+
+        // Then
+        InOrder inOrder = inOrder(farmReportService, productRepository);
+        inOrder.verify(farmReportService).invalidateMonthlyReports(List.of(3, 4));
+        inOrder.verify(productRepository).delete(product);
     }
 
     @Test
     void whenGetProductsByFarmId_thenReturnListOfProducts() {
         // Given
-        when(productRepository.getProductsByFarmId(1)).thenReturn(List.of(product));
+        when(productRepository.getProductsByFarmId(1)).thenReturn(List.of(productMapper.mapToDTO(product)));
 
         // When
-        List<Product> result = productService.getProductsByFarmId(1);
+        List<ProductDTO> result = productService.getProductsByFarmId(1);
 
         // Then
         assertNotNull(result);
@@ -145,5 +202,43 @@ public class ProductServiceImplementationTest {
 
         verify(productRepository, times(1)).getProductsByFarmId(1);
     }
-}
 
+    @Test
+    void whenUpdateProductWithStaleVersion_thenThrowExceptionAndDoNotSave() {
+        // Given
+        product.setVersion(2L);
+        Product staleProduct = Product.builder().id(1).name("Stale Product").price(10.0).build();
+        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> productService.updateProduct(1, staleProduct, 1L));
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void whenProductIsWritten_thenBumpCatalogVersion() {
+        // Given
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+
+        // When
+        productService.createProduct(product);
+        productService.updateProduct(1, product, null);
+        productService.deleteProduct(1);
+
+        // Then
+        verify(catalogVersionService, times(3)).bumpCatalogVersion();
+    }
+
+    @Test
+    void whenUpdateMissingProduct_thenKeepCatalogVersion() {
+        // Given
+        when(productRepository.findById(1)).thenReturn(Optional.empty());
+
+        // When
+        productService.updateProduct(1, product, null);
+
+        // Then
+        verifyNoInteractions(catalogVersionService);
+    }
+}
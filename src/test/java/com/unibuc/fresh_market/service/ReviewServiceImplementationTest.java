@@ -1,12 +1,20 @@
 package com.unibuc.fresh_market.service;
 
 import com.unibuc.fresh_market.domain.Farm;
+import com.unibuc.fresh_market.domain.FarmRating;
 import com.unibuc.fresh_market.domain.Review;
+import com.unibuc.fresh_market.dto.FarmRatingCountDTO;
+import com.unibuc.fresh_market.dto.RatingCountDTO;
+import com.unibuc.fresh_market.dto.RatingHistogramDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.mapper.ReviewMapper;
+import com.unibuc.fresh_market.repository.FarmRatingRepository;
 import com.unibuc.fresh_market.repository.ReviewRepository;
 import com.unibuc.fresh_market.service.ReviewService.ReviewServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,6 +24,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,9 +33,14 @@ public class ReviewServiceImplementationTest {
     @Mock
     private ReviewRepository reviewRepository;
 
+    @Mock
+    private FarmRatingRepository farmRatingRepository;
+
     @InjectMocks
     private ReviewServiceImplementation reviewService;
 
+    private final ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
     private Farm farm;
     private Review review;
 
@@ -105,7 +119,7 @@ public class ReviewServiceImplementationTest {
         when(reviewRepository.save(any(Review.class))).thenReturn(updatedReview);
 
         // When
-        Optional<Review> result = reviewService.updateReview(1, updatedReview);
+        Optional<Review> result = reviewService.updateReview(1, updatedReview, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -135,10 +149,10 @@ public class ReviewServiceImplementationTest {
     @Test
     void whenGetReviewsByFarmId_thenReturnListOfReviews() {
         // Given
-        when(reviewRepository.getReviewsByFarmId(1)).thenReturn(List.of(review));
+        when(reviewRepository.getReviewsByFarmId(1)).thenReturn(List.of(reviewMapper.mapToDTO(review)));
 
         // When
-        List<Review> result = reviewService.getReviewsByFarmId(1);
+        List<ReviewDTO> result = reviewService.getReviewsByFarmId(1);
 
         // Then
         assertNotNull(result);
@@ -149,15 +163,70 @@ public class ReviewServiceImplementationTest {
         verify(reviewRepository, times(1)).getReviewsByFarmId(1);
     }
 
+    @Test
+    void whenCreateReview_thenAddToFarmRating() {
+        // Given
+        when(reviewRepository.save(any(Review.class))).thenReturn(review);
+        when(farmRatingRepository.addToFarmRating(eq(1), eq(1L), eq(5L), eq(0L), eq(0L), eq(0L), eq(0L), eq(1L), any())).thenReturn(1);
+
+        // When
+        reviewService.createReview(review);
+
+        // Then
+        verify(farmRatingRepository, times(1)).addToFarmRating(eq(1), eq(1L), eq(5L), eq(0L), eq(0L), eq(0L), eq(0L), eq(1L), any());
+        verify(farmRatingRepository, never()).save(any(FarmRating.class));
+    }
+
+    @Test
+    void whenUpdateReviewRating_thenMoveReviewBetweenHistogramBuckets() {
+        // Given
+        Review updatedReview = Review.builder().id(1).content("Changed my mind").rating(2).farm(farm).build();
+        when(reviewRepository.findById(1)).thenReturn(Optional.of(review));
+        when(reviewRepository.save(any(Review.class))).thenReturn(review);
+        when(farmRatingRepository.addToFarmRating(eq(1), eq(0L), eq(-3L), eq(0L), eq(1L), eq(0L), eq(0L), eq(-1L), any())).thenReturn(1);
+
+        // When
+        reviewService.updateReview(1, updatedReview, null);
+
+        // Then
+        verify(farmRatingRepository, times(1)).addToFarmRating(eq(1), eq(0L), eq(-3L), eq(0L), eq(1L), eq(0L), eq(0L), eq(-1L), any());
+    }
+
+    @Test
+    void whenDeleteReview_thenSubtractFromFarmRating() {
+        // Given
+        when(reviewRepository.findById(1)).thenReturn(Optional.of(review));
+
+        // When
+        reviewService.deleteReview(1);
+
+        // Then
+        verify(farmRatingRepository, times(1)).addToFarmRating(eq(1), eq(-1L), eq(-5L), eq(0L), eq(0L), eq(0L), eq(0L), eq(-1L), any());
+        verify(farmRatingRepository, never()).save(any(FarmRating.class));
+    }
+
+    @Test
+    void whenRemoveFromFarmRatingsByUserId_thenSubtractTheUsersReviewsPerFarm() {
+        // Given
+        when(reviewRepository.countRatingsByFarmForUserId(7)).thenReturn(List.of(
+                new FarmRatingCountDTO(1, 5, 2L),
+                new FarmRatingCountDTO(1, 2, 1L),
+                new FarmRatingCountDTO(3, 4, 1L)));
+
+        // When
+        reviewService.removeFromFarmRatingsByUserId(7);
+
+        // Then
+        verify(farmRatingRepository, times(1)).addToFarmRating(eq(1), eq(-3L), eq(-12L), eq(0L), eq(-1L), eq(0L), eq(0L), eq(-2L), any());
+        verify(farmRatingRepository, times(1)).addToFarmRating(eq(3), eq(-1L), eq(-4L), eq(0L), eq(0L), eq(0L), eq(-1L), eq(0L), any());
+        verifyNoMoreInteractions(farmRatingRepository);
+    }
+
     @Test
     void whenCalculateAverageRatingByFarmId_thenReturnCorrectAverage() {
         // Given
-        List<Review> reviews = List.of(
-                Review.builder().rating(4).build(),
-                Review.builder().rating(5).build(),
-                Review.builder().rating(3).build()
-        );
-        when(reviewRepository.getReviewsByFarmId(1)).thenReturn(reviews);
+        FarmRating farmRating = FarmRating.builder().farmId(1).reviewCount(3L).ratingSum(12L).build();
+        when(farmRatingRepository.findById(1)).thenReturn(Optional.of(farmRating));
 
         // When
         double averageRating = reviewService.calculateAverageRatingByFarmId(1);
@@ -165,13 +234,14 @@ public class ReviewServiceImplementationTest {
         // Then
         assertEquals(4.0, averageRating);
 
-        verify(reviewRepository, times(1)).getReviewsByFarmId(1);
+        verify(farmRatingRepository, times(1)).findById(1);
+        verify(reviewRepository, never()).getReviewsByFarmId(1);
     }
 
     @Test
     void whenCalculateAverageRatingByFarmIdWithNoReviews_thenReturnZero() {
         // Given
-        when(reviewRepository.getReviewsByFarmId(1)).thenReturn(List.of());
+        when(farmRatingRepository.findById(1)).thenReturn(Optional.empty());
 
         // When
         double averageRating = reviewService.calculateAverageRatingByFarmId(1);
@@ -179,7 +249,41 @@ public class ReviewServiceImplementationTest {
         // Then
         assertEquals(0.0, averageRating);
 
-        verify(reviewRepository, times(1)).getReviewsByFarmId(1);
+        verify(farmRatingRepository, times(1)).findById(1);
     }
-}
 
+    @Test
+    void whenGetRatingHistogramByFarmId_thenReturnStarCounts() {
+        // Given
+        FarmRating farmRating = FarmRating.builder().farmId(1).reviewCount(3L).ratingSum(13L)
+                .oneStarCount(0L).twoStarCount(0L).threeStarCount(0L).fourStarCount(2L).fiveStarCount(1L).build();
+        when(farmRatingRepository.findById(1)).thenReturn(Optional.of(farmRating));
+
+        // When
+        RatingHistogramDTO histogram = reviewService.getRatingHistogramByFarmId(1);
+
+        // Then
+        assertEquals(3L, histogram.getReviewCount());
+        assertEquals(13.0 / 3, histogram.getAverageRating(), 0.001);
+        assertEquals(2L, histogram.getHistogram().get(4));
+        assertEquals(1L, histogram.getHistogram().get(5));
+        assertEquals(0L, histogram.getHistogram().get(1));
+    }
+
+    @Test
+    void whenRebuildRatingByFarmId_thenRecomputeFromReviews() {
+        // Given
+        when(reviewRepository.countRatingsByFarmId(1)).thenReturn(List.of(new RatingCountDTO(5, 1L), new RatingCountDTO(3, 2L)));
+        when(farmRatingRepository.save(any(FarmRating.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        FarmRating farmRating = reviewService.rebuildRatingByFarmId(1);
+
+        // Then
+        assertEquals(3L, farmRating.getReviewCount());
+        assertEquals(11L, farmRating.getRatingSum());
+        assertEquals(1L, farmRating.getFiveStarCount());
+        assertEquals(2L, farmRating.getThreeStarCount());
+        assertNotNull(farmRating.getLastUpdated());
+    }
+}
@@ -96,7 +96,7 @@ public class RoleServiceImplementationTest {
         when(roleRepository.save(any(Role.class))).thenReturn(updatedRole);
 
         // When
-        Optional<Role> result = roleService.updateRole(1, updatedRole);
+        Optional<Role> result = roleService.updateRole(1, updatedRole, null);
 
         // Then
         assertTrue(result.isPresent());
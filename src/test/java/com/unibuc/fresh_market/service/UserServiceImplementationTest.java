@@ -3,13 +3,27 @@ package com.unibuc.fresh_market.service;
 import com.unibuc.fresh_market.domain.Farm;
 import com.unibuc.fresh_market.domain.Order;
 import com.unibuc.fresh_market.domain.Product;
+import com.unibuc.fresh_market.domain.ProductFarm;
 import com.unibuc.fresh_market.domain.Review;
 import com.unibuc.fresh_market.domain.security.User;
+import com.unibuc.fresh_market.dto.FarmOrderTotalDTO;
+import com.unibuc.fresh_market.dto.OrderDTO;
+import com.unibuc.fresh_market.dto.ReviewDTO;
+import com.unibuc.fresh_market.mapper.OrderMapper;
+import com.unibuc.fresh_market.mapper.ReviewMapper;
+import com.unibuc.fresh_market.repository.FarmSalesRepository;
+import com.unibuc.fresh_market.repository.OrderRepository;
+import com.unibuc.fresh_market.repository.ReviewRepository;
 import com.unibuc.fresh_market.repository.security.UserRepository;
+import com.unibuc.fresh_market.service.FarmReportService.FarmReportService;
+import com.unibuc.fresh_market.service.FarmService.FarmService;
+import com.unibuc.fresh_market.service.ReviewService.ReviewService;
 import com.unibuc.fresh_market.service.UserService.UserServiceImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -22,6 +36,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,12 +45,33 @@ public class UserServiceImplementationTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private FarmService farmService;
+
+    @Mock
+    private FarmReportService farmReportService;
+
+    @Mock
+    private FarmSalesRepository farmSalesRepository;
+
+    @Mock
+    private ReviewService reviewService;
+
     @InjectMocks
     private UserServiceImplementation userService;
 
+    private final OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+    private final ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
     private User user;
     private List<Order> orderList;
     private List<Review> reviewList;
@@ -105,6 +141,25 @@ public class UserServiceImplementationTest {
         assertEquals("encodedPassword", createdUser.getPassword());
 
         verify(userRepository, times(1)).save(any(User.class));
+        verifyNoInteractions(farmService);
+    }
+
+    @Test
+    void whenCreateUserWithNewFarm_thenCreateFarmThroughFarmService() {
+        // Given
+        Farm newFarm = Farm.builder().name("New Farm").address("1 Orchard Road").build();
+        Farm createdFarm = Farm.builder().id(9).name("New Farm").address("1 Orchard Road").build();
+        user.setFarm(newFarm);
+        when(passwordEncoder.encode(any(String.class))).thenReturn("encodedPassword");
+        when(farmService.createFarm(newFarm)).thenReturn(createdFarm);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        User createdUser = userService.createUser(user);
+
+        // Then
+        assertSame(createdFarm, createdUser.getFarm());
+        verify(farmService, times(1)).createFarm(newFarm);
     }
 
     @Test
@@ -153,7 +208,7 @@ public class UserServiceImplementationTest {
         when(userRepository.save(any(User.class))).thenReturn(updatedUser);
 
         // When
-        Optional<User> result = userService.updateUser(1, updatedUser);
+        Optional<User> result = userService.updateUser(1, updatedUser, null);
 
         // Then
         assertTrue(result.isPresent());
@@ -181,36 +236,104 @@ public class UserServiceImplementationTest {
     }
 
     @Test
-    void whenGetOrdersByUserId_thenReturnOrders() {
+    void whenDeleteUserWithOrders_thenTakeThemOutOfTheFarmsSalesAndReports() {
+        // Given
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(orderRepository.sumOrdersByFarmForUserId(1)).thenReturn(List.of(
+                new FarmOrderTotalDTO(3, 80.0, 2L),
+                new FarmOrderTotalDTO(4, 12.5, 1L)));
+
+        // When
+        userService.deleteUser(1);
+
+        // Then
+        verify(farmSalesRepository, times(1)).addToFarmSales(eq(3), eq(-80.0), eq(-2L), any(Date.class));
+        verify(farmSalesRepository, times(1)).addToFarmSales(eq(4), eq(-12.5), eq(-1L), any(Date.class));
+        verify(farmReportService, times(1)).invalidateMonthlyReports(List.of(3, 4));
+        verify(userRepository, times(1)).delete(user);
+    }
+
+    @Test
+    void whenDeleteUser_thenTakeTheirReviewsOutOfTheFarmRatingsFirst() {
         // Given
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
 
         // When
-        List<Order> result = userService.getOrdersByUserId(1);
+        userService.deleteUser(1);
+
+        // Then
+        InOrder inOrder = inOrder(reviewService, userRepository);
+        inOrder.verify(reviewService).removeFromFarmRatingsByUserId(1);
+        inOrder.verify(userRepository).delete(user);
+    }
+
+    @Test
+    void whenDeleteUserOwningAStockedFarm_thenDeleteTheFarmThroughFarmService() {
+        // Given
+        Farm ownFarm = Farm.builder().id(5).name("Own Farm").build();
+        ownFarm.setProductFarms(List.of(ProductFarm.builder().farm(ownFarm).product(Product.builder().id(1).build()).quantity(40).build()));
+        user.setFarm(ownFarm);
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+
+        // When
+        Optional<User> result = userService.deleteUser(1);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertNull(user.getFarm());
+        verify(userRepository, times(1)).saveAndFlush(user);
+        verify(farmService, times(1)).deleteFarm(5);
+        verify(userRepository, times(1)).delete(user);
+    }
+
+    @Test
+    void whenDeleteFarmOwner_thenTheFarmGoesThroughDeleteFarmBeforeTheUser() {
+        // Given
+        user.setFarm(Farm.builder().id(5).name("Own Farm").build());
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+
+        // When
+        userService.deleteUser(1);
+
+        // Then
+        // deleteFarm bumps the catalog version, so conditional GETs of the farm's products stop answering 304
+        InOrder inOrder = inOrder(userRepository, farmService);
+        inOrder.verify(userRepository).saveAndFlush(user);
+        inOrder.verify(farmService).deleteFarm(5);
+        inOrder.verify(userRepository).delete(user);
+        verifyNoMoreInteractions(farmService);
+    }
+
+    @Test
+    void whenGetOrdersByUserId_thenReturnOrders() {
+        // Given
+        when(orderRepository.findOrdersByUserId(1)).thenReturn(orderMapper.mapToDTOs(orderList));
+
+        // When
+        List<OrderDTO> result = userService.getOrdersByUserId(1);
 
         // Then
         assertNotNull(result);
         assertFalse(result.isEmpty());
         assertEquals(orderList.size(), result.size());
 
-        // Verify findById method is called
-        verify(userRepository, times(1)).findById(1);
+        verify(orderRepository, times(1)).findOrdersByUserId(1);
     }
 
     @Test
     void whenGetReviewsByUserId_thenReturnReviews() {
         // Given
-        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(reviewRepository.getReviewsByUserId(1)).thenReturn(reviewMapper.mapToDTOs(reviewList));
 
         // When
-        List<Review> result = userService.getReviewsByUserId(1);
+        List<ReviewDTO> result = userService.getReviewsByUserId(1);
 
         // Then
         assertNotNull(result);
         assertFalse(result.isEmpty());
         assertEquals(reviewList.size(), result.size());
 
-        verify(userRepository, times(1)).findById(1);
+        verify(reviewRepository, times(1)).getReviewsByUserId(1);
     }
 }
 